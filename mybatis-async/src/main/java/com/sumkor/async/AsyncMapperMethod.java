@@ -0,0 +1,134 @@
+package com.sumkor.async;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.reflection.TypeParameterResolver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+
+/**
+ * 返回 CompletableFuture 的 Mapper 方法，对应 {@link org.apache.ibatis.binding.MapperMethod}
+ *
+ * 1. 语句查找：依次在 Mapper 接口及其父接口中查找与方法同名的语句，找不到时去掉方法名末尾的 Async 再找一次，
+ *    因此 selectByPrimaryKeyAsync 对应父接口 StudentMapper 中的 selectByPrimaryKey；
+ * 2. 参数：与 MapperMethod 一致，通过 ParamNameResolver 处理 @Param；
+ * 3. 结果：CompletableFuture 的泛型参数是集合时 selectList，否则 selectOne；写操作返回影响行数。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class AsyncMapperMethod {
+
+    private static final String ASYNC_SUFFIX = "Async";
+
+    private final String statementId;
+
+    private final SqlCommandType commandType;
+
+    private final Class<?> resultType;
+
+    private final ParamNameResolver paramNameResolver;
+
+    public AsyncMapperMethod(Class<?> mapperInterface, Method method, Configuration configuration) {
+        MappedStatement ms = resolveMappedStatement(mapperInterface, method.getName(), configuration);
+        if (ms == null && method.getName().endsWith(ASYNC_SUFFIX)) {
+            String name = method.getName();
+            ms = resolveMappedStatement(mapperInterface, name.substring(0, name.length() - ASYNC_SUFFIX.length()), configuration);
+        }
+        if (ms == null) {
+            throw new BindingException("Invalid bound statement (not found): " + mapperInterface.getName() + "." + method.getName());
+        }
+        this.statementId = ms.getId();
+        this.commandType = ms.getSqlCommandType();
+        this.resultType = resolveResultType(mapperInterface, method);
+        this.paramNameResolver = new ParamNameResolver(configuration, method);
+    }
+
+    public boolean isWrite() {
+        return commandType == SqlCommandType.INSERT || commandType == SqlCommandType.UPDATE || commandType == SqlCommandType.DELETE;
+    }
+
+    public Object execute(SqlSession sqlSession, Object[] args) {
+        Object param = paramNameResolver.getNamedParams(args);
+        switch (commandType) {
+            case INSERT:
+                return rowCountResult(sqlSession.insert(statementId, param));
+            case UPDATE:
+                return rowCountResult(sqlSession.update(statementId, param));
+            case DELETE:
+                return rowCountResult(sqlSession.delete(statementId, param));
+            case SELECT:
+                if (Collection.class.isAssignableFrom(resultType)) {
+                    return sqlSession.selectList(statementId, param);
+                }
+                return sqlSession.selectOne(statementId, param);
+            default:
+                throw new BindingException("Unknown execution method for: " + statementId);
+        }
+    }
+
+    /**
+     * 与 MapperMethod#rowCountResult 一致
+     */
+    private Object rowCountResult(int rowCount) {
+        if (Void.class.equals(resultType)) {
+            return null;
+        }
+        if (Integer.class.equals(resultType) || Object.class.equals(resultType)) {
+            return rowCount;
+        }
+        if (Long.class.equals(resultType)) {
+            return (long) rowCount;
+        }
+        if (Boolean.class.equals(resultType)) {
+            return rowCount > 0;
+        }
+        throw new BindingException("Mapper method '" + statementId + "' has an unsupported return type: CompletableFuture<" + resultType.getName() + ">");
+    }
+
+    /**
+     * 广度优先查找 Mapper 接口及其父接口
+     */
+    private static MappedStatement resolveMappedStatement(Class<?> mapperInterface, String methodName, Configuration configuration) {
+        Deque<Class<?>> interfaces = new ArrayDeque<>();
+        interfaces.add(mapperInterface);
+        while (!interfaces.isEmpty()) {
+            Class<?> type = interfaces.poll();
+            String statementId = type.getName() + "." + methodName;
+            if (configuration.hasStatement(statementId)) {
+                return configuration.getMappedStatement(statementId);
+            }
+            for (Class<?> superInterface : type.getInterfaces()) {
+                interfaces.add(superInterface);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * CompletableFuture&lt;List&lt;Student&gt;&gt; -> List
+     */
+    private static Class<?> resolveResultType(Class<?> mapperInterface, Method method) {
+        Type returnType = TypeParameterResolver.resolveReturnType(method, mapperInterface);
+        if (!(returnType instanceof ParameterizedType)) {
+            return Object.class;
+        }
+        Type argument = ((ParameterizedType) returnType).getActualTypeArguments()[0];
+        if (argument instanceof Class) {
+            return (Class<?>) argument;
+        }
+        if (argument instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) argument).getRawType();
+        }
+        return Object.class;
+    }
+}
@@ -0,0 +1,56 @@
+package com.sumkor.async;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.SqlSession;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 异步 Mapper 的代理，对应 {@link org.apache.ibatis.binding.MapperProxy}
+ *
+ * 异步接口通常继承同步的 Mapper 接口，例如：
+ * <pre>
+ * public interface AsyncStudentMapper extends StudentMapper {
+ *     CompletableFuture&lt;Student&gt; selectByPrimaryKeyAsync(int id);
+ * }
+ * </pre>
+ * 1. 返回 CompletableFuture 的方法，按 {@link AsyncMapperMethod} 找到对应的语句，提交到线程池执行；
+ * 2. 继承来的同步方法，在调用线程上打开一个自动提交的会话执行，与直接使用 SqlSession#getMapper 一致。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class AsyncMapperProxy implements InvocationHandler {
+
+    private final AsyncSqlSessionFactory asyncSqlSessionFactory;
+
+    private final Class<?> mapperInterface;
+
+    private final Map<Method, AsyncMapperMethod> methodCache = new ConcurrentHashMap<>();
+
+    public AsyncMapperProxy(AsyncSqlSessionFactory asyncSqlSessionFactory, Class<?> mapperInterface) {
+        this.asyncSqlSessionFactory = asyncSqlSessionFactory;
+        this.mapperInterface = mapperInterface;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (Object.class.equals(method.getDeclaringClass())) {
+            return method.invoke(this, args);
+        }
+        if (CompletableFuture.class.equals(method.getReturnType())) {
+            AsyncMapperMethod mapperMethod = methodCache.computeIfAbsent(method, m ->
+                    new AsyncMapperMethod(mapperInterface, m, asyncSqlSessionFactory.getSqlSessionFactory().getConfiguration()));
+            return asyncSqlSessionFactory.execute(mapperMethod.isWrite(), sqlSession -> mapperMethod.execute(sqlSession, args));
+        }
+        try (SqlSession sqlSession = asyncSqlSessionFactory.getSqlSessionFactory().openSession(true)) {
+            return method.invoke(sqlSession.getMapper(method.getDeclaringClass()), args);
+        } catch (Throwable t) {
+            throw ExceptionUtil.unwrapThrowable(t);
+        }
+    }
+}
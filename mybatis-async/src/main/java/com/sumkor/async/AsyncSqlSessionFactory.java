@@ -0,0 +1,107 @@
+package com.sumkor.async;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 在独立的有界线程池中执行 SQL，调用线程拿到 CompletableFuture 之后立即返回，不必阻塞在数据库 I/O 上
+ *
+ * MyBatis 的 Mapper 代理是同步的，每个方法都在调用线程上完成整个 JDBC 往返，见 StudentMapper.txt 中反编译的 $Proxy8：
+ * @see org.apache.ibatis.binding.MapperProxy#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+ *
+ * 这里的做法：
+ * 1. 每个任务在工作线程上打开自己的 SqlSession，执行完成后提交（写操作）并关闭，会话和连接不会跨线程传递；
+ * 2. 工作线程数、队列长度都是有界的，线程数不应超过连接池的最大连接数，否则多出的线程只会在连接池上等待；
+ * 3. 队列已满或已关闭时不阻塞调用线程，直接返回以 RejectedExecutionException 失败的 CompletableFuture。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@Slf4j
+public class AsyncSqlSessionFactory {
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final ExecutorService executor;
+
+    public AsyncSqlSessionFactory(SqlSessionFactory sqlSessionFactory, int threads, int queueCapacity) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        int poolNumber = POOL_NUMBER.incrementAndGet();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "mybatis-async-" + poolNumber + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        this.executor = threadPoolExecutor;
+    }
+
+    /**
+     * 使用指定的线程池，例如 {@link VirtualThreads#newVirtualThreadPerTaskExecutor()}
+     */
+    public AsyncSqlSessionFactory(SqlSessionFactory sqlSessionFactory, ExecutorService executor) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.executor = executor;
+    }
+
+    /**
+     * 获取异步 Mapper，返回 CompletableFuture 的方法异步执行，其余方法在调用线程上同步执行
+     * @see AsyncMapperProxy
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getMapper(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, new AsyncMapperProxy(this, type));
+    }
+
+    /**
+     * 在工作线程上打开会话执行 action，write 为 true 时执行成功后提交
+     */
+    public <T> CompletableFuture<T> execute(boolean write, Function<SqlSession, T> action) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+                    T result = action.apply(sqlSession);
+                    if (write) {
+                        sqlSession.commit();
+                    }
+                    return result;
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            if (executor instanceof ThreadPoolExecutor) {
+                ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) executor;
+                log.warn("Async SQL rejected: {} active, {} queued", threadPoolExecutor.getActiveCount(), threadPoolExecutor.getQueue().size());
+            } else {
+                log.warn("Async SQL rejected: {}", e.getMessage());
+            }
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    public SqlSessionFactory getSqlSessionFactory() {
+        return sqlSessionFactory;
+    }
+
+    /**
+     * 不再接收新任务，已提交的任务继续执行
+     */
+    public void close() {
+        executor.shutdown();
+    }
+}
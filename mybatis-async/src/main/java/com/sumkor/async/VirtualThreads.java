@@ -0,0 +1,69 @@
+package com.sumkor.async;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 虚拟线程的工具类。项目的字节码仍为 1.8，因此通过反射调用 JDK 21 的 API，低版本 JDK 上不可用
+ *
+ * 在虚拟线程上执行 SQL 时需要注意：
+ * 1. 虚拟线程在 synchronized 块中、或者调用 Object#wait 阻塞时，会占住载体线程（JDK 21 ~ 23），
+ *    MyBatis 自带的 PooledDataSource 正是在 synchronized (state) 中 state.wait 等待连接，应当换成 ConcurrentPooledDataSource，
+ *    其检出、归还只使用 Semaphore、CAS，等待连接的虚拟线程会让出载体线程；
+ * 2. PageUtil 等 ThreadLocal 不会占住载体线程，每个虚拟线程都有自己的副本，任务结束后随线程一起回收；
+ * 3. 虚拟线程不需要池化，并发数由连接池的最大连接数限制。
+ * @see com.sumkor.async.AsyncSqlSessionFactory#AsyncSqlSessionFactory(org.apache.ibatis.session.SqlSessionFactory, java.util.concurrent.ExecutorService)
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class VirtualThreads {
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR;
+
+    private static final Method IS_VIRTUAL;
+
+    static {
+        Method newExecutor = null;
+        Method isVirtual = null;
+        try {
+            newExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            isVirtual = Thread.class.getMethod("isVirtual");
+        } catch (NoSuchMethodException e) {
+            // JDK 21 以下
+        }
+        NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = newExecutor;
+        IS_VIRTUAL = isVirtual;
+    }
+
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * 每个任务一个虚拟线程
+     * @see java.util.concurrent.Executors#newVirtualThreadPerTaskExecutor()
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require JDK 21 or later, current version is " + System.getProperty("java.version"));
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create virtual thread executor", e);
+        }
+    }
+
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (Boolean) IS_VIRTUAL.invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.sumkor.async;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 延迟写：按主键合并更新，批量写入数据库
+ *
+ * 对于 updateByPrimaryKey 这类按主键写全部字段的语句，同一行在短时间内的多次更新，只有最后一次是有效的。
+ * 这里将更新先暂存在内存中，同一主键只保留最新的实体，达到 maxSize 条或者每隔 flushInterval 毫秒，
+ * 使用 BATCH 执行器在一个事务中写入，减少热点行上的写放大和行锁竞争。
+ *
+ * 1. 顺序：刷新过程整体加锁，先取出的批次一定先写入；同一主键的多次更新以最后一次为准；
+ * 2. 失败：批量写入失败时，逐行重新写入，找出失败的行，其余的行照常提交；
+ *    失败的行放回缓冲区等待下一次刷新（期间有新的更新则以新的为准），连续失败 maxAttempts 次之后不再重试，
+ *    移入死信 {@link #getDeadLetters()}，避免一直失败的行占满缓冲区，使得每次 update() 都同步刷新；
+ * 3. 关闭：close() 会停止定时刷新，反复刷新直到缓冲区为空，写入失败的行在 maxAttempts 次之后移入死信，不会留在缓冲区中；
+ *    未显式关闭时，由 JVM 关闭钩子执行 close()。
+ *
+ * 注意写入是异步的，update() 返回之后数据还没有落库，只适用于允许短暂不一致的字段（例如状态、计数）。
+ * 写入失败不会抛给调用 update()、flush() 的线程，通过日志和死信报告。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@Slf4j
+public class WriteBehindBuffer<K, V> implements AutoCloseable {
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final String statement;
+
+    private final Function<V, K> idGetter;
+
+    private final int maxSize;
+
+    private final int maxAttempts;
+
+    /**
+     * 主键 -> 最新的实体，按首次写入的顺序排列
+     */
+    private Map<K, V> buffer = new LinkedHashMap<>();
+
+    /**
+     * 主键 -> 连续写入失败的次数，有新的更新时清零
+     */
+    private final Map<K, Integer> failures = new HashMap<>();
+
+    /**
+     * 主键 -> 重试 maxAttempts 次仍写入失败的实体
+     */
+    private final Map<K, V> deadLetters = new LinkedHashMap<>();
+
+    private final ReentrantLock bufferLock = new ReentrantLock();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Thread shutdownHook;
+
+    private volatile boolean closed;
+
+    private final AtomicLong submitted = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+
+    /**
+     * @param statement     按主键更新的语句，例如 com.sumkor.mapper.StudentMapper.updateByPrimaryKey
+     * @param idGetter      取得实体的主键
+     * @param maxSize       缓冲区中的实体数达到该值时立即刷新
+     * @param flushInterval 定时刷新的间隔，单位毫秒
+     */
+    public WriteBehindBuffer(SqlSessionFactory sqlSessionFactory, String statement, Function<V, K> idGetter, int maxSize, long flushInterval) {
+        this(sqlSessionFactory, statement, idGetter, maxSize, flushInterval, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * @param maxAttempts 同一个实体最多写入的次数，超过之后移入死信
+     */
+    public WriteBehindBuffer(SqlSessionFactory sqlSessionFactory, String statement, Function<V, K> idGetter, int maxSize, long flushInterval, int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive, but was " + maxAttempts);
+        }
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.statement = statement;
+        this.idGetter = idGetter;
+        this.maxSize = maxSize;
+        this.maxAttempts = maxAttempts;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "mybatis-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        this.shutdownHook = new Thread(this::close, "mybatis-write-behind-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * 暂存一次更新，覆盖同一主键尚未写入的更新
+     */
+    public void update(V entity) {
+        K id = idGetter.apply(entity);
+        if (id == null) {
+            throw new IllegalArgumentException("Could not buffer an update without primary key: " + entity);
+        }
+        int size;
+        bufferLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Write-behind buffer for " + statement + " is closed.");
+            }
+            buffer.put(id, entity);
+            failures.remove(id);
+            size = buffer.size();
+        } finally {
+            bufferLock.unlock();
+        }
+        submitted.incrementAndGet();
+        if (size >= maxSize) {
+            // 由写入方同步刷新，缓冲区不会无限增长
+            flush();
+        }
+    }
+
+    /**
+     * 写入缓冲区中的全部更新，写入失败的行放回缓冲区或者移入死信，不抛出异常
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<K, V> batch = drain();
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                write(batch.values());
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush " + batch.size() + " buffered updates for " + statement + ", retrying one by one", e);
+                restore(writeEach(batch));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private Map<K, V> drain() {
+        bufferLock.lock();
+        try {
+            Map<K, V> batch = buffer;
+            buffer = new LinkedHashMap<>();
+            return batch;
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    private void write(Collection<V> entities) {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            for (V entity : entities) {
+                sqlSession.update(statement, entity);
+            }
+            sqlSession.flushStatements();
+            sqlSession.commit();
+        }
+        written.addAndGet(entities.size());
+        log.debug("Flushed {} buffered updates for {}", entities.size(), statement);
+    }
+
+    /**
+     * 每行在单独的事务中写入，返回写入失败的行
+     */
+    private Map<K, V> writeEach(Map<K, V> batch) {
+        Map<K, V> failed = new LinkedHashMap<>();
+        for (Map.Entry<K, V> entry : batch.entrySet()) {
+            try {
+                write(Collections.singletonList(entry.getValue()));
+            } catch (RuntimeException e) {
+                log.warn("Failed to write buffered update for " + statement + ": " + entry.getValue(), e);
+                failed.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * 放回写入失败的行，期间已有更新的主键以新的为准；失败次数达到 maxAttempts 的行移入死信
+     */
+    private void restore(Map<K, V> failed) {
+        if (failed.isEmpty()) {
+            return;
+        }
+        bufferLock.lock();
+        try {
+            Map<K, V> restored = new LinkedHashMap<>();
+            for (Map.Entry<K, V> entry : failed.entrySet()) {
+                K id = entry.getKey();
+                if (buffer.containsKey(id)) {
+                    continue;
+                }
+                int attempts = failures.merge(id, 1, Integer::sum);
+                if (attempts < maxAttempts) {
+                    restored.put(id, entry.getValue());
+                } else {
+                    failures.remove(id);
+                    deadLetters.put(id, entry.getValue());
+                    log.error("Gave up writing buffered update for {} after {} attempts: {}", statement, attempts, entry.getValue());
+                }
+            }
+            restored.putAll(buffer);
+            buffer = restored;
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Failed to flush buffered updates for " + statement, e);
+        }
+    }
+
+    /**
+     * 尚未写入的实体数
+     */
+    public int getPending() {
+        bufferLock.lock();
+        try {
+            return buffer.size();
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    /**
+     * 重试 maxAttempts 次仍写入失败、不再重试的实体
+     */
+    public Map<K, V> getDeadLetters() {
+        bufferLock.lock();
+        try {
+            return new LinkedHashMap<>(deadLetters);
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    /**
+     * 调用 update() 的次数
+     */
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    /**
+     * 实际写入数据库的行数
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * 停止定时刷新，写入剩余的更新，之后不再接收新的更新
+     *
+     * 关闭之后不会再有新的更新，每次刷新时写入失败的行都会累计失败次数，
+     * 因此最多刷新 maxAttempts 次，缓冲区中的行就全部写入或者移入死信。
+     */
+    @Override
+    public void close() {
+        bufferLock.lock();
+        try {
+            closed = true;
+        } finally {
+            bufferLock.unlock();
+        }
+        scheduler.shutdown();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // JVM 正在关闭，当前就在关闭钩子中，或者由关闭钩子写入
+        }
+        while (getPending() > 0) {
+            flush();
+        }
+    }
+}
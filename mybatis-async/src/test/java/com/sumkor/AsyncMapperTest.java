@@ -0,0 +1,118 @@
+package com.sumkor;
+
+import com.sumkor.async.AsyncSqlSessionFactory;
+import com.sumkor.async.AsyncStudentMapper;
+import com.sumkor.entity.Student;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 返回 CompletableFuture 的 Mapper 方法
+ * @see com.sumkor.async.AsyncSqlSessionFactory
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class AsyncMapperTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private AsyncSqlSessionFactory asyncSqlSessionFactory;
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Reader reader = Resources.getResourceAsReader("mybatis-config-h2.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    @Before
+    public void open() {
+        asyncSqlSessionFactory = new AsyncSqlSessionFactory(sqlSessionFactory, 2, 16);
+    }
+
+    @After
+    public void close() {
+        asyncSqlSessionFactory.close();
+    }
+
+    /**
+     * 查询在工作线程上执行，调用线程只拿到 CompletableFuture
+     */
+    @Test
+    public void select() throws Exception {
+        AsyncStudentMapper mapper = asyncSqlSessionFactory.getMapper(AsyncStudentMapper.class);
+        CompletableFuture<Student> student = mapper.selectByPrimaryKeyAsync(1);
+        CompletableFuture<List<Student>> students = mapper.selectAllAsync();
+
+        System.out.println("student = " + student.get());
+        System.out.println("students = " + students.get());
+        Assert.assertEquals(Integer.valueOf(1), student.get().getId());
+        Assert.assertFalse(students.get().isEmpty());
+        String threadName = asyncSqlSessionFactory.execute(false, sqlSession -> Thread.currentThread().getName()).get();
+        Assert.assertTrue(threadName.startsWith("mybatis-async-"));
+
+        // 继承来的同步方法仍然可以使用
+        Assert.assertEquals(students.get().size(), mapper.selectAll().size());
+    }
+
+    /**
+     * 写操作在工作线程上提交
+     */
+    @Test
+    public void update() throws Exception {
+        AsyncStudentMapper mapper = asyncSqlSessionFactory.getMapper(AsyncStudentMapper.class);
+        Student student = mapper.selectByPrimaryKeyAsync(2).get();
+        String phone = student.getPhone();
+        student.setPhone("13800000000");
+        Assert.assertEquals(Integer.valueOf(1), mapper.updateByPrimaryKeyAsync(student).get());
+        Assert.assertEquals("13800000000", mapper.selectByPrimaryKey(2).getPhone());
+
+        student.setPhone(phone);
+        mapper.updateByPrimaryKeyAsync(student).get();
+    }
+
+    /**
+     * 大量并发调用由有界线程池依次执行；关闭之后的调用直接失败，不阻塞调用线程
+     */
+    @Test
+    public void bounded() throws Exception {
+        AsyncStudentMapper mapper = asyncSqlSessionFactory.getMapper(AsyncStudentMapper.class);
+        List<CompletableFuture<Student>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(mapper.selectByPrimaryKeyAsync(1));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+        asyncSqlSessionFactory.close();
+        try {
+            mapper.selectAllAsync().get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+}
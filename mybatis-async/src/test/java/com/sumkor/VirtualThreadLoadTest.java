@@ -0,0 +1,157 @@
+package com.sumkor;
+
+import com.sumkor.async.AsyncSqlSessionFactory;
+import com.sumkor.async.VirtualThreads;
+import com.sumkor.datasource.ConcurrentPooledDataSource;
+import com.sumkor.datasource.PoolMetrics;
+import com.sumkor.entity.Student;
+import com.sumkor.mapper.StudentMapper;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * 虚拟线程压测：大量并发请求只占用少量载体线程
+ * @see com.sumkor.async.VirtualThreads
+ *
+ * 需要 JDK 21，低版本 JDK 上跳过。jdk21 profile 将载体线程数固定为 2（parallelism、maxPoolSize），
+ * 如果等待连接时占住了载体线程，持有连接的虚拟线程就没有载体线程可用，无法归还连接，压测会超时。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class VirtualThreadLoadTest {
+
+    private static final int TASKS = 10000;
+
+    private static final int QUERIES_PER_TASK = 3;
+
+    private static final long HOLD_MILLIS = 1;
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private static AsyncSqlSessionFactory asyncSqlSessionFactory;
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Assume.assumeTrue("Virtual threads require JDK 21", VirtualThreads.isSupported());
+        Reader reader = Resources.getResourceAsReader("mybatis-config-virtual.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        asyncSqlSessionFactory = new AsyncSqlSessionFactory(sqlSessionFactory, VirtualThreads.newVirtualThreadPerTaskExecutor());
+
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    @AfterClass
+    public static void close() {
+        if (asyncSqlSessionFactory != null) {
+            asyncSqlSessionFactory.close();
+        }
+    }
+
+    /**
+     * 每个请求先等待 20ms（模拟调用下游服务），再执行三次 selectByPrimaryKey，
+     * 第一次查询之后持有连接 HOLD_MILLIS 毫秒（模拟事务中的其他操作），
+     * 上千个请求同时争用 10 个连接，在连接池的信号量上排队
+     */
+    @Test
+    public void load() throws Exception {
+        Set<String> carriers = ConcurrentHashMap.newKeySet();
+        AtomicInteger inFlight = new AtomicInteger();
+        LongAccumulator peakInFlight = new LongAccumulator(Math::max, 0);
+        AtomicInteger holding = new AtomicInteger();
+        LongAccumulator peakHolding = new LongAccumulator(Math::max, 0);
+        AtomicInteger virtual = new AtomicInteger();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            int id = i % 4 + 1;
+            futures.add(asyncSqlSessionFactory.execute(false, sqlSession -> {
+                Thread thread = Thread.currentThread();
+                if (VirtualThreads.isVirtual(thread)) {
+                    virtual.incrementAndGet();
+                }
+                peakInFlight.accumulate(inFlight.incrementAndGet());
+                try {
+                    sleep(20);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                StudentMapper studentMapper = sqlSession.getMapper(StudentMapper.class);
+                int found = 0;
+                for (int j = 0; j < QUERIES_PER_TASK; j++) {
+                    Student student = studentMapper.selectByPrimaryKey(id);
+                    found += student == null ? 0 : 1;
+                    if (j == 0) {
+                        // 第一次查询时检出了连接，直到会话关闭才归还
+                        peakHolding.accumulate(holding.incrementAndGet());
+                        sleep(HOLD_MILLIS);
+                    }
+                }
+                holding.decrementAndGet();
+                // 虚拟线程的 toString 形如 VirtualThread[#22]/runnable@ForkJoinPool-1-worker-1
+                String name = Thread.currentThread().toString();
+                carriers.add(name.substring(name.indexOf('@') + 1));
+                return found;
+            }));
+        }
+        int found = 0;
+        for (CompletableFuture<Integer> future : futures) {
+            found += future.get(60, TimeUnit.SECONDS);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        ConcurrentPooledDataSource dataSource = (ConcurrentPooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+        PoolMetrics metrics = dataSource.getMetrics();
+        System.out.println("elapsed = " + elapsed + "ms, peak in flight = " + peakInFlight.get() + ", peak holding = " + peakHolding.get()
+                + ", carriers = " + carriers + ", connections = " + dataSource.getTotalConnections());
+        System.out.println("metrics = " + metrics);
+
+        Assert.assertEquals(TASKS, virtual.get());
+        Assert.assertEquals(TASKS * QUERIES_PER_TASK, found);
+        Assert.assertTrue(dataSource.getTotalConnections() <= dataSource.getPoolMaximumActiveConnections());
+        // 同时处于等待中的请求远多于载体线程数
+        Assert.assertTrue(peakInFlight.get() >= 1000);
+        // 连接池被占满，有请求在信号量上等待了不止一次持有的时间
+        Assert.assertEquals(dataSource.getPoolMaximumActiveConnections(), peakHolding.get());
+        Assert.assertTrue(metrics.getWaitTime().getMax() > TimeUnit.MILLISECONDS.toMicros(HOLD_MILLIS));
+        Assert.assertEquals(0, metrics.getTimeoutCount());
+        String parallelism = System.getProperty("jdk.virtualThreadScheduler.parallelism");
+        if (parallelism != null) {
+            Assert.assertTrue(carriers.size() <= Integer.parseInt(parallelism));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.sumkor;
+
+import com.sumkor.async.WriteBehindBuffer;
+import com.sumkor.entity.Student;
+import com.sumkor.mapper.StudentMapper;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 延迟写：同一主键的多次更新合并为一次，批量写入
+ * @see com.sumkor.async.WriteBehindBuffer
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class WriteBehindTest {
+
+    private static final String UPDATE = "com.sumkor.mapper.StudentMapper.updateByPrimaryKey";
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Reader reader = Resources.getResourceAsReader("mybatis-config-h2.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    /**
+     * 1500 次更新只写入 2 行，刷新之前数据库中还是旧值
+     */
+    @Test
+    public void coalesce() {
+        try (WriteBehindBuffer<Integer, Student> buffer = new WriteBehindBuffer<>(sqlSessionFactory, UPDATE, Student::getId, 100, 60000)) {
+            Student student05 = select(5);
+            Student student06 = select(6);
+            byte locked05 = student05.getLocked();
+            for (int i = 0; i < 1000; i++) {
+                student05 = copy(student05);
+                student05.setLocked((byte) (i % 2));
+                buffer.update(student05);
+            }
+            for (int i = 0; i < 500; i++) {
+                student06 = copy(student06);
+                student06.setName("小红" + i);
+                buffer.update(student06);
+            }
+            Assert.assertEquals(2, buffer.getPending());
+            Assert.assertEquals(Byte.valueOf(locked05), select(5).getLocked());
+
+            buffer.flush();
+            System.out.println("\r\n submitted = " + buffer.getSubmitted() + ", written = " + buffer.getWritten() + "\r\n");
+            Assert.assertEquals(1500, buffer.getSubmitted());
+            Assert.assertEquals(2, buffer.getWritten());
+            Assert.assertEquals(Byte.valueOf((byte) 1), select(5).getLocked());
+            Assert.assertEquals("小红499", select(6).getName());
+        }
+    }
+
+    /**
+     * 缓冲区达到 maxSize 时由写入方同步刷新
+     */
+    @Test
+    public void sizeTrigger() {
+        try (WriteBehindBuffer<Integer, Student> buffer = new WriteBehindBuffer<>(sqlSessionFactory, UPDATE, Student::getId, 3, 60000)) {
+            for (int id = 1; id <= 3; id++) {
+                buffer.update(select(id));
+            }
+            Assert.assertEquals(0, buffer.getPending());
+            Assert.assertEquals(3, buffer.getWritten());
+        }
+    }
+
+    /**
+     * 一直写入失败的行（name 超出列宽）不影响同批次的其他行，也不会抛给 update()，重试 maxAttempts 次之后移入死信
+     */
+    @Test
+    public void deadLetter() {
+        try (WriteBehindBuffer<Integer, Student> buffer = new WriteBehindBuffer<>(sqlSessionFactory, UPDATE, Student::getId, 2, 60000, 2)) {
+            Student bad = select(1);
+            bad.setName("name longer than twenty characters");
+            Student good = select(2);
+            good.setPhone("13900000001");
+            buffer.update(bad);
+            buffer.update(good);
+            Assert.assertEquals(1, buffer.getPending());
+            Assert.assertTrue(buffer.getDeadLetters().isEmpty());
+            Assert.assertEquals("13900000001", select(2).getPhone());
+
+            good = copy(good);
+            good.setPhone("13900000002");
+            buffer.update(good);
+            System.out.println("\r\n deadLetters = " + buffer.getDeadLetters() + "\r\n");
+            Assert.assertEquals(0, buffer.getPending());
+            Assert.assertSame(bad, buffer.getDeadLetters().get(1));
+            Assert.assertEquals("13900000002", select(2).getPhone());
+            Assert.assertNotEquals(bad.getName(), select(1).getName());
+        }
+    }
+
+    /**
+     * 定时刷新
+     */
+    @Test
+    public void timeTrigger() throws Exception {
+        try (WriteBehindBuffer<Integer, Student> buffer = new WriteBehindBuffer<>(sqlSessionFactory, UPDATE, Student::getId, 100, 50)) {
+            Student student = select(4);
+            student.setPhone("13800000000");
+            buffer.update(student);
+            for (int i = 0; i < 100 && buffer.getWritten() == 0; i++) {
+                Thread.sleep(20);
+            }
+            Assert.assertEquals(1, buffer.getWritten());
+            Assert.assertEquals("13800000000", select(4).getPhone());
+        }
+    }
+
+    /**
+     * 关闭时写入剩余数据，之后不再接收更新
+     */
+    @Test
+    public void close() {
+        WriteBehindBuffer<Integer, Student> buffer = new WriteBehindBuffer<>(sqlSessionFactory, UPDATE, Student::getId, 100, 60000);
+        Student student = select(3);
+        student.setEmail("closed@mybatis.cn");
+        buffer.update(student);
+        buffer.close();
+        Assert.assertEquals("closed@mybatis.cn", select(3).getEmail());
+        try {
+            buffer.update(student);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            System.out.println("\r\n e = " + e.getMessage() + "\r\n");
+        }
+    }
+
+    /**
+     * 关闭时写入失败的行不会留在缓冲区中：重试到 maxAttempts 次之后移入死信，其余的行照常写入
+     */
+    @Test
+    public void closeWithFailure() {
+        WriteBehindBuffer<Integer, Student> buffer = new WriteBehindBuffer<>(sqlSessionFactory, UPDATE, Student::getId, 100, 60000, 3);
+        Student bad = select(1);
+        bad.setName("name longer than twenty characters");
+        Student good = select(5);
+        good.setEmail("close@mybatis.cn");
+        buffer.update(bad);
+        buffer.update(good);
+        buffer.close();
+        System.out.println("\r\n deadLetters = " + buffer.getDeadLetters() + "\r\n");
+        Assert.assertEquals(0, buffer.getPending());
+        Assert.assertSame(bad, buffer.getDeadLetters().get(1));
+        Assert.assertEquals("close@mybatis.cn", select(5).getEmail());
+    }
+
+    private Student select(int id) {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            return sqlSession.getMapper(StudentMapper.class).selectByPrimaryKey(id);
+        }
+    }
+
+    private Student copy(Student student) {
+        Student copy = new Student();
+        copy.setId(student.getId());
+        copy.setName(student.getName());
+        copy.setPhone(student.getPhone());
+        copy.setEmail(student.getEmail());
+        copy.setSex(student.getSex());
+        copy.setLocked(student.getLocked());
+        return copy;
+    }
+}
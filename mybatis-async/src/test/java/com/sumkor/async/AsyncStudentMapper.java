@@ -0,0 +1,22 @@
+package com.sumkor.async;
+
+import com.sumkor.entity.Student;
+import com.sumkor.mapper.StudentMapper;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步版本的 StudentMapper，语句沿用 StudentMapper 中的定义
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public interface AsyncStudentMapper extends StudentMapper {
+
+    CompletableFuture<Student> selectByPrimaryKeyAsync(int id);
+
+    CompletableFuture<List<Student>> selectAllAsync();
+
+    CompletableFuture<Integer> updateByPrimaryKeyAsync(Student student);
+}
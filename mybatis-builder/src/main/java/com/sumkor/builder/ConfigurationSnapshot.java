@@ -0,0 +1,95 @@
+package com.sumkor.builder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 配置快照，由 {@link ConfigurationSnapshotCompiler} 在构建期生成，由 {@link SnapshotSqlSessionFactoryBuilder} 在运行期加载
+ *
+ * Configuration、MappedStatement、ResultMap 等对象没有实现 Serializable，且持有 Class、反射缓存等运行期对象，无法直接序列化。
+ * 因此快照中保存的是预处理之后的配置内容：
+ * 1. 配置文件：<typeAliases> 中的 <package> 已展开为逐个 <typeAlias>，去掉 DOCTYPE 和 <mappers>；
+ * 2. Mapper：<package> 已展开为逐个 Mapper 接口，对应的 XML 文件内容已读入，去掉 DOCTYPE。
+ *
+ * 运行期不再扫描类路径，也不再进行 DTD 校验，${} 占位符仍在运行期替换，因此快照中不包含数据库密码等环境相关的配置。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class ConfigurationSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String configXml;
+
+    private final List<MapperSource> mappers;
+
+    public ConfigurationSnapshot(String configXml, List<MapperSource> mappers) {
+        this.configXml = configXml;
+        this.mappers = mappers;
+    }
+
+    public String getConfigXml() {
+        return configXml;
+    }
+
+    public List<MapperSource> getMappers() {
+        return mappers;
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        ObjectOutputStream out = new ObjectOutputStream(outputStream);
+        out.writeObject(this);
+        out.flush();
+    }
+
+    public static ConfigurationSnapshot readFrom(InputStream inputStream) throws IOException, ClassNotFoundException {
+        return (ConfigurationSnapshot) new ObjectInputStream(inputStream).readObject();
+    }
+
+    /**
+     * 一个 Mapper：接口和 XML 至少有一个
+     */
+    public static class MapperSource implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Mapper 接口的全限定名
+         */
+        private final String type;
+
+        /**
+         * XML 文件的路径，用于错误信息和 Configuration#isResourceLoaded
+         */
+        private final String resource;
+
+        /**
+         * XML 文件内容
+         */
+        private final String xml;
+
+        public MapperSource(String type, String resource, String xml) {
+            this.type = type;
+            this.resource = resource;
+            this.xml = xml;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getResource() {
+            return resource;
+        }
+
+        public String getXml() {
+            return xml;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.sumkor.builder;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.io.ResolverUtil;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 构建期生成 {@link ConfigurationSnapshot}
+ *
+ * 1. 完整解析一次配置文件，确保配置本身是正确的，并得到全部类型别名；
+ * 2. 展开 <typeAliases>、<mappers> 中的 <package>，相当于提前执行 ResolverUtil 的类路径扫描；
+ * @see org.apache.ibatis.builder.xml.XMLConfigBuilder#typeAliasesElement(org.apache.ibatis.parsing.XNode)
+ * @see org.apache.ibatis.binding.MapperRegistry#addMappers(java.lang.String, java.lang.Class)
+ * 3. 读入 Mapper XML，与 MapperAnnotationBuilder 一样，接口对应的 XML 位于同名路径下。
+ * @see org.apache.ibatis.builder.annotation.MapperAnnotationBuilder#loadXmlResource()
+ *
+ * 用法：java com.sumkor.builder.ConfigurationSnapshotCompiler mybatis-config.xml target/classes/mybatis-config.snapshot
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class ConfigurationSnapshotCompiler {
+
+    private static final Pattern DOCTYPE = Pattern.compile("<!DOCTYPE[^>]*>");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: ConfigurationSnapshotCompiler <config resource> <output file>");
+        }
+        try (OutputStream outputStream = new FileOutputStream(args[1])) {
+            compile(args[0]).writeTo(outputStream);
+        }
+    }
+
+    public static ConfigurationSnapshot compile(String resource) throws Exception {
+        String xml = read(Resources.getResourceAsStream(resource));
+        Configuration configuration = new XMLConfigBuilder(new StringReader(xml)).parse();
+
+        Document document = parse(xml);
+        Element root = document.getDocumentElement();
+        expandTypeAliases(document, root, configuration);
+        List<ConfigurationSnapshot.MapperSource> mappers = new ArrayList<>();
+        Element mappersElement = firstChild(root, "mappers");
+        if (mappersElement != null) {
+            for (Element element : children(mappersElement)) {
+                addMappers(element, mappers);
+            }
+            root.removeChild(mappersElement);
+        }
+        return new ConfigurationSnapshot(toString(document), mappers);
+    }
+
+    /**
+     * 用解析得到的类型别名替换 <typeAliases> 节点，去掉 Configuration 默认注册的别名
+     */
+    private static void expandTypeAliases(Document document, Element root, Configuration configuration) {
+        Element typeAliases = firstChild(root, "typeAliases");
+        if (typeAliases == null) {
+            return;
+        }
+        Map<String, Class<?>> defaults = new Configuration().getTypeAliasRegistry().getTypeAliases();
+        Element expanded = document.createElement("typeAliases");
+        for (Map.Entry<String, Class<?>> entry : configuration.getTypeAliasRegistry().getTypeAliases().entrySet()) {
+            if (!defaults.containsKey(entry.getKey())) {
+                Element typeAlias = document.createElement("typeAlias");
+                typeAlias.setAttribute("alias", entry.getKey());
+                typeAlias.setAttribute("type", entry.getValue().getName());
+                expanded.appendChild(typeAlias);
+            }
+        }
+        root.replaceChild(expanded, typeAliases);
+    }
+
+    /**
+     * 与 XMLConfigBuilder#mapperElement 一致
+     * @see org.apache.ibatis.builder.xml.XMLConfigBuilder#mapperElement(org.apache.ibatis.parsing.XNode)
+     */
+    private static void addMappers(Element element, List<ConfigurationSnapshot.MapperSource> mappers) throws IOException {
+        if ("package".equals(element.getTagName())) {
+            ResolverUtil<Class<?>> resolverUtil = new ResolverUtil<>();
+            resolverUtil.find(new ResolverUtil.IsA(Object.class), element.getAttribute("name"));
+            List<Class<?>> types = new ArrayList<>(resolverUtil.getClasses());
+            types.sort(Comparator.comparing(Class::getName));
+            for (Class<?> type : types) {
+                if (type.isInterface()) {
+                    mappers.add(mapperOf(type.getName()));
+                }
+            }
+            return;
+        }
+        String resource = element.getAttribute("resource");
+        String url = element.getAttribute("url");
+        String mapperClass = element.getAttribute("class");
+        if (!resource.isEmpty() && url.isEmpty() && mapperClass.isEmpty()) {
+            mappers.add(new ConfigurationSnapshot.MapperSource(null, resource, stripDoctype(read(Resources.getResourceAsStream(resource)))));
+        } else if (resource.isEmpty() && !url.isEmpty() && mapperClass.isEmpty()) {
+            mappers.add(new ConfigurationSnapshot.MapperSource(null, url, stripDoctype(read(Resources.getUrlAsStream(url)))));
+        } else if (resource.isEmpty() && url.isEmpty() && !mapperClass.isEmpty()) {
+            mappers.add(mapperOf(mapperClass));
+        } else {
+            throw new BuilderException("A mapper element may only specify a url, resource or class, but not more than one.");
+        }
+    }
+
+    private static ConfigurationSnapshot.MapperSource mapperOf(String type) throws IOException {
+        String xmlResource = type.replace('.', '/') + ".xml";
+        InputStream inputStream;
+        try {
+            inputStream = Resources.getResourceAsStream(xmlResource);
+        } catch (IOException e) {
+            // 纯注解的 Mapper
+            return new ConfigurationSnapshot.MapperSource(type, null, null);
+        }
+        return new ConfigurationSnapshot.MapperSource(type, xmlResource, stripDoctype(read(inputStream)));
+    }
+
+    /**
+     * 不加载外部 DTD，仅用于改写配置文件
+     */
+    private static Document parse(String xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setValidating(false);
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    private static String toString(Document document) throws Exception {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        StringWriter writer = new StringWriter();
+        transformer.transform(new DOMSource(document), new StreamResult(writer));
+        return writer.toString();
+    }
+
+    private static String stripDoctype(String xml) {
+        return DOCTYPE.matcher(xml).replaceFirst("");
+    }
+
+    private static Element firstChild(Element parent, String name) {
+        for (Element element : children(parent)) {
+            if (name.equals(element.getTagName())) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private static List<Element> children(Element parent) {
+        List<Element> result = new ArrayList<>();
+        NodeList nodes = parent.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Node node = nodes.item(i);
+            if (node instanceof Element) {
+                result.add((Element) node);
+            }
+        }
+        return result;
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[4096];
+        int n;
+        try (Reader reader = Resources.getCharset() == null ? new InputStreamReader(inputStream) : new InputStreamReader(inputStream, Resources.getCharset())) {
+            while ((n = reader.read(buffer)) != -1) {
+                builder.append(buffer, 0, n);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,139 @@
+package com.sumkor.builder;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.parsing.XPathParser;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * 延迟编译的 SqlSource，第一次调用 getBoundSql 时才构建动态 SQL 树或解析 #{} 参数
+ *
+ * 不持有 XNode：XNode 引用着整个 Mapper 文件的 DOM，未使用的语句会让每个 Mapper 的 DOM 都常驻内存。
+ * 这里在构建时把语句节点（已展开 <include>、已移除 <selectKey>）序列化为 XML 文本，第一次使用时重新解析，
+ * 常驻的只有这段文本，Mapper 的 DOM 在启动完成之后即可回收。
+ *
+ * 编译结果通过 volatile 字段发布，编译完成之后不再持有 XML 文本，已编译的 SqlSource 与非延迟模式完全相同。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class LazySqlSource implements SqlSource {
+
+    private final Configuration configuration;
+
+    private final Class<?> parameterType;
+
+    /**
+     * 语句节点的 XML 文本
+     */
+    private String xml;
+
+    /**
+     * 注解或 <script> 中的 SQL
+     */
+    private String script;
+
+    private volatile SqlSource delegate;
+
+    LazySqlSource(Configuration configuration, XNode node, Class<?> parameterType) {
+        this.configuration = configuration;
+        this.xml = toXml(node.getNode());
+        this.parameterType = parameterType;
+    }
+
+    LazySqlSource(Configuration configuration, String script, Class<?> parameterType) {
+        this.configuration = configuration;
+        this.script = script;
+        this.parameterType = parameterType;
+    }
+
+    @Override
+    public BoundSql getBoundSql(Object parameterObject) {
+        return compile().getBoundSql(parameterObject);
+    }
+
+    public boolean isCompiled() {
+        return delegate != null;
+    }
+
+    public SqlSource compile() {
+        SqlSource sqlSource = delegate;
+        if (sqlSource != null) {
+            return sqlSource;
+        }
+        synchronized (this) {
+            sqlSource = delegate;
+            if (sqlSource == null) {
+                XMLLanguageDriver driver = new XMLLanguageDriver();
+                sqlSource = xml != null
+                        ? driver.createSqlSource(configuration, new XPathParser(xml, false, configuration.getVariables()).evalNode("/*"), parameterType)
+                        : driver.createSqlSource(configuration, script, parameterType);
+                delegate = sqlSource;
+                xml = null;
+                script = null;
+            }
+        }
+        return sqlSource;
+    }
+
+    /**
+     * 序列化元素、文本和 CDATA 节点，XMLScriptBuilder 只读取这几类节点
+     * @see org.apache.ibatis.scripting.xmltags.XMLScriptBuilder#parseDynamicTags(XNode)
+     */
+    static String toXml(Node node) {
+        StringBuilder builder = new StringBuilder(256);
+        append(builder, node);
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, Node node) {
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                builder.append('<').append(node.getNodeName());
+                NamedNodeMap attributes = node.getAttributes();
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    Node attribute = attributes.item(i);
+                    builder.append(' ').append(attribute.getNodeName()).append("=\"");
+                    escape(builder, attribute.getNodeValue(), true);
+                    builder.append('"');
+                }
+                builder.append('>');
+                NodeList children = node.getChildNodes();
+                for (int i = 0; i < children.getLength(); i++) {
+                    append(builder, children.item(i));
+                }
+                builder.append("</").append(node.getNodeName()).append('>');
+                break;
+            case Node.TEXT_NODE:
+                escape(builder, node.getNodeValue(), false);
+                break;
+            case Node.CDATA_SECTION_NODE:
+                builder.append("<![CDATA[").append(node.getNodeValue()).append("]]>");
+                break;
+            default:
+                // 注释、处理指令不影响 SQL
+        }
+    }
+
+    private static void escape(StringBuilder builder, String value, boolean attribute) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '&') {
+                builder.append("&amp;");
+            } else if (c == '<') {
+                builder.append("&lt;");
+            } else if (c == '>') {
+                builder.append("&gt;");
+            } else if (c == '"' && attribute) {
+                builder.append("&quot;");
+            } else {
+                builder.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.sumkor.builder;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * 延迟编译 SQL 的语言驱动，配置方式：
+ * <setting name="defaultScriptingLanguage" value="com.sumkor.builder.LazyXMLLanguageDriver"/>
+ *
+ * 启动时仍然会注册全部 MappedStatement，但其中的 SqlSource 只是一个 {@link LazySqlSource}，
+ * 例如 insertBatch 中 <foreach> 构成的动态 SQL 树，在第一次执行时才构建。
+ * @see org.apache.ibatis.builder.xml.XMLStatementBuilder#parseStatementNode()
+ * @see org.apache.ibatis.builder.annotation.MapperAnnotationBuilder#buildSqlSource
+ *
+ * 注意 SQL 的语法错误也会推迟到第一次执行时才抛出，可以在测试中调用 {@link #compileAll(Configuration)} 提前发现。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class LazyXMLLanguageDriver extends XMLLanguageDriver {
+
+    @Override
+    public SqlSource createSqlSource(Configuration configuration, XNode script, Class<?> parameterType) {
+        return new LazySqlSource(configuration, script, parameterType);
+    }
+
+    @Override
+    public SqlSource createSqlSource(Configuration configuration, String script, Class<?> parameterType) {
+        return new LazySqlSource(configuration, script, parameterType);
+    }
+
+    /**
+     * 编译全部语句，返回本次编译的语句个数
+     */
+    public static int compileAll(Configuration configuration) {
+        int compiled = 0;
+        // StrictMap 中同时以全名和短名保存，短名冲突时值为 Ambiguity
+        for (Object value : configuration.getMappedStatements()) {
+            if (value instanceof MappedStatement && ((MappedStatement) value).getSqlSource() instanceof LazySqlSource) {
+                LazySqlSource sqlSource = (LazySqlSource) ((MappedStatement) value).getSqlSource();
+                if (!sqlSource.isCompiled()) {
+                    sqlSource.compile();
+                    compiled++;
+                }
+            }
+        }
+        return compiled;
+    }
+}
@@ -0,0 +1,81 @@
+package com.sumkor.builder;
+
+import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.builder.xml.XMLMapperEntityResolver;
+import org.apache.ibatis.exceptions.ExceptionFactory;
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.parsing.XPathParser;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 从 {@link ConfigurationSnapshot} 构建 SqlSessionFactory，对应 SqlSessionFactoryBuilder#build
+ * @see org.apache.ibatis.session.SqlSessionFactoryBuilder#build(java.io.InputStream, java.lang.String, java.util.Properties)
+ *
+ * XMLConfigBuilder、XMLMapperBuilder 的公开构造方法都会开启 DTD 校验，
+ * 而快照在构建期已经校验过，这里通过私有构造方法传入不校验的 XPathParser。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class SnapshotSqlSessionFactoryBuilder {
+
+    private static final Constructor<XMLConfigBuilder> CONFIG_BUILDER;
+
+    private static final Constructor<XMLMapperBuilder> MAPPER_BUILDER;
+
+    static {
+        try {
+            CONFIG_BUILDER = XMLConfigBuilder.class.getDeclaredConstructor(XPathParser.class, String.class, Properties.class);
+            CONFIG_BUILDER.setAccessible(true);
+            MAPPER_BUILDER = XMLMapperBuilder.class.getDeclaredConstructor(XPathParser.class, Configuration.class, String.class, Map.class);
+            MAPPER_BUILDER.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public SqlSessionFactory build(InputStream inputStream) {
+        return build(inputStream, null, null);
+    }
+
+    public SqlSessionFactory build(InputStream inputStream, String environment, Properties properties) {
+        try {
+            return new DefaultSqlSessionFactory(build(ConfigurationSnapshot.readFrom(inputStream), environment, properties));
+        } catch (Exception e) {
+            throw ExceptionFactory.wrapException("Error building SqlSession from snapshot.", e);
+        } finally {
+            ErrorContext.instance().reset();
+        }
+    }
+
+    public Configuration build(ConfigurationSnapshot snapshot, String environment, Properties properties) throws Exception {
+        XPathParser parser = new XPathParser(snapshot.getConfigXml(), false, properties, new XMLMapperEntityResolver());
+        Configuration configuration = CONFIG_BUILDER.newInstance(parser, environment, properties).parse();
+        for (ConfigurationSnapshot.MapperSource mapper : snapshot.getMappers()) {
+            if (mapper.getXml() != null) {
+                // 解析 XML 时会根据 namespace 注册 Mapper 接口
+                // @see org.apache.ibatis.builder.xml.XMLMapperBuilder#bindMapperForNamespace()
+                XPathParser mapperParser = new XPathParser(mapper.getXml(), false, configuration.getVariables(), new XMLMapperEntityResolver());
+                Map<String, XNode> sqlFragments = configuration.getSqlFragments();
+                MAPPER_BUILDER.newInstance(mapperParser, configuration, mapper.getResource(), sqlFragments).parse();
+            }
+            if (mapper.getType() != null) {
+                Class<?> type = Resources.classForName(mapper.getType());
+                if (!configuration.hasMapper(type)) {
+                    configuration.addMapper(type);
+                }
+            }
+        }
+        return configuration;
+    }
+}
@@ -0,0 +1,53 @@
+package com.sumkor.builder.compiled;
+
+import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * 编译之后的动态 SQL，用于替代 DynamicSqlSource
+ *
+ * DynamicSqlSource 每次执行都要：遍历 SqlNode 树并用 OGNL 计算 <if> 条件，拼接出带有 #{} 的 SQL，
+ * 再用 SqlSourceBuilder 重新解析一遍 #{}，为每个参数创建 ParameterMapping。
+ * @see org.apache.ibatis.scripting.xmltags.DynamicSqlSource#getBoundSql(java.lang.Object)
+ *
+ * 这里的 #{} 在编译时已替换为 ?，常见的条件表达式直接调用 getter 求值，ParameterMapping 按参数类型缓存，
+ * 执行时只剩下条件判断和一次字符串拼接。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class CompiledSqlSource implements SqlSource {
+
+    private final Configuration configuration;
+
+    private final Fragment root;
+
+    /**
+     * 上一次生成的 SQL 长度，用于预分配 StringBuilder
+     */
+    private volatile int estimatedLength = 64;
+
+    CompiledSqlSource(Configuration configuration, Fragment root) {
+        this.configuration = configuration;
+        this.root = root;
+    }
+
+    @Override
+    public BoundSql getBoundSql(Object parameterObject) {
+        RenderContext context = new RenderContext(configuration, parameterObject);
+        SqlSink.Joined sink = new SqlSink.Joined(estimatedLength);
+        root.apply(context, sink);
+        if (sink.length() > estimatedLength) {
+            estimatedLength = sink.length();
+        }
+        String sql = sink.toString();
+        if (configuration.isShrinkWhitespacesInSql()) {
+            sql = SqlSourceBuilder.removeExtraWhitespaces(sql);
+        }
+        BoundSql boundSql = new BoundSql(configuration, sql, context.parameterMappings, parameterObject);
+        context.bindings.forEach(boundSql::setAdditionalParameter);
+        return boundSql;
+    }
+}
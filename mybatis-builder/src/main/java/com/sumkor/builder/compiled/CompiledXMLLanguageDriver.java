@@ -0,0 +1,49 @@
+package com.sumkor.builder.compiled;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
+import org.apache.ibatis.scripting.xmltags.SqlNode;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * 将动态 SQL 编译为 {@link CompiledSqlSource} 的 LanguageDriver
+ *
+ * 静态 SQL 解析后本来就是 RawSqlSource，保持不变；动态 SQL 解析为 DynamicSqlSource 之后，再把其中的 SqlNode 树编译一遍。
+ * 无法编译的语句（自定义 SqlNode 等）继续使用 DynamicSqlSource。
+ *
+ * 使用方式：
+ * <setting name="defaultScriptingLanguage" value="com.sumkor.builder.compiled.CompiledXMLLanguageDriver"/>
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@Slf4j
+public class CompiledXMLLanguageDriver extends XMLLanguageDriver {
+
+    @Override
+    public SqlSource createSqlSource(Configuration configuration, XNode script, Class<?> parameterType) {
+        return compile(configuration, super.createSqlSource(configuration, script, parameterType));
+    }
+
+    @Override
+    public SqlSource createSqlSource(Configuration configuration, String script, Class<?> parameterType) {
+        return compile(configuration, super.createSqlSource(configuration, script, parameterType));
+    }
+
+    public static SqlSource compile(Configuration configuration, SqlSource sqlSource) {
+        if (!(sqlSource instanceof DynamicSqlSource)) {
+            return sqlSource;
+        }
+        SqlNode rootSqlNode = (SqlNode) SystemMetaObject.forObject(sqlSource).getValue("rootSqlNode");
+        Fragment root = SqlNodeCompiler.compile(rootSqlNode);
+        if (root == null) {
+            log.debug("Unable to compile {}, fall back to DynamicSqlSource", rootSqlNode.getClass().getName());
+            return sqlSource;
+        }
+        return new CompiledSqlSource(configuration, root);
+    }
+}
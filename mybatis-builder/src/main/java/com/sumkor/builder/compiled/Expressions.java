@@ -0,0 +1,318 @@
+package com.sumkor.builder.compiled;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.scripting.xmltags.ExpressionEvaluator;
+import org.apache.ibatis.scripting.xmltags.OgnlCache;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 编译 <if test>、<foreach collection>、<bind value>、${} 中的表达式
+ *
+ * 只编译最常见的写法：属性路径（a、a.b），与 null、''、数字、字符串、布尔值的 ==、!= 比较，以及 and、or 组合。
+ * 其余表达式，以及运行时遇到的类型组合（例如数字与字符串比较）交给 OGNL 求值，结果与原有实现一致。
+ * @see org.apache.ibatis.scripting.xmltags.ExpressionEvaluator
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+final class Expressions {
+
+    private static final ExpressionEvaluator EVALUATOR = new ExpressionEvaluator();
+
+    private static final Pattern PATH = Pattern.compile("[A-Za-z_$][\\w$]*(\\.[A-Za-z_$][\\w$]*)*");
+
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?");
+
+    private static final Set<String> RESERVED = new HashSet<>(Arrays.asList("size", "isEmpty", "keys", "values", "class"));
+
+    private static final Object UNKNOWN = new Object();
+
+    private Expressions() {
+    }
+
+    interface Value {
+        Object get(RenderContext context);
+    }
+
+    interface Condition {
+        boolean test(RenderContext context);
+    }
+
+    static Value value(String expression) {
+        String trimmed = expression.trim();
+        if (isPath(trimmed)) {
+            return new PathValue(trimmed);
+        }
+        return context -> OgnlCache.getValue(expression, context.ognlBindings());
+    }
+
+    /**
+     * 与 ExpressionEvaluator#evaluateIterable 一致
+     */
+    static Iterable<?> iterable(String expression, Value value, RenderContext context) {
+        Object result = value.get(context);
+        if (result == null) {
+            throw new BuilderException("The expression '" + expression + "' evaluated to a null value.");
+        }
+        if (result instanceof Iterable) {
+            return (Iterable<?>) result;
+        }
+        if (result.getClass().isArray()) {
+            int size = Array.getLength(result);
+            List<Object> answer = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                answer.add(Array.get(result, i));
+            }
+            return answer;
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).entrySet();
+        }
+        throw new BuilderException("Error evaluating expression '" + expression + "'.  Return value (" + result + ") was not iterable.");
+    }
+
+    static Condition condition(String expression) {
+        Term term = parseOr(expression);
+        if (term == null) {
+            return context -> EVALUATOR.evaluateBoolean(expression, context.ognlBindings());
+        }
+        return context -> {
+            Object result = term.eval(context);
+            if (result == UNKNOWN) {
+                return EVALUATOR.evaluateBoolean(expression, context.ognlBindings());
+            }
+            return (Boolean) result;
+        };
+    }
+
+    /**
+     * OGNL 对 Map 的 size、keys 等属性有特殊处理，这类路径不编译
+     * @see org.apache.ibatis.ognl.MapPropertyAccessor
+     */
+    private static boolean isPath(String expression) {
+        if (!PATH.matcher(expression).matches()) {
+            return false;
+        }
+        for (String name : expression.split("\\.")) {
+            if (RESERVED.contains(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 与 ExpressionEvaluator#evaluateBoolean 一致
+     */
+    private static boolean truthy(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return new BigDecimal(String.valueOf(value)).compareTo(BigDecimal.ZERO) != 0;
+        }
+        return value != null;
+    }
+
+    /**
+     * 求值结果为 Boolean，或者 UNKNOWN 表示需要交给 OGNL
+     */
+    private interface Term {
+        Object eval(RenderContext context);
+    }
+
+    private static Term parseOr(String expression) {
+        List<String> parts = split(expression, " or ", "||");
+        if (parts == null) {
+            return null;
+        }
+        List<Term> terms = new ArrayList<>(parts.size());
+        for (String part : parts) {
+            Term term = parseAnd(part);
+            if (term == null) {
+                return null;
+            }
+            terms.add(term);
+        }
+        if (terms.size() == 1) {
+            return terms.get(0);
+        }
+        return context -> {
+            for (Term term : terms) {
+                Object result = term.eval(context);
+                if (result != Boolean.FALSE) {
+                    return result;
+                }
+            }
+            return Boolean.FALSE;
+        };
+    }
+
+    private static Term parseAnd(String expression) {
+        List<String> parts = split(expression, " and ", "&&");
+        if (parts == null) {
+            return null;
+        }
+        List<Term> terms = new ArrayList<>(parts.size());
+        for (String part : parts) {
+            Term term = parseComparison(part.trim());
+            if (term == null) {
+                return null;
+            }
+            terms.add(term);
+        }
+        if (terms.size() == 1) {
+            return terms.get(0);
+        }
+        return context -> {
+            for (Term term : terms) {
+                Object result = term.eval(context);
+                if (result != Boolean.TRUE) {
+                    return result;
+                }
+            }
+            return Boolean.TRUE;
+        };
+    }
+
+    private static Term parseComparison(String expression) {
+        boolean equal;
+        int at = expression.indexOf("!=");
+        if (at >= 0) {
+            equal = false;
+        } else {
+            at = expression.indexOf("==");
+            equal = true;
+        }
+        if (at < 0) {
+            if (!isPath(expression)) {
+                return null;
+            }
+            PathValue path = new PathValue(expression);
+            return context -> truthy(path.get(context));
+        }
+        String left = expression.substring(0, at).trim();
+        String right = expression.substring(at + 2).trim();
+        if (!isPath(left)) {
+            return null;
+        }
+        Object literal = literal(right);
+        if (literal == UNKNOWN) {
+            return null;
+        }
+        PathValue path = new PathValue(left);
+        return context -> {
+            Object result = equal(path.get(context), literal);
+            if (result == UNKNOWN) {
+                return UNKNOWN;
+            }
+            return equal == (Boolean) result ? Boolean.TRUE : Boolean.FALSE;
+        };
+    }
+
+    /**
+     * 只处理与 OgnlOps#equal 结果确定一致的类型组合
+     */
+    private static Object equal(Object value, Object literal) {
+        if (value == null || literal == null) {
+            return value == literal;
+        }
+        if (value instanceof String && literal instanceof String) {
+            return value.equals(literal);
+        }
+        if (value instanceof Boolean && literal instanceof Boolean) {
+            return value.equals(literal);
+        }
+        if (value instanceof Number && literal instanceof BigDecimal) {
+            return new BigDecimal(String.valueOf(value)).compareTo((BigDecimal) literal) == 0;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * OGNL 中单引号括起来的单个字符是 Character，不编译
+     */
+    private static Object literal(String text) {
+        if ("null".equals(text)) {
+            return null;
+        }
+        if ("true".equals(text) || "false".equals(text)) {
+            return Boolean.valueOf(text);
+        }
+        if (NUMBER.matcher(text).matches()) {
+            return new BigDecimal(text);
+        }
+        if (text.length() >= 2 && text.length() != 3) {
+            char quote = text.charAt(0);
+            if ((quote == '\'' || quote == '"') && text.charAt(text.length() - 1) == quote
+                    && text.indexOf(quote, 1) == text.length() - 1 && text.indexOf('\\') < 0) {
+                return text.substring(1, text.length() - 1);
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * 按运算符拆分，运算符出现在引号或括号中时不编译
+     */
+    private static List<String> split(String expression, String word, String symbol) {
+        if (expression.indexOf('(') >= 0 || expression.indexOf('!') >= 0 && !expression.contains("!=")) {
+            return null;
+        }
+        String normalized = expression.replace(symbol, word);
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        boolean quoted = false;
+        char quote = 0;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (quoted) {
+                if (c == quote) {
+                    quoted = false;
+                }
+            } else if (c == '\'' || c == '"') {
+                quoted = true;
+                quote = c;
+            } else if (normalized.startsWith(word, i)) {
+                parts.add(normalized.substring(start, i));
+                start = i + word.length();
+                i = start - 1;
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        parts.add(normalized.substring(start));
+        return parts;
+    }
+
+    /**
+     * 属性路径 a.b.c：第一段按 DynamicContext 的规则查找，后续逐级调用 getter
+     */
+    static final class PathValue implements Value {
+
+        private final String[] names;
+
+        PathValue(String path) {
+            this.names = path.split("\\.");
+        }
+
+        @Override
+        public Object get(RenderContext context) {
+            Object value = context.lookup(names[0]);
+            for (int i = 1; i < names.length && value != null; i++) {
+                value = context.property(value, names[i]);
+            }
+            return value;
+        }
+    }
+}
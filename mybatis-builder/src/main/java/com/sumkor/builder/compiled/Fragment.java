@@ -0,0 +1,15 @@
+package com.sumkor.builder.compiled;
+
+/**
+ * 编译后的 SqlNode，对应 {@link org.apache.ibatis.scripting.xmltags.SqlNode#apply}
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+interface Fragment {
+
+    /**
+     * @return 与 SqlNode#apply 一致，<if> 条件不成立时返回 false，供 <choose> 使用
+     */
+    boolean apply(RenderContext context, SqlSink sink);
+}
@@ -0,0 +1,293 @@
+package com.sumkor.builder.compiled;
+
+import org.apache.ibatis.parsing.GenericTokenParser;
+import org.apache.ibatis.type.SimpleTypeRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 各类 SqlNode 编译之后的实现
+ *
+ * 解析 XML 时已经确定的内容（#{} 替换为 ?、表达式的解析）在编译时完成，执行时只做条件判断和字符串拼接。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+final class Fragments {
+
+    private Fragments() {
+    }
+
+    /**
+     * @see org.apache.ibatis.scripting.xmltags.StaticTextSqlNode
+     */
+    static Fragment text(String text) {
+        List<Placeholder> placeholders = new ArrayList<>();
+        String sql = parsePlaceholders(text, placeholders);
+        if (placeholders.isEmpty()) {
+            return (context, sink) -> {
+                sink.append(sql);
+                return true;
+            };
+        }
+        Placeholder[] array = placeholders.toArray(new Placeholder[0]);
+        return (context, sink) -> {
+            sink.append(sql);
+            for (Placeholder placeholder : array) {
+                placeholder.resolve(context);
+            }
+            return true;
+        };
+    }
+
+    /**
+     * 包含 ${} 的文本，按 ${} 拆分为若干段，执行时只对 ${} 求值
+     * @see org.apache.ibatis.scripting.xmltags.TextSqlNode
+     */
+    static Fragment dynamicText(String text) {
+        List<String> tokens = new ArrayList<>();
+        String marked = new GenericTokenParser("${", "}", content -> {
+            tokens.add(content);
+            return "\u0000";
+        }).parse(text);
+
+        List<Object> parts = new ArrayList<>();
+        int start = 0;
+        for (String token : tokens) {
+            int end = marked.indexOf('\u0000', start);
+            parts.add(new Literal(marked.substring(start, end)));
+            parts.add(new Substitution(token));
+            start = end + 1;
+        }
+        parts.add(new Literal(marked.substring(start)));
+        Object[] array = parts.toArray();
+        return (context, sink) -> {
+            StringBuilder builder = new StringBuilder();
+            for (Object part : array) {
+                if (part instanceof Literal) {
+                    ((Literal) part).appendTo(builder, context);
+                } else {
+                    ((Substitution) part).appendTo(builder, context);
+                }
+            }
+            sink.append(builder.toString());
+            return true;
+        };
+    }
+
+    /**
+     * @see org.apache.ibatis.scripting.xmltags.MixedSqlNode
+     */
+    static Fragment mixed(List<Fragment> contents) {
+        if (contents.size() == 1) {
+            return contents.get(0);
+        }
+        Fragment[] array = contents.toArray(new Fragment[0]);
+        return (context, sink) -> {
+            for (Fragment fragment : array) {
+                fragment.apply(context, sink);
+            }
+            return true;
+        };
+    }
+
+    /**
+     * @see org.apache.ibatis.scripting.xmltags.IfSqlNode
+     */
+    static Fragment ifFragment(String test, Fragment contents) {
+        Expressions.Condition condition = Expressions.condition(test);
+        return (context, sink) -> {
+            if (condition.test(context)) {
+                contents.apply(context, sink);
+                return true;
+            }
+            return false;
+        };
+    }
+
+    /**
+     * @see org.apache.ibatis.scripting.xmltags.ChooseSqlNode
+     */
+    static Fragment choose(List<Fragment> whens, Fragment otherwise) {
+        Fragment[] array = whens.toArray(new Fragment[0]);
+        return (context, sink) -> {
+            for (Fragment when : array) {
+                if (when.apply(context, sink)) {
+                    return true;
+                }
+            }
+            if (otherwise != null) {
+                otherwise.apply(context, sink);
+                return true;
+            }
+            return false;
+        };
+    }
+
+    /**
+     * @see org.apache.ibatis.scripting.xmltags.VarDeclSqlNode
+     */
+    static Fragment bind(String name, String expression) {
+        Expressions.Value value = Expressions.value(expression);
+        return (context, sink) -> {
+            context.bind(name, value.get(context));
+            return true;
+        };
+    }
+
+    /**
+     * 与 TrimSqlNode.FilteredDynamicContext#applyAll 一致，其中 prefixesToOverride、suffixesToOverride 已经转为大写
+     * @see org.apache.ibatis.scripting.xmltags.TrimSqlNode
+     */
+    static Fragment trim(Fragment contents, String prefix, String suffix, List<String> prefixesToOverride, List<String> suffixesToOverride) {
+        return (context, sink) -> {
+            SqlSink.Buffer buffer = new SqlSink.Buffer();
+            boolean result = contents.apply(context, buffer);
+            StringBuilder sql = new StringBuilder(buffer.builder.toString().trim());
+            String upperSql = sql.toString().toUpperCase(Locale.ENGLISH);
+            if (upperSql.length() > 0) {
+                if (prefixesToOverride != null) {
+                    for (String toRemove : prefixesToOverride) {
+                        if (upperSql.startsWith(toRemove)) {
+                            sql.delete(0, toRemove.trim().length());
+                            break;
+                        }
+                    }
+                }
+                if (prefix != null) {
+                    sql.insert(0, " ");
+                    sql.insert(0, prefix);
+                }
+                if (suffixesToOverride != null) {
+                    for (String toRemove : suffixesToOverride) {
+                        if (upperSql.endsWith(toRemove) || upperSql.endsWith(toRemove.trim())) {
+                            int start = sql.length() - toRemove.trim().length();
+                            sql.delete(start, sql.length());
+                            break;
+                        }
+                    }
+                }
+                if (suffix != null) {
+                    sql.append(" ");
+                    sql.append(suffix);
+                }
+            }
+            sink.append(sql.toString());
+            return result;
+        };
+    }
+
+    /**
+     * 与 ForEachSqlNode#apply 一致：每次迭代同时绑定 item 和 __frch_item_N，其中的 #{item} 在 {@link Placeholder} 中改写
+     * @see org.apache.ibatis.scripting.xmltags.ForEachSqlNode
+     */
+    static Fragment forEach(String collectionExpression, Fragment contents, String open, String close,
+                            String separator, String item, String index) {
+        Expressions.Value collection = Expressions.value(collectionExpression);
+        return (context, sink) -> {
+            Iterable<?> iterable = Expressions.iterable(collectionExpression, collection, context);
+            if (!iterable.iterator().hasNext()) {
+                return true;
+            }
+            boolean first = true;
+            if (open != null) {
+                sink.append(open);
+            }
+            RenderContext.ForEachFrame parent = context.frame;
+            int i = 0;
+            for (Object o : iterable) {
+                SqlSink.Prefixed prefixed = new SqlSink.Prefixed(sink, first || separator == null ? "" : separator);
+                int uniqueNumber = context.nextUniqueNumber();
+                Object indexValue = i;
+                Object itemValue = o;
+                if (o instanceof Map.Entry) {
+                    Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                    indexValue = entry.getKey();
+                    itemValue = entry.getValue();
+                }
+                if (index != null) {
+                    context.bind(index, indexValue);
+                    context.bind(itemize(index, uniqueNumber), indexValue);
+                }
+                if (item != null) {
+                    context.bind(item, itemValue);
+                    context.bind(itemize(item, uniqueNumber), itemValue);
+                }
+                context.frame = new RenderContext.ForEachFrame(item, index, uniqueNumber, parent);
+                contents.apply(context, prefixed);
+                context.frame = parent;
+                if (first) {
+                    first = !prefixed.prefixApplied;
+                }
+                i++;
+            }
+            if (close != null) {
+                sink.append(close);
+            }
+            context.unbind(item);
+            context.unbind(index);
+            return true;
+        };
+    }
+
+    private static String itemize(String name, int uniqueNumber) {
+        return "__frch_" + name + "_" + uniqueNumber;
+    }
+
+    /**
+     * 将 #{} 替换为 ?，与 SqlSourceBuilder#parse 一致
+     */
+    private static String parsePlaceholders(String text, List<Placeholder> placeholders) {
+        return new GenericTokenParser("#{", "}", content -> {
+            placeholders.add(new Placeholder(content));
+            return "?";
+        }).parse(text);
+    }
+
+    private static final class Literal {
+
+        private final String sql;
+
+        private final Placeholder[] placeholders;
+
+        Literal(String text) {
+            List<Placeholder> list = new ArrayList<>();
+            this.sql = parsePlaceholders(text, list);
+            this.placeholders = list.toArray(new Placeholder[0]);
+        }
+
+        void appendTo(StringBuilder builder, RenderContext context) {
+            builder.append(sql);
+            for (Placeholder placeholder : placeholders) {
+                placeholder.resolve(context);
+            }
+        }
+    }
+
+    /**
+     * 与 TextSqlNode.BindingTokenParser#handleToken 一致。
+     * 注意 ${} 替换得到的内容中如果再出现 #{}，原有实现会继续解析为参数，这里不再解析，mapper 中不应依赖这种写法。
+     */
+    private static final class Substitution {
+
+        private final Expressions.Value value;
+
+        Substitution(String expression) {
+            this.value = Expressions.value(expression);
+        }
+
+        void appendTo(StringBuilder builder, RenderContext context) {
+            Object parameter = context.bindings.get("_parameter");
+            if (parameter == null) {
+                context.bind("value", null);
+            } else if (SimpleTypeRegistry.isSimpleType(parameter.getClass())) {
+                context.bind("value", parameter);
+            }
+            Object result = value.get(context);
+            builder.append(result == null ? "" : String.valueOf(result));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.sumkor.builder.compiled;
+
+import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * SQL 中的一个 #{} 参数，编译时已替换为 ?，执行时只需要取得对应的 ParameterMapping
+ *
+ * ParameterMapping 的类型处理器取决于参数对象（或 foreach 元素）的类型，按类型缓存，
+ * 未命中时仍然交给 SqlSourceBuilder 构建，保证与原有实现一致。
+ * foreach 中的参数每次迭代改写的名字不同（__frch_student_0.name、__frch_student_1.name ...），
+ * 只按元素类型缓存一个模板，每次迭代复制模板并替换参数名，缓存的数量不随迭代次数增长。
+ * @see org.apache.ibatis.builder.SqlSourceBuilder.ParameterMappingTokenHandler#buildParameterMapping(java.lang.String)
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+final class Placeholder {
+
+    private final String content;
+
+    private final String root;
+
+    private volatile Cached cached;
+
+    /**
+     * foreach 中改写之后的参数，属性名为第一次构建时改写的名字，例如 __frch_student_0.name
+     */
+    private volatile Cached renamed;
+
+    Placeholder(String content) {
+        this.content = content;
+        this.root = rootOf(content);
+    }
+
+    void resolve(RenderContext context) {
+        String name = context.frame == null ? content : context.frame.rename(content);
+        if (name == content) {
+            Class<?> type = typeOf(context, root);
+            Cached entry = cached;
+            if (entry == null || entry.type != type) {
+                entry = new Cached(type, build(context, name));
+                cached = entry;
+            }
+            context.parameterMappings.add(entry.mapping);
+            return;
+        }
+        Class<?> type = typeOf(context, rootOf(name));
+        Cached entry = renamed;
+        if (entry == null || entry.type != type) {
+            entry = new Cached(type, build(context, name));
+            renamed = entry;
+        }
+        ParameterMapping mapping = entry.mapping;
+        context.parameterMappings.add(name.equals(mapping.getProperty()) ? mapping : rename(context.configuration, mapping, name));
+    }
+
+    /**
+     * 参数名以绑定的变量开头时，类型取决于变量的值，否则取决于参数对象
+     */
+    private static Class<?> typeOf(RenderContext context, String root) {
+        Object value = context.bindings.containsKey(root) ? context.bindings.get(root) : context.parameter;
+        return value == null ? null : value.getClass();
+    }
+
+    private static ParameterMapping build(RenderContext context, String name) {
+        Class<?> parameterType = context.parameter == null ? Object.class : context.parameter.getClass();
+        return new SqlSourceBuilder(context.configuration)
+                .parse("#{" + name + "}", parameterType, context.bindings)
+                .getBoundSql(context.parameter)
+                .getParameterMappings()
+                .get(0);
+    }
+
+    /**
+     * 复制 ParameterMapping，只替换属性名
+     */
+    private static ParameterMapping rename(Configuration configuration, ParameterMapping template, String property) {
+        return new ParameterMapping.Builder(configuration, property, template.getTypeHandler())
+                .javaType(template.getJavaType())
+                .jdbcType(template.getJdbcType())
+                .jdbcTypeName(template.getJdbcTypeName())
+                .mode(template.getMode())
+                .numericScale(template.getNumericScale())
+                .resultMapId(template.getResultMapId())
+                .expression(template.getExpression())
+                .build();
+    }
+
+    private static String rootOf(String content) {
+        String trimmed = content.trim();
+        int end = 0;
+        while (end < trimmed.length()) {
+            char c = trimmed.charAt(end);
+            if (c == '.' || c == '[' || c == ',' || c == ':' || Character.isWhitespace(c)) {
+                break;
+            }
+            end++;
+        }
+        return trimmed.substring(0, end);
+    }
+
+    private static final class Cached {
+
+        private final Class<?> type;
+
+        private final ParameterMapping mapping;
+
+        Cached(Class<?> type, ParameterMapping mapping) {
+            this.type = type;
+            this.mapping = mapping;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.sumkor.builder.compiled;
+
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+import org.apache.ibatis.session.Configuration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一次 getBoundSql 调用的上下文，对应 DynamicContext
+ *
+ * 变量的查找规则与 DynamicContext.ContextMap、ContextAccessor 一致：先查找绑定的变量（_parameter、foreach 的 item、bind），
+ * 再从参数对象中获取；只有在需要 OGNL 时才创建 DynamicContext。
+ * @see org.apache.ibatis.scripting.xmltags.DynamicContext
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+final class RenderContext {
+
+    final Configuration configuration;
+
+    final Object parameter;
+
+    /**
+     * 绑定的变量，最终全部写入 BoundSql 的 additionalParameters
+     */
+    final Map<String, Object> bindings = new HashMap<>();
+
+    final List<ParameterMapping> parameterMappings = new ArrayList<>();
+
+    /**
+     * 当前所在的 foreach，用于改写其中 #{item} 的参数名
+     */
+    ForEachFrame frame;
+
+    private final boolean simpleParameter;
+
+    private int uniqueNumber;
+
+    /**
+     * OGNL 使用的变量表，延迟创建
+     */
+    private Map<String, Object> ognlBindings;
+
+    RenderContext(Configuration configuration, Object parameter) {
+        this.configuration = configuration;
+        this.parameter = parameter;
+        this.simpleParameter = parameter != null && !(parameter instanceof Map)
+                && configuration.getTypeHandlerRegistry().hasTypeHandler(parameter.getClass());
+        bind(DynamicContext.PARAMETER_OBJECT_KEY, parameter);
+        bind(DynamicContext.DATABASE_ID_KEY, configuration.getDatabaseId());
+    }
+
+    void bind(String name, Object value) {
+        bindings.put(name, value);
+        if (ognlBindings != null) {
+            ognlBindings.put(name, value);
+        }
+    }
+
+    void unbind(String name) {
+        bindings.remove(name);
+        if (ognlBindings != null) {
+            ognlBindings.remove(name);
+        }
+    }
+
+    int nextUniqueNumber() {
+        return uniqueNumber++;
+    }
+
+    /**
+     * 与 ContextMap#get、ContextAccessor#getProperty 一致
+     */
+    Object lookup(String name) {
+        if (bindings.containsKey(name)) {
+            return bindings.get(name);
+        }
+        if (parameter == null) {
+            return null;
+        }
+        if (parameter instanceof Map) {
+            return ((Map<?, ?>) parameter).get(name);
+        }
+        if (simpleParameter && !reflectorOf(parameter).hasGetter(name)) {
+            return parameter;
+        }
+        return property(parameter, name);
+    }
+
+    /**
+     * 直接调用 Reflector 缓存的 getter，不创建 MetaObject
+     */
+    Object property(Object target, String name) {
+        if (target == null) {
+            return null;
+        }
+        if (target instanceof Map) {
+            return ((Map<?, ?>) target).get(name);
+        }
+        try {
+            return reflectorOf(target).getGetInvoker(name).invoke(target, null);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new ReflectionException("Could not get property '" + name + "' from " + target.getClass() + ".  Cause: " + e, e);
+        }
+    }
+
+    /**
+     * 无法编译的表达式仍然交给 OGNL，变量表与 DynamicContext 一致
+     */
+    Map<String, Object> ognlBindings() {
+        if (ognlBindings == null) {
+            DynamicContext context = new DynamicContext(configuration, parameter);
+            context.getBindings().putAll(bindings);
+            ognlBindings = context.getBindings();
+        }
+        return ognlBindings;
+    }
+
+    private Reflector reflectorOf(Object target) {
+        return configuration.getReflectorFactory().findForClass(target.getClass());
+    }
+
+    /**
+     * foreach 的一次迭代
+     */
+    static final class ForEachFrame {
+
+        final String item;
+
+        final String index;
+
+        final int uniqueNumber;
+
+        final ForEachFrame parent;
+
+        ForEachFrame(String item, String index, int uniqueNumber, ForEachFrame parent) {
+            this.item = item;
+            this.index = index;
+            this.uniqueNumber = uniqueNumber;
+            this.parent = parent;
+        }
+
+        /**
+         * 与 ForEachSqlNode.FilteredDynamicContext#appendSql 一致：#{item.name} 改写为 #{__frch_item_0.name}
+         */
+        String rename(String content) {
+            String renamed = rename(content, item);
+            if (index != null && renamed == content) {
+                renamed = rename(content, index);
+            }
+            return parent == null ? renamed : parent.rename(renamed);
+        }
+
+        private String rename(String content, String name) {
+            if (name == null) {
+                return content;
+            }
+            int start = 0;
+            while (start < content.length() && Character.isWhitespace(content.charAt(start))) {
+                start++;
+            }
+            int end = start + name.length();
+            if (!content.startsWith(name, start)) {
+                return content;
+            }
+            if (end < content.length()) {
+                char next = content.charAt(end);
+                if (next != '.' && next != ',' && next != ':' && !Character.isWhitespace(next)) {
+                    return content;
+                }
+            }
+            return "__frch_" + name + "_" + uniqueNumber + content.substring(end);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.sumkor.builder.compiled;
+
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.scripting.xmltags.ChooseSqlNode;
+import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
+import org.apache.ibatis.scripting.xmltags.IfSqlNode;
+import org.apache.ibatis.scripting.xmltags.MixedSqlNode;
+import org.apache.ibatis.scripting.xmltags.SetSqlNode;
+import org.apache.ibatis.scripting.xmltags.SqlNode;
+import org.apache.ibatis.scripting.xmltags.StaticTextSqlNode;
+import org.apache.ibatis.scripting.xmltags.TextSqlNode;
+import org.apache.ibatis.scripting.xmltags.TrimSqlNode;
+import org.apache.ibatis.scripting.xmltags.VarDeclSqlNode;
+import org.apache.ibatis.scripting.xmltags.WhereSqlNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将 XMLScriptBuilder 解析得到的 SqlNode 树编译为 {@link Fragment}
+ *
+ * SqlNode 的属性都是私有的，通过 MetaObject 读取。
+ * 遇到自定义的 SqlNode，或者配置了 injectionFilter 的 TextSqlNode，返回 null，由调用方继续使用原有的 DynamicSqlSource。
+ * @see org.apache.ibatis.scripting.xmltags.XMLScriptBuilder#parseDynamicTags(org.apache.ibatis.parsing.XNode)
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+final class SqlNodeCompiler {
+
+    private SqlNodeCompiler() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static Fragment compile(SqlNode node) {
+        MetaObject metaObject = SystemMetaObject.forObject(node);
+        Class<?> type = node.getClass();
+        if (type == MixedSqlNode.class) {
+            List<Fragment> contents = compileAll((List<SqlNode>) metaObject.getValue("contents"));
+            return contents == null ? null : Fragments.mixed(contents);
+        }
+        if (type == StaticTextSqlNode.class) {
+            return Fragments.text((String) metaObject.getValue("text"));
+        }
+        if (type == TextSqlNode.class) {
+            if (metaObject.getValue("injectionFilter") != null) {
+                return null;
+            }
+            return Fragments.dynamicText((String) metaObject.getValue("text"));
+        }
+        if (type == IfSqlNode.class) {
+            Fragment contents = compile((SqlNode) metaObject.getValue("contents"));
+            return contents == null ? null : Fragments.ifFragment((String) metaObject.getValue("test"), contents);
+        }
+        if (type == ChooseSqlNode.class) {
+            List<Fragment> whens = compileAll((List<SqlNode>) metaObject.getValue("ifSqlNodes"));
+            SqlNode defaultSqlNode = (SqlNode) metaObject.getValue("defaultSqlNode");
+            Fragment otherwise = defaultSqlNode == null ? null : compile(defaultSqlNode);
+            if (whens == null || defaultSqlNode != null && otherwise == null) {
+                return null;
+            }
+            return Fragments.choose(whens, otherwise);
+        }
+        if (type == TrimSqlNode.class || type == WhereSqlNode.class || type == SetSqlNode.class) {
+            Fragment contents = compile((SqlNode) metaObject.getValue("contents"));
+            if (contents == null) {
+                return null;
+            }
+            return Fragments.trim(contents,
+                    (String) metaObject.getValue("prefix"),
+                    (String) metaObject.getValue("suffix"),
+                    (List<String>) metaObject.getValue("prefixesToOverride"),
+                    (List<String>) metaObject.getValue("suffixesToOverride"));
+        }
+        if (type == ForEachSqlNode.class) {
+            Fragment contents = compile((SqlNode) metaObject.getValue("contents"));
+            if (contents == null) {
+                return null;
+            }
+            return Fragments.forEach(
+                    (String) metaObject.getValue("collectionExpression"),
+                    contents,
+                    (String) metaObject.getValue("open"),
+                    (String) metaObject.getValue("close"),
+                    (String) metaObject.getValue("separator"),
+                    (String) metaObject.getValue("item"),
+                    (String) metaObject.getValue("index"));
+        }
+        if (type == VarDeclSqlNode.class) {
+            return Fragments.bind((String) metaObject.getValue("name"), (String) metaObject.getValue("expression"));
+        }
+        return null;
+    }
+
+    private static List<Fragment> compileAll(List<SqlNode> nodes) {
+        List<Fragment> fragments = new ArrayList<>(nodes.size());
+        for (SqlNode node : nodes) {
+            Fragment fragment = compile(node);
+            if (fragment == null) {
+                return null;
+            }
+            fragments.add(fragment);
+        }
+        return fragments;
+    }
+}
@@ -0,0 +1,109 @@
+package com.sumkor.builder.compiled;
+
+/**
+ * SQL 片段的输出位置，对应 DynamicContext 及其各个子类的 appendSql
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+abstract class SqlSink {
+
+    abstract void append(String sql);
+
+    /**
+     * 最外层：与 DynamicContext 一致，片段之间以空格连接
+     */
+    static final class Joined extends SqlSink {
+
+        private final StringBuilder builder;
+
+        private boolean empty = true;
+
+        Joined(int capacity) {
+            this.builder = new StringBuilder(capacity);
+        }
+
+        @Override
+        void append(String sql) {
+            if (!empty) {
+                builder.append(' ');
+            }
+            builder.append(sql);
+            empty = false;
+        }
+
+        int length() {
+            return builder.length();
+        }
+
+        /**
+         * 与 DynamicContext#getSql 一致，去掉首尾空白
+         */
+        @Override
+        public String toString() {
+            int start = 0;
+            int end = builder.length();
+            while (start < end && builder.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && builder.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            return builder.substring(start, end);
+        }
+    }
+
+    /**
+     * <trim>、<where>、<set> 内部：与 TrimSqlNode.FilteredDynamicContext 一致，片段直接拼接
+     */
+    static final class Buffer extends SqlSink {
+
+        final StringBuilder builder = new StringBuilder();
+
+        @Override
+        void append(String sql) {
+            builder.append(sql);
+        }
+    }
+
+    /**
+     * <foreach> 的一次迭代：与 ForEachSqlNode.PrefixedContext 一致，在第一个非空片段之前输出分隔符
+     */
+    static final class Prefixed extends SqlSink {
+
+        private final SqlSink delegate;
+
+        private final String prefix;
+
+        boolean prefixApplied;
+
+        Prefixed(SqlSink delegate, String prefix) {
+            this.delegate = delegate;
+            this.prefix = prefix;
+        }
+
+        @Override
+        void append(String sql) {
+            if (!prefixApplied && hasText(sql)) {
+                delegate.append(prefix);
+                prefixApplied = true;
+            }
+            delegate.append(sql);
+        }
+    }
+
+    /**
+     * 相当于 sql.trim().length() > 0，但不创建新的字符串
+     */
+    static boolean hasText(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) > ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
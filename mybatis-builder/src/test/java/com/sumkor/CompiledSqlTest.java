@@ -0,0 +1,193 @@
+package com.sumkor;
+
+import com.sumkor.builder.compiled.CompiledSqlSource;
+import com.sumkor.entity.Student;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 编译之后的动态 SQL 与 DynamicSqlSource 生成的 SQL、参数完全一致
+ * @see com.sumkor.builder.compiled.CompiledXMLLanguageDriver
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class CompiledSqlTest {
+
+    private static SqlSessionFactory dynamicFactory;
+
+    private static SqlSessionFactory compiledFactory;
+
+    @BeforeClass
+    public static void init() throws Exception {
+        dynamicFactory = build(XMLLanguageDriver.class.getName());
+        compiledFactory = build("com.sumkor.builder.compiled.CompiledXMLLanguageDriver");
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = compiledFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    private static SqlSessionFactory build(String scriptingLanguage) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("scriptingLanguage", scriptingLanguage);
+        return new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader("mybatis-config-compiled.xml"), properties);
+    }
+
+    /**
+     * 动态 SQL 都被编译，静态 SQL 保持 RawSqlSource
+     */
+    @Test
+    public void compiled() {
+        Assert.assertTrue(dynamicFactory.getConfiguration().getMappedStatement("selectByCondition").getSqlSource() instanceof DynamicSqlSource);
+        Assert.assertTrue(compiledFactory.getConfiguration().getMappedStatement("selectByCondition").getSqlSource() instanceof CompiledSqlSource);
+        Assert.assertTrue(compiledFactory.getConfiguration().getMappedStatement("insertBatch").getSqlSource() instanceof CompiledSqlSource);
+        Assert.assertFalse(compiledFactory.getConfiguration().getMappedStatement("selectAll").getSqlSource() instanceof CompiledSqlSource);
+    }
+
+    /**
+     * where、if、choose、bind、foreach、${}
+     */
+    @Test
+    public void selectByCondition() {
+        Map<String, Object> param = new HashMap<>();
+        param.put("orderBy", "id desc");
+        assertSameBoundSql("selectByCondition", param);
+
+        param.put("name", "te");
+        param.put("sex", (byte) 1);
+        param.put("locked", (byte) 1);
+        assertSameBoundSql("selectByCondition", param);
+
+        param.put("name", "");
+        param.put("locked", (byte) 0);
+        param.put("ids", new ArrayList<>(Arrays.asList(1, 2, 3)));
+        assertSameBoundSql("selectByCondition", param);
+
+        param.put("ids", new ArrayList<>());
+        assertSameBoundSql("selectByCondition", param);
+
+        try (SqlSession sqlSession = compiledFactory.openSession()) {
+            param.put("sex", null);
+            param.put("ids", new ArrayList<>(Arrays.asList(1, 2)));
+            List<Student> students = sqlSession.selectList("selectByCondition", param);
+            System.out.println("students = " + students);
+            Assert.assertEquals(2, students.size());
+            Assert.assertEquals(Integer.valueOf(2), students.get(0).getId());
+        }
+    }
+
+    /**
+     * 简单类型的参数，#{} 中的名称可以任意
+     */
+    @Test
+    public void simpleParameter() {
+        assertSameBoundSql("selectById", 1);
+        assertSameBoundSql("selectById", null);
+        try (SqlSession sqlSession = compiledFactory.openSession()) {
+            Student student = sqlSession.selectOne("selectById", 1);
+            Assert.assertEquals(Integer.valueOf(1), student.getId());
+        }
+    }
+
+    /**
+     * set、原有 mapper 中的 ${} 与 Map 参数
+     */
+    @Test
+    public void setAndText() {
+        Student student = new Student();
+        student.setId(1);
+        student.setName("compiled");
+        student.setLocked((byte) 1);
+        assertSameBoundSql("updateSelective", student);
+
+        Map<String, Object> param = new HashMap<>();
+        param.put("bTime", new Date(0));
+        param.put("eTime", new Date());
+        param.put("columnName", "id");
+        assertSameBoundSql("selectBetweenCreatedTime", param);
+        assertSameBoundSql("selectBetweenCreatedTimeParam", param);
+        param.put("columnName", null);
+        assertSameBoundSql("selectBetweenCreatedTimeParam", param);
+
+        try (SqlSession sqlSession = compiledFactory.openSession()) {
+            Assert.assertEquals(1, sqlSession.update("updateSelective", student));
+            sqlSession.rollback();
+        }
+    }
+
+    /**
+     * 嵌套 foreach、Map 的 foreach（index 为 key）、trim
+     */
+    @Test
+    public void forEach() {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Student student = new Student();
+            student.setName("compiled" + i);
+            students.add(student);
+        }
+        // 与 DefaultSqlSession 一致，集合参数包装为 Map
+        assertSameBoundSql("insertBatch", ParamNameResolver.wrapToMapIfCollection(students, null));
+        // 更多的行：之后的迭代复制第一次构建的 ParameterMapping，只替换参数名
+        List<Student> more = new ArrayList<>(students);
+        more.addAll(students);
+        assertSameBoundSql("insertBatch", ParamNameResolver.wrapToMapIfCollection(more, null));
+
+        Map<String, List<Student>> groups = new LinkedHashMap<>();
+        groups.put("a", students.subList(0, 2));
+        groups.put("b", students.subList(2, 3));
+        Map<String, Object> param = new HashMap<>();
+        param.put("groups", groups);
+        assertSameBoundSql("insertGroups", param);
+
+        try (SqlSession sqlSession = compiledFactory.openSession()) {
+            Assert.assertEquals(3, sqlSession.insert("insertGroups", param));
+            sqlSession.rollback();
+        }
+    }
+
+    private static void assertSameBoundSql(String id, Object parameter) {
+        BoundSql expected = dynamicFactory.getConfiguration().getMappedStatement(id).getBoundSql(parameter);
+        BoundSql actual = compiledFactory.getConfiguration().getMappedStatement(id).getBoundSql(parameter);
+        System.out.println("sql = " + actual.getSql());
+        Assert.assertEquals(expected.getSql(), actual.getSql());
+        Assert.assertEquals(describe(expected.getParameterMappings()), describe(actual.getParameterMappings()));
+        Assert.assertEquals(SystemMetaObject.forObject(expected).getValue("additionalParameters"),
+                SystemMetaObject.forObject(actual).getValue("additionalParameters"));
+    }
+
+    private static List<String> describe(List<ParameterMapping> parameterMappings) {
+        List<String> list = new ArrayList<>();
+        for (ParameterMapping parameterMapping : parameterMappings) {
+            list.add(parameterMapping.getProperty() + ":" + parameterMapping.getJavaType().getName()
+                    + ":" + parameterMapping.getJdbcType() + ":" + parameterMapping.getTypeHandler().getClass().getName());
+        }
+        return list;
+    }
+}
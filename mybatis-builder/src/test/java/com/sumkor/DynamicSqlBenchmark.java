@@ -0,0 +1,123 @@
+package com.sumkor;
+
+import com.sumkor.entity.Student;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比 DynamicSqlSource 与 CompiledSqlSource 的 getBoundSql 耗时：
+ * StudentMapper.xml 中的 selectBetweenCreatedTimeParam（if + ${}）、insertBatch（foreach），
+ * 以及 CompiledMapper.xml 中覆盖 where、if、choose、foreach 的 selectByCondition
+ * @see com.sumkor.builder.compiled.CompiledSqlSource
+ *
+ * 运行方式：先执行 mvn test-compile，再以 test classpath 运行 main 方法，加上 -prof gc 可以看到每次调用分配的内存。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DynamicSqlBenchmark {
+
+    @Param({"org.apache.ibatis.scripting.xmltags.XMLLanguageDriver", "com.sumkor.builder.compiled.CompiledXMLLanguageDriver"})
+    public String scriptingLanguage;
+
+    private MappedStatement selectByCondition;
+
+    private MappedStatement selectBetweenCreatedTimeParam;
+
+    private MappedStatement insertBatch;
+
+    private Map<String, Object> condition;
+
+    private Map<String, Object> createdTime;
+
+    private Object students;
+
+    @Setup
+    public void setup() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("scriptingLanguage", scriptingLanguage);
+        Configuration configuration = new SqlSessionFactoryBuilder()
+                .build(Resources.getResourceAsReader("mybatis-config-compiled.xml"), properties)
+                .getConfiguration();
+        selectByCondition = configuration.getMappedStatement("selectByCondition");
+        insertBatch = configuration.getMappedStatement("com.sumkor.mapper.StudentMapper.insertBatch");
+        selectBetweenCreatedTimeParam = configuration.getMappedStatement("com.sumkor.mapper.StudentMapper.selectBetweenCreatedTimeParam");
+
+        condition = new HashMap<>();
+        condition.put("name", "te");
+        condition.put("sex", (byte) 1);
+        condition.put("locked", (byte) 0);
+        // JDK 16 以上 OGNL 不能反射调用 Arrays$ArrayList#size，使用 ArrayList
+        condition.put("ids", new ArrayList<>(Arrays.asList(1, 2, 3)));
+        condition.put("orderBy", "id");
+
+        // 与 @Param 多参数一致，包装为 ParamMap
+        createdTime = new MapperMethod.ParamMap<>();
+        createdTime.put("bTime", new Date(0));
+        createdTime.put("eTime", new Date());
+        createdTime.put("columnName", "gmt_created");
+
+        List<Student> list = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Student student = new Student();
+            student.setName("name" + i);
+            list.add(student);
+        }
+        students = ParamNameResolver.wrapToMapIfCollection(list, null);
+    }
+
+    @Benchmark
+    public BoundSql where() {
+        return selectByCondition.getBoundSql(condition);
+    }
+
+    @Benchmark
+    public BoundSql ifParam() {
+        return selectBetweenCreatedTimeParam.getBoundSql(createdTime);
+    }
+
+    @Benchmark
+    public BoundSql forEach() {
+        return insertBatch.getBoundSql(students);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(DynamicSqlBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,187 @@
+package com.sumkor;
+
+import com.sumkor.builder.LazySqlSource;
+import com.sumkor.builder.LazyXMLLanguageDriver;
+import com.sumkor.entity.Student;
+import com.sumkor.mapper.StudentMapper;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.scripting.LanguageDriver;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 延迟编译 SQL
+ * @see com.sumkor.builder.LazyXMLLanguageDriver
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class LazyStatementTest {
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Before
+    public void init() throws Exception {
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader("mybatis-config-lazy.xml"));
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    /**
+     * 语句在启动时已注册，执行时才编译
+     */
+    @Test
+    public void compileOnFirstUse() {
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        Assert.assertTrue(configuration.hasStatement("com.sumkor.mapper.StudentMapper.insertBatch"));
+        Assert.assertFalse(sqlSourceOf("insertBatch").isCompiled());
+        Assert.assertFalse(sqlSourceOf("selectAll").isCompiled());
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            List<Student> students = sqlSession.getMapper(StudentMapper.class).selectAll();
+            System.out.println("students = " + students);
+            Assert.assertTrue(sqlSourceOf("selectAll").isCompiled());
+            Assert.assertFalse(sqlSourceOf("insertBatch").isCompiled());
+
+            // <foreach> 动态 SQL
+            List<Student> batch = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                Student student = new Student();
+                student.setName("lazy" + i);
+                batch.add(student);
+            }
+            Assert.assertEquals(3, sqlSession.insert("insertBatch", batch));
+            Assert.assertTrue(sqlSourceOf("insertBatch").isCompiled());
+            sqlSession.rollback();
+        }
+    }
+
+    /**
+     * 并发首次执行，只编译一次，所有线程拿到同一个编译结果
+     */
+    @Test
+    public void concurrentCompile() throws Exception {
+        LazySqlSource sqlSource = sqlSourceOf("selectBetweenCreatedTime");
+        int threads = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executorService.submit(() -> {
+                start.await();
+                return sqlSource.compile();
+            }));
+        }
+        start.countDown();
+        Set<Object> compiled = Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+        for (Future<Object> future : futures) {
+            compiled.add(future.get());
+        }
+        executorService.shutdown();
+        Assert.assertEquals(1, compiled.size());
+    }
+
+    /**
+     * 提前编译全部语句，用于在测试中发现 SQL 错误
+     */
+    @Test
+    public void compileAll() {
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        int compiled = LazyXMLLanguageDriver.compileAll(configuration);
+        System.out.println("compiled = " + compiled);
+        Assert.assertEquals(new HashSet<>(configuration.getMappedStatementNames()).size() / 2, compiled);
+        Assert.assertEquals(0, LazyXMLLanguageDriver.compileAll(configuration));
+    }
+
+    /**
+     * 与非延迟模式对比启动时创建 SqlSource 的耗时。
+     * 每轮用各自的语言驱动解析 BUILDS 次 StudentMapper.xml，取多轮中的最小值，减少 GC 和 JIT 的干扰
+     */
+    @Test
+    public void startup() throws Exception {
+        long eagerNanos = Long.MAX_VALUE;
+        long lazyNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            eagerNanos = Math.min(eagerNanos, parseMapper(TimedDriver.class));
+            lazyNanos = Math.min(lazyNanos, parseMapper(TimedLazyDriver.class));
+        }
+        System.out.println("\r\n eager: " + eagerNanos / 1000 + " us per mapper"
+                + "\r\n lazy:  " + lazyNanos / 1000 + " us per mapper\r\n");
+        Assert.assertTrue("lazy " + lazyNanos + " ns, eager " + eagerNanos + " ns", lazyNanos < eagerNanos);
+    }
+
+    private static final int BUILDS = 100;
+
+    /**
+     * 解析 BUILDS 次 Mapper，返回平均每次在 createSqlSource 中的耗时
+     */
+    private static long parseMapper(Class<? extends LanguageDriver> driver) throws Exception {
+        String resource = "com/sumkor/mapper/StudentMapper.xml";
+        TimedDriver.nanos = 0;
+        for (int i = 0; i < BUILDS; i++) {
+            Configuration configuration = new Configuration();
+            configuration.setDefaultScriptingLanguage(driver);
+            new XMLMapperBuilder(Resources.getResourceAsStream(resource), configuration, resource, configuration.getSqlFragments()).parse();
+        }
+        return TimedDriver.nanos / BUILDS;
+    }
+
+    /**
+     * 统计 createSqlSource 的累计耗时
+     */
+    public static class TimedDriver extends XMLLanguageDriver {
+
+        static long nanos;
+
+        @Override
+        public SqlSource createSqlSource(Configuration configuration, XNode script, Class<?> parameterType) {
+            long start = System.nanoTime();
+            SqlSource sqlSource = super.createSqlSource(configuration, script, parameterType);
+            nanos += System.nanoTime() - start;
+            return sqlSource;
+        }
+    }
+
+    public static class TimedLazyDriver extends LazyXMLLanguageDriver {
+
+        @Override
+        public SqlSource createSqlSource(Configuration configuration, XNode script, Class<?> parameterType) {
+            long start = System.nanoTime();
+            SqlSource sqlSource = super.createSqlSource(configuration, script, parameterType);
+            TimedDriver.nanos += System.nanoTime() - start;
+            return sqlSource;
+        }
+    }
+
+    private LazySqlSource sqlSourceOf(String id) {
+        MappedStatement ms = sqlSessionFactory.getConfiguration().getMappedStatement(id);
+        return (LazySqlSource) ms.getSqlSource();
+    }
+}
@@ -0,0 +1,118 @@
+package com.sumkor;
+
+import com.sumkor.builder.ConfigurationSnapshot;
+import com.sumkor.builder.ConfigurationSnapshotCompiler;
+import com.sumkor.builder.SnapshotSqlSessionFactoryBuilder;
+import com.sumkor.entity.Student;
+import com.sumkor.mapper.StudentMapper;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 从配置快照启动
+ * @see com.sumkor.builder.ConfigurationSnapshotCompiler
+ * @see com.sumkor.builder.SnapshotSqlSessionFactoryBuilder
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class SnapshotTest {
+
+    private static final String RESOURCE = "mybatis-config-h2.xml";
+
+    private static byte[] snapshot;
+
+    @BeforeClass
+    public static void init() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ConfigurationSnapshotCompiler.compile(RESOURCE).writeTo(outputStream);
+        snapshot = outputStream.toByteArray();
+        System.out.println("snapshot size = " + snapshot.length);
+
+        Resources.setCharset(StandardCharsets.UTF_8);
+        SqlSessionFactory sqlSessionFactory = new SnapshotSqlSessionFactoryBuilder().build(new ByteArrayInputStream(snapshot));
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    /**
+     * 与 SqlSessionFactoryBuilder 得到的配置一致
+     */
+    @Test
+    public void sameConfiguration() throws Exception {
+        Reader reader = Resources.getResourceAsReader(RESOURCE);
+        Configuration expected = new SqlSessionFactoryBuilder().build(reader).getConfiguration();
+        Configuration actual = new SnapshotSqlSessionFactoryBuilder().build(new ByteArrayInputStream(snapshot)).getConfiguration();
+
+        Assert.assertEquals(new HashSet<>(expected.getMappedStatementNames()), new HashSet<>(actual.getMappedStatementNames()));
+        Assert.assertEquals(new HashSet<>(expected.getResultMapNames()), new HashSet<>(actual.getResultMapNames()));
+        Assert.assertEquals(expected.getTypeAliasRegistry().getTypeAliases(), actual.getTypeAliasRegistry().getTypeAliases());
+        Assert.assertEquals(new HashSet<>(expected.getMapperRegistry().getMappers()), new HashSet<>(actual.getMapperRegistry().getMappers()));
+        Assert.assertEquals(expected.isMapUnderscoreToCamelCase(), actual.isMapUnderscoreToCamelCase());
+        Assert.assertNotNull(actual.getCache(StudentMapper.class.getName()));
+    }
+
+    @Test
+    public void query() {
+        SqlSessionFactory sqlSessionFactory = new SnapshotSqlSessionFactoryBuilder().build(new ByteArrayInputStream(snapshot));
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            StudentMapper studentMapper = sqlSession.getMapper(StudentMapper.class);
+            Student student = studentMapper.selectByPrimaryKey(1);
+            Assert.assertNotNull(student.getGmtCreated());
+
+            Map<String, Object> params = new HashMap<>();
+            params.put("bTime", new java.util.Date(0));
+            params.put("eTime", new java.util.Date());
+            params.put("columnName", "id");
+            List<Student> students = studentMapper.selectBetweenCreatedTime(params);
+            System.out.println("students = " + students);
+            Assert.assertEquals(studentMapper.selectAll().size(), students.size());
+        }
+    }
+
+    /**
+     * 对比启动耗时：交替构建，每轮 BUILDS 次取平均，取多轮中的最小值，减少 GC 和 JIT 的干扰。
+     * 从快照恢复跳过了 XML 解析和 DTD 校验，应当更快
+     */
+    @Test
+    public void startup() throws Exception {
+        long xml = Long.MAX_VALUE;
+        long fromSnapshot = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < BUILDS; i++) {
+                new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader(RESOURCE));
+            }
+            xml = Math.min(xml, (System.nanoTime() - start) / BUILDS);
+            start = System.nanoTime();
+            for (int i = 0; i < BUILDS; i++) {
+                new SnapshotSqlSessionFactoryBuilder().build(new ByteArrayInputStream(snapshot));
+            }
+            fromSnapshot = Math.min(fromSnapshot, (System.nanoTime() - start) / BUILDS);
+        }
+        System.out.println("\r\n xml = " + xml / 1000 + "us, snapshot = " + fromSnapshot / 1000 + "us\r\n");
+        Assert.assertTrue("snapshot " + fromSnapshot + " ns, xml " + xml + " ns", fromSnapshot < xml);
+    }
+
+    private static final int BUILDS = 20;
+}
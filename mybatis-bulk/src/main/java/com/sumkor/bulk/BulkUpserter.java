@@ -0,0 +1,103 @@
+package com.sumkor.bulk;
+
+import com.sumkor.bulk.UpsertResult.Outcome;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 批量 upsert，代替同步任务中逐行 selectByPrimaryKey 再 insert 或 updateByPrimaryKey 的两次往返
+ *
+ * 1. 使用 BATCH 执行器，每 chunkSize 行执行一次 executeBatch，同一个语句的 SQL 文本始终相同，只占用一个 PreparedStatement；
+ * 2. 主键为空的行一定是新行，使用 insertStatement（useGeneratedKeys）插入，由 Jdbc3KeyGenerator 回填自增主键；
+ *    upsert 语句在插入、更新混合的批次中无法可靠地对应自增主键，因此只处理主键非空的行；
+ * 3. 每行的结果取自 executeBatch 返回的影响行数，由 {@link UpsertDialect} 解读。
+ *
+ * 各行严格按输入顺序执行，不能为了减少 Statement 把插入和 upsert 分开重排：
+ * 例如 [Student(id=7), Student(id=null)]，先执行插入时新行会拿到自增主键 7，随后又被 id=7 的 upsert 覆盖。
+ * BatchExecutor 只合并连续的相同语句，插入、upsert 交替出现时会新建 Statement，但执行顺序与加入的顺序一致。
+ * 一次 upsert 调用在同一个事务中执行，失败时整体回滚。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class BulkUpserter<T> {
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final String insertStatement;
+
+    private final String upsertStatement;
+
+    private final Function<T, Object> idGetter;
+
+    private final int chunkSize;
+
+    private final UpsertDialect dialect;
+
+    /**
+     * @param insertStatement 自增主键的插入语句，例如 com.sumkor.mapper.StudentMapper.insert
+     * @param upsertStatement 按主键插入或更新的语句，例如 com.sumkor.bulk.mapper.StudentBulkMapper.upsert
+     */
+    public BulkUpserter(SqlSessionFactory sqlSessionFactory, String insertStatement, String upsertStatement,
+                        Function<T, Object> idGetter, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive, but was " + chunkSize);
+        }
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.insertStatement = insertStatement;
+        this.upsertStatement = upsertStatement;
+        this.idGetter = idGetter;
+        this.chunkSize = chunkSize;
+        this.dialect = UpsertDialect.of(sqlSessionFactory.getConfiguration());
+    }
+
+    public UpsertResult upsert(List<T> rows) {
+        long start = System.nanoTime();
+        Outcome[] outcomes = new Outcome[rows.size()];
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            for (int from = 0; from < rows.size(); from += chunkSize) {
+                int to = Math.min(from + chunkSize, rows.size());
+                for (int i = from; i < to; i++) {
+                    if (idGetter.apply(rows.get(i)) == null) {
+                        sqlSession.insert(insertStatement, rows.get(i));
+                    } else {
+                        sqlSession.update(upsertStatement, rows.get(i));
+                    }
+                }
+                collect(sqlSession.flushStatements(), from, to, outcomes);
+            }
+            sqlSession.commit();
+        }
+        return new UpsertResult(outcomes, System.nanoTime() - start);
+    }
+
+    /**
+     * BatchResult 按语句的执行顺序排列，每个 BatchResult 中的参数按加入的顺序排列，依次对应 [from, to) 中的行
+     * @see org.apache.ibatis.executor.BatchExecutor#doFlushStatements(boolean)
+     */
+    private void collect(List<BatchResult> batchResults, int from, int to, Outcome[] outcomes) {
+        int position = from;
+        for (BatchResult batchResult : batchResults) {
+            boolean insert = batchResult.getMappedStatement().getId().equals(insertStatement);
+            for (int updateCount : batchResult.getUpdateCounts()) {
+                if (position == to) {
+                    throw new ExecutorException("Expected " + (to - from) + " update counts, but got more");
+                }
+                outcomes[position++] = insert ? Outcome.INSERTED : dialect.outcome(updateCount);
+            }
+        }
+        if (position != to) {
+            throw new ExecutorException("Expected " + (to - from) + " update counts, but got " + (position - from));
+        }
+    }
+
+    public UpsertDialect getDialect() {
+        return dialect;
+    }
+}
@@ -0,0 +1,147 @@
+package com.sumkor.bulk;
+
+import com.sumkor.bulk.UpsertResult.Outcome;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.session.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * upsert 语句的方言，决定如何解读 JDBC 批量执行返回的每行影响行数
+ *
+ * 语句本身按 databaseId 写在 StudentBulkMapper.xml 中，这里只负责结果。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public enum UpsertDialect {
+
+    /**
+     * insert ... on duplicate key update，返回实际影响的行数：
+     * MySQL 驱动开启 useAffectedRows=true 时，以及 H2 的 MySQL 兼容模式
+     */
+    MYSQL("mysql") {
+        @Override
+        Outcome outcome(int updateCount) {
+            switch (updateCount) {
+                case 0:
+                    return Outcome.UNCHANGED;
+                case 1:
+                    return Outcome.INSERTED;
+                case 2:
+                    return Outcome.UPDATED;
+                default:
+                    return Outcome.UNKNOWN;
+            }
+        }
+    },
+
+    /**
+     * insert ... on duplicate key update，返回匹配的行数：
+     * MySQL 驱动（Connector/J、MariaDB Connector/J）默认 useAffectedRows=false，连接带有 CLIENT_FOUND_ROWS 标志，
+     * 值没有变化的已有行也返回 1，与插入无法区分
+     */
+    MYSQL_FOUND_ROWS("mysql") {
+        @Override
+        Outcome outcome(int updateCount) {
+            switch (updateCount) {
+                case 1:
+                    return Outcome.INSERTED_OR_UNCHANGED;
+                case 2:
+                    return Outcome.UPDATED;
+                default:
+                    return Outcome.UNKNOWN;
+            }
+        }
+    },
+
+    /**
+     * merge into ... using ... when matched ... when not matched ...
+     */
+    H2("h2") {
+        @Override
+        Outcome outcome(int updateCount) {
+            return updateCount == 1 ? Outcome.UPSERTED : Outcome.UNKNOWN;
+        }
+    };
+
+    private static final String USE_AFFECTED_ROWS = "useAffectedRows";
+
+    private final String databaseId;
+
+    UpsertDialect(String databaseId) {
+        this.databaseId = databaseId;
+    }
+
+    /**
+     * 单行语句的影响行数对应的结果。
+     * 驱动改写批量语句时（例如 MySQL 的 rewriteBatchedStatements=true）返回 {@link Statement#SUCCESS_NO_INFO}，结果未知
+     */
+    abstract Outcome outcome(int updateCount);
+
+    public String getDatabaseId() {
+        return databaseId;
+    }
+
+    /**
+     * 按 Configuration#databaseId 选择方言，mysql 再按驱动是否返回实际影响的行数区分
+     */
+    public static UpsertDialect of(Configuration configuration) {
+        String databaseId = configuration.getDatabaseId();
+        if (H2.databaseId.equals(databaseId)) {
+            return H2;
+        }
+        if (!MYSQL.databaseId.equals(databaseId)) {
+            throw new IllegalArgumentException("No upsert dialect for databaseId '" + databaseId + "', configure a databaseIdProvider mapping to one of mysql, h2");
+        }
+        DataSource dataSource = configuration.getEnvironment().getDataSource();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String driverName = metaData.getDriverName();
+            if (!driverName.startsWith("MySQL") && !driverName.startsWith("MariaDB")) {
+                // 例如 H2 的 MySQL 兼容模式
+                return MYSQL;
+            }
+            return useAffectedRows(metaData.getURL(), driverProperties(dataSource)) ? MYSQL : MYSQL_FOUND_ROWS;
+        } catch (SQLException e) {
+            throw new ExecutorException("Could not inspect the connection for the upsert dialect.  Cause: " + e, e);
+        }
+    }
+
+    /**
+     * 连接串的参数或者数据源的 driver.* 属性中是否开启了 useAffectedRows
+     */
+    static boolean useAffectedRows(String url, Properties driverProperties) {
+        if (driverProperties != null && Boolean.parseBoolean(driverProperties.getProperty(USE_AFFECTED_ROWS))) {
+            return true;
+        }
+        int query = url == null ? -1 : url.indexOf('?');
+        if (query < 0) {
+            return false;
+        }
+        for (String parameter : url.substring(query + 1).split("&")) {
+            int eq = parameter.indexOf('=');
+            if (eq > 0 && USE_AFFECTED_ROWS.equalsIgnoreCase(parameter.substring(0, eq))) {
+                return Boolean.parseBoolean(parameter.substring(eq + 1));
+            }
+        }
+        return false;
+    }
+
+    private static Properties driverProperties(DataSource dataSource) {
+        if (dataSource instanceof PooledDataSource) {
+            return ((PooledDataSource) dataSource).getDriverProperties();
+        }
+        if (dataSource instanceof UnpooledDataSource) {
+            return ((UnpooledDataSource) dataSource).getDriverProperties();
+        }
+        return null;
+    }
+}
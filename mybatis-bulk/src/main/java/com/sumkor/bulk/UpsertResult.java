@@ -0,0 +1,86 @@
+package com.sumkor.bulk;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 批量 upsert 的结果，按输入顺序记录每一行
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class UpsertResult {
+
+    public enum Outcome {
+        /**
+         * 插入了新行
+         */
+        INSERTED,
+        /**
+         * 更新了已有的行
+         */
+        UPDATED,
+        /**
+         * 已有的行，值没有变化
+         */
+        UNCHANGED,
+        /**
+         * 插入了新行，或者已有的行值没有变化，驱动返回的是匹配的行数，两者都是 1
+         */
+        INSERTED_OR_UNCHANGED,
+        /**
+         * 插入或更新，数据库没有区分
+         */
+        UPSERTED,
+        /**
+         * 驱动没有返回影响行数
+         */
+        UNKNOWN
+    }
+
+    private final Outcome[] outcomes;
+
+    private final long elapsedNanos;
+
+    UpsertResult(Outcome[] outcomes, long elapsedNanos) {
+        this.outcomes = outcomes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * 第 index 行（输入顺序）的结果
+     */
+    public Outcome getOutcome(int index) {
+        return outcomes[index];
+    }
+
+    public int size() {
+        return outcomes.length;
+    }
+
+    public int count(Outcome outcome) {
+        int count = 0;
+        for (Outcome o : outcomes) {
+            if (o == outcome) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 每秒处理的行数
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : outcomes.length * 1_000_000_000D / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        Map<Outcome, Integer> counts = new EnumMap<>(Outcome.class);
+        for (Outcome outcome : outcomes) {
+            counts.merge(outcome, 1, Integer::sum);
+        }
+        return "UpsertResult" + counts + ", " + String.format("%.0f", getRowsPerSecond()) + " rows/s";
+    }
+}
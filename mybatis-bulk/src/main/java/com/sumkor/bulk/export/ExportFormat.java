@@ -0,0 +1,147 @@
+package com.sumkor.bulk.export;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * 导出文件的格式，每行编码到调用方复用的 StringBuilder 中，不为每个字段创建中间字符串
+ *
+ * 时间按 yyyy-MM-dd HH:mm:ss 输出（系统时区），与 data-mysql.sql 中的写法一致。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public enum ExportFormat {
+
+    /**
+     * RFC 4180：包含逗号、双引号、换行的字段用双引号包围，字段中的双引号写两次；null 输出为空字段
+     */
+    CSV {
+        @Override
+        void header(StringBuilder out, String[] names) {
+            for (int i = 0; i < names.length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                appendCsv(out, names[i]);
+            }
+            out.append('\n');
+        }
+
+        @Override
+        void row(StringBuilder out, String[] names, Object[] values) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                appendCsv(out, values[i]);
+            }
+            out.append('\n');
+        }
+    },
+
+    /**
+     * 每行一个 JSON 对象，没有表头
+     */
+    NDJSON {
+        @Override
+        void header(StringBuilder out, String[] names) {
+        }
+
+        @Override
+        void row(StringBuilder out, String[] names, Object[] values) {
+            out.append('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                appendJsonString(out, names[i]);
+                out.append(':');
+                Object value = values[i];
+                if (value == null || value instanceof Number || value instanceof Boolean) {
+                    out.append(value);
+                } else if (value instanceof Date) {
+                    out.append('"');
+                    appendDate(out, (Date) value);
+                    out.append('"');
+                } else {
+                    appendJsonString(out, value.toString());
+                }
+            }
+            out.append("}\n");
+        }
+    };
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    abstract void header(StringBuilder out, String[] names);
+
+    abstract void row(StringBuilder out, String[] names, Object[] values);
+
+    private static void appendCsv(StringBuilder out, Object value) {
+        if (value == null) {
+            return;
+        }
+        int start = out.length();
+        if (value instanceof Date) {
+            appendDate(out, (Date) value);
+            return;
+        }
+        out.append(value);
+        boolean quote = false;
+        for (int i = start; i < out.length() && !quote; i++) {
+            char c = out.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return;
+        }
+        for (int i = out.length() - 1; i >= start; i--) {
+            if (out.charAt(i) == '"') {
+                out.insert(i, '"');
+            }
+        }
+        out.insert(start, '"').append('"');
+    }
+
+    private static void appendJsonString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * java.sql.Date 不支持 toInstant，统一按毫秒数转换
+     */
+    private static void appendDate(StringBuilder out, Date date) {
+        DATE_TIME.formatTo(LocalDateTime.ofInstant(Instant.ofEpochMilli(date.getTime()), ZoneId.systemDefault()), out);
+    }
+}
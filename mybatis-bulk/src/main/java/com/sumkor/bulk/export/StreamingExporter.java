@@ -0,0 +1,190 @@
+package com.sumkor.bulk.export;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.SqlSession;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式导出查询结果到 CSV、NDJSON 文件，内存占用与结果集大小无关
+ *
+ * 原来的做法是 selectList 得到 List<Student>，再整体序列化、写文件，结果集有多大，内存中就有多少对象。
+ * 这里的做法：
+ * 1. 通过 ResultHandler 逐行接收结果，MyBatis 不再组装 List，一级缓存中也只有空列表
+ *    @see org.apache.ibatis.executor.resultset.DefaultResultSetHandler#handleResultSet
+ *    驱动是否逐行读取由语句的 fetchSize 决定，见 StudentBulkMapper.xml 中的 selectBetweenCreatedTimeStream；
+ * 2. 每行编码到同一个 StringBuilder、CharBuffer 中，再编码为 UTF-8 写入同一个直接内存 ByteBuffer，缓冲区满了才写入 FileChannel；
+ * 3. 写文件在读取结果集的线程上同步执行，磁盘写不动时，FileChannel#write 阻塞，也就不会继续从数据库读取，不需要额外的队列。
+ *
+ * 列取自语句的 resultMap 中的映射，按声明的顺序输出，列名为属性名。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class StreamingExporter {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final int bufferSize;
+
+    public StreamingExporter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public StreamingExporter(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * 导出到文件，文件已存在则覆盖
+     *
+     * @return 导出的行数
+     */
+    public long export(SqlSession sqlSession, String statement, Object parameter, ExportFormat format, Path file) throws IOException {
+        MappedStatement ms = sqlSession.getConfiguration().getMappedStatement(statement);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            RowWriter writer = new RowWriter(ms, format, channel, bufferSize);
+            writer.header();
+            sqlSession.select(statement, parameter, writer);
+            writer.finish();
+            return writer.rows;
+        } catch (PersistenceException e) {
+            // ResultHandler 中不能抛出受检异常，写文件失败时以 UncheckedIOException 抛出，由 MyBatis 包装为 PersistenceException
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static class RowWriter implements ResultHandler<Object> {
+
+        private final ExportFormat format;
+
+        private final FileChannel channel;
+
+        private final String[] names;
+
+        private final Invoker[] getters;
+
+        /**
+         * 以下缓冲区在每行之间复用
+         */
+        private final Object[] values;
+
+        private final StringBuilder row = new StringBuilder(256);
+
+        private CharBuffer chars = CharBuffer.allocate(256);
+
+        private final ByteBuffer bytes;
+
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+        private long rows;
+
+        RowWriter(MappedStatement ms, ExportFormat format, FileChannel channel, int bufferSize) {
+            this.format = format;
+            this.channel = channel;
+            this.bytes = ByteBuffer.allocateDirect(bufferSize);
+            ResultMap resultMap = ms.getResultMaps().get(0);
+            Reflector reflector = ms.getConfiguration().getReflectorFactory().findForClass(resultMap.getType());
+            List<String> properties = new ArrayList<>();
+            for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+                if (resultMapping.getProperty() != null && resultMapping.getNestedResultMapId() == null && resultMapping.getNestedQueryId() == null) {
+                    properties.add(resultMapping.getProperty());
+                }
+            }
+            if (properties.isEmpty()) {
+                throw new ExecutorException("Statement " + ms.getId() + " has no mapped properties to export, use a resultMap.");
+            }
+            this.names = properties.toArray(new String[0]);
+            this.getters = new Invoker[names.length];
+            for (int i = 0; i < names.length; i++) {
+                getters[i] = reflector.getGetInvoker(names[i]);
+            }
+            this.values = new Object[names.length];
+        }
+
+        void header() throws IOException {
+            format.header(row, names);
+            write();
+        }
+
+        @Override
+        public void handleResult(ResultContext<?> resultContext) {
+            Object result = resultContext.getResultObject();
+            try {
+                for (int i = 0; i < getters.length; i++) {
+                    values[i] = getters[i].invoke(result, null);
+                }
+            } catch (Exception e) {
+                throw new ExecutorException("Could not read " + result.getClass().getName() + " for export", e);
+            }
+            format.row(row, names, values);
+            try {
+                write();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+
+        /**
+         * 将 row 中的一行编码到 bytes 中，bytes 写满时先写入文件
+         */
+        private void write() throws IOException {
+            int length = row.length();
+            if (chars.capacity() < length) {
+                chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+            }
+            chars.clear();
+            row.getChars(0, length, chars.array(), 0);
+            chars.limit(length);
+            row.setLength(0);
+            while (true) {
+                CoderResult result = encoder.encode(chars, bytes, false);
+                if (result.isOverflow()) {
+                    drain();
+                } else if (result.isError()) {
+                    result.throwException();
+                } else {
+                    return;
+                }
+            }
+        }
+
+        void finish() throws IOException {
+            chars.clear().limit(0);
+            encoder.encode(chars, bytes, true);
+            encoder.flush(bytes);
+            drain();
+        }
+
+        private void drain() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+        }
+    }
+}
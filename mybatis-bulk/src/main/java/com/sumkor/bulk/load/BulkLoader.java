@@ -0,0 +1,136 @@
+package com.sumkor.bulk.load;
+
+import org.apache.ibatis.exceptions.ExceptionFactory;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * 超大批量导入，代替逐行 insert 的 JDBC 批处理
+ *
+ * 即使使用 BATCH 执行器，每一行仍然要绑定参数、在服务端解析执行一次 insert；
+ * LOAD DATA 只执行一条语句，由服务端直接解析数据流，没有逐行的语句开销。
+ * 1. MySQL：LOAD DATA LOCAL INFILE，通过 {@link LocalInfile} 把 {@link RowInputStream} 交给驱动，
+ *    驱动边读边发送，不产生临时文件。需要在连接串中开启 allowLoadLocalInfile=true，服务端开启 local_infile；
+ * 2. H2：没有 LOCAL INFILE，CSVREAD 只能读取文件，因此先把同样的数据流写入临时文件，再 insert ... select * from csvread(...)，用于本地测试。
+ *
+ * 按 configuration 的 databaseId 选择实现。导入的列取自 resultMap 中对应属性的映射，属性的 getter 即为列值。
+ * 一次 load 在同一个事务中执行。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class BulkLoader<T> {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final String table;
+
+    private final String[] columns;
+
+    private final Invoker[] getters;
+
+    private final boolean mysql;
+
+    /**
+     * @param resultMapId 列与属性的映射，例如 com.sumkor.mapper.StudentMapper.BaseResultMap
+     * @param properties  要导入的属性，按顺序对应表中的列，通常不包含自增主键
+     */
+    public BulkLoader(SqlSessionFactory sqlSessionFactory, String table, String resultMapId, String... properties) {
+        if (properties.length == 0) {
+            throw new IllegalArgumentException("At least one property is required");
+        }
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        ResultMap resultMap = configuration.getResultMap(resultMapId);
+        Reflector reflector = configuration.getReflectorFactory().findForClass(resultMap.getType());
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.table = table;
+        this.columns = new String[properties.length];
+        this.getters = new Invoker[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            columns[i] = column(resultMap, properties[i]);
+            getters[i] = reflector.getGetInvoker(properties[i]);
+        }
+        this.mysql = "mysql".equals(configuration.getDatabaseId());
+    }
+
+    private static String column(ResultMap resultMap, String property) {
+        for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+            if (property.equals(resultMapping.getProperty()) && resultMapping.getColumn() != null) {
+                return resultMapping.getColumn();
+            }
+        }
+        throw new ExecutorException("No column mapped to property '" + property + "' in resultMap " + resultMap.getId());
+    }
+
+    public LoadResult load(Iterable<T> rows) {
+        return load(rows.iterator());
+    }
+
+    /**
+     * 逐行读取 rows 并导入，rows 可以是惰性生成的，全程只持有当前行
+     */
+    public LoadResult load(Iterator<T> rows) {
+        long start = System.nanoTime();
+        RowInputStream<T> input = new RowInputStream<>(rows, getters, BUFFER_SIZE);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession();
+             Statement statement = sqlSession.getConnection().createStatement()) {
+            long loaded = mysql ? loadData(statement, input) : csvRead(statement, input);
+            if (loaded != input.getCount()) {
+                throw new ExecutorException("Expected " + input.getCount() + " rows to be loaded into " + table + ", but got " + loaded);
+            }
+            // 没有经过 MyBatis 执行语句，session 不是 dirty 的，需要强制提交
+            sqlSession.commit(true);
+            return new LoadResult(loaded, System.nanoTime() - start);
+        } catch (ExecutorException e) {
+            throw e;
+        } catch (Exception e) {
+            throw ExceptionFactory.wrapException("Error bulk loading into " + table + ".  Cause: " + e, e);
+        }
+    }
+
+    private long loadData(Statement statement, InputStream input) throws Exception {
+        LocalInfile.setInputStream(statement, input);
+        return statement.executeLargeUpdate(loadDataSql(table, columns));
+    }
+
+    /**
+     * ESCAPED BY '' 关闭反斜杠转义，字符串中的双引号按 CSV 的方式写两次；不带引号的 NULL 读为 null
+     */
+    private static String loadDataSql(String table, String[] columns) {
+        return "LOAD DATA LOCAL INFILE 'stream' INTO TABLE " + table + " CHARACTER SET utf8mb4"
+                + " FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY ''"
+                + " LINES TERMINATED BY '\\n' (" + String.join(", ", columns) + ")";
+    }
+
+    /**
+     * CSVREAD 的文件名、选项不能使用 ? 参数，只能拼接为字面量
+     */
+    private long csvRead(Statement statement, InputStream input) throws Exception {
+        Path file = Files.createTempFile("bulk-load-", ".csv");
+        try {
+            Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+            String header = String.join(",", columns).toUpperCase(Locale.ROOT);
+            return statement.executeLargeUpdate("insert into " + table + " (" + String.join(", ", columns) + ")"
+                    + " select * from csvread('" + file.toAbsolutePath().toString().replace("'", "''") + "', '" + header + "',"
+                    + " 'charset=UTF-8 nullString=NULL')");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
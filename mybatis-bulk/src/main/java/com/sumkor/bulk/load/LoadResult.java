@@ -0,0 +1,42 @@
+package com.sumkor.bulk.load;
+
+/**
+ * 批量导入的结果
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class LoadResult {
+
+    private final long rows;
+
+    private final long elapsedNanos;
+
+    public LoadResult(long rows, long elapsedNanos) {
+        this.rows = rows;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * 数据库报告的导入行数
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * 每秒导入的行数
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1_000_000_000D / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadResult{rows=" + rows + ", " + getElapsedMillis() + "ms, " + String.format("%.0f", getRowsPerSecond()) + " rows/s}";
+    }
+}
@@ -0,0 +1,48 @@
+package com.sumkor.bulk.load;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.io.Resources;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 把输入流交给 MySQL 驱动，作为 LOAD DATA LOCAL INFILE 的数据来源
+ *
+ * Connector/J 的接口通过反射调用，只在 databaseId 为 mysql 时才会加载，BulkLoader 本身不依赖驱动的类。
+ * @see com.mysql.cj.jdbc.JdbcStatement#setLocalInfileInputStream(InputStream)
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+final class LocalInfile {
+
+    private static final String JDBC_STATEMENT = "com.mysql.cj.jdbc.JdbcStatement";
+
+    private static final String SET_LOCAL_INFILE_INPUT_STREAM = "setLocalInfileInputStream";
+
+    private LocalInfile() {
+    }
+
+    static void setInputStream(Statement statement, InputStream input) throws SQLException {
+        Class<?> type;
+        try {
+            type = Resources.classForName(JDBC_STATEMENT);
+        } catch (ClassNotFoundException e) {
+            throw new ExecutorException("LOAD DATA LOCAL INFILE requires MySQL Connector/J on the classpath", e);
+        }
+        Object target = statement.unwrap(type);
+        try {
+            type.getMethod(SET_LOCAL_INFILE_INPUT_STREAM, InputStream.class).invoke(target, input);
+        } catch (InvocationTargetException e) {
+            if (e.getTargetException() instanceof SQLException) {
+                throw (SQLException) e.getTargetException();
+            }
+            throw new ExecutorException("Could not set the local infile stream", e.getTargetException());
+        } catch (ReflectiveOperationException e) {
+            throw new ExecutorException("Could not set the local infile stream", e);
+        }
+    }
+}
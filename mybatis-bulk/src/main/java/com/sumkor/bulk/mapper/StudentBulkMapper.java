@@ -0,0 +1,26 @@
+package com.sumkor.bulk.mapper;
+
+import com.sumkor.entity.Student;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.Date;
+
+/**
+ * 批量同步使用的语句，按 databaseId 区分方言，见 StudentBulkMapper.xml
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public interface StudentBulkMapper {
+
+    /**
+     * 按主键插入或更新，id 不能为空
+     */
+    int upsert(Student student);
+
+    /**
+     * 流式查询一段时间内的用户，按创建时间排序，每一行交给 handler 处理
+     */
+    void selectBetweenCreatedTimeStream(@Param("bTime") Date bTime, @Param("eTime") Date eTime, ResultHandler<Student> handler);
+}
@@ -0,0 +1,297 @@
+package com.sumkor;
+
+import com.sumkor.bulk.load.BulkLoader;
+import com.sumkor.bulk.load.LoadResult;
+import com.sumkor.entity.Student;
+import com.sumkor.mapper.StudentMapper;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 超大批量导入：LOAD DATA / CSVREAD 与 BATCH 执行器逐行 insert 的吞吐量对比
+ * @see com.sumkor.bulk.load.BulkLoader
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class BulkLoadTest {
+
+    private static final String BASE_RESULT_MAP = "com.sumkor.mapper.StudentMapper.BaseResultMap";
+
+    private static final int ROWS = 50000;
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void build() throws Exception {
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader("mybatis-config-h2.xml"));
+    }
+
+    @Before
+    public void init() throws Exception {
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    /**
+     * 逗号、双引号、换行、字符串 "NULL"、null 都能原样导入
+     */
+    @Test
+    public void escape() throws Exception {
+        Student quoted = student("a,\"b\"", null);
+        Student text = student("NULL", "NULL");
+        Student multiline = student("x\ny", "小白@mybatis.cn");
+        LoadResult result = loader().load(Arrays.asList(quoted, text, multiline));
+        System.out.println("\r\n result = " + result + "\r\n");
+        Assert.assertEquals(3, result.getRows());
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession();
+             Statement statement = sqlSession.getConnection().createStatement();
+             ResultSet resultSet = statement.executeQuery("select name, email, sex, locked from student where id > 6 order by id")) {
+            Assert.assertTrue(resultSet.next());
+            Assert.assertEquals("a,\"b\"", resultSet.getString(1));
+            Assert.assertNull(resultSet.getString(2));
+            Assert.assertEquals(1, resultSet.getInt(3));
+            Assert.assertTrue(resultSet.next());
+            Assert.assertEquals("NULL", resultSet.getString(1));
+            Assert.assertEquals("NULL", resultSet.getString(2));
+            Assert.assertTrue(resultSet.next());
+            Assert.assertEquals("x\ny", resultSet.getString(1));
+            Assert.assertEquals("小白@mybatis.cn", resultSet.getString(2));
+            Assert.assertFalse(resultSet.next());
+        }
+    }
+
+    /**
+     * MySQL 的 LOAD DATA LOCAL INFILE：没有 MySQL 服务端，由桩连接记录执行的语句，
+     * 并按 LOAD DATA 的规则解析驱动收到的数据流，结果应与导入的实体一致
+     */
+    @Test
+    public void loadDataLocalInfile() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("h2DatabaseId", "mysql");
+        SqlSessionFactory mysql = new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader("mybatis-config-h2.xml"), properties);
+        List<String> sqls = new ArrayList<>();
+        List<List<String>> loaded = new ArrayList<>();
+        mysql.getConfiguration().setEnvironment(new Environment("stub", new JdbcTransactionFactory(), stubDataSource(sqls, loaded)));
+
+        Student quoted = student("a,\"b\"", null);
+        Student text = student("NULL", "NULL");
+        Student multiline = student("x\ny", "小白@mybatis.cn");
+        LoadResult result = new BulkLoader<Student>(mysql, "student", BASE_RESULT_MAP, "name", "phone", "email", "sex", "locked")
+                .load(Arrays.asList(quoted, text, multiline));
+        System.out.println("\r\n sqls = " + sqls + "\r\n loaded = " + loaded + "\r\n");
+        Assert.assertEquals(3, result.getRows());
+        Assert.assertEquals(Collections.singletonList("LOAD DATA LOCAL INFILE 'stream' INTO TABLE student CHARACTER SET utf8mb4"
+                + " FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY ''"
+                + " LINES TERMINATED BY '\\n' (name, phone, email, sex, locked)"), sqls);
+        Assert.assertEquals(Arrays.asList("a,\"b\"", "13800000000", null, "1", "0"), loaded.get(0));
+        Assert.assertEquals(Arrays.asList("NULL", "13800000000", "NULL", "1", "0"), loaded.get(1));
+        Assert.assertEquals(Arrays.asList("x\ny", "13800000000", "小白@mybatis.cn", "1", "0"), loaded.get(2));
+        Assert.assertEquals(3, loaded.size());
+    }
+
+    /**
+     * 只支持 LOAD DATA 的桩数据源：unwrap 得到的驱动接口记录 setLocalInfileInputStream 传入的流，
+     * executeLargeUpdate 记录语句并读取、解析整个流，返回解析出的行数
+     */
+    private static DataSource stubDataSource(List<String> sqls, List<List<String>> loaded) {
+        InputStream[] input = new InputStream[1];
+        Statement statement = stub(Statement.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "unwrap":
+                    return stub((Class<?>) args[0], (driverProxy, driverMethod, driverArgs) -> {
+                        if ("setLocalInfileInputStream".equals(driverMethod.getName())) {
+                            input[0] = (InputStream) driverArgs[0];
+                        }
+                        return defaultValue(driverMethod.getReturnType());
+                    });
+                case "executeLargeUpdate":
+                    sqls.add((String) args[0]);
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[7];
+                    for (int n; (n = input[0].read(buffer)) > 0; ) {
+                        bytes.write(buffer, 0, n);
+                    }
+                    loaded.addAll(parseLoadData(new String(bytes.toByteArray(), StandardCharsets.UTF_8)));
+                    return (long) loaded.size();
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+        Connection connection = stub(Connection.class, (proxy, method, args) ->
+                "createStatement".equals(method.getName()) ? statement : defaultValue(method.getReturnType()));
+        return stub(DataSource.class, (proxy, method, args) ->
+                "getConnection".equals(method.getName()) ? connection : defaultValue(method.getReturnType()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    /**
+     * 按 FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '"' ESCAPED BY '' LINES TERMINATED BY '\n' 解析：
+     * 引号包围的字段中 "" 读为一个 "，可以包含逗号和换行；不带引号的 NULL 读为 null，带引号的 "NULL" 是字符串
+     */
+    private static List<List<String>> parseLoadData(String data) {
+        List<List<String>> rows = new ArrayList<>();
+        List<String> row = new ArrayList<>();
+        int i = 0;
+        while (i < data.length()) {
+            if (data.charAt(i) == '"') {
+                StringBuilder field = new StringBuilder();
+                i++;
+                while (data.charAt(i) != '"' || i + 1 < data.length() && data.charAt(i + 1) == '"') {
+                    if (data.charAt(i) == '"') {
+                        i++;
+                    }
+                    field.append(data.charAt(i++));
+                }
+                i++;
+                row.add(field.toString());
+            } else {
+                int end = i;
+                while (data.charAt(end) != ',' && data.charAt(end) != '\n') {
+                    end++;
+                }
+                String field = data.substring(i, end);
+                row.add("NULL".equals(field) ? null : field);
+                i = end;
+            }
+            if (data.charAt(i++) == '\n') {
+                rows.add(row);
+                row = new ArrayList<>();
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 同样的行数，分别使用 BulkLoader 和 BATCH 执行器逐行 insert 导入
+     */
+    @Test
+    public void throughput() {
+        // 关闭逐行的 SQL 日志，否则比较的是日志的开销
+        Logger logger = Logger.getLogger("com.sumkor.mapper");
+        Level level = logger.getLevel();
+        logger.setLevel(Level.INFO);
+        try {
+            LoadResult loaded = loader().load(generate(ROWS));
+            LoadResult batched = batchInsert(generate(ROWS));
+            System.out.println("\r\n load  = " + loaded + "\r\n batch = " + batched + "\r\n");
+            Assert.assertEquals(ROWS, loaded.getRows());
+            Assert.assertEquals(ROWS, batched.getRows());
+            Assert.assertEquals(6 + 2 * ROWS, count());
+        } finally {
+            logger.setLevel(level);
+        }
+    }
+
+    private static BulkLoader<Student> loader() {
+        return new BulkLoader<>(sqlSessionFactory, "student", BASE_RESULT_MAP, "name", "phone", "email", "sex", "locked");
+    }
+
+    private static LoadResult batchInsert(Iterator<Student> rows) {
+        long start = System.nanoTime();
+        long count = 0;
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            StudentMapper studentMapper = sqlSession.getMapper(StudentMapper.class);
+            while (rows.hasNext()) {
+                studentMapper.insert(rows.next());
+                if (++count % 1000 == 0) {
+                    sqlSession.flushStatements();
+                }
+            }
+            sqlSession.commit();
+        }
+        return new LoadResult(count, System.nanoTime() - start);
+    }
+
+    private static long count() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession();
+             Statement statement = sqlSession.getConnection().createStatement();
+             ResultSet resultSet = statement.executeQuery("select count(*) from student")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 惰性生成，不在内存中保存全部的行
+     */
+    private static Iterator<Student> generate(int rows) {
+        return new Iterator<Student>() {
+            private int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < rows;
+            }
+
+            @Override
+            public Student next() {
+                i++;
+                return student("s" + i, "s" + i + "@mybatis.cn");
+            }
+        };
+    }
+
+    private static Student student(String name, String email) {
+        Student student = new Student();
+        student.setName(name);
+        student.setPhone("13800000000");
+        student.setEmail(email);
+        student.setSex((byte) 1);
+        student.setLocked((byte) 0);
+        return student;
+    }
+}
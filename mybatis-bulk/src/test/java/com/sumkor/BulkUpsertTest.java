@@ -0,0 +1,197 @@
+package com.sumkor;
+
+import com.sumkor.bulk.BulkUpserter;
+import com.sumkor.bulk.UpsertDialect;
+import com.sumkor.bulk.UpsertResult;
+import com.sumkor.bulk.UpsertResult.Outcome;
+import com.sumkor.entity.Student;
+import com.sumkor.mapper.StudentMapper;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 批量 upsert：按 databaseId 选择方言，报告每一行的结果，回填自增主键
+ * @see com.sumkor.bulk.BulkUpserter
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class BulkUpsertTest {
+
+    private static final String INSERT = "com.sumkor.mapper.StudentMapper.insert";
+
+    private static final String UPSERT = "com.sumkor.bulk.mapper.StudentBulkMapper.upsert";
+
+    @Before
+    public void init() throws Exception {
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = build("h2").openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    /**
+     * H2 的 MySQL 兼容模式支持 on duplicate key update，可以区分插入、更新、没有变化
+     */
+    @Test
+    public void mysql() {
+        SqlSessionFactory sqlSessionFactory = build("mysql");
+        BulkUpserter<Student> upserter = new BulkUpserter<>(sqlSessionFactory, INSERT, UPSERT, Student::getId, 2);
+        Assert.assertEquals(UpsertDialect.MYSQL, upserter.getDialect());
+
+        Student updated = select(sqlSessionFactory, 1);
+        updated.setLocked((byte) 1);
+        Student unchanged = select(sqlSessionFactory, 2);
+        Student inserted = student(100, "小白");
+        Student generated01 = student(null, "小黑");
+        Student generated02 = student(null, "小黄");
+        List<Student> rows = Arrays.asList(updated, generated01, unchanged, inserted, generated02);
+
+        UpsertResult result = upserter.upsert(rows);
+        System.out.println("\r\n result = " + result + "\r\n");
+        Assert.assertEquals(Outcome.UPDATED, result.getOutcome(0));
+        Assert.assertEquals(Outcome.INSERTED, result.getOutcome(1));
+        Assert.assertEquals(Outcome.UNCHANGED, result.getOutcome(2));
+        Assert.assertEquals(Outcome.INSERTED, result.getOutcome(3));
+        Assert.assertEquals(Outcome.INSERTED, result.getOutcome(4));
+
+        // 自增主键回填到对应的对象上
+        Assert.assertNotNull(generated01.getId());
+        Assert.assertNotNull(generated02.getId());
+        Assert.assertEquals("小黑", select(sqlSessionFactory, generated01.getId()).getName());
+        Assert.assertEquals("小黄", select(sqlSessionFactory, generated02.getId()).getName());
+        Assert.assertEquals("小白", select(sqlSessionFactory, 100).getName());
+        Assert.assertEquals(Byte.valueOf((byte) 1), select(sqlSessionFactory, 1).getLocked());
+    }
+
+    /**
+     * H2 原生的 merge 语句，插入和更新都返回 1
+     */
+    @Test
+    public void h2() {
+        SqlSessionFactory sqlSessionFactory = build("h2");
+        BulkUpserter<Student> upserter = new BulkUpserter<>(sqlSessionFactory, INSERT, UPSERT, Student::getId, 100);
+        Assert.assertEquals(UpsertDialect.H2, upserter.getDialect());
+
+        Student updated = select(sqlSessionFactory, 3);
+        updated.setName("小刚刚");
+        UpsertResult result = upserter.upsert(Arrays.asList(updated, student(200, "小紫"), student(null, "小绿")));
+        System.out.println("\r\n result = " + result + "\r\n");
+        Assert.assertEquals(Outcome.UPSERTED, result.getOutcome(0));
+        Assert.assertEquals(Outcome.UPSERTED, result.getOutcome(1));
+        Assert.assertEquals(Outcome.INSERTED, result.getOutcome(2));
+        Assert.assertEquals("小刚刚", select(sqlSessionFactory, 3).getName());
+        Assert.assertEquals("小紫", select(sqlSessionFactory, 200).getName());
+    }
+
+    /**
+     * 指定主键的行在前、主键为空的行在后，按输入顺序执行：
+     * 先 upsert 的 id=7 推进自增序列，新行拿到 8，不会被 id=7 的 upsert 覆盖
+     */
+    @Test
+    public void mixedChunk() {
+        SqlSessionFactory sqlSessionFactory = build("mysql");
+        BulkUpserter<Student> upserter = new BulkUpserter<>(sqlSessionFactory, INSERT, UPSERT, Student::getId, 100);
+        Student generated = student(null, "Y");
+        UpsertResult result = upserter.upsert(Arrays.asList(student(7, "X"), generated));
+        System.out.println("\r\n result = " + result + ", generated = " + generated.getId() + "\r\n");
+        Assert.assertEquals(Outcome.INSERTED, result.getOutcome(0));
+        Assert.assertEquals(Outcome.INSERTED, result.getOutcome(1));
+        Assert.assertNotEquals(Integer.valueOf(7), generated.getId());
+        Assert.assertEquals("X", select(sqlSessionFactory, 7).getName());
+        Assert.assertEquals("Y", select(sqlSessionFactory, generated.getId()).getName());
+    }
+
+    /**
+     * 一万行，一半更新一半插入
+     */
+    @Test
+    public void throughput() {
+        SqlSessionFactory sqlSessionFactory = build("mysql");
+        BulkUpserter<Student> upserter = new BulkUpserter<>(sqlSessionFactory, INSERT, UPSERT, Student::getId, 500);
+        List<Student> rows = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            rows.add(student(1000 + i % 5000, "s" + i));
+        }
+        UpsertResult result = upserter.upsert(rows);
+        System.out.println("\r\n result = " + result + "\r\n");
+        Assert.assertEquals(5000, result.count(Outcome.INSERTED));
+        Assert.assertEquals(5000, result.count(Outcome.UPDATED));
+        Assert.assertEquals("s9999", select(sqlSessionFactory, 5999).getName());
+    }
+
+    /**
+     * MySQL 驱动默认返回匹配的行数，值没有变化的行也是 1，开启 useAffectedRows 之后才能区分插入和没有变化
+     */
+    @Test
+    public void affectedRows() {
+        Assert.assertEquals(UpsertDialect.MYSQL_FOUND_ROWS, dialect("MySQL Connector/J", "jdbc:mysql://localhost:3306/testdb?useSSL=false"));
+        Assert.assertEquals(UpsertDialect.MYSQL_FOUND_ROWS, dialect("MariaDB Connector/J", "jdbc:mariadb://localhost:3306/testdb"));
+        Assert.assertEquals(UpsertDialect.MYSQL, dialect("MySQL Connector/J", "jdbc:mysql://localhost:3306/testdb?useSSL=false&useAffectedRows=true"));
+        // H2 的 MySQL 兼容模式返回实际影响的行数
+        Assert.assertEquals(UpsertDialect.MYSQL, dialect("H2 JDBC Driver", "jdbc:h2:mem:bulkdb;MODE=MySQL"));
+    }
+
+    /**
+     * 只提供驱动名和连接串的数据源
+     */
+    private static UpsertDialect dialect(String driverName, String url) {
+        DatabaseMetaData metaData = (DatabaseMetaData) Proxy.newProxyInstance(DatabaseMetaData.class.getClassLoader(), new Class<?>[]{DatabaseMetaData.class},
+                (proxy, method, args) -> "getDriverName".equals(method.getName()) ? driverName : "getURL".equals(method.getName()) ? url : null);
+        Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> "getMetaData".equals(method.getName()) ? metaData : null);
+        DataSource dataSource = (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> "getConnection".equals(method.getName()) ? connection : null);
+        Configuration configuration = new Configuration(new Environment("stub", new JdbcTransactionFactory(), dataSource));
+        configuration.setDatabaseId("mysql");
+        return UpsertDialect.of(configuration);
+    }
+
+    private static SqlSessionFactory build(String h2DatabaseId) {
+        Properties properties = new Properties();
+        properties.setProperty("h2DatabaseId", h2DatabaseId);
+        try {
+            return new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader("mybatis-config-h2.xml"), properties);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Student select(SqlSessionFactory sqlSessionFactory, int id) {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            return sqlSession.getMapper(StudentMapper.class).selectByPrimaryKey(id);
+        }
+    }
+
+    private static Student student(Integer id, String name) {
+        Student student = new Student();
+        student.setId(id);
+        student.setName(name);
+        student.setPhone("13800000000");
+        student.setSex((byte) 1);
+        student.setLocked((byte) 0);
+        return student;
+    }
+}
@@ -0,0 +1,108 @@
+package com.sumkor;
+
+import com.sumkor.bulk.export.ExportFormat;
+import com.sumkor.bulk.export.StreamingExporter;
+import org.apache.commons.lang3.time.DateUtils;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 流式导出：ResultHandler 逐行写入 FileChannel
+ * @see com.sumkor.bulk.export.StreamingExporter
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class StreamingExportTest {
+
+    private static final String STREAM = "com.sumkor.bulk.mapper.StudentBulkMapper.selectBetweenCreatedTimeStream";
+
+    private static final int GENERATED = 20000;
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void init() throws Exception {
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader("mybatis-config-h2.xml"));
+
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+            try (Statement statement = sqlSession.getConnection().createStatement()) {
+                statement.executeUpdate("update student set name = 'a,\"b\"', gmt_modified = gmt_modified where id = 1");
+                statement.executeUpdate("insert into student (name, phone, email, sex, locked, gmt_created) " +
+                        "select concat('s', x), '13800000000', null, 1, 0, dateadd('SECOND', x, timestamp '2020-01-01 00:00:00') " +
+                        "from system_range(1, " + GENERATED + ")");
+            }
+            sqlSession.commit();
+        }
+    }
+
+    @Test
+    public void csv() throws Exception {
+        Path file = folder.newFile("students.csv").toPath();
+        long rows = export(ExportFormat.CSV, file);
+        Assert.assertEquals(GENERATED + 6, rows);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Assert.assertEquals("id,name,phone,email,sex,locked,gmtCreated,gmtModified", reader.readLine());
+            Assert.assertEquals("1,\"a,\"\"b\"\"\",13821378270,xiaoming@mybatis.cn,1,0,2018-08-29 18:27:42,2018-10-08 20:54:25", reader.readLine());
+            Assert.assertEquals("2,大明,13821378271,xiaoli@mybatis.cn,0,0,2018-08-30 18:27:42,2018-10-08 20:54:29", reader.readLine());
+        }
+        Assert.assertEquals(GENERATED + 7, lineCount(file));
+    }
+
+    @Test
+    public void ndjson() throws Exception {
+        Path file = folder.newFile("students.ndjson").toPath();
+        long rows = export(ExportFormat.NDJSON, file);
+        Assert.assertEquals(GENERATED + 6, rows);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Assert.assertEquals("{\"id\":1,\"name\":\"a,\\\"b\\\"\",\"phone\":\"13821378270\",\"email\":\"xiaoming@mybatis.cn\",\"sex\":1,\"locked\":0," +
+                    "\"gmtCreated\":\"2018-08-29 18:27:42\",\"gmtModified\":\"2018-10-08 20:54:25\"}", reader.readLine());
+        }
+        Assert.assertEquals(GENERATED + 6, lineCount(file));
+    }
+
+    private long export(ExportFormat format, Path file) throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("bTime", DateUtils.parseDate("2000-01-01 00:00:00", "yyyy-MM-dd HH:mm:ss"));
+        params.put("eTime", DateUtils.parseDate("2100-01-01 00:00:00", "yyyy-MM-dd HH:mm:ss"));
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            long start = System.nanoTime();
+            // 缓冲区故意设置得很小，覆盖缓冲区写满的情况
+            long rows = new StreamingExporter(1024).export(sqlSession, STREAM, params, format, file);
+            System.out.println("\r\n " + format + ": " + rows + " rows, " + Files.size(file) + " bytes, "
+                    + (System.nanoTime() - start) / 1000000 + "ms\r\n");
+            return rows;
+        }
+    }
+
+    private static long lineCount(Path file) throws Exception {
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return lines.count();
+        }
+    }
+}
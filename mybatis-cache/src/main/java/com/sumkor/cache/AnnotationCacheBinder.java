@@ -0,0 +1,67 @@
+package com.sumkor.cache;
+
+import com.sumkor.annotation.CacheHint;
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+
+import java.lang.reflect.Method;
+
+/**
+ * 将标注了 {@link CacheHint} 的 Mapper 方法绑定到所在 namespace 的二级缓存
+ *
+ * 由注解指定 SQL 的方法，在解析时使用的是 MapperAnnotationBuilder 自己的 MapperBuilderAssistant，
+ * 如果接口上没有 @CacheNamespace 或 @CacheNamespaceRef，构建出来的 MappedStatement#cache 为空
+ * @see org.apache.ibatis.builder.annotation.MapperAnnotationBuilder#parse()
+ * @see org.apache.ibatis.builder.MapperBuilderAssistant#addMappedStatement
+ *
+ * 这里在 Configuration 构建完成之后，通过反射将 xml 中 <cache/> 对应的缓存对象设置到 MappedStatement 中，
+ * 并在缓存的装饰器链的最内层插入 {@link StatementHintCache}，用于按方法控制过期时间、缓存条数。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class AnnotationCacheBinder {
+
+    public static void bind(Configuration configuration) {
+        for (Class<?> mapperClass : configuration.getMapperRegistry().getMappers()) {
+            for (Method method : mapperClass.getMethods()) {
+                CacheHint cacheHint = method.getAnnotation(CacheHint.class);
+                if (cacheHint == null) {
+                    continue;
+                }
+                String statementId = mapperClass.getName() + "." + method.getName();
+                if (!configuration.hasStatement(statementId, false)) {
+                    throw new BuilderException("Could not find statement " + statementId + " annotated with @CacheHint.");
+                }
+                MappedStatement ms = configuration.getMappedStatement(statementId, false);
+                if (ms.getSqlCommandType() != SqlCommandType.SELECT) {
+                    throw new BuilderException("@CacheHint only applies to select statements, but " + statementId + " is " + ms.getSqlCommandType());
+                }
+                if (!configuration.hasCache(mapperClass.getName())) {
+                    throw new BuilderException("No cache configured for namespace " + mapperClass.getName() + ", required by " + statementId);
+                }
+                Cache cache = configuration.getCache(mapperClass.getName());
+                if (ms.getCache() == null) {
+                    MetaObject metaObject = SystemMetaObject.forObject(ms);
+                    metaObject.setValue("cache", cache);
+                    metaObject.setValue("useCache", true);
+                    metaObject.setValue("flushCacheRequired", false);
+                }
+                getHintCache(cache).addHint(ms.getId(), cacheHint.ttl(), cacheHint.size());
+            }
+        }
+    }
+
+    private static StatementHintCache getHintCache(Cache cache) {
+        StatementHintCache hintCache = CacheDecorators.find(cache, StatementHintCache.class);
+        if (hintCache == null) {
+            hintCache = CacheDecorators.decorateInnermost(cache, StatementHintCache::new);
+        }
+        return hintCache;
+    }
+}
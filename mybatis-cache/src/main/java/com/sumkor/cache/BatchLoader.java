@@ -0,0 +1,238 @@
+package com.sumkor.cache;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.TransactionalCacheManager;
+import org.apache.ibatis.executor.CachingExecutor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 按主键批量加载，将多次 selectByPrimaryKey 合并为 where id in (...) 查询
+ *
+ * 用法与 DataLoader 类似，作用域为一次请求（一个 SqlSession）：
+ * 1. load(id) 只登记主键，返回 CompletableFuture；
+ * 2. dispatch() 先按单条查询的 CacheKey 读取二级缓存，只对未命中的主键执行批量查询，并把结果回填二级缓存；
+ *    读取和回填都经过会话的 TransactionalCacheManager（或 {@link SessionCacheManager}），与 selectOne 走同一条路径：
+ *    会话中执行过清空缓存的写操作后不再读到旧数据，回填的结果在提交时才写入，BlockingCache 的锁在提交或回滚时释放；
+ * 3. 同一个主键只加载一次，之后的 load(id) 直接返回已完成的 CompletableFuture。
+ *
+ * 批量查询按固定大小分组，最后一组用最后一个主键补齐到 2 的幂，
+ * 例如 batchSize = 64 时只会产生 in (1 个)、(2 个)、(4 个) ... (64 个) 共 7 种 SQL，便于数据库和 PreparedStatement 缓存复用执行计划。
+ *
+ * SqlSession 不是线程安全的，因此这里不做按时间窗口合并，由调用方在一批 load 之后调用 dispatch。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class BatchLoader<K, V> {
+
+    private final SqlSession sqlSession;
+
+    /**
+     * 单条查询语句，以主键作为唯一参数，例如 selectByPrimaryKey，用于计算二级缓存的 CacheKey
+     */
+    private final MappedStatement singleStatement;
+
+    /**
+     * 批量查询语句，以主键列表作为参数，例如 selectByPrimaryKeys
+     */
+    private final String batchStatement;
+
+    private final Function<V, K> idGetter;
+
+    private final int batchSize;
+
+    /**
+     * 已登记、尚未加载的主键
+     */
+    private final Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+
+    /**
+     * 已加载的主键
+     */
+    private final Map<K, CompletableFuture<V>> loaded = new HashMap<>();
+
+    public BatchLoader(SqlSession sqlSession, String singleStatement, String batchStatement, Function<V, K> idGetter, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive, but was " + batchSize);
+        }
+        this.sqlSession = sqlSession;
+        this.singleStatement = sqlSession.getConfiguration().getMappedStatement(singleStatement);
+        this.batchStatement = batchStatement;
+        this.idGetter = idGetter;
+        this.batchSize = batchSize;
+    }
+
+    public CompletableFuture<V> load(K id) {
+        CompletableFuture<V> future = loaded.get(id);
+        if (future != null) {
+            return future;
+        }
+        return pending.computeIfAbsent(id, k -> new CompletableFuture<>());
+    }
+
+    /**
+     * 登记并立即加载，返回主键到结果的映射，不存在的主键对应 null
+     */
+    public Map<K, V> loadAll(Collection<K> ids) {
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        for (K id : ids) {
+            futures.put(id, load(id));
+        }
+        dispatch();
+        Map<K, V> result = new LinkedHashMap<>();
+        for (Map.Entry<K, CompletableFuture<V>> entry : futures.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().join());
+        }
+        return result;
+    }
+
+    /**
+     * 加载已登记的全部主键
+     */
+    public void dispatch() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<K, CompletableFuture<V>> batch = new LinkedHashMap<>(pending);
+        pending.clear();
+        loaded.putAll(batch);
+        try {
+            Executor executor = getExecutor();
+            Object cacheManager = executor == null ? null : getCacheManager(executor);
+            Cache cache = cacheManager != null && singleStatement.isUseCache() ? singleStatement.getCache() : null;
+            if (cache != null && singleStatement.isFlushCacheRequired()) {
+                clear(cacheManager, cache);
+            }
+            List<K> missing = new ArrayList<>();
+            for (Map.Entry<K, CompletableFuture<V>> entry : batch.entrySet()) {
+                List<?> cached = cache == null ? null : (List<?>) getObject(cacheManager, cache, cacheKey(executor, entry.getKey()));
+                if (cached == null) {
+                    missing.add(entry.getKey());
+                } else {
+                    entry.getValue().complete(first(cached));
+                }
+            }
+            for (int from = 0; from < missing.size(); from += batchSize) {
+                List<K> chunk = missing.subList(from, Math.min(from + batchSize, missing.size()));
+                Map<K, V> rows = query(chunk);
+                for (K id : chunk) {
+                    V row = rows.get(id);
+                    if (cache != null) {
+                        // 与 selectOne 写入二级缓存的格式一致，查不到的主键缓存空列表
+                        List<Object> value = new ArrayList<>(1);
+                        if (row != null) {
+                            value.add(row);
+                        }
+                        putObject(cacheManager, cache, cacheKey(executor, id), value);
+                    }
+                    batch.get(id).complete(row);
+                }
+            }
+        } catch (RuntimeException e) {
+            for (CompletableFuture<V> future : batch.values()) {
+                future.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+
+    private Map<K, V> query(List<K> chunk) {
+        int size = Math.min(batchSize, Integer.highestOneBit(chunk.size() - 1) << 1);
+        List<K> ids = new ArrayList<>(Math.max(size, chunk.size()));
+        ids.addAll(chunk);
+        while (ids.size() < size) {
+            ids.add(chunk.get(chunk.size() - 1));
+        }
+        List<V> list = sqlSession.selectList(batchStatement, ids);
+        Map<K, V> rows = new HashMap<>();
+        for (V row : list) {
+            rows.put(idGetter.apply(row), row);
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V first(List<?> cached) {
+        return cached.isEmpty() ? null : (V) cached.get(0);
+    }
+
+    /**
+     * 与 CachingExecutor 查询 singleStatement 时使用的 CacheKey 一致
+     * @see org.apache.ibatis.executor.CachingExecutor#query(org.apache.ibatis.mapping.MappedStatement, java.lang.Object, org.apache.ibatis.session.RowBounds, org.apache.ibatis.session.ResultHandler)
+     */
+    private CacheKey cacheKey(Executor executor, K id) {
+        return executor.createCacheKey(singleStatement, id, RowBounds.DEFAULT, singleStatement.getBoundSql(id));
+    }
+
+    /**
+     * @see org.apache.ibatis.session.defaults.DefaultSqlSession#executor
+     */
+    private Executor getExecutor() {
+        MetaObject metaObject = SystemMetaObject.forObject(sqlSession);
+        return metaObject.hasGetter("executor") ? (Executor) metaObject.getValue("executor") : null;
+    }
+
+    /**
+     * 会话暂存二级缓存的对象，没有启用二级缓存（cacheEnabled=false）时返回 null
+     * @see org.apache.ibatis.executor.CachingExecutor#tcm
+     */
+    private Object getCacheManager(Executor executor) {
+        Object target = executor;
+        // 拦截 Executor 的插件会层层代理，取出被代理的执行器
+        while (Proxy.isProxyClass(target.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(target);
+            if (!(handler instanceof Plugin)) {
+                return null;
+            }
+            target = SystemMetaObject.forObject(handler).getValue("target");
+        }
+        if (target instanceof SessionCachingExecutor) {
+            return ((SessionCachingExecutor) target).getCacheManager();
+        }
+        if (target instanceof CachingExecutor) {
+            return SystemMetaObject.forObject(target).getValue("tcm");
+        }
+        return null;
+    }
+
+    private Object getObject(Object cacheManager, Cache cache, CacheKey key) {
+        if (cacheManager instanceof SessionCacheManager) {
+            return ((SessionCacheManager) cacheManager).getObject(cache, key);
+        }
+        return ((TransactionalCacheManager) cacheManager).getObject(cache, key);
+    }
+
+    private void putObject(Object cacheManager, Cache cache, CacheKey key, Object value) {
+        if (cacheManager instanceof SessionCacheManager) {
+            ((SessionCacheManager) cacheManager).putObject(cache, key, value);
+        } else {
+            ((TransactionalCacheManager) cacheManager).putObject(cache, key, value);
+        }
+    }
+
+    private void clear(Object cacheManager, Cache cache) {
+        if (cacheManager instanceof SessionCacheManager) {
+            ((SessionCacheManager) cacheManager).clear(cache);
+        } else {
+            ((TransactionalCacheManager) cacheManager).clear(cache);
+        }
+    }
+}
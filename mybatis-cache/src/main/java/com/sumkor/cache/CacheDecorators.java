@@ -0,0 +1,73 @@
+package com.sumkor.cache;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+
+import java.util.function.Function;
+
+/**
+ * 二级缓存装饰器链的工具类
+ *
+ * MappedStatement 持有的是装饰器链最外层的缓存对象，例如
+ * SynchronizedCache -> LoggingCache -> ScheduledCache -> FifoCache -> PerpetualCache
+ * 因此无法替换整个缓存对象，只能通过反射修改装饰器的 delegate 属性，在链中插入新的装饰器。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class CacheDecorators {
+
+    private static final String DELEGATE = "delegate";
+
+    /**
+     * 沿着装饰器链查找指定类型的缓存对象，找不到则返回 null
+     */
+    public static <T extends Cache> T find(Cache cache, Class<T> type) {
+        Object current = cache;
+        while (current instanceof Cache) {
+            if (type.isInstance(current)) {
+                return type.cast(current);
+            }
+            MetaObject metaObject = SystemMetaObject.forObject(current);
+            if (!metaObject.hasGetter(DELEGATE)) {
+                return null;
+            }
+            current = metaObject.getValue(DELEGATE);
+        }
+        return null;
+    }
+
+    /**
+     * 在最外层装饰器之下插入新的装饰器，使其仍然受到 SynchronizedCache 的同步保护
+     */
+    public static <T extends Cache> T decorate(Cache cache, Function<Cache, T> decorator) {
+        MetaObject metaObject = SystemMetaObject.forObject(cache);
+        if (!metaObject.hasGetter(DELEGATE)) {
+            throw new CacheException("Cache " + cache.getId() + " is not decorated, could not insert a decorator into it.");
+        }
+        T decorated = decorator.apply((Cache) metaObject.getValue(DELEGATE));
+        metaObject.setValue(DELEGATE, decorated);
+        return decorated;
+    }
+
+    /**
+     * 在最内层的缓存对象（例如 PerpetualCache）之上插入新的装饰器，
+     * LruCache 等淘汰策略移除 key、ScheduledCache 定时清空时都会经过该装饰器
+     */
+    public static <T extends Cache> T decorateInnermost(Cache cache, Function<Cache, T> decorator) {
+        MetaObject metaObject = SystemMetaObject.forObject(cache);
+        if (!metaObject.hasGetter(DELEGATE)) {
+            throw new CacheException("Cache " + cache.getId() + " is not decorated, could not insert a decorator into it.");
+        }
+        Object delegate = metaObject.getValue(DELEGATE);
+        while (SystemMetaObject.forObject(delegate).hasGetter(DELEGATE)) {
+            metaObject = SystemMetaObject.forObject(delegate);
+            delegate = metaObject.getValue(DELEGATE);
+        }
+        T decorated = decorator.apply((Cache) delegate);
+        metaObject.setValue(DELEGATE, decorated);
+        return decorated;
+    }
+}
@@ -0,0 +1,49 @@
+package com.sumkor.cache;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheKey;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * 读取 CacheKey 中的元素
+ *
+ * CacheKey 依次由 MappedStatement 的 id、offset、limit、SQL、各个参数值、environment 的 id 组成
+ * @see org.apache.ibatis.executor.BaseExecutor#createCacheKey(org.apache.ibatis.mapping.MappedStatement, java.lang.Object, org.apache.ibatis.session.RowBounds, org.apache.ibatis.mapping.BoundSql)
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class CacheKeys {
+
+    /**
+     * 第一个参数值在 CacheKey 中的位置
+     */
+    public static final int FIRST_PARAMETER = 4;
+
+    private static final Field UPDATE_LIST;
+
+    static {
+        try {
+            UPDATE_LIST = CacheKey.class.getDeclaredField("updateList");
+            UPDATE_LIST.setAccessible(true);
+        } catch (NoSuchFieldException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * 取得 CacheKey 中的元素，不存在则返回 null
+     */
+    public static List<?> getUpdateList(Object key) {
+        if (!(key instanceof CacheKey)) {
+            return null;
+        }
+        try {
+            return (List<?>) UPDATE_LIST.get(key);
+        } catch (IllegalAccessException e) {
+            throw new CacheException("Could not read update list from cache key " + key, e);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.sumkor.cache;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 实体缓存：以 (实体类型, 主键) 为 key，缓存查询得到的行对象，同一行数据在内存中只保留一份
+ *
+ * 实体的主键由 resultMap 中的 <id/> 声明，例如 BaseResultMap 中的 <id column="id" property="id"/>，
+ * 没有在任何 resultMap 中声明唯一主键的类型，不视为实体。
+ *
+ * 存储结构复用 MyBatis 自带的缓存实现： SynchronizedCache -> LruCache -> PerpetualCache
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class EntityCache {
+
+    private static final Metadata NOT_ENTITY = new Metadata(null, null, null, null);
+
+    private final Configuration configuration;
+
+    private final Cache cache;
+
+    private final Map<Class<?>, Metadata> metadataMap = new ConcurrentHashMap<>();
+
+    public EntityCache(Configuration configuration, int size) {
+        this.configuration = configuration;
+        LruCache lruCache = new LruCache(new PerpetualCache(EntityCache.class.getName()));
+        lruCache.setSize(size);
+        this.cache = new SynchronizedCache(lruCache);
+    }
+
+    public Object get(Class<?> type, Object id) {
+        return cache.getObject(new EntityKey(type, id));
+    }
+
+    /**
+     * 写入实体，不是实体或者主键为空则忽略
+     *
+     * @return 实体的 key
+     */
+    public EntityKey put(Object entity) {
+        EntityKey key = keyOf(entity);
+        if (key != null) {
+            cache.putObject(key, entity);
+        }
+        return key;
+    }
+
+    public void evict(EntityKey key) {
+        cache.removeObject(key);
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public int getSize() {
+        return cache.getSize();
+    }
+
+    /**
+     * 取得实体的 key，不是实体或者主键为空则返回 null
+     */
+    public EntityKey keyOf(Object entity) {
+        if (entity == null) {
+            return null;
+        }
+        Metadata metadata = getMetadata(entity.getClass());
+        if (metadata == NOT_ENTITY) {
+            return null;
+        }
+        Object id;
+        try {
+            id = metadata.idGetter.invoke(entity, null);
+        } catch (Exception e) {
+            throw new CacheException("Could not get property '" + metadata.idProperty + "' of " + entity.getClass().getName(), e);
+        }
+        return id == null ? null : new EntityKey(entity.getClass(), id);
+    }
+
+    public boolean isEntity(Class<?> type) {
+        return getMetadata(type) != NOT_ENTITY;
+    }
+
+    /**
+     * 主键对应的列名，不是实体则返回 null
+     */
+    public String getIdColumn(Class<?> type) {
+        return getMetadata(type).idColumn;
+    }
+
+    /**
+     * 实体 resultMap 中映射的全部列名（大写），查询的列不完整时，得到的对象不能作为实体缓存
+     */
+    public Set<String> getColumns(Class<?> type) {
+        return getMetadata(type).columns;
+    }
+
+    private Metadata getMetadata(Class<?> type) {
+        Metadata metadata = metadataMap.get(type);
+        if (metadata == null) {
+            metadata = metadataMap.computeIfAbsent(type, this::resolveMetadata);
+        }
+        return metadata;
+    }
+
+    /**
+     * 查找该类型上声明了唯一 <id/> 的 resultMap
+     *
+     * 注意 Configuration#resultMaps 是 StrictMap，短名称冲突时保存的是 Ambiguity 对象
+     * @see org.apache.ibatis.session.Configuration.StrictMap#put(java.lang.String, java.lang.Object)
+     */
+    private Metadata resolveMetadata(Class<?> type) {
+        for (Object value : (Collection<?>) configuration.getResultMaps()) {
+            if (!(value instanceof ResultMap)) {
+                continue;
+            }
+            ResultMap resultMap = (ResultMap) value;
+            List<ResultMapping> idMappings = resultMap.getIdResultMappings();
+            if (resultMap.getType() != type || idMappings.size() != 1) {
+                continue;
+            }
+            ResultMapping idMapping = idMappings.get(0);
+            if (idMapping.getProperty() == null || idMapping.getColumn() == null || idMapping.getNestedQueryId() != null) {
+                continue;
+            }
+            Invoker idGetter = configuration.getReflectorFactory().findForClass(type).getGetInvoker(idMapping.getProperty());
+            Set<String> columns = new HashSet<>();
+            for (String column : resultMap.getMappedColumns()) {
+                columns.add(column.toUpperCase(Locale.ENGLISH));
+            }
+            return new Metadata(idMapping.getProperty(), idMapping.getColumn(), idGetter, columns);
+        }
+        return NOT_ENTITY;
+    }
+
+    private static class Metadata {
+
+        private final String idProperty;
+
+        private final String idColumn;
+
+        private final Invoker idGetter;
+
+        private final Set<String> columns;
+
+        Metadata(String idProperty, String idColumn, Invoker idGetter, Set<String> columns) {
+            this.idProperty = idProperty;
+            this.idColumn = idColumn;
+            this.idGetter = idGetter;
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * 实体缓存的 key
+     */
+    public static class EntityKey {
+
+        private final Class<?> type;
+
+        private final Object id;
+
+        private final int hashCode;
+
+        public EntityKey(Class<?> type, Object id) {
+            this.type = type;
+            this.id = id;
+            this.hashCode = 31 * type.hashCode() + id.hashCode();
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        public Object getId() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof EntityKey)) {
+                return false;
+            }
+            EntityKey that = (EntityKey) o;
+            return type == that.type && Objects.equals(id, that.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return type.getSimpleName() + "#" + id;
+        }
+    }
+}
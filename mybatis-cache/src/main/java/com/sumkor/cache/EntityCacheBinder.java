@@ -0,0 +1,47 @@
+package com.sumkor.cache;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * 为所有 namespace 的二级缓存启用 {@link EntityCache}
+ *
+ * 1. 在每个二级缓存的装饰器链中插入 {@link EntityListCache}；
+ * 2. 注册 {@link EntityCacheInterceptor}，写操作时按主键失效实体缓存。
+ *
+ * 实体缓存返回的是共享的行对象，因此只支持 readOnly="true" 的缓存，
+ * 否则 SerializedCache 每次都会反序列化出新对象，与实体缓存的语义冲突。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class EntityCacheBinder {
+
+    public static EntityCache bind(Configuration configuration, int size) {
+        EntityCache entityCache = new EntityCache(configuration, size);
+        // Configuration#caches 是 StrictMap，同一个缓存对象会以全名和短名称各保存一次，短名称冲突时保存的是 Ambiguity 对象
+        Set<Cache> caches = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Object cache : (Collection<?>) configuration.getCaches()) {
+            if (cache instanceof Cache) {
+                caches.add((Cache) cache);
+            }
+        }
+        for (Cache cache : caches) {
+            if (CacheDecorators.find(cache, SerializedCache.class) != null) {
+                throw new CacheException("Entity cache requires readOnly=\"true\", but cache " + cache.getId() + " is read-write.");
+            }
+            if (CacheDecorators.find(cache, EntityListCache.class) == null) {
+                CacheDecorators.decorate(cache, delegate -> new EntityListCache(delegate, configuration, entityCache));
+            }
+        }
+        configuration.addInterceptor(new EntityCacheInterceptor(entityCache));
+        return entityCache;
+    }
+}
@@ -0,0 +1,94 @@
+package com.sumkor.cache;
+
+import com.sumkor.cache.EntityCache.EntityKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按主键失效 {@link EntityCache}
+ *
+ * 以实体对象为参数的 update、delete（例如 updateByPrimaryKey），只失效该实体对应的一条缓存；
+ * 其他 update、delete 无法确定影响了哪些行，清空整个实体缓存。insert 不影响已缓存的行。
+ *
+ * 执行写操作时立即失效一次，事务提交、回滚之后再失效一次，
+ * 避免其他会话在本事务提交之前，把旧数据重新写入实体缓存。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "close", args = {boolean.class})
+})
+public class EntityCacheInterceptor implements Interceptor {
+
+    private final EntityCache entityCache;
+
+    /**
+     * 每个执行器（即每个会话）在当前事务中修改过的实体
+     */
+    private final Map<Executor, Pending> pendingMap = new ConcurrentHashMap<>();
+
+    public EntityCacheInterceptor(EntityCache entityCache) {
+        this.entityCache = entityCache;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Executor executor = (Executor) invocation.getTarget();
+        String method = invocation.getMethod().getName();
+        if ("update".equals(method)) {
+            MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+            if (ms.getSqlCommandType() == SqlCommandType.UPDATE || ms.getSqlCommandType() == SqlCommandType.DELETE) {
+                Pending pending = pendingMap.computeIfAbsent(executor, k -> new Pending());
+                EntityKey key = entityCache.keyOf(invocation.getArgs()[1]);
+                if (key == null) {
+                    pending.all = true;
+                } else {
+                    pending.keys.add(key);
+                }
+                evict(pending);
+            }
+            return invocation.proceed();
+        }
+        try {
+            return invocation.proceed();
+        } finally {
+            Pending pending = "close".equals(method) ? pendingMap.remove(executor) : pendingMap.get(executor);
+            if (pending != null) {
+                evict(pending);
+                pending.keys.clear();
+                pending.all = false;
+            }
+        }
+    }
+
+    private void evict(Pending pending) {
+        if (pending.all) {
+            entityCache.clear();
+            return;
+        }
+        for (EntityKey key : pending.keys) {
+            entityCache.evict(key);
+        }
+    }
+
+    private static class Pending {
+
+        private final Set<EntityKey> keys = new HashSet<>();
+
+        private boolean all;
+    }
+}
@@ -0,0 +1,233 @@
+package com.sumkor.cache;
+
+import com.sumkor.cache.EntityCache.EntityKey;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 基于 {@link EntityCache} 的查询结果缓存装饰器
+ *
+ * 原有的二级缓存以 CacheKey 为 key 缓存整个 List，selectAll 与 selectByPrimaryKey 查到的同一行数据各自保存一份。
+ * 插入该装饰器之后：
+ * 1. 查询结果为实体列表时，行对象写入实体缓存，二级缓存中只保存主键数组，读取时再从实体缓存中逐个取出，任何一行缺失都视为未命中；
+ * 2. 按主键查询的语句（where id = ?），直接从实体缓存中取出，不再单独缓存；
+ * 3. 清空二级缓存时，只清空主键数组，实体缓存由 {@link EntityCacheInterceptor} 按主键逐个失效。
+ *
+ * 查询的列不完整时（例如只查了 id 和 name），得到的对象不能作为实体缓存，这种情况按原样缓存整个 List。
+ * 该装饰器插入在 SynchronizedCache 之下，因此内部不需要再做同步。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class EntityListCache implements Cache {
+
+    private static final Pattern PROJECTION = Pattern.compile("^\\s*select\\s+(.*?)\\s+from\\s", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final Pattern JOIN = Pattern.compile("\\bjoin\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Shape NOT_ENTITY = new Shape(null, false);
+
+    private final Cache delegate;
+
+    private final Configuration configuration;
+
+    private final EntityCache entityCache;
+
+    /**
+     * 语句 id -> SQL -> 查询结果的形式，动态 SQL 对应多条 SQL
+     */
+    private final Map<String, Map<String, Shape>> shapes = new HashMap<>();
+
+    public EntityListCache(Cache delegate, Configuration configuration, EntityCache entityCache) {
+        this.delegate = delegate;
+        this.configuration = configuration;
+        this.entityCache = entityCache;
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public int getSize() {
+        return delegate.getSize();
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        List<?> updateList = CacheKeys.getUpdateList(key);
+        Shape shape = getShape(updateList);
+        if (shape == NOT_ENTITY || !(value instanceof List) || !isEntityList((List<?>) value, shape.type)) {
+            delegate.putObject(key, value);
+            return;
+        }
+        List<?> rows = (List<?>) value;
+        if (shape.primaryKey && rows.size() == 1) {
+            entityCache.put(rows.get(0));
+            return;
+        }
+        Object[] ids = new Object[rows.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = entityCache.put(rows.get(i)).getId();
+        }
+        delegate.putObject(key, new IdList(shape.type, ids));
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        List<?> updateList = CacheKeys.getUpdateList(key);
+        Shape shape = getShape(updateList);
+        if (shape.primaryKey && isDefaultRowBounds(updateList)) {
+            Object id = updateList.get(CacheKeys.FIRST_PARAMETER);
+            Object entity = id == null ? null : entityCache.get(shape.type, id);
+            if (entity != null) {
+                return Collections.singletonList(entity);
+            }
+        }
+        Object value = delegate.getObject(key);
+        if (!(value instanceof IdList)) {
+            return value;
+        }
+        IdList idList = (IdList) value;
+        List<Object> rows = new ArrayList<>(idList.ids.length);
+        for (Object id : idList.ids) {
+            Object entity = entityCache.get(idList.type, id);
+            if (entity == null) {
+                // 某一行已失效或被淘汰，整个列表作废，重新查询
+                delegate.removeObject(key);
+                return null;
+            }
+            rows.add(entity);
+        }
+        return rows;
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        return delegate.removeObject(key);
+    }
+
+    /**
+     * 只清空主键数组，实体缓存由 {@link EntityCacheInterceptor} 按主键失效
+     */
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    private boolean isEntityList(List<?> rows, Class<?> type) {
+        for (Object row : rows) {
+            if (row == null || row.getClass() != type || entityCache.keyOf(row) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isDefaultRowBounds(List<?> updateList) {
+        return updateList.size() > CacheKeys.FIRST_PARAMETER
+                && Integer.valueOf(RowBounds.NO_ROW_OFFSET).equals(updateList.get(1))
+                && Integer.valueOf(RowBounds.NO_ROW_LIMIT).equals(updateList.get(2));
+    }
+
+    private Shape getShape(List<?> updateList) {
+        if (updateList == null || updateList.size() < CacheKeys.FIRST_PARAMETER) {
+            return NOT_ENTITY;
+        }
+        String statementId = (String) updateList.get(0);
+        String sql = (String) updateList.get(3);
+        Map<String, Shape> shapesBySql = shapes.computeIfAbsent(statementId, k -> new HashMap<>());
+        Shape shape = shapesBySql.get(sql);
+        if (shape == null) {
+            shape = resolveShape(statementId, sql);
+            shapesBySql.put(sql, shape);
+        }
+        return shape;
+    }
+
+    /**
+     * 根据 SQL 判断查询结果能否作为实体缓存：
+     * 结果类型是实体，单表查询，并且查询了 resultMap 中映射的全部列
+     */
+    private Shape resolveShape(String statementId, String sql) {
+        if (!configuration.hasStatement(statementId, false)) {
+            return NOT_ENTITY;
+        }
+        MappedStatement ms = configuration.getMappedStatement(statementId, false);
+        List<ResultMap> resultMaps = ms.getResultMaps();
+        if (resultMaps.size() != 1 || JOIN.matcher(sql).find()) {
+            return NOT_ENTITY;
+        }
+        Class<?> type = resultMaps.get(0).getType();
+        if (!entityCache.isEntity(type) || !selectsAllColumns(sql, entityCache.getColumns(type))) {
+            return NOT_ENTITY;
+        }
+        String idColumn = Pattern.quote(entityCache.getIdColumn(type));
+        Pattern byId = Pattern.compile("\\bwhere\\s+(?:\\w+\\.)?" + idColumn + "\\s*=\\s*\\?\\s*$", Pattern.CASE_INSENSITIVE);
+        boolean primaryKey = sql.indexOf('?') == sql.lastIndexOf('?') && byId.matcher(sql).find();
+        return new Shape(type, primaryKey);
+    }
+
+    private static boolean selectsAllColumns(String sql, Set<String> columns) {
+        Matcher matcher = PROJECTION.matcher(sql);
+        if (!matcher.find()) {
+            return false;
+        }
+        String projection = matcher.group(1).trim();
+        if ("*".equals(projection)) {
+            return true;
+        }
+        Set<String> selected = new HashSet<>();
+        for (String item : projection.split(",")) {
+            // 取最后一个单词，兼容 t.name 与 name as name 的写法
+            String[] words = item.trim().split("[\\s.]+");
+            selected.add(words[words.length - 1].toUpperCase(Locale.ENGLISH));
+        }
+        return selected.containsAll(columns);
+    }
+
+    private static class Shape {
+
+        private final Class<?> type;
+
+        /**
+         * 是否为按主键查询
+         */
+        private final boolean primaryKey;
+
+        Shape(Class<?> type, boolean primaryKey) {
+            this.type = type;
+            this.primaryKey = primaryKey;
+        }
+    }
+
+    /**
+     * 二级缓存中保存的主键数组
+     */
+    private static class IdList {
+
+        private final Class<?> type;
+
+        private final Object[] ids;
+
+        IdList(Class<?> type, Object[] ids) {
+            this.type = type;
+            this.ids = ids;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.sumkor.cache;
+
+import org.apache.ibatis.executor.CachingExecutor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.reflection.SystemMetaObject;
+
+/**
+ * 将 CachingExecutor 替换为 {@link SessionCachingExecutor}
+ *
+ * 开启二级缓存时，Configuration#newExecutor 会先用 CachingExecutor 包装 SimpleExecutor 等执行器，再调用 InterceptorChain#pluginAll
+ * @see org.apache.ibatis.session.Configuration#newExecutor(org.apache.ibatis.transaction.Transaction, org.apache.ibatis.session.ExecutorType)
+ *
+ * 因此在 Interceptor#plugin 中可以取出被包装的执行器，换成新的缓存执行器。
+ * 注意该插件需要配置在其他 Executor 插件之前，这样其他插件代理的才是替换后的执行器。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class SessionCacheInterceptor implements Interceptor {
+
+    /**
+     * 不使用 Plugin#wrap 生成代理，因此不会进入该方法
+     */
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        return invocation.proceed();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        if (target instanceof CachingExecutor) {
+            Executor delegate = (Executor) SystemMetaObject.forObject(target).getValue("delegate");
+            return new SessionCachingExecutor(delegate);
+        }
+        return target;
+    }
+}
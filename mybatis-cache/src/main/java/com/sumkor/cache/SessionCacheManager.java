@@ -0,0 +1,207 @@
+package com.sumkor.cache;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.TransactionalCacheManager;
+import org.apache.ibatis.cache.decorators.BlockingCache;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 会话级别的二级缓存管理器，用于替代 {@link TransactionalCacheManager}
+ *
+ * TransactionalCacheManager 会为每个 namespace 的 Cache 创建一个 TransactionalCache，
+ * 查询结果先暂存在其 HashMap 中，未命中的 key 记录在 HashSet 中，直到事务提交才写入二级缓存。
+ * @see org.apache.ibatis.cache.decorators.TransactionalCache
+ *
+ * 而对于只读会话（当前事务中没有执行过写操作）来说，查询到的都是已提交的数据，暂存没有意义：
+ * 1. 只读会话：直接读写共享的二级缓存，不创建任何暂存结构；
+ * 2. 写会话：执行过 update 或清空过缓存之后，改为暂存，暂存结构只是一个 ArrayList，提交时才写入二级缓存，隔离语义与 TransactionalCache 一致；
+ * 3. 配置了 blocking="true" 的缓存：未命中时会加锁，需要在提交或回滚时释放，仍然交给 TransactionalCacheManager 处理。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class SessionCacheManager {
+
+    /**
+     * 缓存对象是否被 BlockingCache 装饰，每个会话中每个 Cache 对象只判断一次
+     *
+     * 不能使用全局的 HashMap：Cache 按 id 判断相等，不同 Configuration 中同名 namespace 的缓存会共用一个结果，
+     * 且 Configuration 不再使用之后，其缓存对象也无法被回收。因此按对象身份区分，随会话一起释放。
+     */
+    private Map<Cache, Boolean> blockingCaches;
+
+    /**
+     * 当前事务中是否执行过写操作
+     */
+    private boolean written;
+
+    /**
+     * 当前事务中需要暂存的缓存，大多数会话只涉及一两个 namespace，用 ArrayList 即可
+     */
+    private List<StagedCache> stagedCaches;
+
+    /**
+     * 阻塞缓存交给原有的 TransactionalCacheManager 处理
+     */
+    private TransactionalCacheManager blockingCacheManager;
+
+    /**
+     * 执行了写操作，此后查询到的数据可能包含本事务未提交的修改，需要暂存
+     */
+    public void markWritten() {
+        written = true;
+    }
+
+    public boolean isWritten() {
+        return written;
+    }
+
+    public Object getObject(Cache cache, CacheKey key) {
+        if (isBlocking(cache)) {
+            return getBlockingCacheManager().getObject(cache, key);
+        }
+        StagedCache stagedCache = findStagedCache(cache);
+        if (stagedCache != null && stagedCache.clearOnCommit) {
+            // 与 TransactionalCache 一致：本事务清空过该缓存，则不再读取二级缓存
+            return null;
+        }
+        return cache.getObject(key);
+    }
+
+    public void putObject(Cache cache, CacheKey key, Object value) {
+        if (isBlocking(cache)) {
+            getBlockingCacheManager().putObject(cache, key, value);
+            return;
+        }
+        StagedCache stagedCache = findStagedCache(cache);
+        if (stagedCache == null && !written) {
+            // 只读会话，直接写入共享的二级缓存
+            cache.putObject(key, value);
+            return;
+        }
+        if (stagedCache == null) {
+            stagedCache = addStagedCache(cache);
+        }
+        stagedCache.entries.add(key);
+        stagedCache.entries.add(value);
+    }
+
+    public void clear(Cache cache) {
+        if (isBlocking(cache)) {
+            getBlockingCacheManager().clear(cache);
+            return;
+        }
+        StagedCache stagedCache = findStagedCache(cache);
+        if (stagedCache == null) {
+            stagedCache = addStagedCache(cache);
+        }
+        stagedCache.clearOnCommit = true;
+        stagedCache.entries.clear();
+    }
+
+    public void commit() {
+        if (stagedCaches != null) {
+            for (StagedCache stagedCache : stagedCaches) {
+                stagedCache.commit();
+            }
+        }
+        if (blockingCacheManager != null) {
+            blockingCacheManager.commit();
+        }
+        reset();
+    }
+
+    public void rollback() {
+        if (blockingCacheManager != null) {
+            blockingCacheManager.rollback();
+        }
+        reset();
+    }
+
+    /**
+     * 事务结束，下一个事务重新从只读状态开始
+     */
+    private void reset() {
+        written = false;
+        if (stagedCaches != null) {
+            stagedCaches.clear();
+        }
+    }
+
+    private StagedCache findStagedCache(Cache cache) {
+        if (stagedCaches == null) {
+            return null;
+        }
+        for (int i = 0; i < stagedCaches.size(); i++) {
+            StagedCache stagedCache = stagedCaches.get(i);
+            if (stagedCache.delegate == cache) {
+                return stagedCache;
+            }
+        }
+        return null;
+    }
+
+    private StagedCache addStagedCache(Cache cache) {
+        if (stagedCaches == null) {
+            stagedCaches = new ArrayList<>(2);
+        }
+        StagedCache stagedCache = new StagedCache(cache);
+        stagedCaches.add(stagedCache);
+        return stagedCache;
+    }
+
+    private TransactionalCacheManager getBlockingCacheManager() {
+        if (blockingCacheManager == null) {
+            blockingCacheManager = new TransactionalCacheManager();
+        }
+        return blockingCacheManager;
+    }
+
+    /**
+     * 沿着装饰器链查找是否存在 BlockingCache
+     *
+     * 例如 <cache blocking="true"/> 得到的缓存对象： SynchronizedCache -> LoggingCache -> BlockingCache -> ... -> PerpetualCache
+     * @see org.apache.ibatis.mapping.CacheBuilder#setStandardDecorators(org.apache.ibatis.cache.Cache)
+     */
+    boolean isBlocking(Cache cache) {
+        if (blockingCaches == null) {
+            blockingCaches = new IdentityHashMap<>(4);
+        }
+        Boolean blocking = blockingCaches.get(cache);
+        if (blocking == null) {
+            blocking = CacheDecorators.find(cache, BlockingCache.class) != null;
+            blockingCaches.put(cache, blocking);
+        }
+        return blocking;
+    }
+
+    /**
+     * 写会话中的暂存结构：key、value 交替存放，提交时按顺序写入，后写入的覆盖先写入的
+     */
+    private static class StagedCache {
+
+        private final Cache delegate;
+
+        private final List<Object> entries = new ArrayList<>(4);
+
+        private boolean clearOnCommit;
+
+        StagedCache(Cache delegate) {
+            this.delegate = delegate;
+        }
+
+        void commit() {
+            if (clearOnCommit) {
+                delegate.clear();
+            }
+            for (int i = 0; i < entries.size(); i += 2) {
+                delegate.putObject(entries.get(i), entries.get(i + 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.sumkor.cache;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按 SQL 语句设置过期时间、缓存条数的缓存装饰器
+ *
+ * namespace 级别的 <cache flushInterval="" size=""/> 对该 namespace 下所有语句生效，
+ * 这里再针对单个语句做限制。CacheKey 的第一个元素是 MappedStatement#getId，
+ * 写入时从 CacheKey#toString 中取出，与注册的语句 id 比对。
+ * @see org.apache.ibatis.executor.BaseExecutor#createCacheKey(org.apache.ibatis.mapping.MappedStatement, java.lang.Object, org.apache.ibatis.session.RowBounds, org.apache.ibatis.mapping.BoundSql)
+ *
+ * 该装饰器插入在 LruCache 等淘汰策略之下，被淘汰、清空的 key 都会经过这里，同时从记录中移除；
+ * 外层仍有 SynchronizedCache，因此内部不需要再做同步。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class StatementHintCache implements Cache {
+
+    private final Cache delegate;
+
+    private final Map<String, Hint> hints = new HashMap<>();
+
+    /**
+     * 每个语句已缓存的 key 及其过期时间，按写入顺序排列
+     */
+    private final Map<String, LinkedHashMap<Object, Long>> keysByStatement = new HashMap<>();
+
+    public StatementHintCache(Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    public void addHint(String statementId, long ttl, int size) {
+        hints.put(statementId, new Hint(ttl, size));
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public int getSize() {
+        return delegate.getSize();
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        delegate.putObject(key, value);
+        String statementId = getStatementId(key);
+        Hint hint = statementId == null ? null : hints.get(statementId);
+        if (hint == null || (hint.ttl <= 0 && hint.size <= 0)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        LinkedHashMap<Object, Long> keys = keysByStatement.computeIfAbsent(statementId, k -> new LinkedHashMap<>());
+        keys.remove(key);
+        keys.put(key, hint.ttl > 0 ? now + hint.ttl : Long.MAX_VALUE);
+
+        // 同一个语句的过期时间相同，因此最早写入的最先过期
+        Iterator<Map.Entry<Object, Long>> iterator = keys.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Object, Long> eldest = iterator.next();
+            boolean expired = eldest.getValue() < now;
+            boolean overflow = hint.size > 0 && keys.size() > hint.size;
+            if (!expired && !overflow) {
+                break;
+            }
+            iterator.remove();
+            delegate.removeObject(eldest.getKey());
+        }
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        String statementId = getStatementId(key);
+        LinkedHashMap<Object, Long> keys = statementId == null ? null : keysByStatement.get(statementId);
+        if (keys != null) {
+            Long expiresAt = keys.get(key);
+            if (expiresAt != null && expiresAt < System.currentTimeMillis()) {
+                keys.remove(key);
+                delegate.removeObject(key);
+                return null;
+            }
+            Object value = delegate.getObject(key);
+            if (value == null) {
+                keys.remove(key);
+            }
+            return value;
+        }
+        return delegate.getObject(key);
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        String statementId = getStatementId(key);
+        LinkedHashMap<Object, Long> keys = statementId == null ? null : keysByStatement.get(statementId);
+        if (keys != null) {
+            keys.remove(key);
+        }
+        return delegate.removeObject(key);
+    }
+
+    @Override
+    public void clear() {
+        keysByStatement.clear();
+        delegate.clear();
+    }
+
+    /**
+     * 取得 key 所属的、设置了限制的语句 id，没有则返回 null
+     *
+     * CacheKey#toString 依次输出 hashcode、checksum 以及各个元素，以冒号分隔
+     */
+    private String getStatementId(Object key) {
+        if (hints.isEmpty() || !(key instanceof CacheKey)) {
+            return null;
+        }
+        String text = key.toString();
+        int start = text.indexOf(':', text.indexOf(':') + 1) + 1;
+        if (start == 0) {
+            return null;
+        }
+        for (String statementId : hints.keySet()) {
+            int end = start + statementId.length();
+            if (text.startsWith(statementId, start) && (end == text.length() || text.charAt(end) == ':')) {
+                return statementId;
+            }
+        }
+        return null;
+    }
+
+    private static class Hint {
+
+        private final long ttl;
+
+        private final int size;
+
+        Hint(long ttl, int size) {
+            this.ttl = ttl;
+            this.size = size;
+        }
+    }
+}
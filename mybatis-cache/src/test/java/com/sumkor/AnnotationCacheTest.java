@@ -0,0 +1,137 @@
+package com.sumkor;
+
+import com.sumkor.cache.AnnotationCacheBinder;
+import com.sumkor.cache.CacheDecorators;
+import com.sumkor.cache.StatementHintCache;
+import com.sumkor.entity.Student;
+import com.sumkor.mapper.StudentMapper;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 由注解指定 SQL 的方法，绑定到 namespace 的二级缓存
+ * @see com.sumkor.annotation.CacheHint
+ * @see AnnotationCacheBinder
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class AnnotationCacheTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Reader reader = Resources.getResourceAsReader("mybatis-config-h2.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        AnnotationCacheBinder.bind(sqlSessionFactory.getConfiguration());
+
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    /**
+     * 对比 {@link L1CacheTest#cache()}：selectByPrimaryKey 绑定了二级缓存之后，不同 SqlSession 之间可以共享查询结果
+     */
+    @Test
+    public void selectByPrimaryKey() {
+        MappedStatement ms = sqlSessionFactory.getConfiguration().getMappedStatement("com.sumkor.mapper.StudentMapper.selectByPrimaryKey");
+        Assert.assertNotNull(ms.getCache());
+
+        Student student01;
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            student01 = sqlSession.getMapper(StudentMapper.class).selectByPrimaryKey(1);
+            System.out.println("\r\n student01 = " + student01 + "\r\n");
+        }
+        Student student02;
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            // 命中二级缓存，日志中可以看到 Cache Hit Ratio [com.sumkor.mapper.StudentMapper]: 0.5
+            student02 = sqlSession.getMapper(StudentMapper.class).selectByPrimaryKey(1);
+            System.out.println("\r\n student02 = " + student02 + "\r\n");
+        }
+        Assert.assertSame(student01, student02);
+
+        // 语句 id 从 CacheKey 中取得，写入的 key 受 @CacheHint 限制
+        StatementHintCache hintCache = CacheDecorators.find(ms.getCache(), StatementHintCache.class);
+        Assert.assertEquals(1, trackedKeys(hintCache, ms.getId()));
+    }
+
+    /**
+     * 按语句设置的过期时间、缓存条数
+     */
+    @Test
+    public void hint() throws InterruptedException {
+        StatementHintCache cache = new StatementHintCache(new PerpetualCache("test"));
+        cache.addHint("test.select", 100, 2);
+
+        cache.putObject(newCacheKey("test.select", 1), "a");
+        cache.putObject(newCacheKey("test.select", 2), "b");
+        cache.putObject(newCacheKey("test.select", 3), "c");
+        // 超出条数限制，最早写入的被移除
+        Assert.assertNull(cache.getObject(newCacheKey("test.select", 1)));
+        Assert.assertEquals("c", cache.getObject(newCacheKey("test.select", 3)));
+
+        // 没有设置限制的语句不受影响
+        cache.putObject(newCacheKey("test.other", 1), "d");
+
+        Thread.sleep(200);
+        Assert.assertNull(cache.getObject(newCacheKey("test.select", 3)));
+        Assert.assertEquals("d", cache.getObject(newCacheKey("test.other", 1)));
+    }
+
+    /**
+     * 被 LruCache 淘汰、被清空的 key，同时从 StatementHintCache 的记录中移除
+     */
+    @Test
+    public void evict() {
+        Cache cache = new SynchronizedCache(new LruCache(new PerpetualCache("test")));
+        ((LruCache) CacheDecorators.find(cache, LruCache.class)).setSize(2);
+        StatementHintCache hintCache = CacheDecorators.decorateInnermost(cache, StatementHintCache::new);
+        hintCache.addHint("test.select", 60000, 0);
+        Assert.assertSame(hintCache, CacheDecorators.find(cache, StatementHintCache.class));
+
+        cache.putObject(newCacheKey("test.select", 1), "a");
+        cache.putObject(newCacheKey("test.select", 2), "b");
+        cache.putObject(newCacheKey("test.other", 1), "c");
+        Assert.assertEquals(1, trackedKeys(hintCache, "test.select"));
+        Assert.assertNull(cache.getObject(newCacheKey("test.select", 1)));
+
+        cache.clear();
+        Assert.assertEquals(0, trackedKeys(hintCache, "test.select"));
+    }
+
+    private static int trackedKeys(StatementHintCache hintCache, String statementId) {
+        Map<?, ?> keysByStatement = (Map<?, ?>) SystemMetaObject.forObject(hintCache).getValue("keysByStatement");
+        Map<?, ?> keys = (Map<?, ?>) keysByStatement.get(statementId);
+        return keys == null ? 0 : keys.size();
+    }
+
+    private static CacheKey newCacheKey(String statementId, Object parameter) {
+        CacheKey cacheKey = new CacheKey();
+        cacheKey.update(statementId);
+        cacheKey.update(parameter);
+        return cacheKey;
+    }
+}
@@ -0,0 +1,221 @@
+package com.sumkor;
+
+import com.sumkor.cache.AnnotationCacheBinder;
+import com.sumkor.cache.BatchLoader;
+import com.sumkor.entity.Student;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按主键批量加载：多次 selectByPrimaryKey 合并为一次 in 查询，并且先读取二级缓存
+ * @see com.sumkor.cache.BatchLoader
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class BatchLoaderTest {
+
+    private static final String SINGLE = "com.sumkor.mapper.StudentMapper.selectByPrimaryKey";
+
+    private static final String BATCH = "com.sumkor.mapper.StudentMapper.selectByPrimaryKeys";
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private static Cache cache;
+
+    /**
+     * 访问数据库的次数
+     */
+    private static final AtomicInteger roundTrips = new AtomicInteger();
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Reader reader = Resources.getResourceAsReader("mybatis-config-h2.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        // selectByPrimaryKey 由注解指定 SQL，需要先绑定到 namespace 的二级缓存
+        AnnotationCacheBinder.bind(configuration);
+        configuration.addInterceptor(new RoundTripInterceptor());
+        cache = configuration.getCache("com.sumkor.mapper.StudentMapper");
+
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    @Before
+    public void clear() {
+        cache.clear();
+        roundTrips.set(0);
+    }
+
+    /**
+     * 7 次 load 只访问一次数据库，不存在的主键得到 null
+     */
+    @Test
+    public void batch() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            BatchLoader<Integer, Student> loader = new BatchLoader<>(sqlSession, SINGLE, BATCH, Student::getId, 16);
+            List<CompletableFuture<Student>> futures = new ArrayList<>();
+            for (int id : new int[]{1, 2, 3, 4, 5, 6, 99}) {
+                futures.add(loader.load(id));
+            }
+            Assert.assertSame(futures.get(0), loader.load(1));
+            Assert.assertEquals(0, roundTrips.get());
+
+            loader.dispatch();
+            Assert.assertEquals(1, roundTrips.get());
+            for (int i = 0; i < 6; i++) {
+                Assert.assertEquals(Integer.valueOf(i + 1), futures.get(i).join().getId());
+            }
+            Assert.assertNull(futures.get(6).join());
+
+            // 同一个主键只加载一次
+            Assert.assertTrue(loader.load(1).isDone());
+            loader.dispatch();
+            Assert.assertEquals(1, roundTrips.get());
+        }
+    }
+
+    /**
+     * 二级缓存中已有的主键不再查询，批量查询的结果回填二级缓存，之后的 selectByPrimaryKey 直接命中
+     */
+    @Test
+    public void cacheFirst() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            sqlSession.selectOne(SINGLE, 1);
+            sqlSession.selectOne(SINGLE, 2);
+        }
+        Assert.assertEquals(2, roundTrips.get());
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            BatchLoader<Integer, Student> loader = new BatchLoader<>(sqlSession, SINGLE, BATCH, Student::getId, 16);
+            Map<Integer, Student> students = loader.loadAll(Arrays.asList(1, 2, 3, 4));
+            System.out.println("\r\n students = " + students + "\r\n");
+            Assert.assertEquals(3, roundTrips.get());
+            Assert.assertEquals(4, students.size());
+        }
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Student student = sqlSession.selectOne(SINGLE, 4);
+            Assert.assertEquals(Integer.valueOf(4), student.getId());
+            Assert.assertEquals(3, roundTrips.get());
+        }
+    }
+
+    /**
+     * 超过 batchSize 时分组查询
+     */
+    @Test
+    public void chunk() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            BatchLoader<Integer, Student> loader = new BatchLoader<>(sqlSession, SINGLE, BATCH, Student::getId, 4);
+            Map<Integer, Student> students = loader.loadAll(Arrays.asList(6, 5, 4, 3, 2, 1));
+            Assert.assertEquals(2, roundTrips.get());
+            students.forEach((id, student) -> Assert.assertEquals(id, student.getId()));
+        }
+    }
+
+    /**
+     * 会话中更新之后（未提交），二级缓存中的旧数据对本会话不可见，与 selectOne 一致
+     */
+    @Test
+    public void uncommittedUpdate() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            sqlSession.selectOne(SINGLE, 1);
+        }
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Student student = sqlSession.selectOne(SINGLE, 1);
+            student = copy(student);
+            student.setName("小明明");
+            sqlSession.update("com.sumkor.mapper.StudentMapper.updateByPrimaryKey", student);
+            BatchLoader<Integer, Student> loader = new BatchLoader<>(sqlSession, SINGLE, BATCH, Student::getId, 16);
+            Assert.assertEquals("小明明", loader.loadAll(Arrays.asList(1, 2)).get(1).getName());
+            Assert.assertEquals("小明明", ((Student) sqlSession.selectOne(SINGLE, 1)).getName());
+            sqlSession.rollback();
+        }
+        // 回滚之后，未提交的数据没有写入二级缓存
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Assert.assertEquals("小明", ((Student) sqlSession.selectOne(SINGLE, 1)).getName());
+        }
+    }
+
+    /**
+     * BlockingCache 未命中时加的锁，在会话提交时随回填一起释放，其他会话不会一直等待
+     */
+    @Test
+    public void blockingCache() throws Exception {
+        SqlSessionFactory factory = new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader("mybatis-config-h2.xml"));
+        BlockingCache blockingCache = new BlockingCache(new PerpetualCache("blocking"));
+        blockingCache.setTimeout(1000);
+        MetaObject metaObject = SystemMetaObject.forObject(factory.getConfiguration().getMappedStatement(SINGLE));
+        metaObject.setValue("cache", blockingCache);
+        metaObject.setValue("useCache", true);
+
+        try (SqlSession sqlSession = factory.openSession()) {
+            // 有写操作的会话
+            Student student = sqlSession.selectOne(SINGLE, 2);
+            sqlSession.update("com.sumkor.mapper.StudentMapper.updateByPrimaryKey", student);
+            BatchLoader<Integer, Student> loader = new BatchLoader<>(sqlSession, SINGLE, BATCH, Student::getId, 16);
+            loader.loadAll(Arrays.asList(3, 4));
+            sqlSession.commit();
+        }
+        try (SqlSession sqlSession = factory.openSession()) {
+            Student student = sqlSession.selectOne(SINGLE, 3);
+            Assert.assertEquals(Integer.valueOf(3), student.getId());
+        }
+    }
+
+    private static Student copy(Student student) {
+        Student copy = new Student();
+        copy.setId(student.getId());
+        copy.setName(student.getName());
+        copy.setPhone(student.getPhone());
+        copy.setEmail(student.getEmail());
+        copy.setSex(student.getSex());
+        copy.setLocked(student.getLocked());
+        return copy;
+    }
+
+    @Intercepts({@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class})})
+    public static class RoundTripInterceptor implements Interceptor {
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            roundTrips.incrementAndGet();
+            return invocation.proceed();
+        }
+    }
+}
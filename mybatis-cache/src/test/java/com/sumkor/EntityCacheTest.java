@@ -0,0 +1,112 @@
+package com.sumkor;
+
+import com.sumkor.cache.AnnotationCacheBinder;
+import com.sumkor.cache.EntityCache;
+import com.sumkor.cache.EntityCacheBinder;
+import com.sumkor.entity.Student;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 实体缓存：列表只缓存主键，按主键查询直接命中实体缓存，更新只失效一行
+ * @see com.sumkor.cache.EntityListCache
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class EntityCacheTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private static Cache cache;
+
+    private static EntityCache entityCache;
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Reader reader = Resources.getResourceAsReader("mybatis-config-h2.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        // selectByPrimaryKey 由注解指定 SQL，需要先绑定到 namespace 的二级缓存
+        AnnotationCacheBinder.bind(configuration);
+        entityCache = EntityCacheBinder.bind(configuration, 1024);
+        cache = configuration.getCache("com.sumkor.mapper.StudentMapper");
+
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    @Before
+    public void clear() {
+        cache.clear();
+        entityCache.clear();
+    }
+
+    /**
+     * selectAll 的结果写入实体缓存，之后按主键查询不再访问数据库，并且得到的是同一个对象
+     */
+    @Test
+    public void listThenPrimaryKey() {
+        SqlSession sqlSession01 = sqlSessionFactory.openSession();
+        List<Student> students01 = sqlSession01.selectList("selectAll");
+        sqlSession01.close();
+        System.out.println("\r\n students01 = " + students01 + "\r\n");
+        Assert.assertEquals(students01.size(), entityCache.getSize());
+
+        SqlSession sqlSession02 = sqlSessionFactory.openSession();
+        Student student = sqlSession02.selectOne("selectByPrimaryKey", students01.get(0).getId());
+        Assert.assertSame(students01.get(0), student);
+
+        // 二级缓存中只有主键数组，每次读取都组装出新的 List，但行对象是共享的
+        List<Student> students02 = sqlSession02.selectList("selectAll");
+        Assert.assertNotSame(students01, students02);
+        for (int i = 0; i < students01.size(); i++) {
+            Assert.assertSame(students01.get(i), students02.get(i));
+        }
+        sqlSession02.close();
+    }
+
+    /**
+     * 按主键更新，只失效该行对应的实体缓存
+     */
+    @Test
+    public void update() {
+        SqlSession sqlSession01 = sqlSessionFactory.openSession();
+        List<Student> students01 = sqlSession01.selectList("selectAll");
+        sqlSession01.close();
+        Student student01 = students01.get(0);
+        Student student02 = students01.get(1);
+
+        SqlSession sqlSession02 = sqlSessionFactory.openSession();
+        Student student = sqlSession02.selectOne("selectByPrimaryKey", student01.getId());
+        sqlSession02.update("updateByPrimaryKey", student);
+        sqlSession02.commit();
+        sqlSession02.close();
+        Assert.assertNull(entityCache.get(Student.class, student01.getId()));
+        Assert.assertSame(student02, entityCache.get(Student.class, student02.getId()));
+
+        // 列表中的某一行已失效，重新查询
+        SqlSession sqlSession03 = sqlSessionFactory.openSession();
+        List<Student> students03 = sqlSession03.selectList("selectAll");
+        Assert.assertNotSame(student01, students03.get(0));
+        sqlSession03.close();
+    }
+}
@@ -0,0 +1,146 @@
+package com.sumkor;
+
+import com.sumkor.cache.SessionCacheInterceptor;
+import com.sumkor.cache.SessionCacheManager;
+import com.sumkor.entity.Student;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 只读会话直接读写二级缓存，写会话仍然暂存到提交时
+ * @see com.sumkor.cache.SessionCacheManager
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class SessionCacheTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private static Cache cache;
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Reader reader = Resources.getResourceAsReader("mybatis-config-h2.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        // 执行器在 openSession 时才创建，因此可以在构建完成之后再注册插件
+        sqlSessionFactory.getConfiguration().addInterceptor(new SessionCacheInterceptor());
+        cache = sqlSessionFactory.getConfiguration().getCache("com.sumkor.mapper.StudentMapper");
+
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    @Before
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * 对比 {@link L2CacheTest#cacheTx()}：
+     * sqlSession01 是只读会话，查询结果直接写入二级缓存，不需要等到提交，sqlSession02 即可命中
+     */
+    @Test
+    public void readOnlySession() {
+        SqlSession sqlSession01 = sqlSessionFactory.openSession();
+        List<Student> students01 = sqlSession01.selectList("selectAll");
+        System.out.println("\r\n students01 = " + students01 + "\r\n");
+        Assert.assertEquals(1, cache.getSize());
+
+        SqlSession sqlSession02 = sqlSessionFactory.openSession();
+        List<Student> students02 = sqlSession02.selectList("selectAll");
+        System.out.println("\r\n students02 = " + students02 + "\r\n");
+        Assert.assertSame(students01, students02);
+
+        sqlSession01.close();
+        sqlSession02.close();
+    }
+
+    /**
+     * sqlSession01 执行了写操作，之后的查询结果暂存，提交之前 sqlSession02 无法从二级缓存中拿到数据，避免了脏读
+     */
+    @Test
+    public void writeSession() {
+        SqlSession sqlSession01 = sqlSessionFactory.openSession();
+        Student student = sqlSession01.selectOne("selectByPrimaryKey", 1);
+        student.setLocked((byte) 1);
+        sqlSession01.update("updateByPrimaryKey", student);
+        List<Student> students01 = sqlSession01.selectList("selectAll");
+        System.out.println("\r\n students01 = " + students01 + "\r\n");
+        Assert.assertEquals(0, cache.getSize());
+
+        SqlSession sqlSession02 = sqlSessionFactory.openSession();
+        List<Student> students02 = sqlSession02.selectList("selectAll");
+        Assert.assertNotSame(students01, students02);
+        sqlSession02.close();
+
+        // 提交时先清空二级缓存，再写入暂存的查询结果
+        sqlSession01.commit();
+        Assert.assertEquals(1, cache.getSize());
+        sqlSession01.close();
+
+        SqlSession sqlSession03 = sqlSessionFactory.openSession();
+        List<Student> students03 = sqlSession03.selectList("selectAll");
+        Assert.assertSame(students01, students03);
+        sqlSession03.close();
+    }
+
+    /**
+     * 写会话回滚，暂存的查询结果被丢弃
+     */
+    @Test
+    public void rollback() {
+        SqlSession sqlSession01 = sqlSessionFactory.openSession();
+        Student student = sqlSession01.selectOne("selectByPrimaryKey", 2);
+        sqlSession01.update("updateByPrimaryKey", student);
+        sqlSession01.selectList("selectAll");
+        sqlSession01.rollback();
+        sqlSession01.close();
+        Assert.assertEquals(0, cache.getSize());
+    }
+
+    /**
+     * 两个 Configuration 中同名 namespace 的缓存按 id 相等，是否阻塞仍然各自判断：
+     * 普通缓存在只读会话中直接写入，阻塞缓存暂存到提交时
+     */
+    @Test
+    public void sameIdDifferentCaches() {
+        String namespace = "com.sumkor.mapper.StudentMapper";
+        Cache plain = new PerpetualCache(namespace);
+        Cache inner = new PerpetualCache(namespace);
+        Cache blocking = new BlockingCache(inner);
+        Assert.assertEquals(plain, blocking);
+
+        CacheKey key = new CacheKey(new Object[]{"selectAll"});
+        SessionCacheManager scm = new SessionCacheManager();
+        scm.putObject(plain, key, "plain");
+        Assert.assertEquals("plain", plain.getObject(key));
+
+        // 未命中时加锁，提交时写入并释放锁
+        Assert.assertNull(scm.getObject(blocking, key));
+        scm.putObject(blocking, key, "blocking");
+        Assert.assertNull(inner.getObject(key));
+        scm.commit();
+        Assert.assertEquals("blocking", inner.getObject(key));
+    }
+}
@@ -0,0 +1,14 @@
+/*Data for the table `student` */
+
+insert into `student`(`id`, `name`, `phone`, `email`, `sex`, `locked`, `gmt_created`, `gmt_modified`, `delete`)
+values (1, '小明', '13821378270', 'xiaoming@mybatis.cn', 1, 0, '2018-08-29 18:27:42', '2018-10-08 20:54:25', NULL),
+       (2, '大明', '13821378271', 'xiaoli@mybatis.cn', 0, 0, '2018-08-30 18:27:42', '2018-10-08 20:54:29', NULL),
+       (3, '小刚', '13821378272', 'xiaogang@mybatis.cn', 1, 0, '2018-08-31 18:27:42', '2018-10-08 20:55:08', NULL),
+       (4, '小花', '13821378273', 'xiaohua@mybatis.cn', 0, 0, '2018-09-01 18:27:42', '2018-10-08 20:55:12', NULL),
+       (5, '小强', '13821378274', 'xiaoqiang@mybatis.cn', 1, 0, '2018-09-02 18:27:42', '2018-10-08 20:55:18', NULL),
+       (6, '小红', '13821378275', 'xiaohong@mybatis.cn', 0, 0, '2018-09-03 18:27:42', '2018-10-08 20:55:27', NULL);
+
+/*Data for the table `id_sequence` */
+
+insert into `id_sequence`(`name`, `next_val`)
+values ('student', 7);
@@ -0,0 +1,29 @@
+package com.sumkor.datasource;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * 可以收缩许可数的公平信号量，用于动态调整连接池大小
+ *
+ * 公平模式下，带超时的 tryAcquire 按先来后到排队；不带超时的 tryAcquire 不排队，有许可时直接拿走，用作检出的快速路径。
+ *
+ * Semaphore#reducePermits 是 protected 方法，收缩后可用许可数可能为负，
+ * 此时已检出的连接归还之后，才会有新的线程拿到许可。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+class AdaptiveSemaphore extends Semaphore {
+
+    AdaptiveSemaphore(int permits) {
+        super(permits, true);
+    }
+
+    void shrink(int reduction) {
+        reducePermits(reduction);
+    }
+
+    void grow(int increment) {
+        release(increment);
+    }
+}
@@ -0,0 +1,1026 @@
+package com.sumkor.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * 并发连接池
+ *
+ * {@link org.apache.ibatis.datasource.pooled.PooledDataSource} 的 popConnection、pushConnection 都在 synchronized (state) 中执行，
+ * 连接不足时通过 state.wait、state.notifyAll 交接，所有线程的检出、归还都被串行化。
+ * @see org.apache.ibatis.datasource.pooled.PooledDataSource#popConnection(java.lang.String, java.lang.String)
+ * @see org.apache.ibatis.datasource.pooled.PooledDataSource#pushConnection(org.apache.ibatis.datasource.pooled.PooledConnection)
+ *
+ * 这里改为：
+ * 1. Semaphore 控制活跃连接数，拿到许可的线程一定能拿到空闲连接或者新建连接；有空闲许可时直接获取（允许插队），
+ *    拿不到许可的线程在公平模式的 Semaphore 上按先来后到排队，最多等待 poolMaximumWaitTime；
+ * 2. 空闲连接放在无锁的 ConcurrentLinkedDeque 中，后进先出，优先复用最近归还的连接；
+ * 3. 每个线程记住自己最近归还的连接，下次检出时先尝试 CAS 拿回该连接，不需要访问共享队列；
+ * 4. 连接的状态由 {@link PoolEntry#state} 的 CAS 控制，空闲队列中允许存在已被拿走的连接，出队时跳过即可；
+ * 5. 不在检出时执行 poolPingQuery，而是由后台线程定期对空闲连接执行 Connection#isValid，移除失效、空闲过久、存活过久的连接，检出过程没有网络 I/O。
+ * @see org.apache.ibatis.datasource.pooled.PooledDataSource#pingConnection(org.apache.ibatis.datasource.pooled.PooledConnection)
+ *
+ * 连接数的控制：
+ * 1. 构建 SqlSessionFactory 时并行建立 poolMinimumIdleConnections 个连接，后台维护时补足，空闲过久的连接不会移除到该数量以下；
+ *    只统计空闲的连接，检出中的连接不算在内；连接总数不超过当前上限，poolMinimumIdleConnections 大于 poolMaximumActiveConnections 时按后者计算；
+ * 2. 开启 poolAdaptiveSizing 后，活跃连接数上限在 [max(poolMinimumIdleConnections, 1), poolMaximumActiveConnections] 之间调整：
+ *    等待超过 poolTargetWaitTime 的线程将上限加一；每隔 poolSizingInterval，若期间没有线程等待且峰值使用率低于一半，则收缩上限。
+ *
+ * 开启 poolPreparedStatementCacheSize 后，每个真实连接上按 LRU 缓存 PreparedStatement，跨会话复用，见 {@link StatementCache}。
+ *
+ * 监控：检出等待时间、持有时间记录在 {@link LatencyHistogram} 中，连同活跃、空闲、等待数量，回收、超时、泄漏、移除次数，通过 {@link #getMetrics()} 获取。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@Slf4j
+public class ConcurrentPooledDataSource implements DataSource {
+
+    private final UnpooledDataSource dataSource;
+
+    protected int poolMaximumActiveConnections = 10;
+
+    protected int poolMaximumCheckoutTime = 20000;
+
+    protected int poolMaximumWaitTime = 20000;
+
+    /**
+     * 后台校验空闲连接的间隔，小于等于 0 则不校验
+     */
+    protected int poolValidationInterval = 30000;
+
+    /**
+     * Connection#isValid 的超时时间，单位秒
+     */
+    protected int poolValidationTimeout = 5;
+
+    /**
+     * 空闲超过该时间的连接会被移除，小于等于 0 则不限制
+     */
+    protected int poolMaximumIdleTime = 600000;
+
+    /**
+     * 存活超过该时间的连接会被移除，避免被数据库或中间网络设备单方面断开，小于等于 0 则不限制
+     */
+    protected int poolMaximumLifetime = 1800000;
+
+    /**
+     * 最少保持的空闲连接数，构建时预热，超过 poolMaximumActiveConnections 时按 poolMaximumActiveConnections 计算
+     */
+    protected int poolMinimumIdleConnections = 0;
+
+    /**
+     * 是否根据等待时间、使用率调整活跃连接数上限，关闭时上限固定为 poolMaximumActiveConnections
+     */
+    protected boolean poolAdaptiveSizing = false;
+
+    /**
+     * 检出等待超过该时间则扩容
+     */
+    protected int poolTargetWaitTime = 5;
+
+    /**
+     * 收缩检查的间隔
+     */
+    protected int poolSizingInterval = 5000;
+
+    /**
+     * 持有连接超过该时间则认为疑似泄漏，打印检出连接处的调用栈，小于等于 0 则不检测
+     */
+    protected int poolLeakDetectionThreshold = 0;
+
+    /**
+     * 每个连接缓存的 PreparedStatement 数量，小于等于 0 则不缓存
+     */
+    protected int poolPreparedStatementCacheSize = 0;
+
+    /**
+     * 所有连接池共用一个后台维护线程
+     */
+    private static final ScheduledExecutorService MAINTENANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ConcurrentPooledDataSource-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final int WARM_UP_THREADS = 8;
+
+    private final AtomicReference<ScheduledFuture<?>> maintenanceTask = new AtomicReference<>();
+
+    private final AtomicReference<ScheduledFuture<?>> sizingTask = new AtomicReference<>();
+
+    private final AtomicReference<ScheduledFuture<?>> leakDetectionTask = new AtomicReference<>();
+
+    /**
+     * 全部连接，只在新建、移除连接时修改，用于扫描检出超时的连接
+     */
+    private final List<PoolEntry> entries = new CopyOnWriteArrayList<>();
+
+    /**
+     * 检出、预热、后台维护都可能同时新建连接，先在 fillLock 中占位再建立连接，避免超过连接总数的上限。
+     * 建立连接期间会阻塞，使用 ReentrantLock 而不是 synchronized，等待的虚拟线程不会占住载体线程
+     */
+    private final ReentrantLock fillLock = new ReentrantLock();
+
+    /**
+     * 有占位的连接建立完成（或失败）时通知
+     */
+    private final Condition filled = fillLock.newCondition();
+
+    /**
+     * 已占位、正在建立的连接数，由 fillLock 保护
+     */
+    private int filling;
+
+    private final ConcurrentLinkedDeque<PoolEntry> idleEntries = new ConcurrentLinkedDeque<>();
+
+    /**
+     * 当前线程最近归还的连接
+     */
+    private final ThreadLocal<PoolEntry> lastReturned = new ThreadLocal<>();
+
+    private volatile AdaptiveSemaphore permits = new AdaptiveSemaphore(poolMaximumActiveConnections);
+
+    /**
+     * 当前活跃连接数上限，只在 poolAdaptiveSizing 时变化
+     */
+    private final AtomicInteger limit = new AtomicInteger(poolMaximumActiveConnections);
+
+    /**
+     * 收缩检查周期内的峰值活跃连接数、等待次数
+     */
+    private final LongAccumulator peakActive = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder windowWaits = new LongAdder();
+
+    private final LongAdder growCount = new LongAdder();
+
+    private final LongAdder shrinkCount = new LongAdder();
+
+    private volatile int warmedUpConnections;
+
+    private volatile String lastDecision;
+
+    private volatile long lastDecisionTime;
+
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+
+    private final LatencyHistogram holdTime = new LatencyHistogram();
+
+    private final LongAdder reclaimedCount = new LongAdder();
+
+    private final LongAdder timeoutCount = new LongAdder();
+
+    private final LongAdder leakCount = new LongAdder();
+
+    private final LongAdder evictedCount = new LongAdder();
+
+    final LongAdder statementCacheHits = new LongAdder();
+
+    final LongAdder statementCacheMisses = new LongAdder();
+
+    public ConcurrentPooledDataSource() {
+        dataSource = new UnpooledDataSource();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return popConnection().proxyConnection;
+    }
+
+    /**
+     * 只对配置的用户名、密码做池化，其他用户名直接新建连接
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (equals(username, dataSource.getUsername()) && equals(password, dataSource.getPassword())) {
+            return getConnection();
+        }
+        return dataSource.getConnection(username, password);
+    }
+
+    private ConnectionHandle popConnection() throws SQLException {
+        AdaptiveSemaphore permits = this.permits;
+        acquirePermit(permits);
+        if (poolAdaptiveSizing) {
+            peakActive.accumulate(limit.get() - permits.availablePermits());
+        }
+        PoolEntry entry;
+        try {
+            entry = takeIdle();
+            while (entry == null) {
+                // 拿到许可却没有空闲连接，说明活跃连接数未达上限，可以新建；
+                // 连接总数已达上限时，剩余的名额已由预热或后台维护占用，等待其建立的空闲连接
+                entry = addConnection(false);
+                if (entry != null) {
+                    log.debug("Created connection {}.", entry.getId());
+                    scheduleMaintenance();
+                } else {
+                    awaitFilled();
+                    entry = takeIdle();
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        ConnectionHandle handle = new ConnectionHandle(this, entry, permits);
+        entry.handle = handle;
+        entry.holder = Thread.currentThread();
+        // 只在开启泄漏检测时记录检出处的调用栈，未开启时检出过程不产生额外开销
+        entry.checkoutTrace = poolLeakDetectionThreshold > 0 ? new Throwable("Connection checked out here") : null;
+        entry.leakReported = false;
+        entry.checkoutNanos = System.nanoTime();
+        entry.checkoutTime = System.currentTimeMillis();
+        return handle;
+    }
+
+    private PoolEntry takeIdle() {
+        PoolEntry entry = lastReturned.get();
+        if (entry != null && entry.state.compareAndSet(PoolEntry.IDLE, PoolEntry.IN_USE)) {
+            return entry;
+        }
+        while ((entry = idleEntries.pollFirst()) != null) {
+            // 先清除入队标记再 CAS，若 CAS 失败，占用者归还时会重新入队
+            entry.queued.set(false);
+            if (entry.state.compareAndSet(PoolEntry.IDLE, PoolEntry.IN_USE)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取许可，等待期间回收检出超时的连接
+     */
+    private void acquirePermit(AdaptiveSemaphore permits) throws SQLException {
+        // 快速路径允许插队：不带超时的 tryAcquire 即使在公平模式下也直接抢许可，
+        // 刚归还连接的线程马上再次检出时不必让给正在唤醒的等待者，避免高并发下每次交接都有一次线程切换
+        if (permits.tryAcquire()) {
+            // 没有等待，不需要计时
+            waitTime.record(0);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            waitForPermit(permits);
+        } catch (SQLException e) {
+            timeoutCount.increment();
+            throw e;
+        } finally {
+            waitTime.record(System.nanoTime() - start);
+        }
+    }
+
+    private void waitForPermit(AdaptiveSemaphore permits) throws SQLException {
+        try {
+            long deadline = System.currentTimeMillis() + poolMaximumWaitTime;
+            windowWaits.increment();
+            if (poolAdaptiveSizing) {
+                if (permits.tryAcquire(poolTargetWaitTime, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+                grow(permits);
+            }
+            while (true) {
+                long untilNextOverdue = reclaimOverdue();
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new SQLException("ConcurrentPooledDataSource: Timed out after " + poolMaximumWaitTime + "ms waiting for a connection.");
+                }
+                if (permits.tryAcquire(Math.min(remaining, untilNextOverdue), TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("ConcurrentPooledDataSource: Interrupted while waiting for a connection.", e);
+        }
+    }
+
+    /**
+     * 回收检出超时的连接：作废检出者手中的代理连接，关闭真实连接，归还许可
+     *
+     * @return 距离下一个连接检出超时的毫秒数
+     */
+    private long reclaimOverdue() {
+        long now = System.currentTimeMillis();
+        long untilNextOverdue = poolMaximumCheckoutTime;
+        for (PoolEntry entry : entries) {
+            long checkoutTime = entry.checkoutTime;
+            if (checkoutTime <= 0) {
+                continue;
+            }
+            long overdue = now - checkoutTime - poolMaximumCheckoutTime;
+            if (overdue <= 0) {
+                untilNextOverdue = Math.min(untilNextOverdue, 1 - overdue);
+            } else if (entry.state.compareAndSet(PoolEntry.IN_USE, PoolEntry.REMOVED)) {
+                ConnectionHandle handle = entry.handle;
+                handle.released.set(true);
+                reclaimedCount.increment();
+                Thread holder = entry.holder;
+                log.warn("Reclaimed connection {} held by thread {} for {}ms, exceeding poolMaximumCheckoutTime {}ms.",
+                        entry.getId(), holder == null ? null : holder.getName(), now - checkoutTime, poolMaximumCheckoutTime);
+                discard(entry);
+                handle.permits.release();
+            }
+        }
+        return untilNextOverdue;
+    }
+
+    /**
+     * 归还连接，由 {@link ConnectionHandle} 在 close 时调用
+     */
+    void release(ConnectionHandle handle) {
+        PoolEntry entry = handle.entry;
+        if (entry.state.get() != PoolEntry.IN_USE) {
+            // 已被当作超时连接回收，或者连接池已关闭
+            return;
+        }
+        boolean healthy = true;
+        try {
+            if (!entry.realConnection.getAutoCommit()) {
+                entry.realConnection.rollback();
+            }
+        } catch (SQLException e) {
+            log.debug("Connection {} is BAD: {}", entry.getId(), e.getMessage());
+            healthy = false;
+        }
+        if (healthy && entry.statementCache != null) {
+            entry.statementCache.giveBackAll();
+        }
+        holdTime.record(System.nanoTime() - entry.checkoutNanos);
+        entry.checkoutTime = 0;
+        entry.holder = null;
+        entry.checkoutTrace = null;
+        entry.lastAccessedTime = System.currentTimeMillis();
+        if (!healthy) {
+            if (entry.state.compareAndSet(PoolEntry.IN_USE, PoolEntry.REMOVED)) {
+                discard(entry);
+                handle.permits.release();
+            }
+            return;
+        }
+        if (!entry.state.compareAndSet(PoolEntry.IN_USE, PoolEntry.IDLE)) {
+            return;
+        }
+        if (entry.queued.compareAndSet(false, true)) {
+            idleEntries.offerFirst(entry);
+        }
+        lastReturned.set(entry);
+        handle.permits.release();
+    }
+
+    /**
+     * 第一次建立连接时才启动后台维护，只解析配置、不使用的数据源不会占用维护线程
+     */
+    private void scheduleMaintenance() {
+        if (poolValidationInterval > 0) {
+            schedule(maintenanceTask, this::maintain, poolValidationInterval);
+        }
+        if (poolAdaptiveSizing && poolSizingInterval > 0) {
+            schedule(sizingTask, this::resize, poolSizingInterval);
+        }
+        if (poolLeakDetectionThreshold > 0) {
+            schedule(leakDetectionTask, this::detectLeaks, Math.max(poolLeakDetectionThreshold / 2, 10));
+        }
+    }
+
+    private static void schedule(AtomicReference<ScheduledFuture<?>> taskRef, Runnable command, int interval) {
+        if (taskRef.get() != null) {
+            return;
+        }
+        ScheduledFuture<?> task = MAINTENANCE.scheduleWithFixedDelay(command, interval, interval, TimeUnit.MILLISECONDS);
+        if (!taskRef.compareAndSet(null, task)) {
+            task.cancel(false);
+        }
+    }
+
+    private void cancelMaintenance() {
+        for (AtomicReference<ScheduledFuture<?>> taskRef : Arrays.asList(maintenanceTask, sizingTask, leakDetectionTask)) {
+            ScheduledFuture<?> task = taskRef.getAndSet(null);
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * 并行建立 poolMinimumIdleConnections 个连接，由 {@link ConcurrentPooledDataSourceFactory#getDataSource()} 在构建时调用
+     *
+     * 建立失败不影响构建，后续检出时再按需建立
+     */
+    public void warmUp() {
+        int count = Math.min(getMinimumIdle() - countIdle(), getMaximumTotal() - entries.size());
+        if (count <= 0) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(count, WARM_UP_THREADS), r -> {
+            Thread thread = new Thread(r, "ConcurrentPooledDataSource-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                futures.add(executor.submit(this::addIdleConnection));
+            }
+            int created = 0;
+            for (Future<Boolean> future : futures) {
+                try {
+                    created += future.get() ? 1 : 0;
+                } catch (ExecutionException e) {
+                    log.warn("Failed to warm up connection: {}", e.getCause().getMessage());
+                }
+            }
+            warmedUpConnections += created;
+            log.debug("Warmed up {} connections.", created);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        scheduleMaintenance();
+    }
+
+    /**
+     * 直接建立一个空闲连接放入池中，空闲连接已经足够或者连接总数已达上限时返回 false
+     */
+    private boolean addIdleConnection() throws SQLException {
+        PoolEntry entry = addConnection(true);
+        if (entry == null) {
+            return false;
+        }
+        log.debug("Created idle connection {}.", entry.getId());
+        return true;
+    }
+
+    /**
+     * 占位之后新建连接，所有新建连接都经过这里
+     *
+     * @param idle true 为补足空闲连接，空闲连接已经足够时不建立；false 为检出时新建，直接交给调用方使用。
+     *             没有其他连接正在建立时，检出总是可以新建：持有许可说明活跃连接数未达上限，
+     *             此时连接总数仍达到上限，只可能是收缩之后多出的连接尚未归还，由后台维护关闭
+     * @return 连接总数已达上限时返回 null
+     */
+    private PoolEntry addConnection(boolean idle) throws SQLException {
+        fillLock.lock();
+        try {
+            boolean full = entries.size() + filling >= getMaximumTotal();
+            if (idle ? full || countIdle() + filling >= getMinimumIdle() : full && filling > 0) {
+                return null;
+            }
+            filling++;
+        } finally {
+            fillLock.unlock();
+        }
+        PoolEntry entry = null;
+        try {
+            entry = new PoolEntry(dataSource.getConnection(), poolPreparedStatementCacheSize);
+            if (idle) {
+                entry.state.set(PoolEntry.IDLE);
+                entry.queued.set(true);
+            }
+        } finally {
+            fillLock.lock();
+            try {
+                if (entry != null) {
+                    entries.add(entry);
+                    if (idle) {
+                        idleEntries.offerLast(entry);
+                    }
+                }
+                filling--;
+                filled.signalAll();
+            } finally {
+                fillLock.unlock();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * 等待正在建立的连接完成
+     */
+    private void awaitFilled() throws SQLException {
+        fillLock.lock();
+        try {
+            if (filling > 0) {
+                filled.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("ConcurrentPooledDataSource: Interrupted while waiting for a connection.", e);
+        } finally {
+            fillLock.unlock();
+        }
+    }
+
+    /**
+     * 等待超过 poolTargetWaitTime，上限加一
+     */
+    private void grow(AdaptiveSemaphore permits) {
+        int current = limit.get();
+        if (current < poolMaximumActiveConnections && limit.compareAndSet(current, current + 1)) {
+            permits.grow(1);
+            growCount.increment();
+            decide("grow " + current + " -> " + (current + 1) + ": waited over " + poolTargetWaitTime + "ms");
+        }
+    }
+
+    /**
+     * 周期内没有线程等待，且峰值使用率低于一半，收缩上限
+     */
+    void resize() {
+        long peak = peakActive.getThenReset();
+        long waits = windowWaits.sumThenReset();
+        int current = limit.get();
+        int floor = getMinimumLimit();
+        if (waits > 0 || current <= floor || peak * 2 >= current) {
+            return;
+        }
+        int target = Math.max(floor, current - Math.max(1, (current - (int) peak) / 2));
+        if (limit.compareAndSet(current, target)) {
+            permits.shrink(current - target);
+            shrinkCount.increment();
+            decide("shrink " + current + " -> " + target + ": peak active " + peak);
+            evictSurplus();
+        }
+    }
+
+    /**
+     * 收缩之后立即关闭多余的空闲连接
+     */
+    private void evictSurplus() {
+        for (PoolEntry entry : entries) {
+            if (entries.size() <= getMaximumTotal()) {
+                return;
+            }
+            if (entry.state.compareAndSet(PoolEntry.IDLE, PoolEntry.REMOVED)) {
+                log.debug("Evicted connection {}: pool shrunk.", entry.getId());
+                evictedCount.increment();
+                discard(entry);
+            }
+        }
+    }
+
+    private void decide(String decision) {
+        lastDecision = decision;
+        lastDecisionTime = System.currentTimeMillis();
+        log.info("ConcurrentPooledDataSource {}", decision);
+    }
+
+    private int getMinimumLimit() {
+        return Math.min(poolMaximumActiveConnections, Math.max(poolMinimumIdleConnections, 1));
+    }
+
+    /**
+     * 最少空闲连接数不能超过活跃连接数上限，否则补足的连接永远无法全部使用
+     */
+    private int getMinimumIdle() {
+        return Math.min(poolMinimumIdleConnections, poolMaximumActiveConnections);
+    }
+
+    /**
+     * 连接总数的上限：当前活跃连接数上限，至少保留最少空闲连接
+     */
+    private int getMaximumTotal() {
+        return Math.max(limit.get(), getMinimumIdle());
+    }
+
+    private int countIdle() {
+        int idle = 0;
+        for (PoolEntry entry : entries) {
+            if (entry.state.get() == PoolEntry.IDLE) {
+                idle++;
+            }
+        }
+        return idle;
+    }
+
+    /**
+     * 泄漏检测：开启检测时，检出连接时记录调用栈；持有超过阈值时，由后台线程打印该调用栈
+     *
+     * 不能打印持有线程当前的调用栈：真正泄漏的连接，持有线程早已离开检出连接的代码，当前的调用栈与泄漏无关
+     */
+    void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (PoolEntry entry : entries) {
+            long checkoutTime = entry.checkoutTime;
+            Thread holder = entry.holder;
+            if (checkoutTime <= 0 || holder == null || entry.leakReported || now - checkoutTime <= poolLeakDetectionThreshold) {
+                continue;
+            }
+            entry.leakReported = true;
+            leakCount.increment();
+            Throwable checkoutTrace = entry.checkoutTrace;
+            log.warn("Possible connection leak detected: connection {} held by thread {} for {}ms, exceeding poolLeakDetectionThreshold {}ms.",
+                    entry.getId(), holder.getName(), now - checkoutTime, poolLeakDetectionThreshold, checkoutTrace);
+        }
+    }
+
+    public PoolMetrics getMetrics() {
+        return new PoolMetrics(entries.size(), getActiveConnections(), countIdle(), permits.getQueueLength(),
+                reclaimedCount.sum(), timeoutCount.sum(), leakCount.sum(), evictedCount.sum(), waitTime.snapshot(), holdTime.snapshot(),
+                statementCacheHits.sum(), statementCacheMisses.sum());
+    }
+
+    public PoolSizingMetrics getSizingMetrics() {
+        return new PoolSizingMetrics(limit.get(), getMinimumLimit(), poolMaximumActiveConnections, entries.size(),
+                warmedUpConnections, growCount.sum(), shrinkCount.sum(), lastDecision, lastDecisionTime);
+    }
+
+    /**
+     * 后台维护：逐个借出空闲连接进行校验，移除失效、空闲过久、存活过久的连接
+     */
+    void maintain() {
+        long now = System.currentTimeMillis();
+        for (PoolEntry entry : entries) {
+            if (entry.state.get() != PoolEntry.IDLE) {
+                continue;
+            }
+            AdaptiveSemaphore permits = this.permits;
+            // 校验期间占用一个许可，否则检出线程拿不到空闲连接时，会误以为还可以新建连接
+            if (!permits.tryAcquire()) {
+                // 连接都在使用中，空闲连接很快会被检出，不需要校验
+                return;
+            }
+            try {
+                if (!entry.state.compareAndSet(PoolEntry.IDLE, PoolEntry.IN_USE)) {
+                    continue;
+                }
+                String reason = getEvictionReason(entry, now);
+                if (reason != null) {
+                    log.debug("Evicted connection {}: {}.", entry.getId(), reason);
+                    if (entry.state.compareAndSet(PoolEntry.IN_USE, PoolEntry.REMOVED)) {
+                        evictedCount.increment();
+                        discard(entry);
+                    }
+                } else if (entry.state.compareAndSet(PoolEntry.IN_USE, PoolEntry.IDLE)
+                        && entry.queued.compareAndSet(false, true)) {
+                    idleEntries.offerLast(entry);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to maintain connection " + entry.getId(), e);
+            } finally {
+                permits.release();
+            }
+        }
+        // 补足最少空闲连接，检出中的连接不算空闲
+        try {
+            while (addIdleConnection()) {
+                // 直到空闲连接足够或者连接总数达到上限
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to fill minimum idle connections: {}", e.getMessage());
+        }
+    }
+
+    private String getEvictionReason(PoolEntry entry, long now) {
+        if (entries.size() > getMaximumTotal()) {
+            return "pool shrunk";
+        }
+        if (poolMaximumLifetime > 0 && now - entry.createdTime > poolMaximumLifetime) {
+            return "exceeded maximum lifetime";
+        }
+        // 校验期间该连接不是空闲状态，其余的空闲连接不少于最少空闲连接数时才能移除
+        if (poolMaximumIdleTime > 0 && now - entry.lastAccessedTime > poolMaximumIdleTime
+                && countIdle() >= getMinimumIdle()) {
+            return "idle too long";
+        }
+        try {
+            if (!entry.realConnection.isValid(poolValidationTimeout)) {
+                return "failed validation";
+            }
+        } catch (SQLException e) {
+            return "failed validation: " + e.getMessage();
+        }
+        return null;
+    }
+
+    private void discard(PoolEntry entry) {
+        entries.remove(entry);
+        if (entry.statementCache != null) {
+            entry.statementCache.clear();
+        }
+        try {
+            if (!entry.realConnection.getAutoCommit()) {
+                entry.realConnection.rollback();
+            }
+            entry.realConnection.close();
+        } catch (SQLException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * 关闭所有连接，修改连接参数或者池大小之后调用，与 PooledDataSource 一致
+     * @see org.apache.ibatis.datasource.pooled.PooledDataSource#forceCloseAll()
+     */
+    public void forceCloseAll() {
+        int initialLimit = poolAdaptiveSizing ? getMinimumLimit() : poolMaximumActiveConnections;
+        limit.set(initialLimit);
+        permits = new AdaptiveSemaphore(initialLimit);
+        for (PoolEntry entry : entries) {
+            if (entry.state.getAndSet(PoolEntry.REMOVED) != PoolEntry.REMOVED) {
+                ConnectionHandle handle = entry.handle;
+                if (handle != null) {
+                    handle.released.set(true);
+                }
+                discard(entry);
+            }
+        }
+        idleEntries.clear();
+        log.debug("ConcurrentPooledDataSource forcefully closed/removed all connections.");
+    }
+
+    /**
+     * 停止后台维护并关闭所有连接
+     */
+    public void close() {
+        cancelMaintenance();
+        forceCloseAll();
+    }
+
+    public int getActiveConnections() {
+        return limit.get() - permits.availablePermits();
+    }
+
+    public int getTotalConnections() {
+        return entries.size();
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    public void setDriver(String driver) {
+        dataSource.setDriver(driver);
+        forceCloseAll();
+    }
+
+    public void setUrl(String url) {
+        dataSource.setUrl(url);
+        forceCloseAll();
+    }
+
+    public void setUsername(String username) {
+        dataSource.setUsername(username);
+        forceCloseAll();
+    }
+
+    public void setPassword(String password) {
+        dataSource.setPassword(password);
+        forceCloseAll();
+    }
+
+    public void setDriverProperties(Properties driverProps) {
+        dataSource.setDriverProperties(driverProps);
+        forceCloseAll();
+    }
+
+    public void setAutoCommit(boolean defaultAutoCommit) {
+        dataSource.setAutoCommit(defaultAutoCommit);
+        forceCloseAll();
+    }
+
+    public void setDefaultTransactionIsolationLevel(Integer defaultTransactionIsolationLevel) {
+        dataSource.setDefaultTransactionIsolationLevel(defaultTransactionIsolationLevel);
+        forceCloseAll();
+    }
+
+    public void setDefaultNetworkTimeout(Integer milliseconds) {
+        dataSource.setDefaultNetworkTimeout(milliseconds);
+        forceCloseAll();
+    }
+
+    public void setPoolMaximumActiveConnections(int poolMaximumActiveConnections) {
+        this.poolMaximumActiveConnections = poolMaximumActiveConnections;
+        forceCloseAll();
+    }
+
+    /**
+     * 检出超过该时间的连接，在其他线程等待时会被回收
+     */
+    public void setPoolMaximumCheckoutTime(int poolMaximumCheckoutTime) {
+        this.poolMaximumCheckoutTime = poolMaximumCheckoutTime;
+        forceCloseAll();
+    }
+
+    /**
+     * 等待连接的最长时间，超时抛出异常
+     */
+    public void setPoolMaximumWaitTime(int poolMaximumWaitTime) {
+        this.poolMaximumWaitTime = poolMaximumWaitTime;
+        forceCloseAll();
+    }
+
+    /**
+     * 以下参数不影响已建立的连接，修改后不需要关闭所有连接
+     */
+    public void setPoolValidationInterval(int poolValidationInterval) {
+        this.poolValidationInterval = poolValidationInterval;
+        cancelMaintenance();
+        if (!entries.isEmpty()) {
+            scheduleMaintenance();
+        }
+    }
+
+    public void setPoolMinimumIdleConnections(int poolMinimumIdleConnections) {
+        this.poolMinimumIdleConnections = poolMinimumIdleConnections;
+        forceCloseAll();
+    }
+
+    /**
+     * 开启后上限从最小值开始，按需扩容
+     */
+    public void setPoolAdaptiveSizing(boolean poolAdaptiveSizing) {
+        this.poolAdaptiveSizing = poolAdaptiveSizing;
+        cancelMaintenance();
+        forceCloseAll();
+    }
+
+    public void setPoolTargetWaitTime(int poolTargetWaitTime) {
+        this.poolTargetWaitTime = poolTargetWaitTime;
+    }
+
+    public void setPoolSizingInterval(int poolSizingInterval) {
+        this.poolSizingInterval = poolSizingInterval;
+        cancelMaintenance();
+        if (!entries.isEmpty()) {
+            scheduleMaintenance();
+        }
+    }
+
+    public void setPoolLeakDetectionThreshold(int poolLeakDetectionThreshold) {
+        this.poolLeakDetectionThreshold = poolLeakDetectionThreshold;
+        cancelMaintenance();
+        if (!entries.isEmpty()) {
+            scheduleMaintenance();
+        }
+    }
+
+    /**
+     * 缓存挂在真实连接上，修改后需要重建连接
+     */
+    public void setPoolPreparedStatementCacheSize(int poolPreparedStatementCacheSize) {
+        this.poolPreparedStatementCacheSize = poolPreparedStatementCacheSize;
+        forceCloseAll();
+    }
+
+    public void setPoolValidationTimeout(int poolValidationTimeout) {
+        this.poolValidationTimeout = poolValidationTimeout;
+    }
+
+    public void setPoolMaximumIdleTime(int poolMaximumIdleTime) {
+        this.poolMaximumIdleTime = poolMaximumIdleTime;
+    }
+
+    public void setPoolMaximumLifetime(int poolMaximumLifetime) {
+        this.poolMaximumLifetime = poolMaximumLifetime;
+    }
+
+    public String getDriver() {
+        return dataSource.getDriver();
+    }
+
+    public String getUrl() {
+        return dataSource.getUrl();
+    }
+
+    public String getUsername() {
+        return dataSource.getUsername();
+    }
+
+    public String getPassword() {
+        return dataSource.getPassword();
+    }
+
+    public Properties getDriverProperties() {
+        return dataSource.getDriverProperties();
+    }
+
+    public boolean isAutoCommit() {
+        return dataSource.isAutoCommit();
+    }
+
+    public Integer getDefaultTransactionIsolationLevel() {
+        return dataSource.getDefaultTransactionIsolationLevel();
+    }
+
+    public Integer getDefaultNetworkTimeout() {
+        return dataSource.getDefaultNetworkTimeout();
+    }
+
+    public int getPoolMaximumActiveConnections() {
+        return poolMaximumActiveConnections;
+    }
+
+    public int getPoolMaximumCheckoutTime() {
+        return poolMaximumCheckoutTime;
+    }
+
+    public int getPoolMaximumWaitTime() {
+        return poolMaximumWaitTime;
+    }
+
+    public int getPoolValidationInterval() {
+        return poolValidationInterval;
+    }
+
+    public int getPoolMinimumIdleConnections() {
+        return poolMinimumIdleConnections;
+    }
+
+    public boolean isPoolAdaptiveSizing() {
+        return poolAdaptiveSizing;
+    }
+
+    public int getPoolTargetWaitTime() {
+        return poolTargetWaitTime;
+    }
+
+    public int getPoolSizingInterval() {
+        return poolSizingInterval;
+    }
+
+    public int getPoolLeakDetectionThreshold() {
+        return poolLeakDetectionThreshold;
+    }
+
+    public int getPoolPreparedStatementCacheSize() {
+        return poolPreparedStatementCacheSize;
+    }
+
+    public int getPoolValidationTimeout() {
+        return poolValidationTimeout;
+    }
+
+    public int getPoolMaximumIdleTime() {
+        return poolMaximumIdleTime;
+    }
+
+    public int getPoolMaximumLifetime() {
+        return poolMaximumLifetime;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        throw new SQLException(getClass().getName() + " is not a wrapper.");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    }
+}
@@ -0,0 +1,32 @@
+package com.sumkor.datasource;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
+
+import javax.sql.DataSource;
+
+/**
+ * 并发连接池工厂，配置方式：
+ * <dataSource type="com.sumkor.datasource.ConcurrentPooledDataSourceFactory">
+ *
+ * 属性的设置沿用 UnpooledDataSourceFactory，通过反射调用 {@link ConcurrentPooledDataSource} 的 setter
+ * @see org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory#setProperties(java.util.Properties)
+ *
+ * 解析 <environment> 时先调用 setProperties 再调用 getDataSource，因此在 getDataSource 中预热连接，
+ * 即在 SqlSessionFactoryBuilder#build 期间完成预热
+ * @see org.apache.ibatis.builder.xml.XMLConfigBuilder#dataSourceElement(org.apache.ibatis.parsing.XNode)
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class ConcurrentPooledDataSourceFactory extends UnpooledDataSourceFactory {
+
+    public ConcurrentPooledDataSourceFactory() {
+        this.dataSource = new ConcurrentPooledDataSource();
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        ((ConcurrentPooledDataSource) dataSource).warmUp();
+        return dataSource;
+    }
+}
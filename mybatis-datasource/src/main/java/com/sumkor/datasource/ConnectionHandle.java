@@ -0,0 +1,127 @@
+package com.sumkor.datasource;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 每次检出都生成一个新的代理连接，用完即丢，作用与 {@link org.apache.ibatis.datasource.pooled.PooledConnection} 相同：
+ * 调用 close 方法时归还连接，归还之后不能再使用
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+class ConnectionHandle implements InvocationHandler {
+
+    private static final String CLOSE = "close";
+
+    private static final String IS_CLOSED = "isClosed";
+
+    private static final String PREPARE_STATEMENT = "prepareStatement";
+
+    /**
+     * 代理类只生成一次，避免每次检出都走 Proxy#newProxyInstance 的查找逻辑
+     */
+    private static final Constructor<?> PROXY_CONSTRUCTOR;
+
+    static {
+        try {
+            // 先生成一个代理取得代理类，之后直接调用构造方法，Proxy.getProxyClass 已过时
+            Class<?> proxyClass = Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> null).getClass();
+            PROXY_CONSTRUCTOR = proxyClass.getConstructor(InvocationHandler.class);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    final ConcurrentPooledDataSource dataSource;
+
+    final PoolEntry entry;
+
+    /**
+     * 检出时获取的许可，归还时释放到同一个信号量
+     */
+    final Semaphore permits;
+
+    final AtomicBoolean released = new AtomicBoolean();
+
+    final Connection proxyConnection;
+
+    ConnectionHandle(ConcurrentPooledDataSource dataSource, PoolEntry entry, Semaphore permits) {
+        this.dataSource = dataSource;
+        this.entry = entry;
+        this.permits = permits;
+        try {
+            this.proxyConnection = (Connection) PROXY_CONSTRUCTOR.newInstance(this);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create proxy connection", e);
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String methodName = method.getName();
+        if (CLOSE.equals(methodName)) {
+            if (released.compareAndSet(false, true)) {
+                dataSource.release(this);
+            }
+            return null;
+        }
+        if (IS_CLOSED.equals(methodName) && released.get()) {
+            return true;
+        }
+        if (!Object.class.equals(method.getDeclaringClass()) && released.get()) {
+            throw new SQLException("Error accessing ConnectionHandle. Connection is invalid.");
+        }
+        if (entry.statementCache != null && PREPARE_STATEMENT.equals(methodName)) {
+            StatementCache.Key key = StatementCache.Key.of(args);
+            if (key != null) {
+                return prepareCached(key, method, args);
+            }
+        }
+        try {
+            return method.invoke(entry.realConnection, args);
+        } catch (Throwable t) {
+            throw ExceptionUtil.unwrapThrowable(t);
+        }
+    }
+
+    /**
+     * 优先取出缓存的语句，未命中时新建并放入缓存
+     */
+    private Object prepareCached(StatementCache.Key key, Method method, Object[] args) throws Throwable {
+        StatementCache cache = entry.statementCache;
+        StatementCache.CachedStatement cached = cache.take(key);
+        if (cached != null) {
+            dataSource.statementCacheHits.increment();
+        } else {
+            dataSource.statementCacheMisses.increment();
+            PreparedStatement statement;
+            try {
+                statement = (PreparedStatement) method.invoke(entry.realConnection, args);
+            } catch (Throwable t) {
+                throw ExceptionUtil.unwrapThrowable(t);
+            }
+            try {
+                cached = cache.put(key, statement);
+            } catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+            if (cached == null) {
+                // 相同的语句正在使用中，这一个不缓存，调用方关闭时真正关闭
+                return statement;
+            }
+        }
+        return new StatementHandle(this, cache, cached).proxyStatement;
+    }
+}
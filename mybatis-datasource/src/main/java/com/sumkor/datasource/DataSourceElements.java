@@ -0,0 +1,130 @@
+package com.sumkor.datasource;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.datasource.DataSourceFactory;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.transaction.TransactionFactory;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * 解析配置文件中的 <environment> 节点
+ *
+ * MyBatis 只会解析指定的 environment，其他 environment 节点会被跳过，且相关方法都是私有的
+ * @see org.apache.ibatis.builder.xml.XMLConfigBuilder#environmentsElement(org.apache.ibatis.parsing.XNode)
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class DataSourceElements {
+
+    /**
+     * 与 XMLConfigBuilder#dataSourceElement 一致
+     * @see org.apache.ibatis.builder.xml.XMLConfigBuilder#dataSourceElement(org.apache.ibatis.parsing.XNode)
+     */
+    public static DataSource newDataSource(Configuration configuration, XNode context) throws ReflectiveOperationException {
+        if (context == null) {
+            throw new BuilderException("Environment declaration requires a DataSourceFactory.");
+        }
+        String type = context.getStringAttribute("type");
+        Properties props = context.getChildrenAsProperties();
+        DataSourceFactory factory = (DataSourceFactory) configuration.getTypeAliasRegistry().resolveAlias(type).getDeclaredConstructor().newInstance();
+        factory.setProperties(props);
+        return factory.getDataSource();
+    }
+
+    /**
+     * 与 XMLConfigBuilder#transactionManagerElement 一致
+     * @see org.apache.ibatis.builder.xml.XMLConfigBuilder#transactionManagerElement(org.apache.ibatis.parsing.XNode)
+     */
+    public static TransactionFactory newTransactionFactory(Configuration configuration, XNode context) throws ReflectiveOperationException {
+        if (context == null) {
+            throw new BuilderException("Environment declaration requires a TransactionFactory.");
+        }
+        String type = context.getStringAttribute("type");
+        Properties props = context.getChildrenAsProperties();
+        TransactionFactory factory = (TransactionFactory) configuration.getTypeAliasRegistry().resolveAlias(type).getDeclaredConstructor().newInstance();
+        factory.setProperties(props);
+        return factory;
+    }
+
+    /**
+     * <dataSource>、<transactionManager> 节点的唯一标识：类型 + 替换占位符之后的全部属性的 SHA-256 摘要，相同标识的数据源可以共用一个连接池
+     *
+     * 属性中包含密码，标识会作为 Map 的 key 并打印到日志中，因此不保留属性原文
+     */
+    public static String identityOf(Configuration configuration, XNode context) {
+        String type = context.getStringAttribute("type");
+        Class<?> factoryClass = configuration.getTypeAliasRegistry().resolveAlias(type);
+        return factoryClass.getName() + "@" + digest(new TreeMap<>(context.getChildrenAsProperties()));
+    }
+
+    private static String digest(Map<Object, Object> properties) {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new BuilderException("SHA-256 is not supported.", e);
+        }
+        for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+            messageDigest.update(String.valueOf(entry.getKey()).getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) 0);
+            messageDigest.update(String.valueOf(entry.getValue()).getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) 0);
+        }
+        StringBuilder builder = new StringBuilder();
+        for (byte b : messageDigest.digest()) {
+            builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 与 XMLConfigBuilder#propertiesElement 一致，读取配置文件中 <properties> 节点定义的变量
+     * @see org.apache.ibatis.builder.xml.XMLConfigBuilder#propertiesElement(org.apache.ibatis.parsing.XNode)
+     */
+    public static Properties variablesOf(XNode context) throws IOException {
+        Properties variables = new Properties();
+        if (context != null) {
+            variables.putAll(context.getChildrenAsProperties());
+            String resource = context.getStringAttribute("resource");
+            String url = context.getStringAttribute("url");
+            if (resource != null && url != null) {
+                throw new BuilderException("The properties element cannot specify both a URL and a resource based property file reference.  Please specify one or the other.");
+            }
+            if (resource != null) {
+                variables.putAll(Resources.getResourceAsProperties(resource));
+            } else if (url != null) {
+                variables.putAll(Resources.getUrlAsProperties(url));
+            }
+        }
+        return variables;
+    }
+
+    /**
+     * 读取配置文件的全部内容，以便多次解析
+     */
+    public static String read(Reader reader) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[4096];
+        int n;
+        try {
+            while ((n = reader.read(buffer)) != -1) {
+                builder.append(buffer, 0, n);
+            }
+        } finally {
+            reader.close();
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package com.sumkor.datasource;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 低开销的耗时直方图
+ *
+ * 按微秒取以 2 为底的对数分桶：第 0 个桶记录小于 1 微秒的值，第 i 个桶记录 [2^(i-1), 2^i) 微秒的值。
+ * 每个桶是一个 LongAdder，记录时只有一次无竞争的累加，适合在检出、归还连接的热点路径上使用。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 32;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        int index = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets[index].increment();
+        if (nanos > 0) {
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        long meanMicros = count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos.sum() / count);
+        return new Snapshot(count, meanMicros, TimeUnit.NANOSECONDS.toMicros(maxNanos.get()),
+                percentile(counts, count, 0.5), percentile(counts, count, 0.9), percentile(counts, count, 0.99), counts);
+    }
+
+    /**
+     * 返回所在桶的上界，单位微秒
+     */
+    private static long percentile(long[] counts, long count, double quantile) {
+        long threshold = (long) Math.ceil(count * quantile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= threshold && seen > 0) {
+                return i == 0 ? 0 : 1L << i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 直方图快照，时间单位均为微秒，分位数为所在桶的上界
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+
+        private final long count;
+
+        private final long mean;
+
+        private final long max;
+
+        private final long p50;
+
+        private final long p90;
+
+        private final long p99;
+
+        private final long[] buckets;
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", mean=" + mean + "us, p50<=" + p50 + "us, p90<=" + p90 + "us, p99<=" + p99 + "us, max=" + max + "us";
+        }
+    }
+}
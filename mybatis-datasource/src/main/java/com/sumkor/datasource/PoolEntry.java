@@ -0,0 +1,81 @@
+package com.sumkor.datasource;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 连接池中的一个真实连接
+ *
+ * 状态只通过 CAS 修改，谁把状态从 IN_USE 改掉，谁就负责归还许可，保证许可不会重复归还或丢失。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+class PoolEntry {
+
+    static final int REMOVED = -1;
+
+    static final int IDLE = 0;
+
+    static final int IN_USE = 1;
+
+    final Connection realConnection;
+
+    /**
+     * 未开启语句缓存时为 null
+     */
+    final StatementCache statementCache;
+
+    final AtomicInteger state = new AtomicInteger(IN_USE);
+
+    /**
+     * 是否已在空闲队列中，避免同一个连接被重复入队
+     */
+    final AtomicBoolean queued = new AtomicBoolean();
+
+    final long createdTime;
+
+    volatile long lastAccessedTime;
+
+    /**
+     * 检出时间，未检出时为 0
+     */
+    volatile long checkoutTime;
+
+    /**
+     * 检出时的 System#nanoTime，用于统计持有时间
+     */
+    volatile long checkoutNanos;
+
+    /**
+     * 检出连接的线程
+     */
+    volatile Thread holder;
+
+    /**
+     * 开启泄漏检测时，检出连接处的调用栈，未开启时为 null
+     */
+    volatile Throwable checkoutTrace;
+
+    /**
+     * 本次检出是否已报告过疑似泄漏
+     */
+    volatile boolean leakReported;
+
+    /**
+     * 当前检出者持有的代理连接
+     */
+    volatile ConnectionHandle handle;
+
+    PoolEntry(Connection realConnection, int statementCacheSize) {
+        this.realConnection = realConnection;
+        this.statementCache = statementCacheSize > 0 ? new StatementCache(statementCacheSize) : null;
+        this.createdTime = System.currentTimeMillis();
+        this.lastAccessedTime = createdTime;
+    }
+
+    int getId() {
+        return System.identityHashCode(realConnection);
+    }
+}
@@ -0,0 +1,66 @@
+package com.sumkor.datasource;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 连接池运行状态快照
+ * @see ConcurrentPooledDataSource#getMetrics()
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class PoolMetrics {
+
+    private final int totalConnections;
+
+    private final int activeConnections;
+
+    private final int idleConnections;
+
+    /**
+     * 正在等待许可的线程数（估计值）
+     */
+    private final int waitingThreads;
+
+    /**
+     * 检出超时被回收的连接数
+     */
+    private final long reclaimedCount;
+
+    /**
+     * 等待超时、检出失败的次数
+     */
+    private final long timeoutCount;
+
+    /**
+     * 检测到的疑似泄漏次数
+     */
+    private final long leakCount;
+
+    /**
+     * 被移除的空闲连接数：校验失败、空闲过久、存活过久、收缩
+     */
+    private final long evictedCount;
+
+    /**
+     * 检出等待时间
+     */
+    private final LatencyHistogram.Snapshot waitTime;
+
+    /**
+     * 检出到归还的持有时间
+     */
+    private final LatencyHistogram.Snapshot holdTime;
+
+    /**
+     * PreparedStatement 缓存命中、未命中次数，未开启缓存时都为 0
+     */
+    private final long statementCacheHits;
+
+    private final long statementCacheMisses;
+}
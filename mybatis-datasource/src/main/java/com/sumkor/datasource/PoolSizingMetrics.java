@@ -0,0 +1,51 @@
+package com.sumkor.datasource;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 连接池大小调整的统计信息快照
+ * @see ConcurrentPooledDataSource#getSizingMetrics()
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class PoolSizingMetrics {
+
+    /**
+     * 当前活跃连接数上限
+     */
+    private final int currentLimit;
+
+    /**
+     * 上限的取值范围
+     */
+    private final int minimumLimit;
+
+    private final int maximumLimit;
+
+    /**
+     * 当前的连接总数
+     */
+    private final int totalConnections;
+
+    /**
+     * 预热建立的连接数
+     */
+    private final int warmedUpConnections;
+
+    private final long growCount;
+
+    private final long shrinkCount;
+
+    /**
+     * 最近一次调整的原因及时间
+     */
+    private final String lastDecision;
+
+    private final long lastDecisionTime;
+}
@@ -0,0 +1,276 @@
+package com.sumkor.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 真实连接上的 PreparedStatement 缓存，随 {@link PoolEntry} 一起存在，跨会话、跨检出复用
+ *
+ * MyBatis 的 SimpleExecutor 每次执行都会 prepareStatement 再关闭；ReuseExecutor 虽然会复用，但只在一个 SqlSession 之内有效。
+ * @see org.apache.ibatis.executor.ReuseExecutor#prepareStatement(org.apache.ibatis.executor.statement.StatementHandler, org.apache.ibatis.logging.Log)
+ *
+ * 这里把 PreparedStatement 缓存在真实连接上，调用方关闭时只是归还到缓存中，下一次相同的 SQL 直接取出，省去数据库端的解析。
+ * 1. 按 SQL、ResultSet 类型、并发模式、生成主键的方式区分，按访问顺序做 LRU 淘汰，被淘汰的语句才真正关闭；
+ * 2. 同一条 SQL 的语句正在使用中（例如嵌套查询）时，新建一个不缓存的语句；
+ * 3. 归还时清空参数和未执行的批量语句，并将 fetchSize、queryTimeout、maxRows 恢复为新建时的值：
+ *    MyBatis 只在 MappedStatement 中有配置时才设置这些值，回滚时 BatchExecutor 直接关闭语句而不执行 addBatch 的内容，
+ *    不清理的话会带到下一次使用同一条 SQL 的语句上（例如 fetchSize=Integer.MIN_VALUE 的流式查询、在另一个事务中被重放的批量更新）。
+ *
+ * 同一时刻只有检出连接的线程会访问，但连接被回收时会由其他线程清空，因此方法都加锁，无竞争时开销很小。
+ * 归还语句时会调用 JDBC 方法，使用 ReentrantLock 而不是 synchronized，虚拟线程在其中阻塞时不会占住载体线程。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@Slf4j
+class StatementCache {
+
+    private final int maxSize;
+
+    private final LinkedHashMap<Key, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    StatementCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 取出一个空闲的缓存语句，没有则返回 null
+     */
+    CachedStatement take(Key key) {
+        lock.lock();
+        try {
+            CachedStatement cached = statements.get(key);
+            if (cached == null || cached.inUse) {
+                return null;
+            }
+            cached.inUse = true;
+            return cached;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 缓存新建的语句，同一个 key 的语句正在使用中时不缓存，返回 null
+     */
+    CachedStatement put(Key key, PreparedStatement statement) throws SQLException {
+        CachedStatement cached = new CachedStatement(key, statement);
+        lock.lock();
+        try {
+            if (statements.containsKey(key)) {
+                return null;
+            }
+            cached.inUse = true;
+            statements.put(key, cached);
+            evict();
+            return cached;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还语句：清空参数、批量语句，恢复新建时的设置，失败则关闭并移出缓存
+     */
+    void giveBack(CachedStatement cached) {
+        lock.lock();
+        try {
+            if (statements.get(cached.key) != cached) {
+                // 已被淘汰或清空
+                close(cached.statement);
+                return;
+            }
+            try {
+                ResultSet resultSet = cached.statement.getResultSet();
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+                cached.statement.clearParameters();
+                cached.statement.clearBatch();
+                cached.statement.clearWarnings();
+                cached.statement.setMaxRows(cached.maxRows);
+                cached.statement.setFetchSize(cached.fetchSize);
+                cached.statement.setQueryTimeout(cached.queryTimeout);
+                cached.inUse = false;
+            } catch (SQLException e) {
+                log.debug("Failed to reset cached statement, closing it: {}", e.getMessage());
+                statements.remove(cached.key);
+                close(cached.statement);
+            }
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 连接归还时调用：调用方没有关闭的语句，其代理已随连接失效，这里统一归还
+     */
+    void giveBackAll() {
+        lock.lock();
+        try {
+            for (CachedStatement cached : statements.values().toArray(new CachedStatement[0])) {
+                if (cached.inUse) {
+                    giveBack(cached);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 连接关闭时调用
+     */
+    void clear() {
+        lock.lock();
+        try {
+            for (CachedStatement cached : statements.values()) {
+                close(cached.statement);
+            }
+            statements.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return statements.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从最久未使用的语句开始淘汰，使用中的语句跳过，因此缓存可能暂时超出上限
+     */
+    private void evict() {
+        Iterator<CachedStatement> iterator = statements.values().iterator();
+        while (statements.size() > maxSize && iterator.hasNext()) {
+            CachedStatement cached = iterator.next();
+            if (!cached.inUse) {
+                iterator.remove();
+                close(cached.statement);
+            }
+        }
+    }
+
+    private static void close(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // ignore
+        }
+    }
+
+    static final class CachedStatement {
+
+        final Key key;
+
+        final PreparedStatement statement;
+
+        /**
+         * 新建时的设置，归还时恢复
+         */
+        final int fetchSize;
+
+        final int queryTimeout;
+
+        final int maxRows;
+
+        boolean inUse;
+
+        CachedStatement(Key key, PreparedStatement statement) throws SQLException {
+            this.key = key;
+            this.statement = statement;
+            this.fetchSize = statement.getFetchSize();
+            this.queryTimeout = statement.getQueryTimeout();
+            this.maxRows = statement.getMaxRows();
+        }
+    }
+
+    /**
+     * 缓存的 key，对应 Connection#prepareStatement 的各个重载，其余重载不缓存
+     */
+    static final class Key {
+
+        private final String sql;
+
+        private final int resultSetType;
+
+        private final int resultSetConcurrency;
+
+        private final int autoGeneratedKeys;
+
+        private final String[] columnNames;
+
+        private final int hashCode;
+
+        private Key(String sql, int resultSetType, int resultSetConcurrency, int autoGeneratedKeys, String[] columnNames) {
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+            this.columnNames = columnNames;
+            this.hashCode = Objects.hash(sql, resultSetType, resultSetConcurrency, autoGeneratedKeys, Arrays.hashCode(columnNames));
+        }
+
+        /**
+         * @return 无法缓存的重载返回 null
+         */
+        static Key of(Object[] args) {
+            if (args == null || args.length == 0 || !(args[0] instanceof String)) {
+                return null;
+            }
+            String sql = (String) args[0];
+            if (args.length == 1) {
+                return new Key(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, Statement.NO_GENERATED_KEYS, null);
+            }
+            if (args.length == 2 && args[1] instanceof Integer) {
+                return new Key(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, (Integer) args[1], null);
+            }
+            if (args.length == 2 && args[1] instanceof String[]) {
+                return new Key(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, Statement.RETURN_GENERATED_KEYS, ((String[]) args[1]).clone());
+            }
+            if (args.length == 3) {
+                return new Key(sql, (Integer) args[1], (Integer) args[2], Statement.NO_GENERATED_KEYS, null);
+            }
+            return null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return resultSetType == key.resultSetType
+                    && resultSetConcurrency == key.resultSetConcurrency
+                    && autoGeneratedKeys == key.autoGeneratedKeys
+                    && sql.equals(key.sql)
+                    && Arrays.equals(columnNames, key.columnNames);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
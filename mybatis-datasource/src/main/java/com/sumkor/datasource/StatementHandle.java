@@ -0,0 +1,91 @@
+package com.sumkor.datasource;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 缓存语句的代理，与 {@link ConnectionHandle} 一样每次取出都生成一个新的代理，用完即丢：
+ * 调用 close 方法时归还到 {@link StatementCache}，连接归还之后也不能再使用
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+class StatementHandle implements InvocationHandler {
+
+    private static final String CLOSE = "close";
+
+    private static final String IS_CLOSED = "isClosed";
+
+    private static final String GET_CONNECTION = "getConnection";
+
+    private static final Constructor<?> PROXY_CONSTRUCTOR;
+
+    static {
+        try {
+            // 先生成一个代理取得代理类，之后直接调用构造方法，Proxy.getProxyClass 已过时
+            Class<?> proxyClass = Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> null).getClass();
+            PROXY_CONSTRUCTOR = proxyClass.getConstructor(InvocationHandler.class);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final ConnectionHandle connectionHandle;
+
+    private final StatementCache cache;
+
+    private final StatementCache.CachedStatement cached;
+
+    private boolean closed;
+
+    final PreparedStatement proxyStatement;
+
+    StatementHandle(ConnectionHandle connectionHandle, StatementCache cache, StatementCache.CachedStatement cached) {
+        this.connectionHandle = connectionHandle;
+        this.cache = cache;
+        this.cached = cached;
+        try {
+            this.proxyStatement = (PreparedStatement) PROXY_CONSTRUCTOR.newInstance(this);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create proxy statement", e);
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String methodName = method.getName();
+        if (CLOSE.equals(methodName)) {
+            if (!closed) {
+                closed = true;
+                if (!connectionHandle.released.get()) {
+                    cache.giveBack(cached);
+                }
+            }
+            return null;
+        }
+        if (IS_CLOSED.equals(methodName)) {
+            return closed || connectionHandle.released.get();
+        }
+        if (Object.class.equals(method.getDeclaringClass())) {
+            return method.invoke(this, args);
+        }
+        if (closed || connectionHandle.released.get()) {
+            throw new SQLException("Error accessing StatementHandle. Statement is closed.");
+        }
+        if (GET_CONNECTION.equals(methodName)) {
+            return connectionHandle.proxyConnection;
+        }
+        try {
+            return method.invoke(cached.statement, args);
+        } catch (Throwable t) {
+            throw ExceptionUtil.unwrapThrowable(t);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.sumkor.datasource.registry;
+
+import com.sumkor.datasource.ConcurrentPooledDataSource;
+import com.sumkor.datasource.DataSourceElements;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.builder.xml.XMLMapperEntityResolver;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.exceptions.ExceptionFactory;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.parsing.XPathParser;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * SqlSessionFactory 注册表
+ *
+ * 对比 MultiDataSourceTest：每次 SqlSessionFactoryBuilder#build 都会重新解析配置文件、注册全部 Mapper，
+ * 并为 environment 创建新的连接池，即使两个 environment 指向同一个数据库。
+ *
+ * 这里对同一个配置文件：
+ * 1. 只在第一次获取时完整解析一次，得到的 Configuration 由所有工厂共用（见 {@link EnvironmentSqlSessionFactory}）；
+ * 2. 之后每次获取只解析对应的 <environment> 节点，替换占位符之后定义完全相同的数据源，共用同一个连接池。
+ *
+ * 例外是 Mapper 中配置了 <cache> 的情况：二级缓存对象挂在 Configuration 的 MappedStatement 上，
+ * 而 CacheKey 中只包含 environment id，不区分数据源，不同数据源（例如不同租户）共用时会从缓存中读到对方的数据。
+ * @see org.apache.ibatis.executor.BaseExecutor#createCacheKey
+ * 因此 Configuration 中有二级缓存时，每个不同的数据源单独完整解析一份 Configuration，只有指向同一个数据源的工厂共用。
+ *
+ * 注意传入的 properties 只用于解析 <environment> 节点，Mapper 文件中的 ${} 占位符使用第一次获取时的 properties 解析。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@Slf4j
+public class SqlSessionFactoryRegistry implements Closeable {
+
+    /**
+     * 不与任何 <environment> 节点匹配的 id
+     */
+    private static final String UNMATCHED_ENVIRONMENT = SqlSessionFactoryRegistry.class.getName() + "#unmatched";
+
+    /**
+     * 配置文件 -> 解析结果
+     */
+    private final Map<String, Template> templates = new HashMap<>();
+
+    /**
+     * 数据源定义 -> 连接池
+     */
+    private final Map<String, DataSource> dataSources = new HashMap<>();
+
+    /**
+     * 配置文件 + environment 定义 -> 工厂
+     */
+    private final Map<String, SqlSessionFactory> factories = new HashMap<>();
+
+    public SqlSessionFactory getSqlSessionFactory(String resource) {
+        return getSqlSessionFactory(resource, null, null);
+    }
+
+    public SqlSessionFactory getSqlSessionFactory(String resource, String environment) {
+        return getSqlSessionFactory(resource, environment, null);
+    }
+
+    /**
+     * 参数与 SqlSessionFactoryBuilder#build(java.io.Reader, java.lang.String, java.util.Properties) 一致
+     */
+    public synchronized SqlSessionFactory getSqlSessionFactory(String resource, String environment, Properties properties) {
+        try {
+            Template template = templates.get(resource);
+            boolean parsed = false;
+            if (template == null) {
+                template = parse(resource, environment, properties);
+                templates.put(resource, template);
+                parsed = true;
+            }
+            Configuration configuration = template.configuration;
+
+            Properties variables = new Properties();
+            variables.putAll(template.variables);
+            if (properties != null) {
+                variables.putAll(properties);
+            }
+            XPathParser parser = new XPathParser(template.xml, true, variables, new XMLMapperEntityResolver());
+            String id = environment != null ? environment : parser.evalNode("/configuration/environments").getStringAttribute("default");
+            XNode environmentNode = parser.evalNode("/configuration/environments/environment[@id='" + id + "']");
+            if (environmentNode == null) {
+                throw new BuilderException("Could not find environment " + id + " in " + resource);
+            }
+            XNode transactionManagerNode = environmentNode.evalNode("transactionManager");
+            XNode dataSourceNode = environmentNode.evalNode("dataSource");
+            if (transactionManagerNode == null || dataSourceNode == null) {
+                throw new BuilderException("Environment " + id + " requires a transactionManager and a dataSource.");
+            }
+            String dataSourceKey = DataSourceElements.identityOf(configuration, dataSourceNode);
+            String factoryKey = resource + "#" + id + "#" + DataSourceElements.identityOf(configuration, transactionManagerNode) + "#" + dataSourceKey;
+
+            if (parsed) {
+                // 第一次解析时 XMLConfigBuilder 已经创建了数据源，直接登记
+                registerDataSource(dataSourceKey, configuration.getEnvironment().getDataSource());
+                template.configurations.put(dataSourceKey, configuration);
+            }
+            SqlSessionFactory factory = factories.get(factoryKey);
+            if (factory == null) {
+                DataSource dataSource = dataSources.get(dataSourceKey);
+                if (dataSource == null) {
+                    dataSource = DataSourceElements.newDataSource(configuration, dataSourceNode);
+                    dataSources.put(dataSourceKey, dataSource);
+                }
+                Environment env = new Environment(id, DataSourceElements.newTransactionFactory(configuration, transactionManagerNode), dataSource);
+                configuration = template.configurations.get(dataSourceKey);
+                if (configuration == null) {
+                    configuration = configurationFor(template, resource, env, properties, dataSourceKey);
+                }
+                factory = new EnvironmentSqlSessionFactory(configuration, env);
+                factories.put(factoryKey, factory);
+            }
+            return factory;
+        } catch (Exception e) {
+            throw ExceptionFactory.wrapException("Error building SqlSession.", e);
+        }
+    }
+
+    private Template parse(String resource, String environment, Properties properties) throws Exception {
+        String xml = DataSourceElements.read(Resources.getResourceAsReader(resource));
+        Configuration configuration = new XMLConfigBuilder(new StringReader(xml), environment, properties).parse();
+        XPathParser parser = new XPathParser(xml, true, null, new XMLMapperEntityResolver());
+        Properties variables = DataSourceElements.variablesOf(parser.evalNode("/configuration/properties"));
+        log.debug("Parsed configuration {}", resource);
+        return new Template(xml, configuration, variables);
+    }
+
+    /**
+     * 新的数据源：没有二级缓存时共用第一次解析的 Configuration，否则完整解析一份新的，使其拥有独立的缓存对象
+     *
+     * 重新解析时指定一个不存在的 environment id，XMLConfigBuilder 会跳过全部 <environment> 节点，不再创建连接池；
+     * 事先设置好使用已有连接池的 Environment，<databaseIdProvider> 仍然可以据此取得 databaseId
+     * @see org.apache.ibatis.builder.xml.XMLConfigBuilder#environmentsElement(org.apache.ibatis.parsing.XNode)
+     */
+    private Configuration configurationFor(Template template, String resource, Environment environment, Properties properties,
+                                           String dataSourceKey) {
+        Configuration configuration = template.configuration;
+        if (!configuration.getCaches().isEmpty()) {
+            XMLConfigBuilder builder = new XMLConfigBuilder(new StringReader(template.xml), UNMATCHED_ENVIRONMENT, properties);
+            builder.getConfiguration().setEnvironment(environment);
+            configuration = builder.parse();
+            log.debug("Parsed configuration {} again for data source {}: second level caches can not be shared", resource, dataSourceKey);
+        }
+        template.configurations.put(dataSourceKey, configuration);
+        return configuration;
+    }
+
+    /**
+     * 其他配置文件中已有相同定义的连接池时，关闭刚创建的，使用已有的
+     */
+    private void registerDataSource(String key, DataSource dataSource) {
+        DataSource existing = dataSources.putIfAbsent(key, dataSource);
+        if (existing != null && existing != dataSource) {
+            close(dataSource);
+        }
+    }
+
+    /**
+     * 不同的连接池个数
+     */
+    public synchronized int getDataSourceCount() {
+        return dataSources.size();
+    }
+
+    /**
+     * 关闭全部连接池
+     */
+    @Override
+    public synchronized void close() {
+        for (DataSource dataSource : dataSources.values()) {
+            close(dataSource);
+        }
+        dataSources.clear();
+        factories.clear();
+        templates.clear();
+    }
+
+    private static void close(DataSource dataSource) {
+        if (dataSource instanceof ConcurrentPooledDataSource) {
+            ((ConcurrentPooledDataSource) dataSource).close();
+        } else if (dataSource instanceof PooledDataSource) {
+            ((PooledDataSource) dataSource).forceCloseAll();
+        }
+    }
+
+    private static class Template {
+
+        private final String xml;
+
+        private final Configuration configuration;
+
+        /**
+         * 数据源定义 -> 该数据源的工厂使用的 Configuration
+         */
+        private final Map<String, Configuration> configurations = new HashMap<>();
+
+        /**
+         * 配置文件 <properties> 节点中定义的变量，不包含调用方传入的 properties
+         */
+        private final Properties variables;
+
+        Template(String xml, Configuration configuration, Properties variables) {
+            this.xml = xml;
+            this.configuration = configuration;
+            this.variables = variables;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.sumkor.datasource.routing;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * 读写分离数据源：一个主库，多个带权重的从库
+ *
+ * 直接调用 getConnection 得到的是主库连接，读写路由由 {@link RoutingTransaction} 按语句类型选择。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class RoutingDataSource implements DataSource {
+
+    private final DataSource primary;
+
+    private final List<DataSource> replicas = new ArrayList<>();
+
+    private final List<String> replicaIds = new ArrayList<>();
+
+    /**
+     * 权重的前缀和，按权重随机选择从库时二分查找
+     */
+    private int[] cumulativeWeights = new int[0];
+
+    public RoutingDataSource(DataSource primary) {
+        this.primary = primary;
+    }
+
+    public void addReplica(String id, DataSource replica, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Weight of replica " + id + " must be positive, but was " + weight);
+        }
+        int total = cumulativeWeights.length == 0 ? 0 : cumulativeWeights[cumulativeWeights.length - 1];
+        int[] weights = new int[cumulativeWeights.length + 1];
+        System.arraycopy(cumulativeWeights, 0, weights, 0, cumulativeWeights.length);
+        weights[weights.length - 1] = total + weight;
+        replicas.add(replica);
+        replicaIds.add(id);
+        cumulativeWeights = weights;
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<String> getReplicaIds() {
+        return Collections.unmodifiableList(replicaIds);
+    }
+
+    /**
+     * 按权重随机选择一个从库，没有从库时返回主库
+     */
+    public DataSource selectReplica() {
+        int[] weights = cumulativeWeights;
+        if (weights.length == 0) {
+            return primary;
+        }
+        int random = ThreadLocalRandom.current().nextInt(weights[weights.length - 1]);
+        int low = 0;
+        int high = weights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (weights[mid] <= random) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return replicas.get(low);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        throw new SQLException(getClass().getName() + " is not a wrapper.");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    }
+}
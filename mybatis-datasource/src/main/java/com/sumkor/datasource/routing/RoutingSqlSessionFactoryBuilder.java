@@ -0,0 +1,62 @@
+package com.sumkor.datasource.routing;
+
+import com.sumkor.datasource.DataSourceElements;
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.builder.xml.XMLMapperEntityResolver;
+import org.apache.ibatis.exceptions.ExceptionFactory;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.parsing.XPathParser;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 构建读写分离的 SqlSessionFactory
+ *
+ * 对比 MultiDataSourceTest：每个 environment 都要单独构建一个 SqlSessionFactory。
+ * 这里只解析一次配置文件得到 Configuration，主库使用指定 environment 的数据源，
+ * 从库的数据源从同一个配置文件的其他 <environment> 节点中解析，最终组合成一个 {@link RoutingDataSource}。
+ *
+ * MyBatis 只会解析指定的 environment，其他 environment 节点会被跳过
+ * @see org.apache.ibatis.builder.xml.XMLConfigBuilder#environmentsElement(org.apache.ibatis.parsing.XNode)
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class RoutingSqlSessionFactoryBuilder {
+
+    /**
+     * @param primary  主库的 environment id
+     * @param replicas 从库的 environment id 及其权重
+     */
+    public SqlSessionFactory build(Reader reader, String primary, Map<String, Integer> replicas, Properties properties) {
+        try {
+            String xml = DataSourceElements.read(reader);
+            Configuration configuration = new XMLConfigBuilder(new StringReader(xml), primary, properties).parse();
+
+            RoutingDataSource routingDataSource = new RoutingDataSource(configuration.getEnvironment().getDataSource());
+            // 使用解析后的变量，配置文件中的 ${jdbc.url} 等占位符在 XNode 中已被替换
+            XPathParser parser = new XPathParser(xml, true, configuration.getVariables(), new XMLMapperEntityResolver());
+            for (Map.Entry<String, Integer> replica : replicas.entrySet()) {
+                XNode dataSourceNode = parser.evalNode("/configuration/environments/environment[@id='" + replica.getKey() + "']/dataSource");
+                if (dataSourceNode == null) {
+                    throw new BuilderException("Could not find environment " + replica.getKey() + " with a dataSource.");
+                }
+                routingDataSource.addReplica(replica.getKey(), DataSourceElements.newDataSource(configuration, dataSourceNode), replica.getValue());
+            }
+
+            configuration.setEnvironment(new Environment(primary, new RoutingTransactionFactory(), routingDataSource));
+            configuration.addInterceptor(new ReadWriteRoutingInterceptor());
+            return new DefaultSqlSessionFactory(configuration);
+        } catch (Exception e) {
+            throw ExceptionFactory.wrapException("Error building routing SqlSession.", e);
+        }
+    }
+}
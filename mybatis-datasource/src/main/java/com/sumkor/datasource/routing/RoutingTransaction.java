@@ -0,0 +1,111 @@
+package com.sumkor.datasource.routing;
+
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.TransactionIsolationLevel;
+import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 读写分离事务：内部持有主库、从库两个 JdbcTransaction，各自延迟获取连接
+ *
+ * Executor 每次执行语句都会调用 Transaction#getConnection，
+ * 因此由 {@link ReadWriteRoutingInterceptor} 在执行前设置路由，即可让同一个会话中的语句使用不同的连接。
+ * @see org.apache.ibatis.executor.BaseExecutor#getConnection(org.apache.ibatis.logging.Log)
+ *
+ * 会话中执行过写操作之后，后续的读操作都走主库，保证能读到自己刚写入的数据。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class RoutingTransaction implements Transaction {
+
+    private final RoutingDataSource dataSource;
+
+    private final TransactionIsolationLevel level;
+
+    private final boolean autoCommit;
+
+    private final JdbcTransaction primary;
+
+    private JdbcTransaction replica;
+
+    /**
+     * 当前语句是否走从库，默认走主库
+     */
+    private boolean readRoute;
+
+    /**
+     * 会话中是否执行过写操作
+     */
+    private boolean written;
+
+    public RoutingTransaction(RoutingDataSource dataSource, TransactionIsolationLevel level, boolean autoCommit) {
+        this.dataSource = dataSource;
+        this.level = level;
+        this.autoCommit = autoCommit;
+        this.primary = new JdbcTransaction(dataSource.getPrimary(), level, autoCommit);
+    }
+
+    /**
+     * 按语句类型设置路由，SELECT 走从库，其他走主库
+     */
+    public void route(SqlCommandType sqlCommandType) {
+        if (sqlCommandType == SqlCommandType.SELECT) {
+            readRoute = !written;
+        } else {
+            written = true;
+            readRoute = false;
+        }
+    }
+
+    public boolean isWritten() {
+        return written;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!readRoute) {
+            return primary.getConnection();
+        }
+        if (replica == null) {
+            // 每个会话选择一次从库，会话内的读操作使用同一个从库连接
+            replica = new JdbcTransaction(dataSource.selectReplica(), level, autoCommit);
+        }
+        return replica.getConnection();
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        primary.commit();
+        if (replica != null) {
+            replica.commit();
+        }
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        primary.rollback();
+        if (replica != null) {
+            replica.rollback();
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            primary.close();
+        } finally {
+            if (replica != null) {
+                replica.close();
+            }
+        }
+    }
+
+    @Override
+    public Integer getTimeout() throws SQLException {
+        return null;
+    }
+}
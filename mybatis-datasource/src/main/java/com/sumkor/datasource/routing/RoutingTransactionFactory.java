@@ -0,0 +1,32 @@
+package com.sumkor.datasource.routing;
+
+import org.apache.ibatis.session.TransactionIsolationLevel;
+import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.TransactionException;
+import org.apache.ibatis.transaction.TransactionFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * 创建 {@link RoutingTransaction}，数据源必须是 {@link RoutingDataSource}
+ * @see org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class RoutingTransactionFactory implements TransactionFactory {
+
+    @Override
+    public Transaction newTransaction(Connection conn) {
+        throw new TransactionException("RoutingTransaction requires a RoutingDataSource, could not be created from a single connection.");
+    }
+
+    @Override
+    public Transaction newTransaction(DataSource dataSource, TransactionIsolationLevel level, boolean autoCommit) {
+        if (!(dataSource instanceof RoutingDataSource)) {
+            throw new TransactionException("RoutingTransaction requires a RoutingDataSource, but was " + dataSource.getClass().getName());
+        }
+        return new RoutingTransaction((RoutingDataSource) dataSource, level, autoCommit);
+    }
+}
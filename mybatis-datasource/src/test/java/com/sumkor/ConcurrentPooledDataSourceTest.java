@@ -0,0 +1,487 @@
+package com.sumkor;
+
+import com.sumkor.datasource.ConcurrentPooledDataSource;
+import com.sumkor.datasource.PoolMetrics;
+import com.sumkor.datasource.PoolSizingMetrics;
+import com.sumkor.entity.Student;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 并发连接池
+ * @see com.sumkor.datasource.ConcurrentPooledDataSource
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class ConcurrentPooledDataSourceTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private static ConcurrentPooledDataSource dataSource;
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Reader reader = Resources.getResourceAsReader("mybatis-config-h2.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        dataSource = (ConcurrentPooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    /**
+     * 同一个线程先后开启的会话，复用的是该线程最近归还的连接
+     */
+    @Test
+    public void dataSource() {
+        dataSource.forceCloseAll();
+        for (int i = 1; i <= 2; i++) {
+            try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+                Student student = sqlSession.selectOne("selectByPrimaryKey", i);
+                System.out.println("student = " + student);
+            }
+        }
+        Assert.assertEquals(1, dataSource.getTotalConnections());
+        Assert.assertEquals(0, dataSource.getActiveConnections());
+    }
+
+    /**
+     * 对比 {@link DataSourceTest#timeout()}：线程一检出超时，线程二等待时将其回收，线程一手中的连接随之失效
+     */
+    @Test
+    public void timeout() throws Exception {
+        dataSource.setPoolMaximumActiveConnections(1);
+        dataSource.setPoolMaximumCheckoutTime(1000);
+        try {
+            CountDownLatch checkedOut = new CountDownLatch(1);
+            CountDownLatch reclaimed = new CountDownLatch(1);
+            Connection[] holder = new Connection[1];
+            Thread thread01 = new Thread(() -> {
+                try {
+                    holder[0] = dataSource.getConnection();
+                    checkedOut.countDown();
+                    reclaimed.await();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }, "thread_01");
+            thread01.start();
+            checkedOut.await();
+
+            long start = System.currentTimeMillis();
+            try (Connection connection = dataSource.getConnection()) {
+                System.out.println("waited " + (System.currentTimeMillis() - start) + "ms, connection = " + connection);
+            }
+            reclaimed.countDown();
+            thread01.join();
+            try {
+                holder[0].isValid(1000);
+                Assert.fail("Reclaimed connection should be invalid");
+            } catch (SQLException e) {
+                System.out.println("e = " + e.getMessage());
+            }
+            holder[0].close();
+            Assert.assertEquals(0, dataSource.getActiveConnections());
+            Assert.assertTrue(dataSource.getMetrics().getReclaimedCount() > 0);
+        } finally {
+            dataSource.setPoolMaximumActiveConnections(10);
+            dataSource.setPoolMaximumCheckoutTime(20000);
+        }
+    }
+
+    /**
+     * 等待超过 poolMaximumWaitTime 仍拿不到连接，抛出异常
+     */
+    @Test(expected = SQLException.class)
+    public void waitTimeout() throws Exception {
+        dataSource.setPoolMaximumActiveConnections(1);
+        dataSource.setPoolMaximumWaitTime(200);
+        try (Connection connection = dataSource.getConnection()) {
+            dataSource.getConnection();
+        } finally {
+            dataSource.setPoolMaximumActiveConnections(10);
+            dataSource.setPoolMaximumWaitTime(20000);
+        }
+    }
+
+    /**
+     * 后台线程校验空闲连接，空闲过久的连接被移除，检出过程不做校验
+     */
+    @Test
+    public void maintenance() throws Exception {
+        dataSource.forceCloseAll();
+        dataSource.setPoolMaximumIdleTime(100);
+        dataSource.setPoolValidationInterval(50);
+        try {
+            Connection connection01 = dataSource.getConnection();
+            Connection connection02 = dataSource.getConnection();
+            connection01.close();
+            connection02.close();
+            Assert.assertEquals(2, dataSource.getTotalConnections());
+
+            Thread.sleep(500);
+            Assert.assertEquals(0, dataSource.getTotalConnections());
+        } finally {
+            dataSource.setPoolMaximumIdleTime(600000);
+            dataSource.setPoolValidationInterval(30000);
+        }
+    }
+
+    /**
+     * Connection#isValid 返回 false 的空闲连接由后台维护移除，计入 evictedCount；检出中的连接不做校验，归还之后才会被移除
+     */
+    @Test
+    public void evictInvalid() throws Exception {
+        ConcurrentPooledDataSource dataSource = new ConcurrentPooledDataSource();
+        dataSource.setDriver(InvalidatingDriver.class.getName());
+        dataSource.setUrl("jdbc:invalidating:h2:mem:testdb;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setPoolValidationInterval(50);
+        InvalidatingDriver.valid = true;
+        try {
+            Connection held = dataSource.getConnection();
+            dataSource.getConnection().close();
+            Assert.assertEquals(2, dataSource.getTotalConnections());
+            Assert.assertEquals(0, dataSource.getMetrics().getEvictedCount());
+
+            InvalidatingDriver.valid = false;
+            await(() -> dataSource.getMetrics().getEvictedCount() == 1, 5000);
+            Assert.assertEquals(1, dataSource.getTotalConnections());
+            Assert.assertFalse(held.isClosed());
+
+            held.close();
+            await(() -> dataSource.getMetrics().getEvictedCount() == 2, 5000);
+            PoolMetrics metrics = dataSource.getMetrics();
+            System.out.println("metrics = " + metrics);
+            Assert.assertEquals(0, metrics.getTotalConnections());
+            Assert.assertEquals(0, metrics.getIdleConnections());
+        } finally {
+            InvalidatingDriver.valid = true;
+            dataSource.close();
+        }
+    }
+
+    /**
+     * 最少空闲连接只统计空闲的连接：连接都被检出时，后台维护补足空闲连接；总数不超过活跃连接数上限
+     */
+    @Test
+    public void minimumIdle() throws Exception {
+        ConcurrentPooledDataSource dataSource = new ConcurrentPooledDataSource();
+        dataSource.setDriver("org.h2.Driver");
+        dataSource.setUrl("jdbc:h2:mem:testdb;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setPoolMaximumActiveConnections(3);
+        dataSource.setPoolMinimumIdleConnections(2);
+        dataSource.setPoolValidationInterval(50);
+        try {
+            dataSource.warmUp();
+            Assert.assertEquals(2, dataSource.getMetrics().getIdleConnections());
+
+            Connection connection01 = dataSource.getConnection();
+            Connection connection02 = dataSource.getConnection();
+            // 只补足到上限 3，而不是 2 + 2
+            await(() -> dataSource.getMetrics().getIdleConnections() == 1, 5000);
+            PoolMetrics metrics = dataSource.getMetrics();
+            System.out.println("metrics = " + metrics);
+            Assert.assertEquals(3, metrics.getTotalConnections());
+            connection01.close();
+            connection02.close();
+
+            // 最少空闲连接数超过上限，按上限计算
+            dataSource.setPoolMinimumIdleConnections(5);
+            dataSource.warmUp();
+            await(() -> dataSource.getTotalConnections() == 3, 5000);
+            Assert.assertEquals(3, dataSource.getMetrics().getIdleConnections());
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * 检出时新建连接与补足空闲连接同时进行，连接总数也不超过上限：
+     * 8 个连接检出中，预热正在建立 2 个空闲连接时，另外 2 个线程拿到最后的许可，等待这 2 个连接而不是各自再新建
+     */
+    @Test
+    public void creationRace() throws Exception {
+        ConcurrentPooledDataSource dataSource = new ConcurrentPooledDataSource();
+        dataSource.setDriver(SlowDriver.class.getName());
+        dataSource.setUrl("jdbc:slow:h2:mem:testdb;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setPoolMaximumActiveConnections(10);
+        dataSource.setPoolMinimumIdleConnections(2);
+        // 不由后台维护补足，只由下面的预热补足
+        dataSource.setPoolValidationInterval(600000);
+        List<Connection> connections = new CopyOnWriteArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                connections.add(dataSource.getConnection());
+            }
+            Thread warmUp = new Thread(dataSource::warmUp);
+            warmUp.start();
+            // 预热已经占位，正在建立连接
+            await(() -> SlowDriver.connecting.get() == 2, 5000);
+            List<Thread> borrowers = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                Thread borrower = new Thread(() -> {
+                    try {
+                        connections.add(dataSource.getConnection());
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                borrower.start();
+                borrowers.add(borrower);
+            }
+            warmUp.join();
+            for (Thread borrower : borrowers) {
+                borrower.join();
+            }
+            System.out.println("metrics = " + dataSource.getMetrics());
+            Assert.assertEquals(10, connections.size());
+            Assert.assertEquals(10, dataSource.getTotalConnections());
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+            dataSource.close();
+        }
+    }
+
+    /**
+     * 构建时预热最少空闲连接；并发检出时等待超过 poolTargetWaitTime 则扩容，空闲之后收缩
+     */
+    @Test
+    public void adaptiveSizing() throws Exception {
+        Reader reader = Resources.getResourceAsReader("mybatis-config-h2.xml");
+        SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader, "adaptive");
+        ConcurrentPooledDataSource dataSource = (ConcurrentPooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+        PoolSizingMetrics metrics = dataSource.getSizingMetrics();
+        System.out.println("after build: " + metrics);
+        Assert.assertEquals(4, metrics.getWarmedUpConnections());
+        Assert.assertEquals(4, metrics.getTotalConnections());
+        Assert.assertEquals(4, metrics.getCurrentLimit());
+
+        int threads = 16;
+        CountDownLatch endLatch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                try {
+                    for (int j = 0; j < 10; j++) {
+                        try (Connection connection = dataSource.getConnection()) {
+                            Thread.sleep(10);
+                        }
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    endLatch.countDown();
+                }
+            }).start();
+        }
+        endLatch.await();
+        metrics = dataSource.getSizingMetrics();
+        System.out.println("after burst: " + metrics);
+        Assert.assertTrue(metrics.getGrowCount() > 0);
+        Assert.assertTrue(metrics.getCurrentLimit() > 4);
+
+        Thread.sleep(1000);
+        metrics = dataSource.getSizingMetrics();
+        System.out.println("after idle: " + metrics);
+        Assert.assertTrue(metrics.getShrinkCount() > 0);
+        Assert.assertEquals(4, metrics.getCurrentLimit());
+        Assert.assertEquals(4, metrics.getTotalConnections());
+        dataSource.close();
+    }
+
+    /**
+     * 等待时间、持有时间直方图，以及泄漏检测：持有超过阈值时打印检出连接处的调用栈
+     */
+    @Test
+    public void metrics() throws Exception {
+        dataSource.setPoolLeakDetectionThreshold(100);
+        List<LoggingEvent> warnings = new CopyOnWriteArrayList<>();
+        AppenderSkeleton appender = new AppenderSkeleton() {
+            @Override
+            protected void append(LoggingEvent event) {
+                warnings.add(event);
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public boolean requiresLayout() {
+                return false;
+            }
+        };
+        Logger logger = Logger.getLogger(ConcurrentPooledDataSource.class);
+        logger.addAppender(appender);
+        try {
+            PoolMetrics before = dataSource.getMetrics();
+            try (Connection connection = checkOut()) {
+                Thread.sleep(300);
+            }
+            PoolMetrics metrics = dataSource.getMetrics();
+            System.out.println("metrics = " + metrics);
+            Assert.assertEquals(before.getLeakCount() + 1, metrics.getLeakCount());
+            Assert.assertEquals(before.getHoldTime().getCount() + 1, metrics.getHoldTime().getCount());
+            Assert.assertTrue(metrics.getHoldTime().getMax() >= 300_000);
+            Assert.assertEquals(0, metrics.getActiveConnections());
+
+            // 打印的是检出连接时的调用栈，而不是检测时持有线程正在执行的 Thread#sleep
+            LoggingEvent leak = warnings.stream().filter(event -> event.getThrowableInformation() != null).findFirst().orElse(null);
+            Assert.assertNotNull(leak);
+            StackTraceElement[] stackTrace = leak.getThrowableInformation().getThrowable().getStackTrace();
+            Assert.assertTrue(Arrays.stream(stackTrace).anyMatch(element -> element.getMethodName().equals("checkOut")));
+            Assert.assertTrue(Arrays.stream(stackTrace).noneMatch(element -> element.getMethodName().equals("sleep")));
+        } finally {
+            logger.removeAppender(appender);
+            dataSource.setPoolLeakDetectionThreshold(0);
+        }
+    }
+
+    private static Connection checkOut() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    /**
+     * 等待条件成立，超过 timeoutMillis 毫秒则失败
+     */
+    private static void await(BooleanSupplier condition, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                Assert.fail("Condition not met within " + timeoutMillis + "ms");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 建立连接需要 200ms 的驱动，jdbc:slow: 之后的部分交给 H2
+     */
+    public static class SlowDriver implements Driver {
+
+        static final AtomicInteger connecting = new AtomicInteger();
+
+        private final Driver delegate = new org.h2.Driver();
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            connecting.incrementAndGet();
+            try {
+                Thread.sleep(200);
+                return delegate.connect("jdbc:" + url.substring("jdbc:slow:".length()), info);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException(e);
+            } finally {
+                connecting.decrementAndGet();
+            }
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith("jdbc:slow:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+
+    /**
+     * 由 valid 决定 Connection#isValid 结果的驱动，jdbc:invalidating: 之后的部分交给 H2
+     */
+    public static class InvalidatingDriver extends SlowDriver {
+
+        static volatile boolean valid = true;
+
+        private final Driver delegate = new org.h2.Driver();
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            Connection connection = delegate.connect("jdbc:" + url.substring("jdbc:invalidating:".length()), info);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                if ("isValid".equals(method.getName())) {
+                    return valid;
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            });
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith("jdbc:invalidating:");
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.sumkor;
+
+import com.sumkor.datasource.ConcurrentPooledDataSource;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 连接池检出吞吐量对比：PooledDataSource 与 ConcurrentPooledDataSource
+ *
+ * 每个线程循环执行 getConnection、close，不执行 SQL，只衡量连接池本身的开销。
+ * 池大小固定为 16，线程数超过 16 时存在等待，此时 ConcurrentPooledDataSource 的吞吐量应当更高。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class PoolBenchmarkTest {
+
+    private static final int POOL_SIZE = 16;
+
+    private static final int[] THREADS = {1, 4, 16, 64, 128};
+
+    private static final long DURATION_MILLIS = 500;
+
+    @Test
+    public void checkoutThroughput() throws Exception {
+        PooledDataSource pooled = (PooledDataSource) getDataSource("pooled");
+        pooled.setPoolMaximumActiveConnections(POOL_SIZE);
+        pooled.setPoolMaximumIdleConnections(POOL_SIZE);
+        ConcurrentPooledDataSource concurrent = (ConcurrentPooledDataSource) getDataSource("development");
+        concurrent.setPoolMaximumActiveConnections(POOL_SIZE);
+
+        System.out.println(String.format("%8s %16s %16s", "threads", "POOLED ops/s", "CONCURRENT ops/s"));
+        for (int threads : THREADS) {
+            long pooledOps = run(pooled, threads);
+            long concurrentOps = run(concurrent, threads);
+            System.out.println(String.format("%8d %16d %16d", threads, pooledOps, concurrentOps));
+            Assert.assertTrue(concurrentOps > 0);
+            if (threads > POOL_SIZE) {
+                // 线程数超过池大小时，PooledDataSource 的每次交接都要 state.notifyAll 唤醒等待者
+                Assert.assertTrue(threads + " threads: " + concurrentOps + " vs " + pooledOps, concurrentOps > pooledOps);
+            }
+        }
+        pooled.forceCloseAll();
+        concurrent.forceCloseAll();
+    }
+
+    private static DataSource getDataSource(String environment) throws Exception {
+        Reader reader = Resources.getResourceAsReader("mybatis-config-h2.xml");
+        Configuration configuration = new SqlSessionFactoryBuilder().build(reader, environment).getConfiguration();
+        return configuration.getEnvironment().getDataSource();
+    }
+
+    /**
+     * @return 每秒检出次数
+     */
+    private static long run(DataSource dataSource, int threads) throws Exception {
+        // 预热，避免把建立连接的时间算进去
+        for (int i = 0; i < POOL_SIZE; i++) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.getAutoCommit();
+            }
+        }
+        LongAdder ops = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch endLatch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                try {
+                    startLatch.await();
+                    while (running.get()) {
+                        try (Connection connection = dataSource.getConnection()) {
+                            ops.increment();
+                        }
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    endLatch.countDown();
+                }
+            }).start();
+        }
+        long start = System.nanoTime();
+        startLatch.countDown();
+        Thread.sleep(DURATION_MILLIS);
+        running.set(false);
+        endLatch.await();
+        long elapsedNanos = System.nanoTime() - start;
+        return ops.sum() * 1_000_000_000L / elapsedNanos;
+    }
+}
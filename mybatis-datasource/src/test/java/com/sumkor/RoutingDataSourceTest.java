@@ -0,0 +1,121 @@
+package com.sumkor;
+
+import com.sumkor.datasource.routing.RoutingDataSource;
+import com.sumkor.datasource.routing.RoutingSqlSessionFactoryBuilder;
+import com.sumkor.entity.Student;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 读写分离：对比 {@link MultiDataSourceTest}，只需要一个 SqlSessionFactory
+ * @see com.sumkor.datasource.routing.RoutingSqlSessionFactoryBuilder
+ *
+ * 三个 H2 内存数据库模拟一主两从，初始化之后把每个库中 id = 1 的学生改成库名，用于区分查询走了哪个库。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class RoutingDataSourceTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Map<String, Integer> replicas = new LinkedHashMap<>();
+        replicas.put("replica1", 1);
+        replicas.put("replica2", 3);
+        Reader reader = Resources.getResourceAsReader("mybatis-config-routing.xml");
+        sqlSessionFactory = new RoutingSqlSessionFactoryBuilder().build(reader, "primary", replicas, new Properties());
+
+        RoutingDataSource routingDataSource = (RoutingDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+        Resources.setCharset(StandardCharsets.UTF_8);
+        initDatabase(routingDataSource.getPrimary());
+        // 从库的数据源不对外暴露，按权重随机选择，多选几次直到两个从库都初始化
+        Set<DataSource> replicaDataSources = new HashSet<>();
+        while (replicaDataSources.size() < replicas.size()) {
+            DataSource replica = routingDataSource.selectReplica();
+            if (replicaDataSources.add(replica)) {
+                initDatabase(replica);
+            }
+        }
+    }
+
+    private static void initDatabase(DataSource dataSource) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptRunner scriptRunner = new ScriptRunner(connection);
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+            try (Statement statement = connection.createStatement()) {
+                String database = connection.getMetaData().getURL().replaceAll("jdbc:h2:mem:(\\w+).*", "$1");
+                statement.executeUpdate("update student set name = '" + database + "' where id = 1");
+            }
+            // ScriptRunner 关闭了自动提交
+            connection.commit();
+        }
+    }
+
+    /**
+     * 查询走从库
+     */
+    @Test
+    public void read() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Student student = sqlSession.selectOne("selectByPrimaryKey", 1);
+            System.out.println("student = " + student);
+            Assert.assertTrue(student.getName().startsWith("replica"));
+        }
+    }
+
+    /**
+     * 写操作走主库，之后同一会话中的查询也走主库，能读到本事务未提交的修改
+     */
+    @Test
+    public void stickyPrimary() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Student student = sqlSession.selectOne("selectByPrimaryKey", 2);
+            student.setName("written");
+            sqlSession.update("updateByPrimaryKey", student);
+            sqlSession.clearCache();
+            Student written = sqlSession.selectOne("selectByPrimaryKey", 2);
+            Assert.assertEquals("written", written.getName());
+            Student primary = sqlSession.selectOne("selectByPrimaryKey", 1);
+            Assert.assertEquals("primary", primary.getName());
+            sqlSession.rollback();
+        }
+    }
+
+    /**
+     * 按权重 1:3 选择从库
+     */
+    @Test
+    public void weighted() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 400; i++) {
+            try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+                Student student = sqlSession.selectOne("selectByPrimaryKey", 1);
+                counts.merge(student.getName(), 1, Integer::sum);
+            }
+        }
+        System.out.println("counts = " + counts);
+        Assert.assertNull(counts.get("primary"));
+        Assert.assertTrue(counts.get("replica2") > counts.get("replica1"));
+    }
+}
@@ -0,0 +1,167 @@
+package com.sumkor;
+
+import com.sumkor.datasource.DataSourceElements;
+import com.sumkor.datasource.registry.EnvironmentSqlSessionFactory;
+import com.sumkor.datasource.registry.SqlSessionFactoryRegistry;
+import com.sumkor.entity.Student;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.parsing.XPathParser;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 对比 {@link MultiDataSourceTest}：同一个配置文件只解析一次，定义相同的数据源共用一个连接池
+ * @see com.sumkor.datasource.registry.SqlSessionFactoryRegistry
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class SqlSessionFactoryRegistryTest {
+
+    private static final String RESOURCE = "mybatis-config-tenant.xml";
+
+    private final SqlSessionFactoryRegistry registry = new SqlSessionFactoryRegistry();
+
+    @After
+    public void close() {
+        registry.close();
+    }
+
+    /**
+     * development、test 两个 environment 的定义相同，共用一个连接池
+     */
+    @Test
+    public void sameDefinition() {
+        SqlSessionFactory development = registry.getSqlSessionFactory(RESOURCE);
+        SqlSessionFactory test = registry.getSqlSessionFactory(RESOURCE, "test");
+        SqlSessionFactory tenantA = registry.getSqlSessionFactory(RESOURCE, null, tenant("tenant_a"));
+
+        Assert.assertSame(development.getConfiguration(), test.getConfiguration());
+        Assert.assertSame(dataSourceOf(development), dataSourceOf(test));
+        // 显式传入与默认值相同的变量，得到的是同一个工厂
+        Assert.assertSame(development, tenantA);
+        Assert.assertEquals(1, registry.getDataSourceCount());
+    }
+
+    /**
+     * 不同租户使用各自的连接池；StudentMapper.xml 中配置了 <cache/>，二级缓存不能共用，因此各自有一份 Configuration
+     */
+    @Test
+    public void tenants() throws Exception {
+        SqlSessionFactory tenantA = registry.getSqlSessionFactory(RESOURCE, null, tenant("tenant_a"));
+        SqlSessionFactory tenantB = registry.getSqlSessionFactory(RESOURCE, null, tenant("tenant_b"));
+        Assert.assertNotSame(tenantA.getConfiguration(), tenantB.getConfiguration());
+        Assert.assertSame(tenantA.getConfiguration(), registry.getSqlSessionFactory(RESOURCE, "test", tenant("tenant_a")).getConfiguration());
+        Assert.assertNotSame(dataSourceOf(tenantA), dataSourceOf(tenantB));
+        Assert.assertEquals(2, registry.getDataSourceCount());
+
+        initDatabase(tenantA);
+        initDatabase(tenantB);
+        try (SqlSession sqlSession = tenantB.openSession()) {
+            Student student = sqlSession.selectOne("selectByPrimaryKey", 1);
+            student.setName("tenant_b");
+            sqlSession.update("updateByPrimaryKey", student);
+            sqlSession.commit();
+        }
+        try (SqlSession sessionA = tenantA.openSession(); SqlSession sessionB = tenantB.openSession()) {
+            Student studentA = sessionA.selectOne("selectByPrimaryKey", 1);
+            Student studentB = sessionB.selectOne("selectByPrimaryKey", 1);
+            System.out.println("studentA = " + studentA + ", studentB = " + studentB);
+            Assert.assertNotEquals("tenant_b", studentA.getName());
+            Assert.assertEquals("tenant_b", studentB.getName());
+        }
+    }
+
+    /**
+     * 租户 B 提交之后写入二级缓存的查询结果，租户 A 不会读到
+     */
+    @Test
+    public void cachedReadIsolation() throws Exception {
+        SqlSessionFactory tenantA = registry.getSqlSessionFactory(RESOURCE, null, tenant("tenant_a"));
+        SqlSessionFactory tenantB = registry.getSqlSessionFactory(RESOURCE, null, tenant("tenant_b"));
+        initDatabase(tenantA);
+        initDatabase(tenantB);
+        try (SqlSession sqlSession = tenantB.openSession()) {
+            Student student = sqlSession.selectOne("selectByPrimaryKey", 1);
+            student.setName("ONLY_IN_B");
+            sqlSession.update("updateByPrimaryKey", student);
+            sqlSession.commit();
+            List<Student> students = sqlSession.selectList("selectAll");
+            Assert.assertEquals("ONLY_IN_B", students.get(0).getName());
+            sqlSession.commit();
+        }
+        try (SqlSession sqlSession = tenantA.openSession()) {
+            List<Student> students = sqlSession.selectList("selectAll");
+            System.out.println("tenant_a students = " + students);
+            Assert.assertEquals("小明", students.get(0).getName());
+        }
+    }
+
+    /**
+     * 其他配置文件已经创建了相同定义的连接池，为二级缓存重新解析 Configuration 时直接使用该连接池，不再另外创建
+     */
+    @Test
+    public void sharedAcrossResources() {
+        SqlSessionFactory tenantA = registry.getSqlSessionFactory(RESOURCE);
+        SqlSessionFactory pooled = registry.getSqlSessionFactory("mybatis-config-h2.xml", "pooled");
+        SqlSessionFactory testdb = registry.getSqlSessionFactory(RESOURCE, null, tenant("testdb"));
+
+        Assert.assertNotSame(tenantA.getConfiguration(), testdb.getConfiguration());
+        Assert.assertSame(dataSourceOf(pooled), dataSourceOf(testdb));
+        Assert.assertSame(dataSourceOf(testdb), testdb.getConfiguration().getEnvironment().getDataSource());
+        Assert.assertEquals(2, registry.getDataSourceCount());
+    }
+
+    /**
+     * 数据源的唯一标识中不包含密码原文
+     */
+    @Test
+    public void identityWithoutPassword() {
+        Configuration configuration = new Configuration();
+        String identity = DataSourceElements.identityOf(configuration, dataSourceNode("secret"));
+        System.out.println("\r\n identity = " + identity + "\r\n");
+        Assert.assertFalse(identity.contains("secret"));
+        Assert.assertEquals(identity, DataSourceElements.identityOf(configuration, dataSourceNode("secret")));
+        Assert.assertNotEquals(identity, DataSourceElements.identityOf(configuration, dataSourceNode("other")));
+    }
+
+    private static XNode dataSourceNode(String password) {
+        String xml = "<dataSource type=\"POOLED\">"
+                + "<property name=\"url\" value=\"jdbc:h2:mem:testdb\"/>"
+                + "<property name=\"username\" value=\"sa\"/>"
+                + "<property name=\"password\" value=\"" + password + "\"/>"
+                + "</dataSource>";
+        return new XPathParser(xml).evalNode("/dataSource");
+    }
+
+    private static Properties tenant(String tenant) {
+        Properties properties = new Properties();
+        properties.setProperty("tenant", tenant);
+        return properties;
+    }
+
+    private static DataSource dataSourceOf(SqlSessionFactory sqlSessionFactory) {
+        return ((EnvironmentSqlSessionFactory) sqlSessionFactory).getEnvironment().getDataSource();
+    }
+
+    private static void initDatabase(SqlSessionFactory sqlSessionFactory) throws Exception {
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+}
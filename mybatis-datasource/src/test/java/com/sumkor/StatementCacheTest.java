@@ -0,0 +1,201 @@
+package com.sumkor;
+
+import com.sumkor.datasource.ConcurrentPooledDataSource;
+import com.sumkor.datasource.PoolMetrics;
+import com.sumkor.entity.Student;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * 连接级别的 PreparedStatement 缓存，跨会话复用
+ * @see com.sumkor.datasource.StatementCache
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class StatementCacheTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private static ConcurrentPooledDataSource dataSource;
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Reader reader = Resources.getResourceAsReader("mybatis-config-h2.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        dataSource = (ConcurrentPooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    @Before
+    public void reset() {
+        // 修改缓存大小会关闭所有连接，每个用例从空缓存开始
+        dataSource.setPoolPreparedStatementCacheSize(2);
+    }
+
+    /**
+     * 同一个线程先后开启的会话使用同一个真实连接，第二次查询直接复用缓存的语句
+     */
+    @Test
+    public void acrossSessions() {
+        PoolMetrics before = dataSource.getMetrics();
+        for (int i = 1; i <= 3; i++) {
+            try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+                Student student = sqlSession.selectOne("selectByPrimaryKey", i);
+                System.out.println("student = " + student);
+            }
+        }
+        PoolMetrics after = dataSource.getMetrics();
+        System.out.println("metrics = " + after);
+        Assert.assertEquals(1, after.getStatementCacheMisses() - before.getStatementCacheMisses());
+        Assert.assertEquals(2, after.getStatementCacheHits() - before.getStatementCacheHits());
+    }
+
+    /**
+     * 超过上限时淘汰最久未使用的语句
+     */
+    @Test
+    public void lru() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            PoolMetrics before = dataSource.getMetrics();
+            prepare(connection, "select 1");
+            prepare(connection, "select 2");
+            prepare(connection, "select 1");
+            // 淘汰 select 2
+            prepare(connection, "select 3");
+            prepare(connection, "select 1");
+            prepare(connection, "select 2");
+            PoolMetrics after = dataSource.getMetrics();
+            Assert.assertEquals(2, after.getStatementCacheHits() - before.getStatementCacheHits());
+            Assert.assertEquals(4, after.getStatementCacheMisses() - before.getStatementCacheMisses());
+        }
+    }
+
+    /**
+     * 同一条 SQL 的语句正在使用时，新建一个不缓存的语句；关闭后的代理不能再使用
+     */
+    @Test
+    public void inUse() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement first = connection.prepareStatement("select ?");
+            PreparedStatement second = connection.prepareStatement("select ?");
+            Assert.assertNotSame(first, second);
+            first.setInt(1, 1);
+            second.setInt(1, 2);
+            Assert.assertTrue(first.execute());
+            Assert.assertTrue(second.execute());
+            second.close();
+            first.close();
+            Assert.assertTrue(first.isClosed());
+            try {
+                first.execute();
+                Assert.fail();
+            } catch (SQLException e) {
+                System.out.println("e = " + e.getMessage());
+            }
+            // 归还时已清空参数
+            try (PreparedStatement third = connection.prepareStatement("select ?")) {
+                third.setInt(1, 3);
+                Assert.assertTrue(third.execute());
+            }
+        }
+    }
+
+    /**
+     * 回滚时 BatchExecutor 关闭语句而不执行，归还时清空已加入的批量语句，不会在下一个事务中重放
+     */
+    @Test
+    public void rollbackBatch() throws SQLException {
+        int before = count();
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            sqlSession.insert("insert", student("rolled back"));
+            sqlSession.rollback();
+        }
+        PoolMetrics metrics = dataSource.getMetrics();
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            sqlSession.insert("insert", student("committed"));
+            List<BatchResult> results = sqlSession.flushStatements();
+            sqlSession.commit();
+            Assert.assertEquals(1, results.get(0).getUpdateCounts().length);
+            Assert.assertEquals(1, results.get(0).getUpdateCounts()[0]);
+        }
+        // 第二个会话复用了同一个语句
+        Assert.assertEquals(1, dataSource.getMetrics().getStatementCacheHits() - metrics.getStatementCacheHits());
+        Assert.assertEquals(before + 1, count());
+    }
+
+    /**
+     * 归还时恢复 fetchSize、queryTimeout、maxRows，不影响下一次使用同一条 SQL 的调用方
+     */
+    @Test
+    public void resetSettings() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            int fetchSize;
+            int queryTimeout;
+            int maxRows;
+            try (PreparedStatement statement = connection.prepareStatement("select id from student")) {
+                fetchSize = statement.getFetchSize();
+                queryTimeout = statement.getQueryTimeout();
+                maxRows = statement.getMaxRows();
+                statement.setMaxRows(1);
+                statement.setFetchSize(1);
+                statement.setQueryTimeout(3);
+                statement.execute();
+            }
+            PoolMetrics metrics = dataSource.getMetrics();
+            try (PreparedStatement statement = connection.prepareStatement("select id from student")) {
+                Assert.assertEquals(1, dataSource.getMetrics().getStatementCacheHits() - metrics.getStatementCacheHits());
+                Assert.assertEquals(fetchSize, statement.getFetchSize());
+                Assert.assertEquals(queryTimeout, statement.getQueryTimeout());
+                Assert.assertEquals(maxRows, statement.getMaxRows());
+            }
+        }
+    }
+
+    private static int count() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select count(*) from student");
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private static Student student(String name) {
+        Student student = new Student();
+        student.setName(name);
+        student.setSex((byte) 1);
+        student.setLocked((byte) 0);
+        return student;
+    }
+
+    private static void prepare(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.execute();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.sumkor.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记 Mapper 方法使用所在 namespace 的二级缓存
+ *
+ * 由 @Select 等注解指定 SQL 的方法，不会使用 xml 文件中 <cache/> 配置的二级缓存，
+ * 标注该注解之后，可以将其绑定到同一个 namespace 的缓存上，并为该方法单独指定过期时间、缓存条数。
+ *
+ * 注解本身不会生效，需要由 mybatis-cache 模块中的 AnnotationCacheBinder 来处理
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CacheHint {
+
+    /**
+     * 过期时间，单位毫秒，小于等于 0 表示不单独设置过期时间，只受 <cache flushInterval=""/> 控制
+     */
+    long ttl() default 0;
+
+    /**
+     * 该方法最多缓存的条数，小于等于 0 表示不单独限制，只受 <cache size=""/> 控制
+     */
+    int size() default 0;
+}
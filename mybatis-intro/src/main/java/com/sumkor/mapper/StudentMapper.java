@@ -1,5 +1,6 @@
 package com.sumkor.mapper;
 
+import com.sumkor.annotation.CacheHint;
 import com.sumkor.entity.Student;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -22,10 +23,17 @@ public interface StudentMapper {
     /**
      * 根据 id 查询
      * 由注解指定 SQL，因此 xml 文件中的二级缓存 <cache/> 配置，对该 SQL 无效
+     * 如需使用二级缓存，见 {@link CacheHint}
      */
+    @CacheHint(ttl = 30000, size = 256)
     @Select("SELECT * FROM student WHERE id = #{id}")
     Student selectByPrimaryKey(int id);
 
+    /**
+     * 根据 id 批量查询，返回的顺序与 ids 无关，不存在的 id 没有对应的结果
+     */
+    List<Student> selectByPrimaryKeys(List<Integer> ids);
+
     /**
      * 根据名字查询，配置了 flushCache = true
      */
@@ -47,8 +55,18 @@ public interface StudentMapper {
      */
     List<Student> selectBetweenCreatedTimeParam(@Param("bTime") Date bTime, @Param("eTime") Date eTime);
 
+    /**
+     * 获取一段时间内的用户，排序方式由 SortUtil 指定
+     */
+    List<Student> selectBetweenCreatedTimeSorted(Map<String, Object> params);
+
     /**
      * 插入，id 自增
      */
     int insert(Student student);
+
+    /**
+     * 插入，id 由应用指定
+     */
+    int insertWithId(Student student);
 }
\ No newline at end of file
@@ -7,3 +7,8 @@ values (1, '小明', '13821378270', 'xiaoming@mybatis.cn', 1, 0, '2018-08-29 18:
        (4, '小花', '13821378273', 'xiaohua@mybatis.cn', 0, 0, '2018-09-01 18:27:42', '2018-10-08 20:55:12', NULL),
        (5, '小强', '13821378274', 'xiaoqiang@mybatis.cn', 1, 0, '2018-09-02 18:27:42', '2018-10-08 20:55:18', NULL),
        (6, '小红', '13821378275', 'xiaohong@mybatis.cn', 0, 0, '2018-09-03 18:27:42', '2018-10-08 20:55:27', NULL);
+
+/*Data for the table `id_sequence` */
+
+insert into `id_sequence`(`name`, `next_val`)
+values ('student', 7);
@@ -13,4 +13,14 @@ CREATE TABLE `student` (
                            `gmt_modified` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '修改时间',
                            `delete` int(11) DEFAULT NULL,
                            PRIMARY KEY (`id`)
-) ENGINE=InnoDB AUTO_INCREMENT=7 DEFAULT CHARSET=utf8mb4 COMMENT='学生表';
\ No newline at end of file
+) ENGINE=InnoDB AUTO_INCREMENT=7 DEFAULT CHARSET=utf8mb4 COMMENT='学生表';
+
+/*Table structure for table `id_sequence` */
+
+DROP TABLE IF EXISTS `id_sequence`;
+
+CREATE TABLE `id_sequence` (
+                           `name` varchar(50) NOT NULL COMMENT '序列名',
+                           `next_val` bigint(20) NOT NULL COMMENT '下一个未分配的值',
+                           PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='hi/lo 主键号段表';
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.sumkor.plugin;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.SystemMetaObject;
+
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * 插件中复制 MappedStatement、BoundSql 的工具类
+ *
+ * MappedStatement 是全局共享的，插件不能直接修改其中的 SqlSource，而应该复制一个新的 MappedStatement 传给后续的调用。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class MappedStatements {
+
+    /**
+     * 使用新的 SqlSource，旧的 MappedStatement 对象，来构造新的 MappedStatement 对象
+     */
+    public static MappedStatement copy(MappedStatement ms, SqlSource sqlSource) {
+        MappedStatement.Builder builder = new MappedStatement.Builder(ms.getConfiguration(), ms.getId(),
+                sqlSource, ms.getSqlCommandType());
+        builder.keyColumn(delimitedArrayToString(ms.getKeyColumns()));
+        builder.keyGenerator(ms.getKeyGenerator());
+        builder.keyProperty(delimitedArrayToString(ms.getKeyProperties()));
+        builder.lang(ms.getLang());
+        builder.resource(ms.getResource());
+        builder.parameterMap(ms.getParameterMap());
+        builder.resultMaps(ms.getResultMaps());
+        builder.resultOrdered(ms.isResultOrdered());
+        builder.resultSets(delimitedArrayToString(ms.getResultSets()));
+        builder.resultSetType(ms.getResultSetType());
+        builder.timeout(ms.getTimeout());
+        builder.statementType(ms.getStatementType());
+        builder.useCache(ms.isUseCache());
+        builder.cache(ms.getCache());
+        builder.databaseId(ms.getDatabaseId());
+        builder.fetchSize(ms.getFetchSize());
+        builder.flushCacheRequired(ms.isFlushCacheRequired());
+        return builder.build();
+    }
+
+    /**
+     * 使用新的 SQL 字符串复制 BoundSql
+     *
+     * 动态 SQL 中 <foreach>、<bind> 生成的参数保存在 additionalParameters 中，也需要复制，否则参数绑定时找不到
+     * @see org.apache.ibatis.scripting.xmltags.DynamicSqlSource#getBoundSql(java.lang.Object)
+     */
+    public static BoundSql copy(BoundSql boundSql, String sql, MappedStatement ms) {
+        BoundSql newBoundSql = new BoundSql(ms.getConfiguration(), sql, boundSql.getParameterMappings(), boundSql.getParameterObject());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> additionalParameters = (Map<String, Object>) SystemMetaObject.forObject(boundSql).getValue("additionalParameters");
+        for (Map.Entry<String, Object> entry : additionalParameters.entrySet()) {
+            newBoundSql.setAdditionalParameter(entry.getKey(), entry.getValue());
+        }
+        return newBoundSql;
+    }
+
+    public static String delimitedArrayToString(String[] array) {
+        if (array == null || array.length == 0) {
+            return "";
+        }
+        StringJoiner stringJoiner = new StringJoiner(",");
+        for (String str : array) {
+            stringJoiner.add(str);
+        }
+        return stringJoiner.toString();
+    }
+}
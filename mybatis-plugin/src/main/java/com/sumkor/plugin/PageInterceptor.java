@@ -14,7 +14,6 @@ import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 
 import java.util.Properties;
-import java.util.StringJoiner;
 
 /**
  * 拦截 Executor#query 方法
@@ -90,7 +89,7 @@ public class PageInterceptor implements Interceptor {
                 BoundSql newBoundSql = new BoundSql(ms.getConfiguration(), pagingSql, boundSql.getParameterMappings(), boundSql.getParameterObject());
 
                 // 构造新的 MappedStatement，该对象表示 XML 中的 SQL 信息
-                MappedStatement mappedStatement = newMappedStatement(ms, newBoundSql);
+                MappedStatement mappedStatement = MappedStatements.copy(ms, new BoundSqlSqlSource(newBoundSql));
 
                 // 重置 MappedStatement、RowBound
                 queryArgs[MAPPED_STATEMENT_INDEX] = mappedStatement;
@@ -125,32 +124,6 @@ public class PageInterceptor implements Interceptor {
 
     }
 
-    /**
-     * 使用新的 BoundSql 对象，旧的 MappedStatement 对象，来构造新的 MappedStatement 对象
-     */
-    private MappedStatement newMappedStatement(MappedStatement ms, BoundSql newBoundSql) {
-        MappedStatement.Builder builder = new MappedStatement.Builder(ms.getConfiguration(), ms.getId(),
-                new BoundSqlSqlSource(newBoundSql), ms.getSqlCommandType());
-        builder.keyColumn(delimitedArrayToString(ms.getKeyColumns()));
-        builder.keyGenerator(ms.getKeyGenerator());
-        builder.keyProperty(delimitedArrayToString(ms.getKeyProperties()));
-        builder.lang(ms.getLang());
-        builder.resource(ms.getResource());
-        builder.parameterMap(ms.getParameterMap());
-        builder.resultMaps(ms.getResultMaps());
-        builder.resultOrdered(ms.isResultOrdered());
-        builder.resultSets(delimitedArrayToString(ms.getResultSets()));
-        builder.resultSetType(ms.getResultSetType());
-        builder.timeout(ms.getTimeout());
-        builder.statementType(ms.getStatementType());
-        builder.useCache(ms.isUseCache());
-        builder.cache(ms.getCache());
-        builder.databaseId(ms.getDatabaseId());
-        builder.fetchSize(ms.getFetchSize());
-        builder.flushCacheRequired(ms.isFlushCacheRequired());
-        return builder.build();
-    }
-
     /**
      * 构造新的 sql： select xxx from xxx where yyy limit offset,limit
      */
@@ -165,15 +138,4 @@ public class PageInterceptor implements Interceptor {
         }
         return result.toString();
     }
-
-    public String delimitedArrayToString(String[] array) {
-        if (array == null || array.length == 0) {
-            return "";
-        }
-        StringJoiner stringJoiner = new StringJoiner(",");
-        for (String str : array) {
-            stringJoiner.add(str);
-        }
-        return stringJoiner.toString();
-    }
 }
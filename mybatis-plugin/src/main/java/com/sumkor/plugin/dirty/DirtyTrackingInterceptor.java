@@ -0,0 +1,199 @@
+package com.sumkor.plugin.dirty;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 脏字段更新：按主键更新时只 SET 修改过的列
+ *
+ * updateByPrimaryKey 每次都会更新全部字段，哪怕只改了一个 locked。
+ * 这里的做法：
+ * 1. 查询得到的实体（resultMap 中声明了唯一 <id/> 的类型），保存一份属性值的快照；
+ * 2. 执行指定的按主键更新语句时，与快照比较得到修改过的属性，替换为只更新这些列的 MappedStatement，见 {@link PartialUpdate}；
+ * 3. 没有任何修改时不访问数据库，返回 1：实体按主键查询得到，视为命中一行且值与数据库一致，
+ *    与执行原语句时 MySQL useAffectedRows=false（默认）、H2 返回的匹配行数相同，调用方按影响行数判断成功与否不受影响。
+ *    代价是该行在查询之后被其他事务删除时，这里仍返回 1；
+ * 4. 事务提交之后，用写入时的属性值刷新快照；回滚时删除快照，之后该实体的更新退回全字段更新。
+ *
+ * 不是查询得到的实体（例如 new 出来的对象）没有快照，按原语句更新全部字段。
+ * 注意快照比较的是属性值，Date 这类可变对象如果被原地修改（而不是 set 新对象），无法识别为修改过。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "close", args = {boolean.class})
+})
+public class DirtyTrackingInterceptor implements Interceptor {
+
+    private final Set<String> statementIds;
+
+    private final Snapshots snapshots = new Snapshots();
+
+    /**
+     * 实体类型 -> 跟踪信息，在第一次执行 SQL 时解析
+     */
+    private volatile Map<Class<?>, TrackedType> trackedTypes;
+
+    /**
+     * 语句 id -> 部分更新
+     */
+    private volatile Map<String, PartialUpdate> partialUpdates;
+
+    /**
+     * 每个执行器（即每个会话）在当前事务中更新过的实体，实体与写入时的属性值交替存放
+     */
+    private final Map<Executor, List<Object>> pendingMap = new ConcurrentHashMap<>();
+
+    /**
+     * @param statementIds 按主键更新全部字段的语句，例如 com.sumkor.mapper.StudentMapper.updateByPrimaryKey
+     */
+    public DirtyTrackingInterceptor(String... statementIds) {
+        this.statementIds = new HashSet<>(Arrays.asList(statementIds));
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Executor executor = (Executor) invocation.getTarget();
+        Object[] args = invocation.getArgs();
+        switch (invocation.getMethod().getName()) {
+            case "query":
+                resolve(((MappedStatement) args[0]).getConfiguration());
+                Object result = invocation.proceed();
+                track((List<?>) result);
+                return result;
+            case "update":
+                MappedStatement ms = (MappedStatement) args[0];
+                resolve(ms.getConfiguration());
+                PartialUpdate partialUpdate = partialUpdates.get(ms.getId());
+                Object[] snapshot = partialUpdate == null || args[1] == null ? null : snapshot(executor, args[1]);
+                if (snapshot == null || partialUpdate.getTrackedType().getType() != args[1].getClass()) {
+                    return invocation.proceed();
+                }
+                Object[] current = partialUpdate.getTrackedType().snapshot(args[1]);
+                long mask = partialUpdate.dirtyMask(snapshot, current);
+                if (mask == 0) {
+                    // 没有修改的列，不访问数据库，按匹配到一行返回
+                    return 1;
+                }
+                args[0] = partialUpdate.statement(mask);
+                // 记录写入时的属性值，而不是提交时的，提交之前对实体的修改还没有写入数据库
+                List<Object> written = pendingMap.computeIfAbsent(executor, k -> new ArrayList<>());
+                written.add(args[1]);
+                written.add(current);
+                return invocation.proceed();
+            case "commit":
+                Object committed = invocation.proceed();
+                List<Object> pending = pendingMap.remove(executor);
+                if (pending != null) {
+                    for (int i = 0; i < pending.size(); i += 2) {
+                        snapshots.put(pending.get(i), (Object[]) pending.get(i + 1));
+                    }
+                }
+                return committed;
+            default:
+                // rollback、close：未提交的修改被丢弃，数据库中的值未知，不再使用该实体的快照
+                try {
+                    return invocation.proceed();
+                } finally {
+                    List<Object> discarded = pendingMap.remove(executor);
+                    if (discarded != null) {
+                        for (int i = 0; i < discarded.size(); i += 2) {
+                            snapshots.remove(discarded.get(i));
+                        }
+                    }
+                }
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    /**
+     * 本事务中已经写入过的实体，与写入时的属性值比较，否则与快照比较
+     */
+    private Object[] snapshot(Executor executor, Object entity) {
+        List<Object> pending = pendingMap.get(executor);
+        if (pending != null) {
+            for (int i = pending.size() - 2; i >= 0; i -= 2) {
+                if (pending.get(i) == entity) {
+                    return (Object[]) pending.get(i + 1);
+                }
+            }
+        }
+        return snapshots.get(entity);
+    }
+
+    private void track(List<?> list) {
+        if (list == null || trackedTypes.isEmpty()) {
+            return;
+        }
+        for (Object entity : list) {
+            TrackedType trackedType = entity == null ? null : trackedTypes.get(entity.getClass());
+            if (trackedType != null) {
+                // 已经跟踪的实体（例如从一级、二级缓存中取出）保留原来的快照
+                snapshots.putIfAbsent(entity, trackedType.snapshot(entity));
+            }
+        }
+    }
+
+    /**
+     * 解析指定的更新语句，以及它们的参数类型
+     */
+    private void resolve(Configuration configuration) {
+        if (partialUpdates != null) {
+            return;
+        }
+        synchronized (this) {
+            if (partialUpdates != null) {
+                return;
+            }
+            Map<Class<?>, TrackedType> types = new HashMap<>();
+            Map<String, PartialUpdate> updates = new HashMap<>();
+            for (String statementId : statementIds) {
+                MappedStatement ms = configuration.getMappedStatement(statementId);
+                Class<?> type = ms.getParameterMap().getType();
+                TrackedType trackedType = types.containsKey(type) ? types.get(type) : TrackedType.resolve(configuration, type);
+                PartialUpdate partialUpdate = PartialUpdate.resolve(ms, trackedType);
+                if (partialUpdate == null) {
+                    throw new ExecutorException("Statement " + statementId + " is not a static update by primary key of an entity with a unique <id/>");
+                }
+                types.put(type, trackedType);
+                updates.put(statementId, partialUpdate);
+            }
+            trackedTypes = types;
+            partialUpdates = updates;
+        }
+    }
+
+    /**
+     * 当前跟踪的实体数
+     */
+    public int getTrackedCount() {
+        return snapshots.size();
+    }
+}
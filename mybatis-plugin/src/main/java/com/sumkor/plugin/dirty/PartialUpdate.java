@@ -0,0 +1,159 @@
+package com.sumkor.plugin.dirty;
+
+import com.sumkor.plugin.MappedStatements;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 按主键更新的语句，例如 updateByPrimaryKey，按修改过的属性生成只更新这些列的 MappedStatement
+ *
+ * 原语句必须是静态 SQL：update 表名 set 列 = #{属性}, ... where 主键列 = #{主键属性}，
+ * SET 中的每一项都只能是 列 = #{属性}，属性和列都要与实体的 resultMap 一致；WHERE 中只能有主键条件。
+ * 生成的 SQL 中，参数的 jdbcType、TypeHandler 取自 resultMap，而不是原语句中写的 jdbcType。
+ *
+ * 修改过的属性用位掩码表示，每种掩码只生成一次 MappedStatement，同一组属性每次执行的 SQL 文本完全一致。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+class PartialUpdate {
+
+    private static final Pattern UPDATE = Pattern.compile("\\s*update\\s+(\\S+)\\s+set\\s+(.+?)\\s+where\\s+(.+?)\\s*",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final Pattern ASSIGNMENT = Pattern.compile("\\s*(\\S+?)\\s*=\\s*\\?\\s*");
+
+    private final MappedStatement ms;
+
+    private final TrackedType trackedType;
+
+    private final String table;
+
+    /**
+     * 原语句 SET 中的属性在快照中的位置
+     */
+    private final int[] indexes;
+
+    /**
+     * 修改过的属性的位掩码 -> 只更新这些列的 MappedStatement
+     */
+    private final Map<Long, MappedStatement> statements = new ConcurrentHashMap<>();
+
+    private PartialUpdate(MappedStatement ms, TrackedType trackedType, String table, int[] indexes) {
+        this.ms = ms;
+        this.trackedType = trackedType;
+        this.table = table;
+        this.indexes = indexes;
+    }
+
+    /**
+     * 不满足条件的语句返回 null
+     */
+    static PartialUpdate resolve(MappedStatement ms, TrackedType trackedType) {
+        SqlSource sqlSource = ms.getSqlSource();
+        if (trackedType == null || !(sqlSource instanceof RawSqlSource || sqlSource instanceof StaticSqlSource)) {
+            return null;
+        }
+        BoundSql boundSql = sqlSource.getBoundSql(null);
+        Matcher matcher = UPDATE.matcher(boundSql.getSql());
+        if (!matcher.matches()) {
+            return null;
+        }
+        // 每个 ? 对应一个 ParameterMapping：先是 SET 中的各项，最后是 WHERE 中的主键
+        String[] assignments = matcher.group(2).split(",");
+        List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+        if (parameterMappings.size() != assignments.length + 1 || assignments.length > Long.SIZE - 1) {
+            return null;
+        }
+        int[] indexes = new int[assignments.length];
+        for (int i = 0; i < assignments.length; i++) {
+            // 每一项都必须是 列 = #{属性}，且列与 resultMap 中该属性映射的列一致，
+            // 例如 gmt_modified = now()、version = #{version} + 1 不能只按脏字段取舍
+            indexes[i] = trackedType.indexOf(parameterMappings.get(i).getProperty());
+            if (indexes[i] < 0 || !isAssignment(assignments[i], trackedType.getPropertyMapping(indexes[i]))) {
+                return null;
+            }
+        }
+        // WHERE 必须只有 主键列 = #{主键属性}，例如乐观锁的 and version = #{version} 不能省略
+        ResultMapping idMapping = trackedType.getIdMapping();
+        if (!idMapping.getProperty().equals(parameterMappings.get(assignments.length).getProperty())
+                || !isAssignment(matcher.group(3), idMapping)) {
+            return null;
+        }
+        return new PartialUpdate(ms, trackedType, matcher.group(1), indexes);
+    }
+
+    /**
+     * 是否为 列 = ?，列名忽略大小写和反引号
+     */
+    private static boolean isAssignment(String expression, ResultMapping resultMapping) {
+        Matcher matcher = ASSIGNMENT.matcher(expression);
+        return matcher.matches() && matcher.group(1).replace("`", "").equalsIgnoreCase(resultMapping.getColumn());
+    }
+
+    /**
+     * 与快照相比修改过的属性，第 i 位对应原语句 SET 中的第 i 个属性
+     */
+    long dirtyMask(Object[] snapshot, Object[] current) {
+        long mask = 0;
+        for (int i = 0; i < indexes.length; i++) {
+            if (!Objects.equals(snapshot[indexes[i]], current[indexes[i]])) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    MappedStatement statement(long mask) {
+        return statements.computeIfAbsent(mask, this::build);
+    }
+
+    /**
+     * update student set locked = ? where id = ?
+     */
+    private MappedStatement build(long mask) {
+        Configuration configuration = ms.getConfiguration();
+        StringBuilder sql = new StringBuilder("update ").append(table).append(" set ");
+        List<ParameterMapping> parameterMappings = new ArrayList<>(Long.bitCount(mask) + 1);
+        for (int i = 0; i < indexes.length; i++) {
+            if ((mask & 1L << i) == 0) {
+                continue;
+            }
+            ResultMapping resultMapping = trackedType.getPropertyMapping(indexes[i]);
+            if (!parameterMappings.isEmpty()) {
+                sql.append(", ");
+            }
+            sql.append(resultMapping.getColumn()).append(" = ?");
+            parameterMappings.add(parameterMapping(configuration, resultMapping));
+        }
+        ResultMapping idMapping = trackedType.getIdMapping();
+        sql.append(" where ").append(idMapping.getColumn()).append(" = ?");
+        parameterMappings.add(parameterMapping(configuration, idMapping));
+        return MappedStatements.copy(ms, new StaticSqlSource(configuration, sql.toString(), parameterMappings));
+    }
+
+    private static ParameterMapping parameterMapping(Configuration configuration, ResultMapping resultMapping) {
+        return new ParameterMapping.Builder(configuration, resultMapping.getProperty(), resultMapping.getTypeHandler())
+                .javaType(resultMapping.getJavaType())
+                .jdbcType(resultMapping.getJdbcType())
+                .build();
+    }
+
+    TrackedType getTrackedType() {
+        return trackedType;
+    }
+}
@@ -0,0 +1,78 @@
+package com.sumkor.plugin.dirty;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 实体快照：以对象身份为 key，弱引用持有实体，实体被回收后快照随之清除
+ *
+ * 不能使用 WeakHashMap，因为实体可能重写 equals/hashCode，两个字段值相同的对象会被当作同一个 key。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+class Snapshots {
+
+    private final Map<IdentityKey, Object[]> snapshots = new HashMap<>();
+
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    synchronized Object[] get(Object entity) {
+        return snapshots.get(new IdentityKey(entity, null));
+    }
+
+    synchronized void put(Object entity, Object[] snapshot) {
+        expunge();
+        snapshots.put(new IdentityKey(entity, queue), snapshot);
+    }
+
+    synchronized void putIfAbsent(Object entity, Object[] snapshot) {
+        expunge();
+        snapshots.putIfAbsent(new IdentityKey(entity, queue), snapshot);
+    }
+
+    synchronized void remove(Object entity) {
+        snapshots.remove(new IdentityKey(entity, null));
+    }
+
+    synchronized int size() {
+        expunge();
+        return snapshots.size();
+    }
+
+    private void expunge() {
+        Object key;
+        while ((key = queue.poll()) != null) {
+            snapshots.remove(key);
+        }
+    }
+
+    private static class IdentityKey extends WeakReference<Object> {
+
+        private final int hashCode;
+
+        IdentityKey(Object entity, ReferenceQueue<Object> queue) {
+            super(entity, queue);
+            this.hashCode = System.identityHashCode(entity);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof IdentityKey)) {
+                return false;
+            }
+            Object entity = get();
+            return entity != null && entity == ((IdentityKey) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
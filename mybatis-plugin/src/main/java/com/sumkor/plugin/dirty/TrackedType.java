@@ -0,0 +1,110 @@
+package com.sumkor.plugin.dirty;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 被跟踪的实体类型：取自该类型上声明了唯一 <id/> 的 resultMap，例如 StudentMapper.xml 中的 BaseResultMap
+ *
+ * 快照按 resultMap 中非主键属性的顺序保存属性值。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+class TrackedType {
+
+    private final Class<?> type;
+
+    private final ResultMapping idMapping;
+
+    private final List<ResultMapping> propertyMappings;
+
+    private final Invoker[] getters;
+
+    private TrackedType(Class<?> type, ResultMapping idMapping, List<ResultMapping> propertyMappings, Invoker[] getters) {
+        this.type = type;
+        this.idMapping = idMapping;
+        this.propertyMappings = propertyMappings;
+        this.getters = getters;
+    }
+
+    /**
+     * 不存在满足条件的 resultMap 则返回 null
+     *
+     * 注意 Configuration#resultMaps 是 StrictMap，短名称冲突时保存的是 Ambiguity 对象
+     */
+    static TrackedType resolve(Configuration configuration, Class<?> type) {
+        for (Object value : (Collection<?>) configuration.getResultMaps()) {
+            if (!(value instanceof ResultMap)) {
+                continue;
+            }
+            ResultMap resultMap = (ResultMap) value;
+            if (resultMap.getType() != type || resultMap.getIdResultMappings().size() != 1
+                    || resultMap.hasNestedResultMaps() || resultMap.hasNestedQueries()) {
+                continue;
+            }
+            ResultMapping idMapping = resultMap.getIdResultMappings().get(0);
+            if (idMapping.getProperty() == null || idMapping.getColumn() == null) {
+                continue;
+            }
+            Reflector reflector = configuration.getReflectorFactory().findForClass(type);
+            List<ResultMapping> propertyMappings = new ArrayList<>();
+            for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
+                if (resultMapping != idMapping && resultMapping.getColumn() != null && !resultMapping.isCompositeResult()) {
+                    propertyMappings.add(resultMapping);
+                }
+            }
+            Invoker[] getters = new Invoker[propertyMappings.size()];
+            for (int i = 0; i < getters.length; i++) {
+                getters[i] = reflector.getGetInvoker(propertyMappings.get(i).getProperty());
+            }
+            return new TrackedType(type, idMapping, Collections.unmodifiableList(propertyMappings), getters);
+        }
+        return null;
+    }
+
+    Object[] snapshot(Object entity) {
+        Object[] values = new Object[getters.length];
+        for (int i = 0; i < getters.length; i++) {
+            try {
+                values[i] = getters[i].invoke(entity, null);
+            } catch (Exception e) {
+                throw new ExecutorException("Could not get property '" + propertyMappings.get(i).getProperty() + "' of " + type.getName(), e);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 属性在快照中的位置，不存在则返回 -1
+     */
+    int indexOf(String property) {
+        for (int i = 0; i < propertyMappings.size(); i++) {
+            if (propertyMappings.get(i).getProperty().equals(property)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    Class<?> getType() {
+        return type;
+    }
+
+    ResultMapping getIdMapping() {
+        return idMapping;
+    }
+
+    ResultMapping getPropertyMapping(int index) {
+        return propertyMappings.get(index);
+    }
+}
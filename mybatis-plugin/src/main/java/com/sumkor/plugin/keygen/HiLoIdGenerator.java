@@ -0,0 +1,123 @@
+package com.sumkor.plugin.keygen;
+
+import com.sumkor.plugin.shard.IdGenerator;
+import org.apache.ibatis.executor.ExecutorException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * hi/lo 主键生成器：从号段表中一次预留 blockSize 个 id，用完之前都在内存中分配
+ *
+ * 号段表 id_sequence 中每个序列一行，next_val 为下一个未分配的值。预留号段时：
+ * 1. update id_sequence set next_val = next_val + blockSize，行锁使多个应用节点的预留互斥；
+ * 2. 再读取 next_val，得到本节点独占的 [next_val - blockSize, next_val)。
+ * 预留使用单独的连接和事务，立即提交，不受业务事务回滚的影响，也不会长时间持有行锁。
+ * 回滚、重启会跳过未用完的 id，id 唯一但不连续。
+ *
+ * 每 blockSize 个 id 只访问一次数据库，不依赖 AUTO_INCREMENT，也就不需要插入后取回生成的主键。
+ * 分配在锁中进行，使用 ReentrantLock 而不是 synchronized，预留号段时阻塞在 JDBC 上不会固定虚拟线程的载体线程。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class HiLoIdGenerator implements IdGenerator {
+
+    private static final String RESERVE = "update id_sequence set next_val = next_val + ? where name = ?";
+
+    private static final String CURRENT = "select next_val from id_sequence where name = ?";
+
+    private final DataSource dataSource;
+
+    private final String sequence;
+
+    private final int blockSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 当前号段中下一个可分配的 id，以及号段的上界（不包含）
+     */
+    private long next;
+
+    private long limit;
+
+    private long reservations;
+
+    public HiLoIdGenerator(DataSource dataSource, String sequence, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive, but was " + blockSize);
+        }
+        this.dataSource = dataSource;
+        this.sequence = sequence;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public long nextId() {
+        lock.lock();
+        try {
+            if (next >= limit) {
+                reserve();
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reserve() {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                long hi;
+                try (PreparedStatement update = connection.prepareStatement(RESERVE)) {
+                    update.setLong(1, blockSize);
+                    update.setString(2, sequence);
+                    if (update.executeUpdate() != 1) {
+                        throw new ExecutorException("No row for sequence '" + sequence + "' in id_sequence");
+                    }
+                }
+                try (PreparedStatement select = connection.prepareStatement(CURRENT)) {
+                    select.setString(1, sequence);
+                    try (ResultSet resultSet = select.executeQuery()) {
+                        resultSet.next();
+                        hi = resultSet.getLong(1);
+                    }
+                }
+                connection.commit();
+                next = hi - blockSize;
+                limit = hi;
+                reservations++;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new ExecutorException("Error reserving ids from sequence '" + sequence + "'.  Cause: " + e, e);
+        }
+    }
+
+    /**
+     * 访问号段表的次数
+     */
+    public long getReservations() {
+        lock.lock();
+        try {
+            return reservations;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+}
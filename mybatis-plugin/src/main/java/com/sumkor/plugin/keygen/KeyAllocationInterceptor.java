@@ -0,0 +1,115 @@
+package com.sumkor.plugin.keygen;
+
+import com.sumkor.plugin.shard.IdGenerator;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * 插入前分配主键的插件，代替 useGeneratedKeys
+ *
+ * useGeneratedKeys 由 Jdbc3KeyGenerator 在执行之后取回自增主键：
+ * 1. BATCH 执行器下要等 flushStatements 之后才回填，回填时对每一行的每个 keyProperty 反射赋值；
+ * 2. 多行 VALUES 插入依赖驱动按顺序返回所有生成的主键，不同驱动、不同版本的行为并不一致。
+ * @see org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator#processBatch
+ *
+ * 这里在执行之前由 {@link IdGenerator}（通常是 {@link HiLoIdGenerator}）为 id 为空的参数分配 id，
+ * 通过 idSetter 直接赋值，再改为执行带 id 列的语句，例如 insert 改为 insertWithId、insertBatch 改为 insertBatchWithId。
+ * 调用方仍然调用原来的语句，执行之后 id 已经在参数对象上，不需要额外的往返。
+ *
+ * 参数可以是实体本身，也可以是包含实体集合的参数 Map（foreach 多行插入时 MyBatis 把 List 包装为 Map）。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@Intercepts({@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})})
+public class KeyAllocationInterceptor<T> implements Interceptor {
+
+    private final IdGenerator idGenerator;
+
+    private final Class<T> type;
+
+    private final Function<T, Object> idGetter;
+
+    private final ObjLongConsumer<T> idSetter;
+
+    /**
+     * 使用自增主键的语句 -> 带 id 列的语句
+     */
+    private final Map<String, String> statements;
+
+    /**
+     * @param statements key 为使用自增主键的语句，value 为对应的带 id 列、不使用 useGeneratedKeys 的语句
+     */
+    public KeyAllocationInterceptor(IdGenerator idGenerator, Class<T> type, Function<T, Object> idGetter,
+                                    ObjLongConsumer<T> idSetter, Map<String, String> statements) {
+        this.idGenerator = idGenerator;
+        this.type = type;
+        this.idGetter = idGetter;
+        this.idSetter = idSetter;
+        this.statements = new HashMap<>(statements);
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        MappedStatement ms = (MappedStatement) args[0];
+        String target = statements.get(ms.getId());
+        if (target == null) {
+            return invocation.proceed();
+        }
+        MappedStatement targetMs = ms.getConfiguration().getMappedStatement(target);
+        if (targetMs.getKeyGenerator() instanceof Jdbc3KeyGenerator) {
+            throw new ExecutorException("Statement " + target + " uses generated keys, it must insert the id column instead.");
+        }
+        assign(args[1]);
+        args[0] = targetMs;
+        return invocation.proceed();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+
+    }
+
+    private void assign(Object parameter) {
+        if (type.isInstance(parameter)) {
+            assignOne(type.cast(parameter));
+        } else if (parameter instanceof Map) {
+            // 同一个 List 在参数 Map 中同时以 collection、list 为键出现，已有 id 的对象不会重复分配
+            for (Object value : ((Map<?, ?>) parameter).values()) {
+                assign(value);
+            }
+        } else if (parameter instanceof Collection) {
+            for (Object element : (Collection<?>) parameter) {
+                if (type.isInstance(element)) {
+                    assignOne(type.cast(element));
+                }
+            }
+        }
+    }
+
+    private void assignOne(T entity) {
+        if (idGetter.apply(entity) == null) {
+            idSetter.accept(entity, idGenerator.nextId());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.sumkor.plugin.result;
+
+import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按列下标映射结果集的插件
+ *
+ * DefaultResultSetHandler 对每一行的每一列：
+ * 1. 通过 ResultSet#getXxx(String) 按列名读取，驱动每次都要查找列名对应的下标；
+ * 2. 自动映射的列每个结果集重新查找属性和 TypeHandler，赋值经过 MetaObject 逐级解析属性名。
+ * @see org.apache.ibatis.executor.resultset.DefaultResultSetHandler#applyPropertyMappings
+ * @see org.apache.ibatis.executor.resultset.DefaultResultSetHandler#applyAutomaticMappings
+ *
+ * 这里对 resultMap 和结果集的列组合只解析一次 {@link ResultPlan}，缓存下来，之后逐行按下标读取、直接调用 setter。
+ * 只处理简单的情况：单个 resultMap、没有嵌套映射和构造器映射、没有 ResultHandler 和 RowBounds，其余的交给 MyBatis。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@Intercepts({@Signature(type = ResultSetHandler.class, method = "handleResultSets", args = {Statement.class})})
+public class IndexedResultSetInterceptor implements Interceptor {
+
+    /**
+     * resultMap id + 结果集的列名 -> 映射计划
+     */
+    private final ConcurrentMap<String, ResultPlan> plans = new ConcurrentHashMap<>();
+
+    private final LongAdder fallbacks = new LongAdder();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (!(invocation.getTarget() instanceof DefaultResultSetHandler)) {
+            return invocation.proceed();
+        }
+        MetaObject metaObject = SystemMetaObject.forObject(invocation.getTarget());
+        MappedStatement ms = (MappedStatement) metaObject.getValue("mappedStatement");
+        RowBounds rowBounds = (RowBounds) metaObject.getValue("rowBounds");
+        Configuration configuration = ms.getConfiguration();
+        if (metaObject.getValue("resultHandler") != null
+                || rowBounds.getOffset() != RowBounds.NO_ROW_OFFSET || rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT
+                || ms.getResultSets() != null || ms.getResultMaps().size() != 1
+                || !ResultPlan.isSupported(configuration, ms.getResultMaps().get(0))) {
+            fallbacks.increment();
+            return invocation.proceed();
+        }
+        // 各驱动对同一个结果多次调用 getResultSet 都返回同一个对象，交给 MyBatis 时它仍能读到这个结果集
+        Statement statement = (Statement) invocation.getArgs()[0];
+        ResultSet resultSet = statement.getResultSet();
+        ResultPlan plan = resultSet == null ? ResultPlan.UNSUPPORTED : plan(configuration, ms.getResultMaps().get(0), resultSet);
+        if (plan == ResultPlan.UNSUPPORTED) {
+            fallbacks.increment();
+            return invocation.proceed();
+        }
+        List<Object> results = new ArrayList<>();
+        try {
+            while (resultSet.next()) {
+                results.add(plan.read(resultSet));
+            }
+        } finally {
+            resultSet.close();
+        }
+        return results;
+    }
+
+    private ResultPlan plan(Configuration configuration, ResultMap resultMap, ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        StringBuilder key = new StringBuilder(resultMap.getId());
+        for (int i = 1, columnCount = metaData.getColumnCount(); i <= columnCount; i++) {
+            key.append(',').append(configuration.isUseColumnLabel() ? metaData.getColumnLabel(i) : metaData.getColumnName(i));
+        }
+        String planKey = key.toString();
+        ResultPlan plan = plans.get(planKey);
+        if (plan == null) {
+            plan = ResultPlan.build(configuration, resultMap, metaData);
+            ResultPlan existing = plans.putIfAbsent(planKey, plan);
+            if (existing != null) {
+                plan = existing;
+            }
+        }
+        return plan;
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+
+    }
+
+    /**
+     * 已缓存的可用映射计划数量
+     */
+    public int getPlanCount() {
+        int count = 0;
+        for (ResultPlan plan : plans.values()) {
+            if (plan != ResultPlan.UNSUPPORTED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 交给 MyBatis 处理的次数
+     */
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+}
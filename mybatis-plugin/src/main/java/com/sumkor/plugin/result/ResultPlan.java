@@ -0,0 +1,203 @@
+package com.sumkor.plugin.result;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.session.AutoMappingBehavior;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+import java.lang.reflect.Constructor;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 一个 resultMap 在一种结果集列组合下的映射计划：每个属性对应的列下标、TypeHandler、setter，只解析一次
+ *
+ * 与 DefaultResultSetHandler 的规则保持一致：
+ * 1. 先应用 resultMap 中显式映射的列，结果集中没有的列跳过；
+ * 2. 再按自动映射的规则映射其余的列，列名转换为属性名，TypeHandler 按属性类型和列的 jdbcType 查找；
+ * 3. 值为 null 时，只有开启 callSettersOnNulls 且属性不是基本类型才调用 setter；
+ * 4. 所有列都为 null 时，除非开启 returnInstanceForEmptyRow，否则该行为 null。
+ * @see org.apache.ibatis.executor.resultset.DefaultResultSetHandler#getRowValue
+ *
+ * 自动映射遇到无法映射的列时，需要按 autoMappingUnknownColumnBehavior 处理，这种情况不生成计划，交给 MyBatis。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+final class ResultPlan {
+
+    /**
+     * 不支持快速映射的结果集，缓存下来避免每次重新解析
+     */
+    static final ResultPlan UNSUPPORTED = new ResultPlan(null, null, null, new int[0], new TypeHandler<?>[0], new Invoker[0], new boolean[0], false);
+
+    private final Class<?> type;
+
+    private final ObjectFactory objectFactory;
+
+    /**
+     * 使用默认 ObjectFactory 时直接调用缓存的无参构造器，不再每行查找构造器
+     * @see org.apache.ibatis.reflection.factory.DefaultObjectFactory#instantiateClass
+     */
+    private final Constructor<?> constructor;
+
+    private final int[] columns;
+
+    private final TypeHandler<?>[] typeHandlers;
+
+    private final Invoker[] setters;
+
+    private final boolean[] setNulls;
+
+    private final boolean returnInstanceForEmptyRow;
+
+    private ResultPlan(Class<?> type, ObjectFactory objectFactory, Constructor<?> constructor, int[] columns,
+                       TypeHandler<?>[] typeHandlers, Invoker[] setters, boolean[] setNulls, boolean returnInstanceForEmptyRow) {
+        this.type = type;
+        this.objectFactory = objectFactory;
+        this.constructor = constructor;
+        this.columns = columns;
+        this.typeHandlers = typeHandlers;
+        this.setters = setters;
+        this.setNulls = setNulls;
+        this.returnInstanceForEmptyRow = returnInstanceForEmptyRow;
+    }
+
+    /**
+     * 结果对象只由无参构造器和 setter 组装时才能使用快速映射
+     */
+    static boolean isSupported(Configuration configuration, ResultMap resultMap) {
+        return !resultMap.hasNestedResultMaps()
+                && !resultMap.hasNestedQueries()
+                && resultMap.getDiscriminator() == null
+                && resultMap.getConstructorResultMappings().isEmpty()
+                && !configuration.getTypeHandlerRegistry().hasTypeHandler(resultMap.getType());
+    }
+
+    static ResultPlan build(Configuration configuration, ResultMap resultMap, ResultSetMetaData metaData) throws SQLException {
+        Class<?> type = resultMap.getType();
+        Reflector reflector = configuration.getReflectorFactory().findForClass(type);
+        TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+
+        // 列名（大写）-> 列下标，与 ResultSetWrapper 一样按 useColumnLabel 取列名
+        Map<String, Integer> indexes = new HashMap<>();
+        int columnCount = metaData.getColumnCount();
+        for (int i = 1; i <= columnCount; i++) {
+            String column = configuration.isUseColumnLabel() ? metaData.getColumnLabel(i) : metaData.getColumnName(i);
+            indexes.putIfAbsent(column.toUpperCase(Locale.ENGLISH), i);
+        }
+
+        List<Integer> columns = new ArrayList<>();
+        List<TypeHandler<?>> typeHandlers = new ArrayList<>();
+        List<String> properties = new ArrayList<>();
+        for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
+            String property = resultMapping.getProperty();
+            if (resultMapping.getColumn() == null || property == null) {
+                return UNSUPPORTED;
+            }
+            Integer index = indexes.remove(resultMapping.getColumn().toUpperCase(Locale.ENGLISH));
+            if (index == null) {
+                continue;
+            }
+            if (resultMapping.getTypeHandler() == null || property.indexOf('.') >= 0 || !reflector.hasSetter(property)) {
+                return UNSUPPORTED;
+            }
+            columns.add(index);
+            typeHandlers.add(resultMapping.getTypeHandler());
+            properties.add(property);
+        }
+
+        boolean autoMapping = resultMap.getAutoMapping() != null ? resultMap.getAutoMapping()
+                : configuration.getAutoMappingBehavior() != AutoMappingBehavior.NONE;
+        if (autoMapping && !indexes.isEmpty()) {
+            MetaClass metaClass = MetaClass.forClass(type, configuration.getReflectorFactory());
+            for (Map.Entry<String, Integer> entry : indexes.entrySet()) {
+                String property = metaClass.findProperty(entry.getKey(), configuration.isMapUnderscoreToCamelCase());
+                if (property == null || property.indexOf('.') >= 0 || !reflector.hasSetter(property)) {
+                    return UNSUPPORTED;
+                }
+                if (resultMap.getMappedProperties().contains(property)) {
+                    continue;
+                }
+                Class<?> propertyType = reflector.getSetterType(property);
+                TypeHandler<?> typeHandler = typeHandlerRegistry.getTypeHandler(propertyType, JdbcType.forCode(metaData.getColumnType(entry.getValue())));
+                if (typeHandler == null) {
+                    return UNSUPPORTED;
+                }
+                columns.add(entry.getValue());
+                typeHandlers.add(typeHandler);
+                properties.add(property);
+            }
+        }
+
+        int size = properties.size();
+        int[] columnArray = new int[size];
+        Invoker[] setters = new Invoker[size];
+        boolean[] setNulls = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            columnArray[i] = columns.get(i);
+            setters[i] = reflector.getSetInvoker(properties.get(i));
+            setNulls[i] = configuration.isCallSettersOnNulls() && !reflector.getSetterType(properties.get(i)).isPrimitive();
+        }
+        ObjectFactory objectFactory = configuration.getObjectFactory();
+        Constructor<?> constructor = null;
+        if (objectFactory.getClass() == DefaultObjectFactory.class && reflector.hasDefaultConstructor()) {
+            try {
+                constructor = reflector.getDefaultConstructor();
+                constructor.setAccessible(true);
+            } catch (SecurityException e) {
+                constructor = null;
+            }
+        }
+        return new ResultPlan(type, objectFactory, constructor, columnArray, typeHandlers.toArray(new TypeHandler<?>[0]),
+                setters, setNulls, configuration.isReturnInstanceForEmptyRow());
+    }
+
+    /**
+     * 按下标读取当前行
+     */
+    Object read(ResultSet resultSet) throws SQLException {
+        Object row = newInstance();
+        boolean foundValues = false;
+        for (int i = 0; i < columns.length; i++) {
+            Object value = typeHandlers[i].getResult(resultSet, columns[i]);
+            if (value != null) {
+                foundValues = true;
+            }
+            if (value != null || setNulls[i]) {
+                try {
+                    setters[i].invoke(row, new Object[]{value});
+                } catch (Throwable t) {
+                    throw new ReflectionException("Could not set column " + columns[i] + " on " + type.getName() + ".  Cause: " + t, t);
+                }
+            }
+        }
+        return foundValues || returnInstanceForEmptyRow ? row : null;
+    }
+
+    private Object newInstance() {
+        if (constructor == null) {
+            return objectFactory.create(type);
+        }
+        try {
+            return constructor.newInstance();
+        } catch (Exception e) {
+            throw new ReflectionException("Error instantiating " + type.getName() + ".  Cause: " + e, e);
+        }
+    }
+}
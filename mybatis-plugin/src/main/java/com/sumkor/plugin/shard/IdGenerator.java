@@ -0,0 +1,17 @@
+package com.sumkor.plugin.shard;
+
+/**
+ * 主键生成器
+ *
+ * 分库之后各个库的 AUTO_INCREMENT 互相独立，会生成重复的 id，因此插入前由应用生成全局唯一的 id
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public interface IdGenerator {
+
+    /**
+     * 生成下一个 id，需要保证线程安全
+     */
+    long nextId();
+}
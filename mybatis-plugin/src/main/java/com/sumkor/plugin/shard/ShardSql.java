@@ -0,0 +1,190 @@
+package com.sumkor.plugin.shard;
+
+import org.apache.ibatis.executor.ExecutorException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 解析查询语句末尾的 ORDER BY 和 LIMIT，用于跨分片的归并
+ *
+ * 1. 每个分片只能返回各自的前 offset + limit 行，因此发往分片的 SQL 需要改写为 limit offset + limit；
+ * 2. 各分片返回的结果已按 ORDER BY 排好序，归并之后再在内存中跳过 offset 行，截取 limit 行。
+ *
+ * 只处理最外层的 ORDER BY、LIMIT，子查询中的不受影响。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class ShardSql {
+
+    private static final Pattern LIMIT = Pattern.compile(
+            "\\s+limit\\s+(\\S+?)\\s*(?:,\\s*(\\S+?)|\\s+offset\\s+(\\S+?))?\\s*$", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern ORDER_BY = Pattern.compile("\\s+order\\s+by\\s+", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 去掉 LIMIT 之后的 SQL
+     */
+    private final String sql;
+
+    private final List<OrderBy> orderBy;
+
+    private final long offset;
+
+    /**
+     * 没有 LIMIT 时为 -1
+     */
+    private final long limit;
+
+    private ShardSql(String sql, List<OrderBy> orderBy, long offset, long limit) {
+        this.sql = sql;
+        this.orderBy = orderBy;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    public static ShardSql parse(String sql) {
+        String trimmed = sql.trim();
+        long offset = 0;
+        long limit = -1;
+        Matcher limitMatcher = LIMIT.matcher(trimmed);
+        if (limitMatcher.find() && isTopLevel(trimmed, limitMatcher.start())) {
+            // limit n | limit offset, n | limit n offset offset
+            if (limitMatcher.group(2) != null) {
+                offset = toLong(limitMatcher.group(1));
+                limit = toLong(limitMatcher.group(2));
+            } else {
+                limit = toLong(limitMatcher.group(1));
+                if (limitMatcher.group(3) != null) {
+                    offset = toLong(limitMatcher.group(3));
+                }
+            }
+            trimmed = trimmed.substring(0, limitMatcher.start());
+        }
+        return new ShardSql(trimmed, parseOrderBy(trimmed), offset, limit);
+    }
+
+    private static List<OrderBy> parseOrderBy(String sql) {
+        Matcher matcher = ORDER_BY.matcher(sql);
+        int start = -1;
+        while (matcher.find()) {
+            if (isTopLevel(sql, matcher.start())) {
+                start = matcher.end();
+            }
+        }
+        if (start < 0) {
+            return Collections.emptyList();
+        }
+        List<OrderBy> result = new ArrayList<>();
+        for (String item : sql.substring(start).split(",")) {
+            String[] tokens = item.trim().split("\\s+");
+            String column = tokens[0].replace("`", "");
+            int dot = column.lastIndexOf('.');
+            if (dot >= 0) {
+                column = column.substring(dot + 1);
+            }
+            boolean desc = tokens.length > 1 && "desc".equals(tokens[1].toLowerCase(Locale.ENGLISH));
+            result.add(new OrderBy(column, desc));
+        }
+        return result;
+    }
+
+    /**
+     * 位置 index 之后没有未闭合的右括号，即不在子查询中
+     */
+    private static boolean isTopLevel(String sql, int index) {
+        int depth = 0;
+        for (int i = index; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            }
+        }
+        return depth == 0;
+    }
+
+    private static long toLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ExecutorException("Only literal LIMIT values are supported in fan-out queries, but was: " + value);
+        }
+    }
+
+    /**
+     * 发往各个分片的 SQL：每个分片都需要返回前 offset + limit 行
+     */
+    public String getShardSql() {
+        if (limit < 0) {
+            return sql;
+        }
+        return sql + " limit " + (offset + limit);
+    }
+
+    /**
+     * 归并之后，在内存中执行原 SQL 的 LIMIT
+     */
+    public <E> List<E> applyLimit(List<E> merged) {
+        if (limit < 0 && offset == 0) {
+            return merged;
+        }
+        int from = (int) Math.min(offset, merged.size());
+        int to = limit < 0 ? merged.size() : (int) Math.min(offset + limit, merged.size());
+        return new ArrayList<>(merged.subList(from, to));
+    }
+
+    public boolean hasLimit() {
+        return limit >= 0;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<OrderBy> getOrderBy() {
+        return orderBy;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * ORDER BY 中的一列
+     */
+    public static class OrderBy {
+
+        private final String column;
+
+        private final boolean desc;
+
+        public OrderBy(String column, boolean desc) {
+            this.column = column;
+            this.desc = desc;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public boolean isDesc() {
+            return desc;
+        }
+
+        @Override
+        public String toString() {
+            return column + (desc ? " desc" : " asc");
+        }
+    }
+}
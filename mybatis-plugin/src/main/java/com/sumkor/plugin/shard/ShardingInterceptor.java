@@ -0,0 +1,437 @@
+package com.sumkor.plugin.shard;
+
+import com.sumkor.plugin.MappedStatements;
+import com.sumkor.plugin.page.BoundSqlSqlSource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.SimpleExecutor;
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按 id 分库的插件
+ *
+ * 拦截 Executor 的 update、query，对指定 namespace 下的语句：
+ * 1. 参数中带有 id 的，根据 id 路由到其中一个分片执行；
+ * 2. 参数中没有 id 的（例如 selectAll、selectBetweenCreatedTime），并行发往所有分片，再按 ORDER BY 归并，按 LIMIT、RowBounds 截取；
+ * 3. insert 的参数中 id 为空时，先由 {@link IdGenerator} 生成全局唯一的 id，再路由。
+ *
+ * 每个会话在每个分片上各有一个 SimpleExecutor 和 JdbcTransaction，会话提交、回滚、关闭时逐个分片执行（非分布式事务）。
+ * 分片语句不经过会话原有的执行器，因此不使用二级缓存。
+ *
+ * 与 {@link com.sumkor.plugin.PageInterceptor} 一样，通过 InterceptorChain#pluginAll 对执行器生效
+ * @see org.apache.ibatis.session.Configuration#newExecutor(org.apache.ibatis.transaction.Transaction, org.apache.ibatis.session.ExecutorType)
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "close", args = {boolean.class})
+})
+@Slf4j
+public class ShardingInterceptor implements Interceptor {
+
+    private static final String SHARD_KEY = "id";
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final List<DataSource> shards;
+
+    private final IdGenerator idGenerator;
+
+    /**
+     * 需要分片的 namespace，例如 com.sumkor.mapper.StudentMapper
+     */
+    private final List<String> namespaces;
+
+    /**
+     * 并行查询各个分片的线程池
+     */
+    private final ExecutorService fanOutExecutor;
+
+    /**
+     * 每个会话的执行器对应的分片执行器
+     */
+    private final Map<Executor, Executor[]> sessions = new ConcurrentHashMap<>();
+
+    public ShardingInterceptor(List<DataSource> shards, IdGenerator idGenerator, String... namespaces) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = new ArrayList<>(shards);
+        this.idGenerator = idGenerator;
+        this.namespaces = Arrays.asList(namespaces);
+        this.fanOutExecutor = Executors.newFixedThreadPool(shards.size(), r -> {
+            Thread thread = new Thread(r, "shard-fan-out-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Executor executor = (Executor) invocation.getTarget();
+        Object[] args = invocation.getArgs();
+        switch (invocation.getMethod().getName()) {
+            case "update": {
+                MappedStatement ms = (MappedStatement) args[0];
+                return isSharded(ms) ? update(executor, ms, args[1]) : invocation.proceed();
+            }
+            case "query": {
+                MappedStatement ms = (MappedStatement) args[0];
+                return isSharded(ms) ? query(executor, ms, args[1], (RowBounds) args[2], (ResultHandler<?>) args[3]) : invocation.proceed();
+            }
+            case "commit": {
+                Object result = invocation.proceed();
+                for (Executor shard : shardExecutors(executor)) {
+                    shard.commit((Boolean) args[0]);
+                }
+                return result;
+            }
+            case "rollback": {
+                Object result = invocation.proceed();
+                for (Executor shard : shardExecutors(executor)) {
+                    shard.rollback((Boolean) args[0]);
+                }
+                return result;
+            }
+            default: {
+                // close
+                Executor[] executors = sessions.remove(executor);
+                if (executors != null) {
+                    for (Executor shard : executors) {
+                        if (shard != null) {
+                            shard.close((Boolean) args[0]);
+                        }
+                    }
+                }
+                return invocation.proceed();
+            }
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+
+    }
+
+    private boolean isSharded(MappedStatement ms) {
+        String id = ms.getId();
+        for (String namespace : namespaces) {
+            if (id.startsWith(namespace) && id.length() > namespace.length() && id.charAt(namespace.length()) == '.') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int update(Executor executor, MappedStatement ms, Object parameter) throws SQLException {
+        if (ms.getSqlCommandType() == SqlCommandType.INSERT) {
+            assignId(ms, parameter);
+        }
+        Object shardKey = getShardKey(ms, parameter);
+        if (shardKey != null) {
+            return shardExecutor(executor, ms, shardOf(shardKey)).update(ms, parameter);
+        }
+        // 没有分片键的更新，在所有分片上执行，返回影响行数之和
+        List<Integer> counts = fanOut(executor, ms, shard -> shard.update(ms, parameter));
+        int total = 0;
+        for (Integer count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    private <E> List<E> query(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler<?> resultHandler) throws SQLException {
+        Object shardKey = getShardKey(ms, parameter);
+        if (shardKey != null) {
+            return shardExecutor(executor, ms, shardOf(shardKey)).query(ms, parameter, rowBounds, resultHandler);
+        }
+        if (resultHandler != null) {
+            throw new ExecutorException("ResultHandler is not supported for fan-out statement " + ms.getId());
+        }
+        BoundSql boundSql = ms.getBoundSql(parameter);
+        ShardSql shardSql = ShardSql.parse(boundSql.getSql());
+        MappedStatement shardMs = ms;
+        if (shardSql.hasLimit()) {
+            BoundSql shardBoundSql = MappedStatements.copy(boundSql, shardSql.getShardSql(), ms);
+            shardMs = MappedStatements.copy(ms, new BoundSqlSqlSource(shardBoundSql));
+        }
+        // RowBounds 同理，每个分片需要返回前 offset + limit 行
+        RowBounds shardRowBounds = rowBounds;
+        if (rowBounds.getOffset() != RowBounds.NO_ROW_OFFSET || rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT) {
+            long rows = (long) rowBounds.getOffset() + rowBounds.getLimit();
+            shardRowBounds = new RowBounds(RowBounds.NO_ROW_OFFSET, (int) Math.min(rows, RowBounds.NO_ROW_LIMIT));
+        }
+        MappedStatement finalMs = shardMs;
+        RowBounds finalRowBounds = shardRowBounds;
+        List<List<E>> results = fanOut(executor, ms, shard -> shard.<E>query(finalMs, parameter, finalRowBounds, Executor.NO_RESULT_HANDLER));
+
+        List<E> merged = shardSql.applyLimit(merge(ms.getConfiguration(), results, shardSql.getOrderBy()));
+        if (rowBounds.getOffset() == RowBounds.NO_ROW_OFFSET && rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT) {
+            return merged;
+        }
+        int from = Math.min(rowBounds.getOffset(), merged.size());
+        int to = (int) Math.min((long) from + rowBounds.getLimit(), merged.size());
+        return new ArrayList<>(merged.subList(from, to));
+    }
+
+    /**
+     * 各分片的结果已经有序，使用优先队列做多路归并
+     */
+    private <E> List<E> merge(Configuration configuration, List<List<E>> results, List<ShardSql.OrderBy> orderBy) {
+        int size = 0;
+        for (List<E> result : results) {
+            size += result.size();
+        }
+        List<E> merged = new ArrayList<>(size);
+        if (orderBy.isEmpty()) {
+            for (List<E> result : results) {
+                merged.addAll(result);
+            }
+            return merged;
+        }
+        Comparator<E> comparator = comparator(configuration, orderBy);
+        PriorityQueue<Cursor<E>> queue = new PriorityQueue<>(results.size(), (a, b) -> comparator.compare(a.current(), b.current()));
+        for (List<E> result : results) {
+            if (!result.isEmpty()) {
+                queue.add(new Cursor<>(result));
+            }
+        }
+        while (!queue.isEmpty()) {
+            Cursor<E> cursor = queue.poll();
+            merged.add(cursor.current());
+            if (cursor.next()) {
+                queue.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 按 ORDER BY 的列比较结果对象，列名通过结果映射转换为属性名，规则与自动映射一致
+     * @see org.apache.ibatis.executor.resultset.DefaultResultSetHandler#createAutomaticMappings
+     */
+    private <E> Comparator<E> comparator(Configuration configuration, List<ShardSql.OrderBy> orderBy) {
+        return (a, b) -> {
+            MetaObject metaA = configuration.newMetaObject(a);
+            MetaObject metaB = configuration.newMetaObject(b);
+            for (ShardSql.OrderBy item : orderBy) {
+                String property = metaA.findProperty(item.getColumn(), configuration.isMapUnderscoreToCamelCase());
+                if (property == null) {
+                    throw new ExecutorException("Cannot merge fan-out results by column " + item.getColumn()
+                            + ", no matching property in " + a.getClass().getName());
+                }
+                int result = compareValues(metaA.getValue(property), metaB.getValue(property));
+                if (result != 0) {
+                    return item.isDesc() ? -result : result;
+                }
+            }
+            return 0;
+        };
+    }
+
+    /**
+     * 与 MySQL 一致，升序时 NULL 排在最前
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object a, Object b) {
+        if (a == b) {
+            return 0;
+        }
+        if (a == null) {
+            return -1;
+        }
+        if (b == null) {
+            return 1;
+        }
+        return ((Comparable) a).compareTo(b);
+    }
+
+    /**
+     * insert 时 id 为空，则生成全局唯一的 id 并写回参数对象
+     */
+    private void assignId(MappedStatement ms, Object parameter) {
+        if (parameter == null || parameter instanceof Map) {
+            return;
+        }
+        MetaObject metaObject = ms.getConfiguration().newMetaObject(parameter);
+        if (!metaObject.hasSetter(SHARD_KEY) || metaObject.getValue(SHARD_KEY) != null) {
+            return;
+        }
+        if (ms.getKeyGenerator() instanceof Jdbc3KeyGenerator) {
+            // 使用数据库自增的 id，各分片会生成重复的 id，且无法在插入前确定路由
+            throw new ExecutorException("Statement " + ms.getId() + " uses generated keys, which are not unique across shards."
+                    + " Insert with an explicit id column instead.");
+        }
+        long id = idGenerator.nextId();
+        Class<?> type = metaObject.getSetterType(SHARD_KEY);
+        if (type == Integer.class || type == int.class) {
+            metaObject.setValue(SHARD_KEY, Math.toIntExact(id));
+        } else if (type == String.class) {
+            metaObject.setValue(SHARD_KEY, String.valueOf(id));
+        } else {
+            metaObject.setValue(SHARD_KEY, id);
+        }
+    }
+
+    /**
+     * 从参数中取出分片键：绑定到 #{id} 的简单类型参数本身，Map 中的 id，或者参数对象的 id 属性
+     *
+     * 简单类型的参数不一定是 id，例如 selectByName(String)，只有语句中唯一的参数占位符为 id 时才作为分片键，否则发往所有分片
+     */
+    private Object getShardKey(MappedStatement ms, Object parameter) {
+        if (parameter == null) {
+            return null;
+        }
+        if (parameter instanceof Number || parameter instanceof CharSequence) {
+            List<ParameterMapping> parameterMappings = ms.getBoundSql(parameter).getParameterMappings();
+            return parameterMappings.size() == 1 && SHARD_KEY.equals(parameterMappings.get(0).getProperty()) ? parameter : null;
+        }
+        if (parameter instanceof Map) {
+            return ((Map<?, ?>) parameter).containsKey(SHARD_KEY) ? ((Map<?, ?>) parameter).get(SHARD_KEY) : null;
+        }
+        MetaObject metaObject = SystemMetaObject.forObject(parameter);
+        return metaObject.hasGetter(SHARD_KEY) ? metaObject.getValue(SHARD_KEY) : null;
+    }
+
+    /**
+     * 对 id 做一次散列再取模，避免步长生成的 id 集中在某个分片上
+     */
+    int shardOf(Object shardKey) {
+        long key = shardKey instanceof Number ? ((Number) shardKey).longValue() : shardKey.toString().hashCode();
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) Math.floorMod(key, (long) shards.size());
+    }
+
+    private <T> List<T> fanOut(Executor executor, MappedStatement ms, ShardCall<T> call) throws SQLException {
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            Executor shard = shardExecutor(executor, ms, i);
+            futures.add(fanOutExecutor.submit((Callable<T>) () -> call.call(shard)));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExecutorException("Interrupted while executing " + ms.getId() + " on shards", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ExecutorException("Error executing " + ms.getId() + " on shards", cause);
+        }
+        return results;
+    }
+
+    private List<Executor> shardExecutors(Executor executor) {
+        Executor[] executors = sessions.get(executor);
+        if (executors == null) {
+            return Collections.emptyList();
+        }
+        List<Executor> result = new ArrayList<>(executors.length);
+        for (Executor shard : executors) {
+            if (shard != null) {
+                result.add(shard);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 首次访问某个分片时才创建执行器和事务，事务的 autoCommit 与会话保持一致
+     */
+    private Executor shardExecutor(Executor executor, MappedStatement ms, int index) {
+        Executor[] executors = sessions.computeIfAbsent(executor, e -> new Executor[shards.size()]);
+        if (executors[index] == null) {
+            Transaction transaction = new JdbcTransaction(shards.get(index), null, isAutoCommit(executor));
+            // 直接创建 SimpleExecutor，不经过 InterceptorChain，避免再次进入当前插件
+            executors[index] = new SimpleExecutor(ms.getConfiguration(), transaction);
+            log.debug("Opened shard {} for {}", index, ms.getId());
+        }
+        return executors[index];
+    }
+
+    private static boolean isAutoCommit(Executor executor) {
+        Transaction transaction = executor.getTransaction();
+        if (transaction instanceof JdbcTransaction) {
+            return (Boolean) SystemMetaObject.forObject(transaction).getValue("autoCommit");
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface ShardCall<T> {
+        T call(Executor shard) throws SQLException;
+    }
+
+    /**
+     * 多路归并时某个分片结果的读取位置
+     */
+    private static class Cursor<E> {
+
+        private final List<E> list;
+
+        private int index;
+
+        Cursor(List<E> list) {
+            this.list = list;
+        }
+
+        E current() {
+            return list.get(index);
+        }
+
+        boolean next() {
+            return ++index < list.size();
+        }
+    }
+}
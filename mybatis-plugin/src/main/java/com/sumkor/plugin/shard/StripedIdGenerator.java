@@ -0,0 +1,50 @@
+package com.sumkor.plugin.shard;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 步长主键生成器：共有 nodeCount 个应用节点，每个节点只生成 id % nodeCount == nodeId 的 id
+ *
+ * 例如 nodeCount = 3 时，节点 0 生成 3、6、9...，节点 1 生成 1、4、7...，节点之间无需协调即可保证唯一。
+ * student.id 是 int 类型，放不下 snowflake 这类 64 位 id，因此采用步长的方式。
+ *
+ * 节点重启之后，需要以所有分片中 max(id) 作为 initialValue 重新创建。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class StripedIdGenerator implements IdGenerator {
+
+    private final int nodeId;
+
+    private final int nodeCount;
+
+    /**
+     * 当前节点已生成的最大 id
+     */
+    private final AtomicLong current;
+
+    public StripedIdGenerator(int nodeId, int nodeCount, long initialValue) {
+        if (nodeCount <= 0 || nodeId < 0 || nodeId >= nodeCount) {
+            throw new IllegalArgumentException("Invalid nodeId " + nodeId + " for nodeCount " + nodeCount);
+        }
+        this.nodeId = nodeId;
+        this.nodeCount = nodeCount;
+        // 对齐到本节点的步长上，使第一次 nextId 得到大于 initialValue 的第一个合法 id
+        long base = initialValue - Math.floorMod(initialValue, nodeCount) + nodeId;
+        this.current = new AtomicLong(base > initialValue ? base - nodeCount : base);
+    }
+
+    @Override
+    public long nextId() {
+        return current.addAndGet(nodeCount);
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+}
@@ -0,0 +1,31 @@
+package com.sumkor.plugin.sort;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 排序参数：列名（或属性名）与方向，由 {@link SortInterceptor} 校验之后拼接到 SQL 中
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@AllArgsConstructor
+@Getter
+public class Sort {
+
+    private final String column;
+
+    private final Direction direction;
+
+    public static Sort asc(String column) {
+        return new Sort(column, Direction.ASC);
+    }
+
+    public static Sort desc(String column) {
+        return new Sort(column, Direction.DESC);
+    }
+
+    public enum Direction {
+        ASC, DESC
+    }
+}
@@ -0,0 +1,162 @@
+package com.sumkor.plugin.sort;
+
+import com.sumkor.plugin.MappedStatements;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 安全的动态排序，用于替代 order by ${columnName}
+ *
+ * ${} 直接拼接字符串，存在 SQL 注入的风险；而且每个不同的列名都得到不同的 SQL，每次都要重新生成 SQL 字符串。
+ * @see org.apache.ibatis.scripting.xmltags.TextSqlNode
+ *
+ * 这里的做法：
+ * 1. 排序列只能是查询结果映射的列（也可以写属性名），其余一律拒绝；
+ * 2. 每个 (语句, 列, 方向) 组合只生成一次 MappedStatement 并缓存。对于静态 SQL，排序后的 SQL 也只生成一次，
+ *    同一个组合每次执行的 SQL 文本完全一致，可以复用 PreparedStatement。
+ *
+ * 被排序的语句本身不能包含 ORDER BY。
+ * 与 {@link com.sumkor.plugin.PageInterceptor} 一起使用时，该插件需要配置在其后面，使得先排序、再分页。
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+@Intercepts({
+        @Signature(
+                type = Executor.class,
+                method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}
+        )
+})
+public class SortInterceptor implements Interceptor {
+
+    private static final int MAPPED_STATEMENT_INDEX = 0;
+
+    /**
+     * 语句 id -> 允许排序的列，key 为大写的列名、属性名
+     */
+    private final Map<String, Map<String, String>> sortableColumns = new ConcurrentHashMap<>();
+
+    /**
+     * 语句 id + 列 + 方向 -> 排序后的 MappedStatement
+     */
+    private final Map<String, MappedStatement> sortedStatements = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Sort sort = SortUtil.getSort();
+        if (sort == null) {
+            return invocation.proceed();
+        }
+        try {
+            Object[] args = invocation.getArgs();
+            args[MAPPED_STATEMENT_INDEX] = sorted((MappedStatement) args[MAPPED_STATEMENT_INDEX], sort);
+            return invocation.proceed();
+        } finally {
+            SortUtil.removeSort();
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    /**
+     * 获取排序后的 MappedStatement，同一个组合返回同一个对象
+     */
+    public MappedStatement sorted(MappedStatement ms, Sort sort) {
+        Map<String, String> columns = sortableColumns.computeIfAbsent(ms.getId(), id -> sortableColumns(ms));
+        String column = sort.getColumn() == null ? null : columns.get(sort.getColumn().toUpperCase(Locale.ENGLISH));
+        if (column == null) {
+            throw new ExecutorException("Cannot sort " + ms.getId() + " by '" + sort.getColumn() + "', sortable columns are " + columns.values());
+        }
+        String orderBy = " order by " + column + " " + sort.getDirection().name().toLowerCase(Locale.ENGLISH);
+        return sortedStatements.computeIfAbsent(ms.getId() + orderBy, key -> MappedStatements.copy(ms, sortedSqlSource(ms, orderBy)));
+    }
+
+    /**
+     * 静态 SQL 直接生成排序后的 StaticSqlSource；动态 SQL 只能在每次生成 SQL 之后再追加 ORDER BY
+     */
+    private static SqlSource sortedSqlSource(MappedStatement ms, String orderBy) {
+        SqlSource sqlSource = ms.getSqlSource();
+        if (sqlSource instanceof RawSqlSource || sqlSource instanceof StaticSqlSource) {
+            BoundSql boundSql = sqlSource.getBoundSql(null);
+            return new StaticSqlSource(ms.getConfiguration(), boundSql.getSql() + orderBy, boundSql.getParameterMappings());
+        }
+        return parameterObject -> {
+            BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+            return MappedStatements.copy(boundSql, boundSql.getSql() + orderBy, ms);
+        };
+    }
+
+    /**
+     * 从结果映射中收集允许排序的列。
+     * 使用 resultType 自动映射时，ResultMap 中没有 ResultMapping，按结果类型的属性推导列名
+     */
+    private static Map<String, String> sortableColumns(MappedStatement ms) {
+        Configuration configuration = ms.getConfiguration();
+        Map<String, String> columns = new HashMap<>();
+        for (ResultMap resultMap : ms.getResultMaps()) {
+            if (resultMap.getResultMappings().isEmpty()) {
+                Reflector reflector = configuration.getReflectorFactory().findForClass(resultMap.getType());
+                for (String property : reflector.getSetablePropertyNames()) {
+                    String column = configuration.isMapUnderscoreToCamelCase() ? underscore(property) : property;
+                    columns.put(property.toUpperCase(Locale.ENGLISH), column);
+                    columns.put(column.toUpperCase(Locale.ENGLISH), column);
+                }
+                continue;
+            }
+            for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+                String column = resultMapping.getColumn();
+                if (column == null || resultMapping.isCompositeResult()
+                        || resultMapping.getNestedQueryId() != null || resultMapping.getNestedResultMapId() != null) {
+                    continue;
+                }
+                columns.put(column.toUpperCase(Locale.ENGLISH), column);
+                if (resultMapping.getProperty() != null) {
+                    columns.put(resultMapping.getProperty().toUpperCase(Locale.ENGLISH), column);
+                }
+            }
+        }
+        return Collections.unmodifiableMap(columns);
+    }
+
+    /**
+     * gmtCreated -> gmt_created
+     */
+    private static String underscore(String property) {
+        StringBuilder builder = new StringBuilder(property.length() + 4);
+        for (int i = 0; i < property.length(); i++) {
+            char c = property.charAt(i);
+            if (Character.isUpperCase(c)) {
+                builder.append('_').append(Character.toLowerCase(c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
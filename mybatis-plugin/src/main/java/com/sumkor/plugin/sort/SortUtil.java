@@ -0,0 +1,24 @@
+package com.sumkor.plugin.sort;
+
+/**
+ * 与 {@link com.sumkor.plugin.page.PageUtil} 一致，通过 ThreadLocal 传递排序参数，只对下一次查询生效
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class SortUtil {
+
+    private static final ThreadLocal<Sort> LOCAL_SORT = new ThreadLocal<>();
+
+    public static void setSort(Sort sort) {
+        LOCAL_SORT.set(sort);
+    }
+
+    public static void removeSort() {
+        LOCAL_SORT.remove();
+    }
+
+    public static Sort getSort() {
+        return LOCAL_SORT.get();
+    }
+}
@@ -0,0 +1,197 @@
+package com.sumkor;
+
+import com.sumkor.entity.Student;
+import com.sumkor.mapper.StudentMapper;
+import com.sumkor.plugin.dirty.DirtyTrackingInterceptor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 脏字段更新：只 SET 修改过的列
+ * @see com.sumkor.plugin.dirty.DirtyTrackingInterceptor
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class DirtyUpdateTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    /**
+     * 执行的 update 语句
+     */
+    private static final List<String> updates = new CopyOnWriteArrayList<>();
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Reader reader = Resources.getResourceAsReader("mybatis-config-h2.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        sqlSessionFactory.getConfiguration().addInterceptor(new DirtyTrackingInterceptor("com.sumkor.mapper.StudentMapper.updateByPrimaryKey"));
+        sqlSessionFactory.getConfiguration().addInterceptor(new UpdateSqlInterceptor());
+
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    @Before
+    public void clear() {
+        updates.clear();
+    }
+
+    /**
+     * 只修改了 locked，只更新 locked 列，同一组列每次得到相同的 SQL
+     */
+    @Test
+    public void partial() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            StudentMapper studentMapper = sqlSession.getMapper(StudentMapper.class);
+            Student student = studentMapper.selectByPrimaryKey(1);
+            student.setLocked((byte) 1);
+            Assert.assertEquals(1, studentMapper.updateByPrimaryKey(student));
+            sqlSession.commit();
+
+            student.setLocked((byte) 0);
+            Assert.assertEquals(1, studentMapper.updateByPrimaryKey(student));
+            student.setName("小明明");
+            student.setEmail(null);
+            Assert.assertEquals(1, studentMapper.updateByPrimaryKey(student));
+            sqlSession.commit();
+        }
+        System.out.println("\r\n updates = " + updates + "\r\n");
+        Assert.assertEquals(3, updates.size());
+        Assert.assertEquals("update student set locked = ? where id = ?", updates.get(0));
+        Assert.assertSame(updates.get(0), updates.get(1));
+        Assert.assertEquals("update student set name = ?, email = ? where id = ?", updates.get(2));
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Student student = sqlSession.getMapper(StudentMapper.class).selectByPrimaryKey(1);
+            Assert.assertEquals("小明明", student.getName());
+            Assert.assertEquals("13821378270", student.getPhone());
+            Assert.assertNull(student.getEmail());
+            Assert.assertEquals(Byte.valueOf((byte) 0), student.getLocked());
+        }
+    }
+
+    /**
+     * 没有修改，不访问数据库，按匹配到一行返回 1
+     */
+    @Test
+    public void unchanged() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            StudentMapper studentMapper = sqlSession.getMapper(StudentMapper.class);
+            Student student = studentMapper.selectByPrimaryKey(2);
+            Assert.assertEquals(1, studentMapper.updateByPrimaryKey(student));
+            sqlSession.commit();
+        }
+        Assert.assertTrue(updates.isEmpty());
+    }
+
+    /**
+     * 没有快照的实体按原语句更新全部字段；回滚之后快照失效，同样更新全部字段
+     */
+    @Test
+    public void fullUpdate() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            StudentMapper studentMapper = sqlSession.getMapper(StudentMapper.class);
+            Student student = studentMapper.selectByPrimaryKey(3);
+            Student copy = new Student();
+            copy.setId(student.getId());
+            copy.setName(student.getName());
+            copy.setSex(student.getSex());
+            copy.setLocked((byte) 1);
+            studentMapper.updateByPrimaryKey(copy);
+
+            student.setLocked((byte) 1);
+            studentMapper.updateByPrimaryKey(student);
+            sqlSession.rollback();
+            studentMapper.updateByPrimaryKey(student);
+            sqlSession.commit();
+        }
+        System.out.println("\r\n updates = " + updates + "\r\n");
+        Assert.assertEquals(3, updates.size());
+        Assert.assertTrue(updates.get(0).contains("phone"));
+        Assert.assertEquals("update student set locked = ? where id = ?", updates.get(1));
+        Assert.assertTrue(updates.get(2).contains("phone"));
+    }
+
+    /**
+     * SET 中不是 列 = #{属性} 的项、WHERE 中主键以外的条件，都不能按脏字段改写，启用时即报错
+     */
+    @Test
+    public void rejectNonPrimaryKeyUpdate() throws Exception {
+        String[] scripts = {
+                // 乐观锁条件
+                "update student set locked = #{locked} where id = #{id} and name = #{name}",
+                // 不来自参数的列
+                "update student set locked = #{locked}, gmt_modified = now() where id = #{id}",
+                // 列与 resultMap 中属性映射的列不一致
+                "update student set phone = #{name} where id = #{id}",
+                // 表达式
+                "update student set locked = #{locked} + 1 where id = #{id}",
+        };
+        for (int i = 0; i < scripts.length; i++) {
+            String id = "rejected" + i;
+            Reader reader = Resources.getResourceAsReader("mybatis-config-h2.xml");
+            Configuration configuration = new SqlSessionFactoryBuilder().build(reader).getConfiguration();
+            SqlSource sqlSource = configuration.getDefaultScriptingLanguageInstance().createSqlSource(configuration, scripts[i], Student.class);
+            configuration.addMappedStatement(new MappedStatement.Builder(configuration, id, sqlSource, SqlCommandType.UPDATE)
+                    .parameterMap(new ParameterMap.Builder(configuration, id + "-Inline", Student.class, new ArrayList<>()).build())
+                    .build());
+            configuration.addInterceptor(new DirtyTrackingInterceptor(id));
+            try (SqlSession sqlSession = new DefaultSqlSessionFactory(configuration).openSession()) {
+                Student student = new Student();
+                student.setId(1);
+                sqlSession.update(id, student);
+                Assert.fail(scripts[i]);
+            } catch (PersistenceException e) {
+                System.out.println("\r\n e = " + e.getCause() + "\r\n");
+                Assert.assertTrue(e.getCause() instanceof ExecutorException);
+            }
+        }
+    }
+
+    @Intercepts({@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class})})
+    public static class UpdateSqlInterceptor implements Interceptor {
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            String sql = ((StatementHandler) invocation.getTarget()).getBoundSql().getSql();
+            if (sql.trim().toLowerCase().startsWith("update")) {
+                updates.add(sql);
+            }
+            return invocation.proceed();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.sumkor;
+
+import com.sumkor.entity.Student;
+import com.sumkor.mapper.StudentMapper;
+import com.sumkor.plugin.result.IndexedResultSetInterceptor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按列下标映射结果集，结果与 MyBatis 默认的映射一致
+ * @see com.sumkor.plugin.result.IndexedResultSetInterceptor
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class IndexedResultSetTest {
+
+    private static final int GENERATED = 20000;
+
+    private static SqlSessionFactory defaultFactory;
+
+    private static SqlSessionFactory indexedFactory;
+
+    private static IndexedResultSetInterceptor interceptor = new IndexedResultSetInterceptor();
+
+    @BeforeClass
+    public static void init() throws Exception {
+        // 两个 SqlSessionFactory 使用同一个内存数据库，只有 indexedFactory 注册了插件
+        defaultFactory = new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader("mybatis-config-h2.xml"));
+        indexedFactory = new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader("mybatis-config-h2.xml"));
+        indexedFactory.getConfiguration().addInterceptor(interceptor);
+
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = defaultFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+            try (Statement statement = sqlSession.getConnection().createStatement()) {
+                statement.executeUpdate("insert into student (name, phone, email, sex, locked) " +
+                        "select concat('s', x), '13800000000', null, mod(x, 2), 0 from system_range(1, " + GENERATED + ")");
+            }
+            sqlSession.commit();
+        }
+    }
+
+    /**
+     * 逐个字段与默认映射的结果比较，null 列保持为 null
+     */
+    @Test
+    public void sameResults() {
+        List<Student> expected = selectAll(defaultFactory);
+        List<Student> actual = selectAll(indexedFactory);
+        Assert.assertEquals(GENERATED + 6, actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+        Assert.assertNull(actual.get(GENERATED).getEmail());
+
+        // selectByPrimaryKeys 与 selectAll 的 resultMap、列相同，复用同一个映射计划
+        try (SqlSession sqlSession = indexedFactory.openSession()) {
+            List<Student> students = sqlSession.getMapper(StudentMapper.class).selectByPrimaryKeys(Arrays.asList(1, 2));
+            Assert.assertEquals(2, students.size());
+            assertSame(expected.get(0), students.get(0));
+        }
+        Assert.assertEquals(1, interceptor.getPlanCount());
+    }
+
+    /**
+     * 带 RowBounds 的查询、自动映射遇到无法映射的列（select * 中的 delete 列），交给 MyBatis 处理
+     */
+    @Test
+    public void fallback() {
+        long fallbacks = interceptor.getFallbackCount();
+        try (SqlSession sqlSession = indexedFactory.openSession()) {
+            List<Student> students = sqlSession.selectList("com.sumkor.mapper.StudentMapper.selectAll", null, new RowBounds(1, 2));
+            Assert.assertEquals(2, students.size());
+            Assert.assertEquals("大明", students.get(0).getName());
+            Assert.assertEquals("小明", sqlSession.getMapper(StudentMapper.class).selectByPrimaryKey(1).getName());
+        }
+        Assert.assertEquals(fallbacks + 2, interceptor.getFallbackCount());
+    }
+
+    /**
+     * 关闭逐行的结果日志，比较两种映射方式的耗时
+     */
+    @Test
+    public void throughput() {
+        Logger logger = Logger.getLogger("com.sumkor.mapper");
+        Level level = logger.getLevel();
+        logger.setLevel(Level.INFO);
+        try {
+            for (int round = 0; round < 5; round++) {
+                long defaultNanos = time(defaultFactory);
+                long indexedNanos = time(indexedFactory);
+                System.out.println("\r\n round " + round + ": default = " + defaultNanos / 1000000 + "ms, indexed = " + indexedNanos / 1000000 + "ms\r\n");
+            }
+        } finally {
+            logger.setLevel(level);
+        }
+    }
+
+    private static void assertSame(Student expected, Student actual) {
+        Assert.assertEquals(expected.getId(), actual.getId());
+        Assert.assertEquals(expected.getName(), actual.getName());
+        Assert.assertEquals(expected.getPhone(), actual.getPhone());
+        Assert.assertEquals(expected.getEmail(), actual.getEmail());
+        Assert.assertEquals(expected.getSex(), actual.getSex());
+        Assert.assertEquals(expected.getLocked(), actual.getLocked());
+        Assert.assertEquals(expected.getGmtCreated(), actual.getGmtCreated());
+        Assert.assertEquals(expected.getGmtModified(), actual.getGmtModified());
+    }
+
+    private static long time(SqlSessionFactory sqlSessionFactory) {
+        long start = System.nanoTime();
+        Assert.assertEquals(GENERATED + 6, selectAll(sqlSessionFactory).size());
+        return System.nanoTime() - start;
+    }
+
+    private static List<Student> selectAll(SqlSessionFactory sqlSessionFactory) {
+        // StudentMapper.xml 开启了二级缓存，每次清空，保证结果来自数据库
+        sqlSessionFactory.getConfiguration().getCache("com.sumkor.mapper.StudentMapper").clear();
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            return sqlSession.getMapper(StudentMapper.class).selectAll();
+        }
+    }
+}
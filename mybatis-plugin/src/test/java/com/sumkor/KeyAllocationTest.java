@@ -0,0 +1,157 @@
+package com.sumkor;
+
+import com.sumkor.entity.Student;
+import com.sumkor.mapper.StudentMapper;
+import com.sumkor.plugin.keygen.HiLoIdGenerator;
+import com.sumkor.plugin.keygen.KeyAllocationInterceptor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 插入前由 hi/lo 号段分配主键，代替 useGeneratedKeys
+ * @see com.sumkor.plugin.keygen.KeyAllocationInterceptor
+ * @see com.sumkor.plugin.keygen.HiLoIdGenerator
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class KeyAllocationTest {
+
+    private static final int BLOCK_SIZE = 100;
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    private HiLoIdGenerator idGenerator;
+
+    @Before
+    public void init() throws Exception {
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader("mybatis-config-h2.xml"));
+        DataSource dataSource = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+        idGenerator = new HiLoIdGenerator(dataSource, "student", BLOCK_SIZE);
+        Map<String, String> statements = new HashMap<>();
+        statements.put("com.sumkor.mapper.StudentMapper.insert", "com.sumkor.mapper.StudentMapper.insertWithId");
+        statements.put("com.sumkor.mapper.StudentMapper.insertBatch", "com.sumkor.mapper.StudentMapper.insertBatchWithId");
+        sqlSessionFactory.getConfiguration().addInterceptor(new KeyAllocationInterceptor<>(idGenerator, Student.class,
+                Student::getId, (student, id) -> student.setId(Math.toIntExact(id)), statements));
+
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    /**
+     * BATCH 执行器下逐行 insert，执行之后即可得到 id，每 BLOCK_SIZE 行才访问一次号段表
+     */
+    @Test
+    public void batch() {
+        List<Student> students = students(1000);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            StudentMapper studentMapper = sqlSession.getMapper(StudentMapper.class);
+            for (Student student : students) {
+                studentMapper.insert(student);
+                // 不需要等到 flushStatements
+                Assert.assertNotNull(student.getId());
+            }
+            sqlSession.commit();
+        }
+        System.out.println("\r\n reservations = " + idGenerator.getReservations() + "\r\n");
+        Assert.assertEquals(1000 / BLOCK_SIZE, idGenerator.getReservations());
+        // 号段从 id_sequence 中的初始值 7 开始，不与已有数据冲突
+        Assert.assertEquals(Integer.valueOf(7), students.get(0).getId());
+        Assert.assertEquals(Integer.valueOf(1006), students.get(999).getId());
+        assertPersisted(students);
+    }
+
+    /**
+     * foreach 多行插入，每个元素都分配了 id；已经指定 id 的保持不变
+     */
+    @Test
+    public void multiRow() {
+        List<Student> students = students(250);
+        students.get(0).setId(5000);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Assert.assertEquals(250, sqlSession.insert("com.sumkor.mapper.StudentMapper.insertBatch", students));
+            sqlSession.commit();
+        }
+        Assert.assertEquals(Integer.valueOf(5000), students.get(0).getId());
+        Assert.assertEquals(Integer.valueOf(7), students.get(1).getId());
+        Assert.assertEquals(3, idGenerator.getReservations());
+        assertPersisted(students);
+    }
+
+    /**
+     * 两个生成器共用号段表（相当于两个应用节点），并发分配的 id 不重复
+     */
+    @Test
+    public void concurrent() throws Exception {
+        DataSource dataSource = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+        HiLoIdGenerator another = new HiLoIdGenerator(dataSource, "student", 10);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                HiLoIdGenerator generator = i % 2 == 0 ? idGenerator : another;
+                futures.add(executorService.submit(() -> {
+                    for (int j = 0; j < 500; j++) {
+                        Assert.assertTrue(ids.add(generator.nextId()));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        Assert.assertEquals(2000, ids.size());
+    }
+
+    private void assertPersisted(List<Student> students) {
+        Set<Integer> ids = new HashSet<>();
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            StudentMapper studentMapper = sqlSession.getMapper(StudentMapper.class);
+            for (Student student : students) {
+                Assert.assertTrue(ids.add(student.getId()));
+                Assert.assertEquals(student.getName(), studentMapper.selectByPrimaryKey(student.getId()).getName());
+            }
+        }
+    }
+
+    private static List<Student> students(int count) {
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Student student = new Student();
+            student.setName("s" + i);
+            student.setPhone("13800000000");
+            student.setSex((byte) 1);
+            student.setLocked((byte) 0);
+            students.add(student);
+        }
+        return students;
+    }
+}
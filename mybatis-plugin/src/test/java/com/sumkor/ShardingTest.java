@@ -0,0 +1,179 @@
+package com.sumkor;
+
+import com.sumkor.entity.Student;
+import com.sumkor.mapper.StudentMapper;
+import com.sumkor.plugin.shard.ShardSql;
+import com.sumkor.plugin.shard.ShardingInterceptor;
+import com.sumkor.plugin.shard.StripedIdGenerator;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按 id 分库
+ * @see com.sumkor.plugin.shard.ShardingInterceptor
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class ShardingTest {
+
+    private static final int STUDENT_COUNT = 10;
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private static List<DataSource> shards = new ArrayList<>();
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Reader reader = Resources.getResourceAsReader("mybatis-config-h2.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+
+        // 两个分片，只建表，不导入数据
+        Resources.setCharset(StandardCharsets.UTF_8);
+        for (int i = 0; i < 2; i++) {
+            DataSource dataSource = new PooledDataSource("org.h2.Driver", "jdbc:h2:mem:shard" + i + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+            try (Connection connection = dataSource.getConnection()) {
+                ScriptRunner scriptRunner = new ScriptRunner(connection);
+                scriptRunner.setLogWriter(null);
+                scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            }
+            shards.add(dataSource);
+        }
+        sqlSessionFactory.getConfiguration().addInterceptor(
+                new ShardingInterceptor(shards, new StripedIdGenerator(0, 1, 0), "com.sumkor.mapper.StudentMapper"));
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            StudentMapper studentMapper = sqlSession.getMapper(StudentMapper.class);
+            for (int i = 0; i < STUDENT_COUNT; i++) {
+                Student student = new Student();
+                student.setName("student" + i);
+                studentMapper.insertWithId(student);
+                Assert.assertNotNull(student.getId());
+            }
+            sqlSession.commit();
+        }
+    }
+
+    /**
+     * 插入时生成 id，根据 id 路由到各个分片
+     */
+    @Test
+    public void route() throws Exception {
+        int total = 0;
+        for (int i = 0; i < shards.size(); i++) {
+            int count = count(shards.get(i));
+            System.out.println("shard" + i + " count = " + count);
+            Assert.assertTrue(count > 0);
+            total += count;
+        }
+        Assert.assertEquals(STUDENT_COUNT, total);
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            StudentMapper studentMapper = sqlSession.getMapper(StudentMapper.class);
+            for (int id = 1; id <= STUDENT_COUNT; id++) {
+                Student student = studentMapper.selectByPrimaryKey(id);
+                Assert.assertEquals("student" + (id - 1), student.getName());
+            }
+        }
+    }
+
+    /**
+     * 没有分片键的查询，发往所有分片，再按 ORDER BY 归并
+     */
+    @Test
+    public void fanOut() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            StudentMapper studentMapper = sqlSession.getMapper(StudentMapper.class);
+            Assert.assertEquals(STUDENT_COUNT, studentMapper.selectAll().size());
+
+            Map<String, Object> params = new HashMap<>();
+            params.put("bTime", new Date(0));
+            params.put("eTime", new Date(System.currentTimeMillis() + 24 * 3600 * 1000L));
+            params.put("columnName", "id");
+            List<Student> students = studentMapper.selectBetweenCreatedTime(params);
+            System.out.println("students = " + students);
+            for (int i = 0; i < STUDENT_COUNT; i++) {
+                Assert.assertEquals(STUDENT_COUNT - i, students.get(i).getId().intValue());
+            }
+
+            // RowBounds 在归并之后生效
+            List<Student> page = sqlSession.selectList("selectBetweenCreatedTime", params, new RowBounds(2, 3));
+            System.out.println("page = " + page);
+            Assert.assertEquals(3, page.size());
+            Assert.assertEquals(8, page.get(0).getId().intValue());
+            Assert.assertEquals(6, page.get(2).getId().intValue());
+        }
+    }
+
+    /**
+     * 简单类型的参数不是 id 时不能用于路由，例如按姓名查询，发往所有分片
+     */
+    @Test
+    public void selectByName() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            StudentMapper studentMapper = sqlSession.getMapper(StudentMapper.class);
+            for (int i = 0; i < STUDENT_COUNT; i++) {
+                Student student = studentMapper.selectByName("student" + i);
+                Assert.assertNotNull("student" + i, student);
+                Assert.assertEquals(i + 1, student.getId().intValue());
+            }
+        }
+    }
+
+    /**
+     * 依赖数据库自增 id 的插入，无法保证跨分片唯一
+     */
+    @Test(expected = PersistenceException.class)
+    public void generatedKeys() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            sqlSession.getMapper(StudentMapper.class).insert(new Student());
+        }
+    }
+
+    /**
+     * 发往分片的 SQL 需要返回前 offset + limit 行
+     */
+    @Test
+    public void parse() {
+        ShardSql shardSql = ShardSql.parse("select * from student where id in (select id from student limit 3) order by gmt_created desc, s.id limit 5, 10");
+        System.out.println("shardSql = " + shardSql.getShardSql());
+        Assert.assertEquals(5, shardSql.getOffset());
+        Assert.assertEquals(10, shardSql.getLimit());
+        Assert.assertTrue(shardSql.getShardSql().endsWith("limit 15"));
+        Assert.assertEquals("[gmt_created desc, id asc]", shardSql.getOrderBy().toString());
+
+        ShardSql noLimit = ShardSql.parse("select * from student where id in (select id from student order by id limit 3)");
+        Assert.assertFalse(noLimit.hasLimit());
+        Assert.assertTrue(noLimit.getOrderBy().isEmpty());
+    }
+
+    private static int count(DataSource dataSource) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select count(*) from student")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.sumkor;
+
+import com.sumkor.entity.Student;
+import com.sumkor.mapper.StudentMapper;
+import com.sumkor.plugin.sort.Sort;
+import com.sumkor.plugin.sort.SortInterceptor;
+import com.sumkor.plugin.sort.SortUtil;
+import org.apache.commons.lang3.time.DateUtils;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 经过校验、缓存的动态排序，对比 {@link SelectByParamTest} 中的 order by ${columnName}
+ * @see com.sumkor.plugin.sort.SortInterceptor
+ *
+ * @author Sumkor
+ * @since 2026/10/19
+ */
+public class SortTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private static SortInterceptor sortInterceptor = new SortInterceptor();
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Reader reader = Resources.getResourceAsReader("mybatis-config-h2.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        sqlSessionFactory.getConfiguration().addInterceptor(sortInterceptor);
+
+        Resources.setCharset(StandardCharsets.UTF_8);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            ScriptRunner scriptRunner = new ScriptRunner(sqlSession.getConnection());
+            scriptRunner.setLogWriter(null);
+            scriptRunner.runScript(Resources.getResourceAsReader("db/schema-mysql.sql"));
+            scriptRunner.runScript(Resources.getResourceAsReader("db/data-mysql.sql"));
+        }
+    }
+
+    @Test
+    public void sort() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("bTime", DateUtils.parseDate("2018-01-01 00:00:00", "yyyy-MM-dd HH:mm:ss"));
+        params.put("eTime", DateUtils.parseDate("2019-01-01 00:00:00", "yyyy-MM-dd HH:mm:ss"));
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            StudentMapper studentMapper = sqlSession.getMapper(StudentMapper.class);
+
+            SortUtil.setSort(Sort.desc("gmt_created"));
+            List<Student> desc = studentMapper.selectBetweenCreatedTimeSorted(params);
+            System.out.println("desc = " + desc);
+            Assert.assertTrue(desc.size() > 1);
+            Assert.assertNull(SortUtil.getSort());
+            for (int i = 1; i < desc.size(); i++) {
+                Assert.assertTrue(desc.get(i - 1).getGmtCreated().compareTo(desc.get(i).getGmtCreated()) >= 0);
+            }
+
+            // 属性名也可以
+            SortUtil.setSort(Sort.asc("gmtCreated"));
+            List<Student> asc = studentMapper.selectBetweenCreatedTimeSorted(params);
+            Assert.assertEquals(desc.get(0).getId(), asc.get(asc.size() - 1).getId());
+        }
+    }
+
+    /**
+     * 同一个 (语句, 列, 方向) 复用同一个 MappedStatement，静态 SQL 预先生成
+     */
+    @Test
+    public void cached() {
+        MappedStatement ms = sqlSessionFactory.getConfiguration().getMappedStatement("selectBetweenCreatedTimeSorted");
+        MappedStatement sorted = sortInterceptor.sorted(ms, Sort.desc("gmt_created"));
+        Assert.assertSame(sorted, sortInterceptor.sorted(ms, Sort.desc("GMT_CREATED")));
+        Assert.assertSame(sorted, sortInterceptor.sorted(ms, Sort.desc("gmtCreated")));
+        Assert.assertNotSame(sorted, sortInterceptor.sorted(ms, Sort.asc("gmt_created")));
+        Assert.assertTrue(sorted.getSqlSource() instanceof StaticSqlSource);
+        System.out.println("sql = " + sorted.getBoundSql(null).getSql());
+        Assert.assertTrue(sorted.getBoundSql(null).getSql().endsWith("order by gmt_created desc"));
+    }
+
+    /**
+     * 不在结果映射中的列一律拒绝
+     */
+    @Test
+    public void reject() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            SortUtil.setSort(Sort.asc("id; drop table student"));
+            sqlSession.selectList("selectAll");
+            Assert.fail();
+        } catch (PersistenceException e) {
+            System.out.println("e = " + e.getCause().getMessage());
+            Assert.assertNull(SortUtil.getSort());
+        }
+    }
+}